@@ -6,6 +6,7 @@ import java.nio.file.*;
 import java.nio.file.FileSystem;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
@@ -352,6 +353,52 @@ public final class FileUtil {
         return result;
     }
 
+    /**
+     * Compute a SHA1 checksum of the content of a directory. The checksum depends on the relative paths and content of the files but not on their dates.
+     * Hidden directories (name starting with a dot like .git) are ignored.
+     *
+     * @param directory The directory for which to compute the checksum.
+     * @return The hexadecimal representation of the checksum.
+     */
+    @SneakyThrows({ Exception.class })
+    public static String getDirectorySHA1Checksum(final Path directory) {
+        final List<Path> files = Lists.newArrayList();
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(directory) && dir.getFileName().toString().startsWith(".")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+        MessageDigest complete = MessageDigest.getInstance("SHA1");
+        byte[] buffer = new byte[8192];
+        for (Path file : files) {
+            complete.update(getChildEntryRelativePath(directory, file, true).getBytes(Charsets.UTF_8));
+            complete.update((byte) 0);
+            try (InputStream fis = Files.newInputStream(file)) {
+                int numRead;
+                while ((numRead = fis.read(buffer)) != -1) {
+                    complete.update(buffer, 0, numRead);
+                }
+            }
+        }
+        byte[] b = complete.digest();
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < b.length; i++) {
+            result.append(Integer.toString((b[i] & 0xff) + 0x100, 16).substring(1));
+        }
+        return result.toString();
+    }
+
     private static byte[] createSHA1Checksum(Path path) throws Exception {
         try (InputStream fis = Files.newInputStream(path)) {
             byte[] buffer = new byte[1024];
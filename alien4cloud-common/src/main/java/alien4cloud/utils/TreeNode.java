@@ -43,6 +43,30 @@ public class TreeNode implements Comparable<TreeNode> {
         return null;
     }
 
+    /**
+     * Create a deep copy of this node and all it's children. The copy has no parent.
+     *
+     * @return A copy of the tree under this node.
+     */
+    public TreeNode deepCopy() {
+        return deepCopy(null);
+    }
+
+    private TreeNode deepCopy(TreeNode parentCopy) {
+        TreeNode copy = new TreeNode(name);
+        copy.setFullPath(fullPath);
+        copy.setArtifactId(artifactId);
+        copy.setLeaf(isLeaf);
+        copy.setParent(parentCopy);
+        if (children != null) {
+            copy.setChildren(new TreeSet<>());
+            for (TreeNode child : children) {
+                copy.getChildren().add(child.deepCopy(copy));
+            }
+        }
+        return copy;
+    }
+
     @Override
     public int compareTo(TreeNode o) {
         return this.name.compareTo(o.getName());
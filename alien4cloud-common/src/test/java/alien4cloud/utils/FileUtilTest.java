@@ -0,0 +1,60 @@
+package alien4cloud.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+
+public class FileUtilTest {
+    private Path tempDir;
+
+    @Before
+    public void init() throws IOException {
+        tempDir = Files.createTempDirectory("file-util-test");
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        FileUtil.delete(tempDir);
+    }
+
+    @Test
+    public void directoryChecksumDependsOnlyOnPathsAndContents() throws IOException {
+        Path first = createArchive("first");
+        Path second = createArchive("second");
+        Files.setLastModifiedTime(second.resolve("types.yml"), FileTime.fromMillis(0));
+        // hidden directories (git metadata) are ignored.
+        write(second.resolve(".git").resolve("HEAD"), "ref: refs/heads/master");
+        Assert.assertEquals(FileUtil.getDirectorySHA1Checksum(first), FileUtil.getDirectorySHA1Checksum(second));
+
+        write(second.resolve("types.yml"), "updated");
+        Assert.assertNotEquals(FileUtil.getDirectorySHA1Checksum(first), FileUtil.getDirectorySHA1Checksum(second));
+    }
+
+    @Test
+    public void directoryChecksumDependsOnFileNames() throws IOException {
+        Path first = createArchive("first");
+        Path second = createArchive("second");
+        Files.move(second.resolve("scripts").resolve("create.sh"), second.resolve("scripts").resolve("start.sh"));
+        Assert.assertNotEquals(FileUtil.getDirectorySHA1Checksum(first), FileUtil.getDirectorySHA1Checksum(second));
+    }
+
+    private Path createArchive(String name) throws IOException {
+        Path archive = tempDir.resolve(name);
+        write(archive.resolve("types.yml"), "tosca_definitions_version: alien_dsl_1_2_0");
+        write(archive.resolve("scripts").resolve("create.sh"), "echo create");
+        return archive;
+    }
+
+    private void write(Path path, String content) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(Charsets.UTF_8));
+    }
+}
@@ -22,7 +22,8 @@ import org.springframework.stereotype.Component;
 
 import alien4cloud.dao.ElasticSearchDAO;
 import alien4cloud.dao.IGenericSearchDAO;
-import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.dao.IScrollIterator;
+import alien4cloud.dao.WriteConsistency;
 import alien4cloud.exception.IndexingServiceException;
 import alien4cloud.images.IImageDAO;
 import alien4cloud.model.common.Tag;
@@ -30,11 +31,12 @@ import alien4cloud.model.components.CSARDependency;
 import alien4cloud.model.components.IndexedInheritableToscaElement;
 import alien4cloud.model.components.IndexedModelUtils;
 import alien4cloud.model.components.IndexedToscaElement;
+import alien4cloud.topology.validation.NodeTemplatesValidationService;
 import alien4cloud.tosca.ArchiveImageLoader;
 import alien4cloud.tosca.normative.ToscaType;
-import alien4cloud.utils.MapUtil;
 import alien4cloud.utils.VersionUtil;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -42,12 +44,27 @@ import static alien4cloud.utils.AlienUtils.safe;
 
 @Component
 public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerService {
+    /** Maximum number of elements per multi-search or bulk request when indexing the elements of an archive. */
+    private static final int BULK_CHUNK_SIZE = 500;
+    /** Number of elements fetched by a single request when iterating over the elements of an archive. */
+    private static final int SCROLL_BATCH_SIZE = 100;
+
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
     @Resource
     private ElasticSearchClient elasticSearchClient;
     @Resource
     private IImageDAO imageDAO;
+    @Resource
+    private ToscaElementCache toscaElementCache;
+    @Resource
+    private NodeTemplatesValidationService nodeTemplatesValidationService;
+
+    private void invalidateCaches(String archiveName, String archiveVersion) {
+        toscaElementCache.invalidate(archiveName, archiveVersion);
+        // validation results of the topologies that use the archive types may change.
+        nodeTemplatesValidationService.invalidate(archiveName, archiveVersion);
+    }
 
     private void refreshIndexForSearching() {
         elasticSearchClient.getClient().admin().indices().prepareRefresh(ElasticSearchDAO.TOSCA_ELEMENT_INDEX).execute().actionGet();
@@ -60,16 +77,15 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
 
     @Override
     public <T extends IndexedToscaElement> Map<String, T> getArchiveElements(String archiveName, String archiveVersion, Class<T> type) {
-        GetMultipleDataResult<T> elements = alienDAO.find(type, MapUtil.newHashMap(new String[]{"archiveName", "archiveVersion"},
-                new String[][]{new String[]{archiveName}, new String[]{archiveVersion}}), Integer.MAX_VALUE);
+        QueryBuilder query = QueryBuilders.boolQuery().must(QueryBuilders.termQuery("archiveName", archiveName))
+                .must(QueryBuilders.termQuery("archiveVersion", archiveVersion));
 
         Map<String, T> elementsByIds = Maps.newHashMap();
-        if (elements == null) {
-            return elementsByIds;
-        }
-
-        for (T element : elements.getData()) {
-            elementsByIds.put(element.getId(), element);
+        try (IScrollIterator<T> elements = alienDAO.scroll(type, query, null, SCROLL_BATCH_SIZE)) {
+            while (elements.hasNext()) {
+                T element = elements.next();
+                elementsByIds.put(element.getId(), element);
+            }
         }
         return elementsByIds;
     }
@@ -79,25 +95,53 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
 
         FilterBuilder filter = FilterBuilders.boolFilter().must(FilterBuilders.termFilter("archiveName", archiveName))
                 .must(FilterBuilders.termFilter("archiveVersion", archiveVersion));
-        GetMultipleDataResult<IndexedToscaElement> result = alienDAO.search(IndexedToscaElement.class, null, null, filter, null, 0, Integer.MAX_VALUE);
-        IndexedToscaElement[] elements = result.getData();
 
-        // we need to delete each element and find the new highest version element
-        for (IndexedToscaElement element : elements) {
-            deleteElement(element);
+        // we need to delete each element and find the new highest version element, elements are streamed as an archive may contain a lot of them.
+        try (IScrollIterator<IndexedToscaElement> elements = alienDAO.scroll(IndexedToscaElement.class, QueryBuilders.constantScoreQuery(filter), null,
+                SCROLL_BATCH_SIZE)) {
+            while (elements.hasNext()) {
+                deleteElement(elements.next());
+            }
         }
+        // caches are invalidated once the deletions are searchable so they are not populated again with deleted elements.
+        refreshIndexForSearching();
+        invalidateCaches(archiveName, archiveVersion);
 
     }
 
     @Override
     public void indexInheritableElements(String archiveName, String archiveVersion, Map<String, ? extends IndexedInheritableToscaElement> archiveElements,
                                          Collection<CSARDependency> dependencies) {
-        for (IndexedInheritableToscaElement element : safe(archiveElements).values()) {
+        List<IndexedInheritableToscaElement> elements = Lists.newArrayList(safe(archiveElements).values());
+        if (elements.isEmpty()) {
+            return;
+        }
+        for (IndexedInheritableToscaElement element : elements) {
             element.setLastUpdateDate(new Date());
             Date creationDate = element.getCreationDate() == null ? element.getLastUpdateDate() : element.getCreationDate();
             element.setCreationDate(creationDate);
-            saveAndUpdateHighestVersion(element);
         }
+        // resolve the current highest versions of all elements with multi-search requests then write everything with bulk requests.
+        List<Object> toSave = Lists.newArrayList();
+        for (List<IndexedInheritableToscaElement> chunk : Lists.partition(elements, BULK_CHUNK_SIZE)) {
+            Class<?>[] classes = new Class<?>[chunk.size()];
+            QueryBuilder[] queries = new QueryBuilder[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                classes[i] = chunk.get(i).getClass();
+                queries[i] = getHighestVersionQuery(chunk.get(i));
+            }
+            List<Object> highestVersionElements = alienDAO.customFindMultiple(classes, queries);
+            for (int i = 0; i < chunk.size(); i++) {
+                toSave.addAll(updateHighestVersion(chunk.get(i), (IndexedToscaElement) highestVersionElements.get(i)));
+            }
+        }
+        for (List<Object> chunk : Lists.partition(toSave, BULK_CHUNK_SIZE)) {
+            alienDAO.save(chunk.toArray(), WriteConsistency.EVENTUAL);
+        }
+        refreshIndexForSearching();
+        // SNAPSHOT archives may be overridden, cached elements of the archive are no more valid. This is done once the new elements are searchable so a
+        // concurrent lookup cannot cache the previous elements again.
+        invalidateCaches(archiveName, archiveVersion);
     }
 
     @Override
@@ -132,6 +176,8 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
             }
         }
         saveAndUpdateHighestVersion(element);
+        // the element is searchable, cached elements of the archive can be invalidated.
+        invalidateCaches(archiveName, archiveVersion);
     }
 
     /**
@@ -197,12 +243,29 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
     }
 
     private void saveAndUpdateHighestVersion(IndexedToscaElement element) {
+        IndexedToscaElement highestVersionElement = alienDAO.customFind(element.getClass(), getHighestVersionQuery(element));
+        for (IndexedToscaElement toSave : updateHighestVersion(element, highestVersionElement)) {
+            alienDAO.save(toSave);
+        }
+        refreshIndexForSearching();
+    }
+
+    private QueryBuilder getHighestVersionQuery(IndexedToscaElement element) {
         BoolQueryBuilder highestVersionElementQueryBuilder = QueryBuilders.boolQuery();
         QueryBuilder archiveNameMatch = QueryBuilders.termQuery("archiveName", element.getArchiveName());
         QueryBuilder elementIdMatch = QueryBuilders.matchQuery("elementId", element.getElementId().toLowerCase());
         QueryBuilder beHighestVersion = QueryBuilders.termQuery("highestVersion", true);
-        highestVersionElementQueryBuilder.must(archiveNameMatch).must(elementIdMatch).must(beHighestVersion);
-        IndexedToscaElement highestVersionElement = alienDAO.customFind(element.getClass(), highestVersionElementQueryBuilder);
+        return highestVersionElementQueryBuilder.must(archiveNameMatch).must(elementIdMatch).must(beHighestVersion);
+    }
+
+    /**
+     * Update the <code>highestVersion<code> and <code>olderVersions</code> properties of an element to index and of the current highest version element.
+     *
+     * @param element The element to index.
+     * @param highestVersionElement The current highest version of the element, null if no other version is indexed.
+     * @return The list of elements to save, in the order in which they should be saved.
+     */
+    private List<IndexedToscaElement> updateHighestVersion(IndexedToscaElement element, IndexedToscaElement highestVersionElement) {
         if (highestVersionElement != null) {
             int compareVersionResult = VersionUtil.compare(element.getArchiveVersion(), highestVersionElement.getArchiveVersion());
             if (compareVersionResult > 0) {
@@ -214,13 +277,12 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
                 newOlderVersions.add(highestVersionElement.getArchiveVersion());
                 element.setOlderVersions(newOlderVersions);
                 highestVersionElement.setOlderVersions(null);
-                alienDAO.save(element);
-                alienDAO.save(highestVersionElement);
+                return Lists.newArrayList(element, highestVersionElement);
             } else if (compareVersionResult == 0) {
                 // The same version as the highest --> override
                 element.setHighestVersion(true);
                 element.setOlderVersions(highestVersionElement.getOlderVersions());
-                alienDAO.save(element);
+                return Lists.newArrayList(element);
             } else {
                 // Current version is more recent than mine, just save
                 Set<String> currentOlderVersions = highestVersionElement.getOlderVersions();
@@ -229,15 +291,12 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
                     highestVersionElement.setOlderVersions(currentOlderVersions);
                 }
                 currentOlderVersions.add(element.getArchiveVersion());
-                alienDAO.save(highestVersionElement);
-                alienDAO.save(element);
+                return Lists.newArrayList(highestVersionElement, element);
             }
-        } else {
-            // No element found with other version, I'm the highest version
-            element.setHighestVersion(true);
-            alienDAO.save(element);
         }
-        refreshIndexForSearching();
+        // No element found with other version, I'm the highest version
+        element.setHighestVersion(true);
+        return Lists.newArrayList(element);
     }
 
     private static void addArchiveToQuery(BoolQueryBuilder boolQueryBuilder, String elementId, String archiveName, String archiveVersion) {
@@ -256,8 +315,17 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
 
     @Override
     public void deleteElements(Collection<IndexedToscaElement> elements) {
+        Set<CSARDependency> archives = Sets.newHashSet();
         for (IndexedToscaElement element : elements) {
             deleteElement(element);
+            archives.add(new CSARDependency(element.getArchiveName(), element.getArchiveVersion()));
+        }
+        if (archives.isEmpty()) {
+            return;
+        }
+        refreshIndexForSearching();
+        for (CSARDependency archive : archives) {
+            invalidateCaches(archive.getName(), archive.getVersion());
         }
     }
 }
\ No newline at end of file
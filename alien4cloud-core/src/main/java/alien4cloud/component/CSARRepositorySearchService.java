@@ -10,8 +10,12 @@ import org.elasticsearch.index.query.QueryBuilders;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.FacetedSearchResult;
@@ -54,7 +58,10 @@ public class CSARRepositorySearchService implements ICSARRepositorySearchService
     }
 
     private <T extends IndexedToscaElement> T getLatestVersionOfElement(Class<T> elementClass, QueryBuilder queryBuilder) {
-        List<T> elements = searchDAO.customFindAll(elementClass, queryBuilder);
+        return getLatestVersion(searchDAO.customFindAll(elementClass, queryBuilder));
+    }
+
+    private <T extends IndexedToscaElement> T getLatestVersion(List<T> elements) {
         if (elements != null && !elements.isEmpty()) {
             Collections.sort(elements, new Comparator<T>() {
                 @Override
@@ -73,6 +80,71 @@ public class CSARRepositorySearchService implements ICSARRepositorySearchService
         if (dependencies == null || dependencies.isEmpty()) {
             return null;
         }
+        return getLatestVersionOfElement(elementClass, getElementInDependenciesQuery(elementId, dependencies));
+    }
+
+    @Override
+    public <T extends IndexedToscaElement> List<T> getElementsInDependencies(Class<T> elementClass, String elementId, Collection<CSARDependency> dependencies) {
+        if (dependencies == null || dependencies.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<T> elements = searchDAO.customFindAll(elementClass, getElementInDependenciesQuery(elementId, dependencies));
+        return elements == null ? new ArrayList<T>() : elements;
+    }
+
+    @Override
+    public Table<Class<? extends IndexedToscaElement>, String, List<IndexedToscaElement>> getElementsVersionsInDependencies(
+            SetMultimap<Class<? extends IndexedToscaElement>, String> elementIds, Collection<CSARDependency> dependencies) {
+        Table<Class<? extends IndexedToscaElement>, String, List<IndexedToscaElement>> elements = HashBasedTable.create();
+        if (dependencies == null || dependencies.isEmpty() || elementIds.isEmpty()) {
+            return elements;
+        }
+        // one search per element in a single multi-search request, every search matches at most one element per dependency.
+        List<Map.Entry<Class<? extends IndexedToscaElement>, String>> entries = Lists.newArrayList(elementIds.entries());
+        Class<?>[] classes = new Class<?>[entries.size()];
+        QueryBuilder[] queries = new QueryBuilder[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            classes[i] = entries.get(i).getKey();
+            queries[i] = getElementInDependenciesQuery(entries.get(i).getValue(), dependencies);
+        }
+        List<List<Object>> results = searchDAO.customFindAllMultiple(classes, queries, dependencies.size());
+        for (int i = 0; i < entries.size(); i++) {
+            if (!results.get(i).isEmpty()) {
+                List<IndexedToscaElement> versions = Lists.newArrayListWithCapacity(results.get(i).size());
+                for (Object element : results.get(i)) {
+                    versions.add((IndexedToscaElement) element);
+                }
+                elements.put(entries.get(i).getKey(), entries.get(i).getValue(), versions);
+            }
+        }
+        return elements;
+    }
+
+    @Override
+    public Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> getElementsInDependencies(
+            SetMultimap<Class<? extends IndexedToscaElement>, String> elementIds, Collection<CSARDependency> dependencies) {
+        Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> elements = HashBasedTable.create();
+        for (Table.Cell<Class<? extends IndexedToscaElement>, String, List<IndexedToscaElement>> cell : getElementsVersionsInDependencies(elementIds,
+                dependencies).cellSet()) {
+            elements.put(cell.getRowKey(), cell.getColumnKey(), getLatestVersion(cell.getValue()));
+        }
+        return elements;
+    }
+
+    @Override
+    public Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> getRequiredElementsInDependencies(
+            SetMultimap<Class<? extends IndexedToscaElement>, String> elementIds, Collection<CSARDependency> dependencies) throws NotFoundException {
+        Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> elements = getElementsInDependencies(elementIds, dependencies);
+        for (Map.Entry<Class<? extends IndexedToscaElement>, String> entry : elementIds.entries()) {
+            if (!elements.contains(entry.getKey(), entry.getValue())) {
+                throw new NotFoundException("Element elementId: <" + entry.getValue() + "> of type <" + entry.getKey().getSimpleName()
+                        + "> cannot be found in dependencies " + dependencies);
+            }
+        }
+        return elements;
+    }
+
+    private QueryBuilder getElementInDependenciesQuery(String elementId, Collection<CSARDependency> dependencies) {
         // The query match element id of all defined dependencies' version from defined dependencies' archive name
         BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
         for (CSARDependency dependency : dependencies) {
@@ -80,7 +152,7 @@ public class CSARRepositorySearchService implements ICSARRepositorySearchService
             QueryBuilder matchArchiveNameQueryBuilder = QueryBuilders.termQuery("archiveName", dependency.getName());
             boolQueryBuilder.should(QueryBuilders.boolQuery().must(idQueryBuilder).must(matchArchiveNameQueryBuilder));
         }
-        return getLatestVersionOfElement(elementClass, boolQueryBuilder);
+        return boolQueryBuilder;
     }
 
     public <T extends IndexedToscaElement> T getElementInDependencies(Class<T> elementClass, QueryBuilder query, Collection<CSARDependency> dependencies) {
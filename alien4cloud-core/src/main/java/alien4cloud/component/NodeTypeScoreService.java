@@ -1,25 +1,32 @@
 package alien4cloud.component;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
 import alien4cloud.Constants;
 import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.WriteConsistency;
 import alien4cloud.dao.model.GetMultipleDataResult;
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.model.topology.Topology;
-import alien4cloud.utils.MapUtil;
 import alien4cloud.utils.version.Version;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 /**
@@ -28,10 +35,22 @@ import com.google.common.collect.Maps;
 @Slf4j
 @Component
 public class NodeTypeScoreService implements Runnable {
+    private static final int BULK_UPDATE_SIZE = 500;
+
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienESDAO;
     @Resource(name = "node-type-score-scheduler")
     private TaskScheduler scheduler;
+    /** The metric registry is optional, when not defined metrics are only available through the getters. */
+    @Autowired(required = false)
+    private MetricRegistry metricRegistry;
+
+    /** Duration in milliseconds of the last scores computation. */
+    @Getter
+    private volatile long lastRunDurationMs = -1;
+    /** Number of node type scores updated by the last scores computation. */
+    @Getter
+    private volatile int lastUpdatedScores = -1;
 
     @Value("${components.search.boost.frequency}")
     private long frequencyH = 1;
@@ -49,52 +68,91 @@ public class NodeTypeScoreService implements Runnable {
         Date date = new Date(System.currentTimeMillis() + frequencyMs);
         log.info("Type score is scheduled with {} ms frequency", frequencyMs);
         scheduler.scheduleAtFixedRate(this, date, frequencyMs);
+        if (metricRegistry != null) {
+            registerMetrics();
+        }
     }
 
     @Override
     public void run() {
+        long start = System.currentTimeMillis();
         log.info("Updating node type scores.");
-        // Go over all indexed node types.
+        // count the topologies that use every node type in a single aggregation request
+        Map<String, Long> usageCounts = alienESDAO.countByTerms(Topology.class, "nodeTemplates.value.type");
+        // Go over all indexed node types once to get the scoring data and the latest version of every element.
+        List<NodeTypeScoreData> nodeTypes = Lists.newArrayList();
+        Map<String, Version> latestVersions = Maps.newHashMap();
         GetMultipleDataResult<IndexedNodeType> getMultipleDataResult = alienESDAO.find(IndexedNodeType.class, null, 0, Constants.DEFAULT_ES_SEARCH_SIZE);
         int from = getMultipleDataResult.getTo() + 1;
-        processNodeTypes(getMultipleDataResult.getData());
+        collectNodeTypes(getMultipleDataResult.getData(), nodeTypes, latestVersions);
         while (getMultipleDataResult.getData().length > 0 && from < getMultipleDataResult.getTotalResults()) {
             getMultipleDataResult = alienESDAO.find(IndexedNodeType.class, null, from, from + Constants.DEFAULT_ES_SEARCH_SIZE);
             from = getMultipleDataResult.getTo() + 1;
-            processNodeTypes(getMultipleDataResult.getData());
+            collectNodeTypes(getMultipleDataResult.getData(), nodeTypes, latestVersions);
         }
-    }
 
-    private void processNodeTypes(IndexedNodeType[] indexedNodeTypes) {
-        for (IndexedNodeType nodeType : indexedNodeTypes) {
-            if (log.isDebugEnabled()) {
-                log.debug("Processing node score for type {}", nodeType.getId());
-            }
-            Map<String, String[]> usedNodeFiler = Maps.newHashMap();
-            usedNodeFiler.put("nodeTemplates.value.type", new String[] { nodeType.getElementId() });
-            // count the applications that uses the node-type
-            long usageFactor = usageBoost * alienESDAO.count(Topology.class, null, usedNodeFiler);
+        // compute the scores and update only the ones that have changed.
+        Map<String, Map<String, Object>> updatedScores = Maps.newHashMap();
+        for (NodeTypeScoreData nodeType : nodeTypes) {
+            Long usageCount = usageCounts.get(nodeType.elementId);
+            long usageFactor = usageBoost * (usageCount == null ? 0 : usageCount);
             // get the version factor (latest version of a node is better than previous version, snapshot versions do not get boost)
-            long versionFactor = isLatestVersion(nodeType) ? versionBoost : 0;
+            long versionFactor = nodeType.version.compareTo(latestVersions.get(nodeType.elementId)) < 0 ? 0 : versionBoost;
             // default boost (boost node types that have a default capability)
-            long defaultFactor = nodeType.getDefaultCapabilities() == null || nodeType.getDefaultCapabilities().isEmpty() ? 0 : defaultBoost;
-            // update the score for the node type.
-            nodeType.setAlienScore(usageFactor + defaultFactor + versionFactor);
-            alienESDAO.save(nodeType);
+            long defaultFactor = nodeType.hasDefaultCapabilities ? defaultBoost : 0;
+            long score = usageFactor + defaultFactor + versionFactor;
+            if (score != nodeType.alienScore) {
+                updatedScores.put(nodeType.id, Collections.<String, Object> singletonMap("alienScore", score));
+            }
+        }
+        for (List<String> ids : Lists.partition(Lists.newArrayList(updatedScores.keySet()), BULK_UPDATE_SIZE)) {
+            Map<String, Map<String, Object>> chunk = Maps.newHashMap();
+            for (String id : ids) {
+                chunk.put(id, updatedScores.get(id));
+            }
+            alienESDAO.updateFields(IndexedNodeType.class, chunk, WriteConsistency.IMMEDIATE);
         }
+        lastUpdatedScores = updatedScores.size();
+        lastRunDurationMs = System.currentTimeMillis() - start;
+        log.info("Node type scores updated in {} ms, {} scores changed on {} node types.", lastRunDurationMs, updatedScores.size(), nodeTypes.size());
     }
 
-    private boolean isLatestVersion(IndexedNodeType nodeType) {
-        Map<String, String[]> filters = MapUtil.newHashMap(new String[] { "elementId" }, new String[][] { new String[] { nodeType.getElementId() } });
-        // TODO get a single element and order by version.
-        Version nodeVersion = new Version(((IndexedNodeType) nodeType).getArchiveVersion());
+    private void registerMetrics() {
+        String prefix = MetricRegistry.name(NodeTypeScoreService.class);
+        registerGauge(MetricRegistry.name(prefix, "last-run-duration-ms"), (Gauge<Long>) this::getLastRunDurationMs);
+        registerGauge(MetricRegistry.name(prefix, "last-updated-scores"), (Gauge<Integer>) this::getLastUpdatedScores);
+    }
+
+    private void registerGauge(String metricName, Gauge<?> gauge) {
+        metricRegistry.remove(metricName);
+        metricRegistry.register(metricName, gauge);
+    }
 
-        for (Object otherVersionNodeType : alienESDAO.find(IndexedNodeType.class, filters, Constants.DEFAULT_ES_SEARCH_SIZE).getData()) {
-            Version otherVersion = new Version(((IndexedNodeType) otherVersionNodeType).getArchiveVersion());
-            if (nodeVersion.compareTo(otherVersion) < 0) {
-                return false;
+    private void collectNodeTypes(IndexedNodeType[] indexedNodeTypes, List<NodeTypeScoreData> nodeTypes, Map<String, Version> latestVersions) {
+        for (IndexedNodeType nodeType : indexedNodeTypes) {
+            NodeTypeScoreData scoreData = new NodeTypeScoreData(nodeType);
+            nodeTypes.add(scoreData);
+            Version latestVersion = latestVersions.get(scoreData.elementId);
+            if (latestVersion == null || latestVersion.compareTo(scoreData.version) < 0) {
+                latestVersions.put(scoreData.elementId, scoreData.version);
             }
         }
-        return true;
+    }
+
+    /** The data from a node type required to compute it's score. */
+    private static class NodeTypeScoreData {
+        private final String id;
+        private final String elementId;
+        private final Version version;
+        private final boolean hasDefaultCapabilities;
+        private final long alienScore;
+
+        private NodeTypeScoreData(IndexedNodeType nodeType) {
+            this.id = nodeType.getId();
+            this.elementId = nodeType.getElementId();
+            this.version = new Version(nodeType.getArchiveVersion());
+            this.hasDefaultCapabilities = nodeType.getDefaultCapabilities() != null && !nodeType.getDefaultCapabilities().isEmpty();
+            this.alienScore = nodeType.getAlienScore();
+        }
     }
 }
@@ -1,10 +1,16 @@
 package alien4cloud.component.repository;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +18,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.FileSystemUtils;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
 
 import alien4cloud.component.repository.exception.CSARDirectoryCreationFailureException;
 import alien4cloud.component.repository.exception.CSARStorageFailureException;
@@ -19,6 +26,7 @@ import alien4cloud.component.repository.exception.CSARVersionAlreadyExistsExcept
 import alien4cloud.component.repository.exception.CSARVersionNotFoundException;
 import alien4cloud.utils.DirectoryJSonWalker;
 import alien4cloud.utils.FileUtil;
+import alien4cloud.utils.TreeNode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -36,6 +44,7 @@ import lombok.extern.slf4j.Slf4j;
 @Component
 public class CsarFileRepository implements ICsarRepositry {
     public static final String CSAR_EXTENSION = "csar";
+    private static final String EXPANDED_DIRECTORY = "expanded";
     private Path rootPath;
 
     public CsarFileRepository() {
@@ -70,14 +79,14 @@ public class CsarFileRepository implements ICsarRepositry {
                 log.debug(" Dest: " + csarDirectoryPath.resolve(realName));
             }
             Path csarTargetPath = csarDirectoryPath.resolve(realName);
-            Path expandedPath = csarDirectoryPath.resolve("expanded");
+            Path expandedPath = csarDirectoryPath.resolve(EXPANDED_DIRECTORY);
             if (Files.isRegularFile(tmpPath)) {
-                Files.copy(tmpPath, csarTargetPath);
-                FileUtil.unzip(csarTargetPath, expandedPath);
+                TreeNode contentTree = storeAndExpand(tmpPath, csarTargetPath, expandedPath);
+                new ObjectMapper().writeValue(csarDirectoryPath.resolve("content.json").toFile(), contentTree);
             } else {
                 FileUtil.copy(tmpPath, expandedPath, StandardCopyOption.REPLACE_EXISTING);
+                DirectoryJSonWalker.directoryJson(expandedPath, csarDirectoryPath.resolve("content.json"));
             }
-            DirectoryJSonWalker.directoryJson(expandedPath, csarDirectoryPath.resolve("content.json"));
         } catch (IOException e) {
             throw new CSARStorageFailureException("Error while trying to store the CSAR: " + name + ", Version: " + version + "...." + e.getMessage(), e);
         }
@@ -86,7 +95,7 @@ public class CsarFileRepository implements ICsarRepositry {
     @Override
     public Path getCSAR(String name, String version) throws CSARVersionNotFoundException {
         Path csarDir = rootPath.resolve(name).resolve(version);
-        Path expandedPath = csarDir.resolve("expanded");
+        Path expandedPath = csarDir.resolve(EXPANDED_DIRECTORY);
         Path zippedPath = csarDir.resolve(name.concat("-").concat(version).concat("." + CSAR_EXTENSION));
         if (Files.exists(zippedPath)) {
             return zippedPath;
@@ -107,13 +116,127 @@ public class CsarFileRepository implements ICsarRepositry {
     @Override
     public Path getExpandedCSAR(String name, String version) throws CSARVersionNotFoundException {
         Path csarDir = rootPath.resolve(name).resolve(version);
-        Path expandedPath = csarDir.resolve("expanded");
+        Path expandedPath = csarDir.resolve(EXPANDED_DIRECTORY);
         if (Files.exists(expandedPath)) {
             return expandedPath;
         }
         throw new CSARVersionNotFoundException("CSAR: " + name + ", Version: " + version + " not found in the repository.");
     }
 
+    /**
+     * Read the zipped archive once to copy it to the repository, expand it's entries and build the content tree (same layout as
+     * {@link DirectoryJSonWalker#getDirectoryTree(Path)}) rather than copying the archive and then reading it again to unzip and walk the expanded directory.
+     *
+     * @param zipPath The path of the zipped archive to store.
+     * @param csarTargetPath The path in which to copy the zipped archive.
+     * @param expandedPath The directory in which to expand the archive.
+     * @return The tree node that describes the expanded content.
+     * @throws IOException In case of an IO issue while reading or writing the archive.
+     */
+    private TreeNode storeAndExpand(Path zipPath, Path csarTargetPath, Path expandedPath) throws IOException {
+        Path expandedRoot = expandedPath.toAbsolutePath().normalize();
+        Files.createDirectories(expandedRoot);
+        TreeNode root = newDirectoryNode(null, null);
+        root.setFullPath("");
+        TreeNode expandedNode = newDirectoryNode(root, EXPANDED_DIRECTORY);
+
+        try (InputStream input = Files.newInputStream(zipPath); OutputStream csarOutput = Files.newOutputStream(csarTargetPath)) {
+            TeeInputStream teeInput = new TeeInputStream(input, csarOutput);
+            ZipInputStream zipInput = new ZipInputStream(teeInput);
+            ZipEntry entry;
+            while ((entry = zipInput.getNextEntry()) != null) {
+                Path entryPath = expandedRoot.resolve(entry.getName()).normalize();
+                if (!entryPath.startsWith(expandedRoot)) {
+                    throw new IOException("Archive entry <" + entry.getName() + "> is outside of the archive.");
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(entryPath);
+                } else {
+                    Files.createDirectories(entryPath.getParent());
+                    Files.copy(zipInput, entryPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+                addContentNode(expandedNode, expandedRoot.relativize(entryPath), entry.isDirectory());
+            }
+            // the zip stream stops at the central directory, read the end of the archive so the stored copy is complete.
+            ByteStreams.copy(teeInput, ByteStreams.nullOutputStream());
+        }
+        return root;
+    }
+
+    private void addContentNode(TreeNode expandedNode, Path relativePath, boolean isDirectory) {
+        TreeNode current = expandedNode;
+        for (int i = 0; i < relativePath.getNameCount(); i++) {
+            String name = relativePath.getName(i).toString();
+            TreeNode child = current.getChild(name);
+            if (child == null) {
+                boolean isLeaf = !isDirectory && i == relativePath.getNameCount() - 1;
+                child = isLeaf ? newFileNode(current, name) : newDirectoryNode(current, name);
+            }
+            current = child;
+        }
+    }
+
+    private TreeNode newDirectoryNode(TreeNode parent, String name) {
+        TreeNode treeNode = newFileNode(parent, name);
+        treeNode.setLeaf(false);
+        treeNode.setChildren(new TreeSet<>());
+        return treeNode;
+    }
+
+    private TreeNode newFileNode(TreeNode parent, String name) {
+        TreeNode treeNode = new TreeNode(name);
+        treeNode.setLeaf(true);
+        if (parent != null) {
+            treeNode.setFullPath(parent.getFullPath() + "/" + name);
+            treeNode.setParent(parent);
+            parent.getChildren().add(treeNode);
+        }
+        return treeNode;
+    }
+
+    /**
+     * Input stream that copies all the bytes read from the underlying stream to an output stream.
+     */
+    private static class TeeInputStream extends FilterInputStream {
+        private final OutputStream branch;
+
+        private TeeInputStream(InputStream input, OutputStream branch) {
+            super(input);
+            this.branch = branch;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) {
+                branch.write(read);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                branch.write(bytes, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long length) throws IOException {
+            // skipped bytes must be copied too.
+            byte[] buffer = new byte[(int) Math.min(length, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
     private void checkCSARRepository(Path rootPath) {
         if (!Files.isDirectory(rootPath)) {
             try {
@@ -5,8 +5,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -18,6 +19,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.FileSystemUtils;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import alien4cloud.component.repository.exception.CSARUsedInActiveDeployment;
 import alien4cloud.component.repository.exception.CSARVersionAlreadyExistsException;
@@ -30,8 +32,10 @@ import alien4cloud.model.components.Csar;
 import alien4cloud.model.git.CsarDependenciesBean;
 import alien4cloud.model.git.CsarGitCheckoutLocation;
 import alien4cloud.model.git.CsarGitRepository;
+import alien4cloud.tosca.ArchiveBatchUploadService;
 import alien4cloud.tosca.ArchiveUploadService;
 import alien4cloud.tosca.parser.ParsingException;
+import alien4cloud.tosca.parser.ParsingErrorLevel;
 import alien4cloud.tosca.parser.ParsingResult;
 import alien4cloud.utils.FileUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -45,6 +49,8 @@ public class CsarGitService {
     private CsarFinderService csarFinderService;
     @Inject
     private ArchiveUploadService uploadService;
+    @Inject
+    private ArchiveBatchUploadService batchUploadService;
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
     @Resource
@@ -127,10 +133,9 @@ public class CsarGitService {
             // now that the repository is checked out and up to date process with the import
             List<ParsingResult<Csar>> results = processImport(csarGitRepository, csarGitCheckoutLocation, hash);
 
-            if (!Objects.equals(csarGitCheckoutLocation.getLastImportedHash(), hash)) {
-                csarGitCheckoutLocation.setLastImportedHash(hash);
-                alienDAO.save(csarGitRepository); // update the hash for this location.
-            }
+            // update the hashes for this location.
+            csarGitCheckoutLocation.setLastImportedHash(hash);
+            alienDAO.save(csarGitRepository);
             // TODO best would be to provide with a better result to show that we didn't retried import
             return results;
         } finally {
@@ -144,80 +149,91 @@ public class CsarGitService {
         Path archiveGitRoot = tempDirPath.resolve(csarGitRepository.getId());
         Set<Path> archivePaths = csarFinderService.prepare(archiveGitRoot, archiveZipRoot, csarGitCheckoutLocation.getSubPath());
 
-        // TODO code review has to be completed to further cleanup below processing.
+        Map<String, String> previousHashes = csarGitCheckoutLocation.getArchiveHashes() == null ? Maps.<String, String> newHashMap()
+                : csarGitCheckoutLocation.getArchiveHashes();
+        Map<String, String> archiveHashes = Maps.newHashMap();
         List<ParsingResult<Csar>> parsingResult = Lists.newArrayList();
         try {
-            Map<CSARDependency, CsarDependenciesBean> csarDependenciesBeans = uploadService.preParsing(archivePaths);
-            List<CsarDependenciesBean> sorted = sort(csarDependenciesBeans);
-            for (CsarDependenciesBean csarBean : sorted) {
-                if (csarGitCheckoutLocation.getLastImportedHash() != null && csarGitCheckoutLocation.getLastImportedHash().equals(gitHash)) {
-                    if (csarService.get(csarBean.getSelf().getName(), csarBean.getSelf().getVersion()) != null) {
-                        // no commit since last import and the archive still exist in the repo, so do not import
+            Map<CSARDependency, CsarDependenciesBean> csarDependenciesBeans = batchUploadService.preParsing(archivePaths);
+            // archives of a level only depends on archives of previous levels so they can be imported concurrently.
+            for (List<CsarDependenciesBean> level : batchUploadService.sortByDependencyLevel(csarDependenciesBeans)) {
+                List<Future<ParsingResult<Csar>>> uploads = Lists.newArrayList();
+                List<String> uploadedIds = Lists.newArrayList();
+                for (final CsarDependenciesBean csarBean : level) {
+                    String archiveId = csarBean.getSelf().getName() + ":" + csarBean.getSelf().getVersion();
+                    String archiveHash = FileUtil.getDirectorySHA1Checksum(archiveGitRoot.resolve(archiveZipRoot.relativize(csarBean.getPath().getParent())));
+                    if (archiveHash.equals(previousHashes.get(archiveId))
+                            && csarService.get(csarBean.getSelf().getName(), csarBean.getSelf().getVersion()) != null) {
+                        // archive content did not change since last import and the archive still exist in the repo, so do not import
                         // TODO notify the user that the archive has already been imported
+                        log.debug("Skipping import of unchanged archive {} from git repository {}", archiveId, csarGitRepository.getRepositoryUrl());
+                        archiveHashes.put(archiveId, archiveHash);
                         continue;
                     }
+                    uploadedIds.add(archiveId);
+                    archiveHashes.put(archiveId, archiveHash);
+                    // archives are uploaded on the shared archive threads that propagate the security context as upload checks the user roles.
+                    uploads.add(batchUploadService.submit(() -> upload(csarBean)));
+                }
+                if (!waitForUploads(uploads, uploadedIds, archiveHashes, parsingResult)) {
+                    break;
                 }
-                ParsingResult<Csar> result = uploadService.upload(csarBean.getPath(), CSARSource.GIT);
-                parsingResult.add(result);
             }
+            csarGitCheckoutLocation.setArchiveHashes(archiveHashes);
             return parsingResult;
         } catch (ParsingException e) {
             // TODO Actually add a parsing result with error.
             throw new GitException("Failed to import archive from git as it cannot be parsed", e);
-        } catch (CSARVersionAlreadyExistsException e) {
-            return parsingResult;
-        } catch (CSARUsedInActiveDeployment e) {
-            // TODO Actually add a parsing result with error.
-            return parsingResult;
         }
     }
 
-    private List<CsarDependenciesBean> sort(Map<CSARDependency, CsarDependenciesBean> elements) {
-        List<CsarDependenciesBean> sortedCsars = Lists.newArrayList();
-
-        List<CsarDependenciesBean> independents = Lists.newArrayList();
-        for (Map.Entry<CSARDependency, CsarDependenciesBean> entry : elements.entrySet()) {
-            CsarDependenciesBean csar = entry.getValue();
-            if (csar.getDependencies() == null) {
-                // the element has no dependencies
-                independents.add(csar);
-            } else {
-                // complete the list of dependent elements
-                List<CSARDependency> toClears = Lists.newArrayList();
-                for (CSARDependency dependent : csar.getDependencies()) {
-                    CsarDependenciesBean providedDependency = elements.get(dependent);
-                    if (providedDependency == null) {
-                        // remove the dependency as it may be in the alien repo
-                        toClears.add(dependent);
-                    } else {
-                        providedDependency.getDependents().add(entry.getValue());
-                    }
-                }
-                for (CSARDependency toClear : toClears) {
-                    csar.getDependencies().remove(toClear);
-                }
-                if (csar.getDependencies().isEmpty()) {
-                    independents.add(csar);
-                }
-            }
-        }
+    private ParsingResult<Csar> upload(CsarDependenciesBean csarBean) throws Exception {
+        long start = System.currentTimeMillis();
+        ParsingResult<Csar> result = uploadService.upload(csarBean.getPath(), CSARSource.GIT);
+        result.getContext().setDurationMs(System.currentTimeMillis() - start);
+        log.debug("Archive {} imported from git in {} ms", csarBean.getSelf(), result.getContext().getDurationMs());
+        return result;
+    }
 
-        while (independents.size() > 0) {
-            CsarDependenciesBean independent = independents.remove(0);
-            elements.remove(independent.getSelf()); // remove from the elements
-            sortedCsars.add(independent); // element has no more dependencies
-            for (CsarDependenciesBean dependent : independent.getDependents()) {
-                dependent.getDependencies().remove(independent.getSelf());
-                if (dependent.getDependencies().isEmpty()) {
-                    independents.add(dependent);
+    /**
+     * Wait for all the uploads of a dependency level.
+     *
+     * @param uploads The futures of the uploads.
+     * @param uploadedIds The ids of the uploaded archives in the same order as the uploads.
+     * @param archiveHashes The archives hashes, the hashes of the archives that failed to be imported are removed so they are imported again next time.
+     * @param parsingResult The list in which to add the parsing results.
+     * @return False if the import must be stopped.
+     * @throws ParsingException In case an archive cannot be parsed.
+     */
+    private boolean waitForUploads(List<Future<ParsingResult<Csar>>> uploads, List<String> uploadedIds, Map<String, String> archiveHashes,
+            List<ParsingResult<Csar>> parsingResult) throws ParsingException {
+        boolean next = true;
+        ParsingException parsingException = null;
+        for (int i = 0; i < uploads.size(); i++) {
+            try {
+                ParsingResult<Csar> result = uploads.get(i).get();
+                parsingResult.add(result);
+                if (result.hasError(ParsingErrorLevel.ERROR)) {
+                    archiveHashes.remove(uploadedIds.get(i));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GitException("Interrupted while importing archives from git", e);
+            } catch (ExecutionException e) {
+                archiveHashes.remove(uploadedIds.get(i));
+                if (e.getCause() instanceof ParsingException) {
+                    parsingException = (ParsingException) e.getCause();
+                } else if (e.getCause() instanceof CSARVersionAlreadyExistsException || e.getCause() instanceof CSARUsedInActiveDeployment) {
+                    // TODO Actually add a parsing result with error.
+                    next = false;
+                } else {
+                    throw new GitException("Failed to import archive from git", e.getCause());
                 }
             }
         }
-
-        if (elements.size() > 0) {
-            // TODO there is looping dependencies throw exception or ignore ?
+        if (parsingException != null) {
+            throw parsingException;
         }
-
-        return sortedCsars;
+        return next;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package alien4cloud.deployment;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Component;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.model.deployment.Deployment;
+import alien4cloud.utils.MapUtil;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory registry of the active deployments (deployments without end date) of every orchestrator.
+ *
+ * The registry is built from elastic search once on startup and then maintained when deployments are created or marked as undeployed so that components
+ * like the orchestrator monitors can check if an orchestrator has active deployments without querying elastic search.
+ */
+@Slf4j
+@Component
+public class ActiveDeploymentRegistry {
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO alienDao;
+
+    /** Map of orchestrator id to the ids of it's active deployments, orchestrators without active deployments have no entry. */
+    private final Map<String, Set<String>> activeDeployments = new ConcurrentHashMap<>();
+    /** Callbacks to trigger when an orchestrator gets it's first active deployment. */
+    private final Map<String, Runnable> activationListeners = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        GetMultipleDataResult<Deployment> dataResult = alienDao.search(Deployment.class, null,
+                MapUtil.newHashMap(new String[] { "endDate" }, new String[][] { new String[] { null } }), Integer.MAX_VALUE);
+        if (dataResult.getData() != null) {
+            for (Deployment deployment : dataResult.getData()) {
+                add(deployment);
+            }
+            log.debug("Loaded {} active deployments", dataResult.getData().length);
+        }
+    }
+
+    /**
+     * Register a new active deployment.
+     *
+     * @param deployment The deployment that has been started.
+     */
+    public void register(Deployment deployment) {
+        Runnable listener = activationListeners.get(deployment.getOrchestratorId());
+        if (add(deployment) && listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Remove a deployment from the active deployments.
+     *
+     * @param deployment The deployment that has been undeployed.
+     */
+    public void unregister(Deployment deployment) {
+        activeDeployments.computeIfPresent(deployment.getOrchestratorId(), (orchestratorId, deploymentIds) -> {
+            deploymentIds.remove(deployment.getId());
+            return deploymentIds.isEmpty() ? null : deploymentIds;
+        });
+    }
+
+    /**
+     * Check if an orchestrator has active deployments.
+     *
+     * @param orchestratorId The id of the orchestrator.
+     * @return True if at least one deployment is active on the orchestrator.
+     */
+    public boolean hasActiveDeployments(String orchestratorId) {
+        return activeDeployments.containsKey(orchestratorId);
+    }
+
+    /**
+     * Set the callback to trigger when the given orchestrator gets it's first active deployment.
+     *
+     * @param orchestratorId The id of the orchestrator.
+     * @param listener The callback to trigger or null to remove the current callback.
+     */
+    public void setActivationListener(String orchestratorId, Runnable listener) {
+        if (listener == null) {
+            activationListeners.remove(orchestratorId);
+        } else {
+            activationListeners.put(orchestratorId, listener);
+        }
+    }
+
+    /**
+     * Add a deployment to the active deployments of it's orchestrator, the check and the update are atomic so that a concurrent unregister cannot hide the
+     * activation of the orchestrator.
+     *
+     * @param deployment The deployment to add.
+     * @return True if the orchestrator had no active deployments before.
+     */
+    private boolean add(Deployment deployment) {
+        AtomicBoolean activated = new AtomicBoolean();
+        activeDeployments.compute(deployment.getOrchestratorId(), (orchestratorId, deploymentIds) -> {
+            if (deploymentIds == null) {
+                activated.set(true);
+                deploymentIds = ConcurrentHashMap.newKeySet();
+            }
+            deploymentIds.add(deployment.getId());
+            return deploymentIds;
+        });
+        return activated.get();
+    }
+}
@@ -117,7 +117,7 @@ public class DeployService {
         // mandatory for the moment since we could have deployment with no environment (csar test)
         deployment.setEnvironmentId(deploymentTopology.getEnvironmentId());
         deployment.setVersionId(deploymentTopology.getVersionId());
-        alienDao.save(deployment);
+        deploymentService.markDeployed(deployment);
 
         // save the topology as a deployed topology.
         // change the Id before saving
@@ -49,6 +49,8 @@ public class DeploymentRuntimeStateService {
     private DeploymentContextService deploymentContextService;
     @Inject
     private DeploymentTopologyService deploymentTopologyService;
+    @Inject
+    private InstanceStateStore instanceStateStore;
 
     /**
      * Get the deployed (runtime) topology of an application from the environment id
@@ -119,12 +121,34 @@ public class DeploymentRuntimeStateService {
     /**
      * Get the detailed status for each instance of each node template.
      *
+     * Instances information are served from the {@link InstanceStateStore} and the orchestrator plugin is requested only when the store has no up-to-date
+     * projection for the deployment.
+     *
      * @param deployment The deployment for witch to get the instance informations.
      * @param callback callback on witch to send the map of node template's id to map of instance's id to instance information.
      * @throws alien4cloud.paas.exception.OrchestratorDisabledException In case the cloud selected for the topology is disabled.
      */
     public void getInstancesInformation(final Deployment deployment, IPaaSCallback<Map<String, Map<String, InstanceInformation>>> callback)
             throws OrchestratorDisabledException {
+        if (deployment != null) {
+            Map<String, Map<String, InstanceInformation>> instancesInformation = instanceStateStore.get(deployment.getId());
+            if (instancesInformation != null) {
+                callback.onSuccess(instancesInformation);
+                return;
+            }
+        }
+        refreshInstancesInformation(deployment, callback);
+    }
+
+    /**
+     * Get the detailed status for each instance of each node template from the orchestrator plugin and reconcile the {@link InstanceStateStore}.
+     *
+     * @param deployment The deployment for witch to get the instance informations.
+     * @param callback callback on witch to send the map of node template's id to map of instance's id to instance information.
+     * @throws alien4cloud.paas.exception.OrchestratorDisabledException In case the cloud selected for the topology is disabled.
+     */
+    public void refreshInstancesInformation(final Deployment deployment, final IPaaSCallback<Map<String, Map<String, InstanceInformation>>> callback)
+            throws OrchestratorDisabledException {
         Map<String, Map<String, InstanceInformation>> instancesInformation = Maps.newHashMap();
         if (deployment == null) {
             callback.onSuccess(instancesInformation);
@@ -134,7 +158,25 @@ public class DeploymentRuntimeStateService {
         PaaSTopologyDeploymentContext deploymentContext = deploymentContextService.buildTopologyDeploymentContext(deployment,
                 deploymentTopologyService.getLocations(runtimeTopology), runtimeTopology);
         IOrchestratorPlugin orchestratorPlugin = orchestratorPluginService.getOrFail(deployment.getOrchestratorId());
-        orchestratorPlugin.getInstancesInformation(deploymentContext, callback);
+        // events received while the plugin computes the instances information are applied again on top of it.
+        final InstanceStateStore.Reconciliation reconciliation = instanceStateStore.startReconcile(deployment.getId());
+        try {
+            orchestratorPlugin.getInstancesInformation(deploymentContext, new IPaaSCallback<Map<String, Map<String, InstanceInformation>>>() {
+                @Override
+                public void onSuccess(Map<String, Map<String, InstanceInformation>> data) {
+                    callback.onSuccess(instanceStateStore.reconcile(reconciliation, data));
+                }
+
+                @Override
+                public void onFailure(Throwable throwable) {
+                    instanceStateStore.cancel(reconciliation);
+                    callback.onFailure(throwable);
+                }
+            });
+        } catch (RuntimeException e) {
+            instanceStateStore.cancel(reconciliation);
+            throw e;
+        }
     }
 
     /**
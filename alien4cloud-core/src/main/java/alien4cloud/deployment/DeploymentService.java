@@ -39,6 +39,8 @@ public class DeploymentService {
     private DeploymentContextService deploymentContextService;
     @Inject
     private DeploymentTopologyService deploymentTopologyService;
+    @Inject
+    private ActiveDeploymentRegistry activeDeploymentRegistry;
 
     /**
      * Get all deployments for a given orchestrator an application
@@ -221,6 +223,16 @@ public class DeploymentService {
         return result;
     }
 
+    /**
+     * Save a new deployment and register it as active.
+     *
+     * @param deployment the deployment that is starting.
+     */
+    public void markDeployed(Deployment deployment) {
+        alienDao.save(deployment);
+        activeDeploymentRegistry.register(deployment);
+    }
+
     /**
      * Switch a deployment to undeployed.
      * 
@@ -230,6 +242,7 @@ public class DeploymentService {
         if (deployment.getEndDate() == null) {
             deployment.setEndDate(new Date());
             alienDao.save(deployment);
+            activeDeploymentRegistry.unregister(deployment);
             // Switch the deployed field of the Deployment topology to false
             DeploymentTopology deploymentTopology = alienMonitorDao.findById(DeploymentTopology.class, deployment.getId());
             deploymentTopology.setDeployed(false);
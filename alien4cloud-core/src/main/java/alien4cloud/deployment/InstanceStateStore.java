@@ -0,0 +1,261 @@
+package alien4cloud.deployment;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.Maps;
+
+import alien4cloud.paas.IPaasEventListener;
+import alien4cloud.paas.IPaasEventService;
+import alien4cloud.paas.model.AbstractMonitorEvent;
+import alien4cloud.paas.model.DeploymentStatus;
+import alien4cloud.paas.model.InstanceInformation;
+import alien4cloud.paas.model.PaaSDeploymentStatusMonitorEvent;
+import alien4cloud.paas.model.PaaSInstancePersistentResourceMonitorEvent;
+import alien4cloud.paas.model.PaaSInstanceStateMonitorEvent;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory projection of the instances information of the active deployments.
+ *
+ * The projection of a deployment is initialized from the orchestrator plugin and then updated from the instance state and persistent resource events received
+ * from the orchestrator monitors. It is reconciled with the orchestrator plugin when it is older than the reconcile interval so that events that may have been
+ * missed do not remain visible forever.
+ *
+ * As the orchestrator plugin snapshot is requested before it is applied, events received while a reconciliation is in progress are recorded and applied
+ * again on top of the snapshot so they are not lost.
+ */
+@Slf4j
+@Component
+public class InstanceStateStore implements IPaasEventListener<AbstractMonitorEvent> {
+    /** Delay after which the instances information of a deployment must be reloaded from the orchestrator plugin. */
+    @Value("${paas_monitor.instances_state.reconcile_interval_ms:300000}")
+    private long reconcileIntervalMs;
+    @Inject
+    private IPaasEventService paasEventService;
+
+    private final Map<String, DeploymentInstances> deploymentInstances = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        paasEventService.addListener(this);
+    }
+
+    /**
+     * Get a copy of the instances information of a deployment.
+     *
+     * @param deploymentId The id of the deployment.
+     * @return A map of node template id to map of instance id to instance information or null if the projection is not available or must be reconciled.
+     */
+    public Map<String, Map<String, InstanceInformation>> get(String deploymentId) {
+        DeploymentInstances instances = deploymentInstances.get(deploymentId);
+        if (instances == null) {
+            return null;
+        }
+        synchronized (instances) {
+            if (instances.nodes == null || System.currentTimeMillis() - instances.reconcileDate > reconcileIntervalMs) {
+                return null;
+            }
+            return copy(instances.nodes);
+        }
+    }
+
+    /**
+     * Start the reconciliation of a deployment, this must be called before the instances information are requested to the orchestrator plugin. The
+     * reconciliation must then be completed with {@link #reconcile(Reconciliation, Map)} or {@link #cancel(Reconciliation)}.
+     *
+     * @param deploymentId The id of the deployment.
+     * @return The reconciliation.
+     */
+    public Reconciliation startReconcile(String deploymentId) {
+        DeploymentInstances instances = deploymentInstances.computeIfAbsent(deploymentId, id -> new DeploymentInstances());
+        synchronized (instances) {
+            instances.pendingReconciliations++;
+            return new Reconciliation(deploymentId, instances, instances.receivedEvents);
+        }
+    }
+
+    /**
+     * Replace the instances information of a deployment with the one retrieved from the orchestrator plugin. Events received since the reconciliation started
+     * are applied on top of the retrieved instances information.
+     *
+     * @param reconciliation The reconciliation started before the instances information were requested.
+     * @param instancesInformation The map of node template id to map of instance id to instance information.
+     * @return A copy of the reconciled instances information.
+     */
+    public Map<String, Map<String, InstanceInformation>> reconcile(Reconciliation reconciliation,
+            Map<String, Map<String, InstanceInformation>> instancesInformation) {
+        DeploymentInstances instances = reconciliation.instances;
+        synchronized (instances) {
+            complete(reconciliation);
+            Map<String, Map<String, InstanceInformation>> nodes = instancesInformation == null ? Maps.<String, Map<String, InstanceInformation>> newHashMap()
+                    : copy(instancesInformation);
+            if (deploymentInstances.get(reconciliation.deploymentId) != instances) {
+                // the deployment has been undeployed meanwhile.
+                return nodes;
+            }
+            for (AbstractMonitorEvent event : instances.pendingEvents.tailMap(reconciliation.receivedEvents, false).values()) {
+                apply(nodes, event);
+            }
+            if (instances.pendingReconciliations == 0) {
+                instances.pendingEvents.clear();
+            }
+            instances.nodes = nodes;
+            instances.reconcileDate = System.currentTimeMillis();
+            return copy(nodes);
+        }
+    }
+
+    /**
+     * Cancel a reconciliation that failed.
+     *
+     * @param reconciliation The reconciliation started before the instances information were requested.
+     */
+    public void cancel(Reconciliation reconciliation) {
+        synchronized (reconciliation.instances) {
+            complete(reconciliation);
+            if (reconciliation.instances.pendingReconciliations == 0) {
+                reconciliation.instances.pendingEvents.clear();
+            }
+        }
+    }
+
+    private void complete(Reconciliation reconciliation) {
+        if (!reconciliation.completed) {
+            reconciliation.completed = true;
+            reconciliation.instances.pendingReconciliations--;
+        }
+    }
+
+    /**
+     * Remove the instances information of a deployment.
+     *
+     * @param deploymentId The id of the deployment.
+     */
+    public void evict(String deploymentId) {
+        deploymentInstances.remove(deploymentId);
+    }
+
+    @Override
+    public void eventHappened(AbstractMonitorEvent event) {
+        if (event instanceof PaaSDeploymentStatusMonitorEvent) {
+            if (DeploymentStatus.UNDEPLOYED.equals(((PaaSDeploymentStatusMonitorEvent) event).getDeploymentStatus())) {
+                evict(event.getDeploymentId());
+            }
+            return;
+        }
+        DeploymentInstances instances = deploymentInstances.get(event.getDeploymentId());
+        if (instances == null) {
+            return;
+        }
+        synchronized (instances) {
+            instances.receivedEvents++;
+            if (instances.pendingReconciliations > 0) {
+                instances.pendingEvents.put(instances.receivedEvents, event);
+            }
+            // events received before the first reconciliation are not applied as the projection would be partial.
+            if (instances.nodes != null) {
+                apply(instances.nodes, event);
+            }
+        }
+    }
+
+    private void apply(Map<String, Map<String, InstanceInformation>> nodes, AbstractMonitorEvent event) {
+        if (event instanceof PaaSInstanceStateMonitorEvent) {
+            apply(nodes, (PaaSInstanceStateMonitorEvent) event);
+        } else {
+            apply(nodes, (PaaSInstancePersistentResourceMonitorEvent) event);
+        }
+    }
+
+    private void apply(Map<String, Map<String, InstanceInformation>> nodes, PaaSInstanceStateMonitorEvent event) {
+        Map<String, InstanceInformation> nodeInstances = nodes.get(event.getNodeTemplateId());
+        if (event.getInstanceState() == null) {
+            // an event without state is sent when the instance is deleted.
+            if (nodeInstances != null) {
+                nodeInstances.remove(event.getInstanceId());
+                if (nodeInstances.isEmpty()) {
+                    nodes.remove(event.getNodeTemplateId());
+                }
+            }
+            return;
+        }
+        if (nodeInstances == null) {
+            nodeInstances = Maps.newHashMap();
+            nodes.put(event.getNodeTemplateId(), nodeInstances);
+        }
+        InstanceInformation instanceInformation = nodeInstances.get(event.getInstanceId());
+        if (instanceInformation == null) {
+            instanceInformation = new InstanceInformation();
+            nodeInstances.put(event.getInstanceId(), instanceInformation);
+        }
+        instanceInformation.setState(event.getInstanceState());
+        instanceInformation.setInstanceStatus(event.getInstanceStatus());
+        instanceInformation.setAttributes(event.getAttributes());
+        instanceInformation.setRuntimeProperties(event.getRuntimeProperties());
+    }
+
+    private void apply(Map<String, Map<String, InstanceInformation>> nodes, PaaSInstancePersistentResourceMonitorEvent event) {
+        Map<String, InstanceInformation> nodeInstances = nodes.get(event.getNodeTemplateId());
+        InstanceInformation instanceInformation = nodeInstances == null ? null : nodeInstances.get(event.getInstanceId());
+        if (instanceInformation == null || !(event.getPropertyValue() instanceof String)) {
+            return;
+        }
+        Map<String, String> attributes = instanceInformation.getAttributes() == null ? Maps.<String, String> newHashMap()
+                : Maps.newHashMap(instanceInformation.getAttributes());
+        attributes.put(event.getPropertyName(), (String) event.getPropertyValue());
+        instanceInformation.setAttributes(attributes);
+    }
+
+    @Override
+    public boolean canHandle(AbstractMonitorEvent event) {
+        return event instanceof PaaSInstanceStateMonitorEvent || event instanceof PaaSInstancePersistentResourceMonitorEvent
+                || event instanceof PaaSDeploymentStatusMonitorEvent;
+    }
+
+    private Map<String, Map<String, InstanceInformation>> copy(Map<String, Map<String, InstanceInformation>> nodes) {
+        Map<String, Map<String, InstanceInformation>> copy = Maps.newHashMap();
+        for (Map.Entry<String, Map<String, InstanceInformation>> nodeEntry : nodes.entrySet()) {
+            Map<String, InstanceInformation> nodeInstances = Maps.newHashMap();
+            for (Map.Entry<String, InstanceInformation> instanceEntry : nodeEntry.getValue().entrySet()) {
+                InstanceInformation information = instanceEntry.getValue();
+                nodeInstances.put(instanceEntry.getKey(), new InstanceInformation(information.getState(), information.getInstanceStatus(),
+                        information.getAttributes(), information.getRuntimeProperties(), information.getOperationsOutputs()));
+            }
+            copy.put(nodeEntry.getKey(), nodeInstances);
+        }
+        return copy;
+    }
+
+    /** A reconciliation of the instances information of a deployment with the orchestrator plugin. */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Reconciliation {
+        private final String deploymentId;
+        private final DeploymentInstances instances;
+        /** Number of events received for the deployment when the reconciliation started. */
+        private final long receivedEvents;
+        /** True once the reconciliation has been applied or cancelled (guarded by the deployment instances lock). */
+        private boolean completed;
+    }
+
+    private static class DeploymentInstances {
+        private long reconcileDate;
+        /** Instances information by node template id and instance id, null until the first reconciliation. */
+        private Map<String, Map<String, InstanceInformation>> nodes;
+        /** Number of events received for the deployment. */
+        private long receivedEvents;
+        /** Number of reconciliations in progress. */
+        private int pendingReconciliations;
+        /** Events received while reconciliations are in progress by event number. */
+        private final NavigableMap<Long, AbstractMonitorEvent> pendingEvents = Maps.newTreeMap();
+    }
+}
@@ -0,0 +1,181 @@
+package alien4cloud.deployment.matching.services.nodes;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import alien4cloud.model.components.AbstractPropertyValue;
+import alien4cloud.model.components.IndexedCapabilityType;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.PropertyDefinition;
+import alien4cloud.model.components.ScalarPropertyValue;
+import alien4cloud.model.components.constraints.IMatchPropertyConstraint;
+import alien4cloud.model.deployment.matching.MatchingConfiguration;
+import alien4cloud.model.deployment.matching.MatchingFilterDefinition;
+import alien4cloud.model.orchestrators.locations.LocationResourceTemplate;
+import alien4cloud.model.orchestrators.locations.LocationResources;
+import alien4cloud.model.topology.Capability;
+import alien4cloud.tosca.normative.IPropertyType;
+import alien4cloud.tosca.normative.ToscaType;
+import alien4cloud.tosca.properties.constraints.exception.ConstraintValueDoNotMatchPropertyTypeException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pre-computed matching data for the on-demand resources of a location.
+ *
+ * Candidates are indexed by their node type and all the types they derive from so the candidates of a node are found with a single lookup. The matching
+ * filters of the {@link MatchingConfiguration}s are compiled for every candidate: constraints are instantiated once with the candidate values rather than for
+ * every node to match. An index is immutable and can be shared between threads.
+ */
+@Slf4j
+public class LocationResourcesIndex {
+    /** Last update date of the location when the index has been built. */
+    @Getter
+    private final Date locationLastUpdateDate;
+    /** The matching configurations used to compile the filters. */
+    @Getter
+    private final Map<String, MatchingConfiguration> matchingConfigurations;
+    /** All the types (and parent types) of the nodes managed by the location. */
+    @Getter
+    private final Set<String> managedTypes = Sets.newHashSet();
+    private final Map<String, List<MatchingCandidate>> candidatesByType = Maps.newHashMap();
+
+    public LocationResourcesIndex(Date locationLastUpdateDate, LocationResources locationResources, Map<String, MatchingConfiguration> matchingConfigurations) {
+        this.locationLastUpdateDate = locationLastUpdateDate;
+        this.matchingConfigurations = matchingConfigurations;
+        for (IndexedNodeType nodeType : locationResources.getNodeTypes().values()) {
+            managedTypes.add(nodeType.getElementId());
+            managedTypes.addAll(nodeType.getDerivedFrom());
+        }
+        // The matchingConfigurations can be null when the associate orchestrator is disabled, in such case no on-demand resource can be matched.
+        if (matchingConfigurations == null) {
+            return;
+        }
+        for (LocationResourceTemplate candidate : locationResources.getNodeTemplates()) {
+            IndexedNodeType candidateType = locationResources.getNodeTypes().get(candidate.getTemplate().getType());
+            MatchingCandidate matchingCandidate = compile(candidate, candidateType, locationResources.getCapabilityTypes(),
+                    matchingConfigurations.get(candidateType.getElementId()));
+            addCandidate(candidateType.getElementId(), matchingCandidate);
+            if (candidateType.getDerivedFrom() != null) {
+                for (String parentType : candidateType.getDerivedFrom()) {
+                    addCandidate(parentType, matchingCandidate);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the candidates that are of the given type or of a type derived from it.
+     *
+     * @param type The type of the node to match.
+     * @return The list of candidates in the order of the location resources.
+     */
+    public List<MatchingCandidate> getCandidates(String type) {
+        List<MatchingCandidate> candidates = candidatesByType.get(type);
+        return candidates == null ? Collections.<MatchingCandidate> emptyList() : candidates;
+    }
+
+    private void addCandidate(String type, MatchingCandidate candidate) {
+        List<MatchingCandidate> candidates = candidatesByType.get(type);
+        if (candidates == null) {
+            candidates = Lists.newArrayList();
+            candidatesByType.put(type, candidates);
+        } else if (candidates.get(candidates.size() - 1) == candidate) {
+            // a type may be listed multiple times in the hierarchy.
+            return;
+        }
+        candidates.add(candidate);
+    }
+
+    private MatchingCandidate compile(LocationResourceTemplate candidate, IndexedNodeType candidateType, Map<String, IndexedCapabilityType> capabilityTypes,
+            MatchingConfiguration matchingConfiguration) {
+        if (matchingConfiguration == null) {
+            return new MatchingCandidate(candidate, null, null);
+        }
+        List<CompiledFilter> propertyFilters = compile(matchingConfiguration.getProperties(), candidate.getTemplate().getProperties(),
+                candidateType.getProperties());
+        Map<String, List<CompiledFilter>> capabilityFilters = Maps.newHashMap();
+        if (matchingConfiguration.getCapabilities() != null) {
+            for (Map.Entry<String, MatchingFilterDefinition> capabilityMatchingFilterEntry : matchingConfiguration.getCapabilities().entrySet()) {
+                Capability candidateCapability = candidate.getTemplate().getCapabilities().get(capabilityMatchingFilterEntry.getKey());
+                IndexedCapabilityType capabilityType = capabilityTypes.get(candidateCapability.getType());
+                capabilityFilters.put(capabilityMatchingFilterEntry.getKey(), compile(capabilityMatchingFilterEntry.getValue().getProperties(),
+                        candidateCapability.getProperties(), capabilityType.getProperties()));
+            }
+        }
+        return new MatchingCandidate(candidate, propertyFilters, capabilityFilters);
+    }
+
+    /**
+     * Compile the filters of a matching configuration with the values defined on the candidate.
+     *
+     * @param sourceFilters The filtering map (based on constraints) from matching configuration.
+     * @param propertyValues The values defined on the Location Template.
+     * @param propertyDefinitions The properties definitions associated with the node or capability.
+     * @return The list of filters that the node template values must match.
+     */
+    private List<CompiledFilter> compile(Map<String, List<IMatchPropertyConstraint>> sourceFilters, Map<String, AbstractPropertyValue> propertyValues,
+            Map<String, PropertyDefinition> propertyDefinitions) {
+        List<CompiledFilter> compiledFilters = Lists.newArrayList();
+        for (Map.Entry<String, List<IMatchPropertyConstraint>> filterEntry : sourceFilters.entrySet()) {
+            AbstractPropertyValue candidatePropertyValue = propertyValues == null ? null : propertyValues.get(filterEntry.getKey());
+            if (!(candidatePropertyValue instanceof ScalarPropertyValue)) {
+                continue;
+            }
+            IPropertyType<?> toscaType = ToscaType.fromYamlTypeName(propertyDefinitions.get(filterEntry.getKey()).getType());
+            List<IMatchPropertyConstraint> constraints = Lists.newArrayList();
+            try {
+                for (IMatchPropertyConstraint constraint : filterEntry.getValue()) {
+                    // constraints from the matching configuration are shared, use a new instance to set the candidate value.
+                    IMatchPropertyConstraint candidateConstraint = newInstance(constraint);
+                    candidateConstraint.setConstraintValue(toscaType, ((ScalarPropertyValue) candidatePropertyValue).getValue());
+                    constraints.add(candidateConstraint);
+                }
+            } catch (ConstraintValueDoNotMatchPropertyTypeException e) {
+                log.debug("The value of property for a constraint is not valid.", e);
+            }
+            if (!constraints.isEmpty()) {
+                compiledFilters.add(new CompiledFilter(filterEntry.getKey(), toscaType, constraints));
+            }
+        }
+        return compiledFilters;
+    }
+
+    @SneakyThrows({ InstantiationException.class, IllegalAccessException.class })
+    private IMatchPropertyConstraint newInstance(IMatchPropertyConstraint constraint) {
+        return constraint.getClass().newInstance();
+    }
+
+    /**
+     * A location resource template with it's compiled matching filters.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class MatchingCandidate {
+        private final LocationResourceTemplate template;
+        /** Filters on the node properties, null if no matching configuration is defined for the candidate type. */
+        private final List<CompiledFilter> propertyFilters;
+        /** Filters on the capabilities properties by capability name, null if no matching configuration is defined for the candidate type. */
+        private final Map<String, List<CompiledFilter>> capabilityFilters;
+    }
+
+    /**
+     * Constraints to check against the value of a property.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CompiledFilter {
+        private final String propertyName;
+        private final IPropertyType<?> toscaType;
+        private final List<IMatchPropertyConstraint> constraints;
+    }
+}
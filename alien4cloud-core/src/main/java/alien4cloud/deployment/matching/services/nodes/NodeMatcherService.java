@@ -1,16 +1,21 @@
 package alien4cloud.deployment.matching.services.nodes;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Inject;
 
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
-import alien4cloud.deployment.matching.plugins.INodeMatcherPlugin;
+import alien4cloud.dao.ElasticSearchMapper;
+import alien4cloud.events.LocationResourceEvent;
 import alien4cloud.exception.InvalidArgumentException;
+import alien4cloud.exception.TechnicalException;
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.model.deployment.matching.MatchingConfiguration;
 import alien4cloud.model.orchestrators.locations.Location;
@@ -20,16 +25,26 @@ import alien4cloud.model.topology.NodeTemplate;
 import alien4cloud.orchestrators.locations.services.ILocationResourceService;
 import alien4cloud.orchestrators.locations.services.LocationMatchingConfigurationService;
 import alien4cloud.orchestrators.locations.services.LocationService;
+import alien4cloud.orchestrators.plugin.IOrchestratorPlugin;
+import alien4cloud.paas.OrchestratorPluginService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 
 /**
  * Node matcher service will filter location resources for all substitutable nodes of the topology. It will return only location resources that can substitute a
  * node.
+ *
+ * The resources of every location are indexed by type with pre-compiled matching filters. Indexes are rebuilt when the location is updated (resource templates
+ * are saved or deleted) or when the orchestrator plugin that provides the matching configuration is enabled again, and evicted when a
+ * {@link LocationResourceEvent} is published. Matched templates are copies so callers cannot alter the indexed resources.
  */
 @Service
-public class NodeMatcherService {
+public class NodeMatcherService implements ApplicationListener<LocationResourceEvent> {
 
     @Inject
     private DefaultNodeMatcher defaultNodeMatcher;
@@ -40,35 +55,87 @@ public class NodeMatcherService {
     private ILocationResourceService locationResourceService;
     @Inject
     private LocationMatchingConfigurationService locationMatchingConfigurationService;
+    @Inject
+    private OrchestratorPluginService orchestratorPluginService;
 
-    private INodeMatcherPlugin getNodeMatcherPlugin() {
-        // TODO manage plugins
-        return defaultNodeMatcher;
-    }
+    /** Matched templates are copied using the same mapper as for elastic search so they are the same as templates read from the index. */
+    private final ObjectMapper mapper = ElasticSearchMapper.getInstance();
+
+    /** Location resources and index by location id. */
+    private final Map<String, IndexedLocationResources> locationIndexes = new ConcurrentHashMap<>();
 
     public Map<String, List<LocationResourceTemplate>> match(Map<String, IndexedNodeType> nodesTypes, Map<String, NodeTemplate> nodesToMatch,
             String locationId) {
         Map<String, List<LocationResourceTemplate>> matchingResult = Maps.newHashMap();
         Location location = locationService.getOrFail(locationId);
-        LocationResources locationResources = locationResourceService.getLocationResources(location);
-        Map<String, MatchingConfiguration> matchingConfigurations = locationMatchingConfigurationService.getMatchingConfiguration(location);
-        Set<String> typesManagedByLocation = Sets.newHashSet();
-        for (IndexedNodeType nodeType : locationResources.getNodeTypes().values()) {
-            typesManagedByLocation.add(nodeType.getElementId());
-            typesManagedByLocation.addAll(nodeType.getDerivedFrom());
-        }
-        INodeMatcherPlugin nodeMatcherPlugin = getNodeMatcherPlugin();
+        IndexedLocationResources indexedLocationResources = getIndexedLocationResources(location);
+        LocationResourcesIndex locationResourcesIndex = indexedLocationResources.getIndex();
+        // a template matched by several nodes is copied once, as when resources were read from the index for every matching.
+        Map<String, LocationResourceTemplate> copies = Maps.newHashMap();
+        // TODO manage plugins, the location index is specific to the default node matcher.
         for (Map.Entry<String, NodeTemplate> nodeTemplateEntry : nodesToMatch.entrySet()) {
             String nodeTemplateId = nodeTemplateEntry.getKey();
             NodeTemplate nodeTemplate = nodeTemplateEntry.getValue();
-            if (typesManagedByLocation.contains(nodeTemplate.getType())) {
+            if (locationResourcesIndex.getManagedTypes().contains(nodeTemplate.getType())) {
                 IndexedNodeType nodeTemplateType = nodesTypes.get(nodeTemplate.getType());
                 if (nodeTemplateType == null) {
                     throw new InvalidArgumentException("The given node types map must contain the type of the node template");
                 }
-                matchingResult.put(nodeTemplateId, nodeMatcherPlugin.matchNode(nodeTemplate, nodeTemplateType, locationResources, matchingConfigurations));
+                List<LocationResourceTemplate> matchedTemplates = defaultNodeMatcher.matchNode(nodeTemplate, nodeTemplateType,
+                        indexedLocationResources.getResources(), locationResourcesIndex);
+                matchingResult.put(nodeTemplateId, copy(matchedTemplates, copies));
             }
         }
         return matchingResult;
     }
+
+    private List<LocationResourceTemplate> copy(List<LocationResourceTemplate> templates, Map<String, LocationResourceTemplate> copies) {
+        List<LocationResourceTemplate> result = Lists.newArrayListWithCapacity(templates.size());
+        for (LocationResourceTemplate template : templates) {
+            LocationResourceTemplate copy = copies.get(template.getId());
+            if (copy == null) {
+                try {
+                    copy = mapper.readValue(mapper.writeValueAsBytes(template), LocationResourceTemplate.class);
+                } catch (IOException e) {
+                    throw new TechnicalException("Unable to copy location resource template <" + template.getId() + ">", e);
+                }
+                copies.put(template.getId(), copy);
+            }
+            result.add(copy);
+        }
+        return result;
+    }
+
+    private IndexedLocationResources getIndexedLocationResources(Location location) {
+        // the matching configuration is provided by the orchestrator plugin, the index must be rebuilt if the plugin instance changed.
+        IOrchestratorPlugin orchestratorInstance = orchestratorPluginService.get(location.getOrchestratorId());
+        IndexedLocationResources indexedLocationResources = locationIndexes.get(location.getId());
+        if (indexedLocationResources != null && Objects.equals(location.getLastUpdateDate(), indexedLocationResources.getIndex().getLocationLastUpdateDate())
+                && orchestratorInstance == indexedLocationResources.getOrchestratorInstance()) {
+            return indexedLocationResources;
+        }
+        Map<String, MatchingConfiguration> matchingConfigurations = locationMatchingConfigurationService.getMatchingConfiguration(location);
+        LocationResources locationResources = locationResourceService.getLocationResources(location);
+        indexedLocationResources = new IndexedLocationResources(orchestratorInstance, locationResources,
+                new LocationResourcesIndex(location.getLastUpdateDate(), locationResources, matchingConfigurations));
+        locationIndexes.put(location.getId(), indexedLocationResources);
+        return indexedLocationResources;
+    }
+
+    @Override
+    public void onApplicationEvent(LocationResourceEvent event) {
+        if (event.getLocation() == null) {
+            locationIndexes.clear();
+        } else {
+            locationIndexes.remove(event.getLocation().getId());
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class IndexedLocationResources {
+        private final IOrchestratorPlugin orchestratorInstance;
+        private final LocationResources resources;
+        private final LocationResourcesIndex index;
+    }
 }
@@ -9,9 +9,18 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumSet;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import javax.imageio.ImageIO;
 
@@ -22,6 +31,11 @@ import org.springframework.beans.factory.annotation.Required;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import alien4cloud.dao.ESGenericIdDAO;
 import alien4cloud.exception.IndexingServiceException;
 import alien4cloud.exception.NotFoundException;
@@ -31,13 +45,30 @@ import alien4cloud.utils.ImageResizeUtil;
 
 /**
  * A dao to store/load images.
+ *
+ * The original image is stored synchronously while the resized qualities are generated in background. A quality that is requested before it's generation
+ * completes is generated (or waited for) on demand. Read images are kept in a size-bounded memory cache so repeated requests don't hit elastic search or the
+ * disk.
  */
 @Slf4j
 @Component("image-dao")
 public class ImageDAO extends ESGenericIdDAO implements IImageDAO {
+    /** Qualities generated by resizing the original image. */
+    private static final EnumSet<ImageQuality> RESIZED_QUALITIES = EnumSet.of(ImageQuality.QUALITY_16, ImageQuality.QUALITY_32, ImageQuality.QUALITY_64,
+            ImageQuality.QUALITY_128);
+
     @Resource
     private MappingBuilder mappingBuilder;
     private Path rootPath;
+    @Value("${images.resize_threads:2}")
+    private int resizeThreads;
+    @Value("${images.cache_max_bytes:33554432}")
+    private long cacheMaxBytes;
+
+    private ExecutorService resizeExecutor;
+    /** Resized images being generated by image id. */
+    private final Map<String, CompletableFuture<Void>> pendingResizes = new ConcurrentHashMap<>();
+    private Cache<String, ImageData> imageCache;
 
     @Required
     @Value("${directories.alien}/${directories.images}")
@@ -59,6 +90,13 @@ public class ImageDAO extends ESGenericIdDAO implements IImageDAO {
         // init indexes and mapped classes
         initIndices(ImageData.class.getSimpleName().toLowerCase(), null, ImageData.class);
         initCompleted();
+        resizeExecutor = Executors.newFixedThreadPool(resizeThreads, new ThreadFactoryBuilder().setNameFormat("image-resize-%d").setDaemon(true).build());
+        imageCache = CacheBuilder.newBuilder().maximumWeight(cacheMaxBytes).<String, ImageData> weigher((id, imageData) -> imageData.getData().length).build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        resizeExecutor.shutdown();
     }
 
     @Override
@@ -73,64 +111,134 @@ public class ImageDAO extends ESGenericIdDAO implements IImageDAO {
 
     @Override
     public void writeImage(final ImageData imageData) {
-        // resize the image to store the different available qualities.
         InputStream is = new ByteArrayInputStream(imageData.getData());
+        BufferedImage original;
         try {
-            BufferedImage original = ImageIO.read(is);
+            original = ImageIO.read(is);
             if (original == null) {
                 throw new ImageUploadException("The image is not valid and cannot be read");
             }
-            resizeAndWrite(getImageId(ImageQuality.QUALITY_16, imageData.getId()), original, ImageQuality.QUALITY_16.getSize());
-            resizeAndWrite(getImageId(ImageQuality.QUALITY_32, imageData.getId()), original, ImageQuality.QUALITY_32.getSize());
-            resizeAndWrite(getImageId(ImageQuality.QUALITY_64, imageData.getId()), original, ImageQuality.QUALITY_64.getSize());
-            resizeAndWrite(getImageId(ImageQuality.QUALITY_128, imageData.getId()), original, ImageQuality.QUALITY_128.getSize());
-            // resizeAndWrite(getImageId(ImageQuality.QUALITY_512, imageData.getId()), original, ImageQuality.QUALITY_512.getSize());
-
-            saveAsPng(imageData.getId(), original);
+            writePng(imageData.getId(), original);
         } catch (IOException e) {
             throw new ImageUploadException("Unable to write uploaded image to data source", e);
         }
+        // save all qualities in elastic search at once, resized images are generated in background and on-demand if requested before completion.
+        ImageData[] imageDatas = new ImageData[RESIZED_QUALITIES.size() + 1];
+        imageDatas[0] = newPngImageData(imageData.getId());
+        int index = 1;
+        for (ImageQuality quality : RESIZED_QUALITIES) {
+            imageDatas[index++] = newPngImageData(getImageId(quality, imageData.getId()));
+        }
+        this.save(imageDatas);
+        // register the pending resize before starting it so it is never removed before being added.
+        final String id = imageData.getId();
+        final CompletableFuture<Void> pendingResize = new CompletableFuture<>();
+        pendingResizes.put(id, pendingResize);
+        CompletableFuture.allOf(RESIZED_QUALITIES.stream()
+                .map(quality -> CompletableFuture.runAsync(() -> resizeAndWrite(id, quality, original), resizeExecutor)).toArray(CompletableFuture[]::new))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.error("Failed to generate resized images for image {}", id, error);
+                    }
+                    pendingResizes.remove(id, pendingResize);
+                    // waiting readers generate the qualities that failed on demand.
+                    pendingResize.complete(null);
+                });
     }
 
-    private void resizeAndWrite(final String imageId, final BufferedImage original, final int size) throws IOException {
-        BufferedImage target = ImageResizeUtil.resizeImageWithHint(original, size, size, true);
-        saveAsPng(imageId, target);
+    private void resizeAndWrite(final String id, final ImageQuality quality, final BufferedImage original) {
+        BufferedImage target = ImageResizeUtil.resizeImageWithHint(original, quality.getSize(), quality.getSize(), true);
+        try {
+            writePng(getImageId(quality, id), target);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
     }
 
-    private void saveAsPng(String imageId, BufferedImage target) throws IOException {
-        FileOutputStream fos = new FileOutputStream(rootPath.resolve(imageId + ".png").toFile());
-        try {
+    private void writePng(String imageId, BufferedImage target) throws IOException {
+        // write in a temporary file first so readers never see a partially written image.
+        Path tempPath = Files.createTempFile(rootPath, imageId, ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tempPath.toFile())) {
             ImageIO.write(target, "png", fos);
             fos.flush();
-        } finally {
-            fos.close();
         }
-        // save in elastic search
+        Files.move(tempPath, getImagePath(imageId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private ImageData newPngImageData(String imageId) {
         ImageData imageData = new ImageData();
         imageData.setId(imageId);
         imageData.setMime("image/png");
-        this.save(imageData);
+        return imageData;
     }
 
     @Override
     public ImageData readImage(final String id, ImageQuality imageQuality) {
-        ImageData imageData = findById(ImageData.class, getImageId(imageQuality, id));
+        String imageId = getImageId(imageQuality, id);
+        ImageData imageData = imageCache.getIfPresent(imageId);
+        if (imageData != null) {
+            return copy(imageData);
+        }
+        imageData = findById(ImageData.class, imageId);
         if (imageData == null) {
             throw new NotFoundException("Unable to find image.");
         }
         if (imageData.getData() == null) {
             try {
-                imageData.setData(Files.readAllBytes(rootPath.resolve(imageData.getId() + ".png")));
+                imageData.setData(Files.readAllBytes(getResizedImagePath(id, imageQuality)));
             } catch (IOException e) {
                 throw new NotFoundException("Unable to find image on disk.");
             }
         }
-        return imageData;
+        imageData.setEtag(Hashing.md5().hashBytes(imageData.getData()).toString());
+        imageCache.put(imageId, imageData);
+        return copy(imageData);
+    }
+
+    /**
+     * Cached images are shared, callers get a copy they can update without altering the cache.
+     */
+    private ImageData copy(ImageData imageData) {
+        ImageData copy = new ImageData();
+        copy.setId(imageData.getId());
+        copy.setData(imageData.getData().clone());
+        copy.setMime(imageData.getMime());
+        copy.setEtag(imageData.getEtag());
+        return copy;
+    }
+
+    /**
+     * Get the path of an image quality, waiting for or performing the resize if the resized image is not yet available.
+     */
+    private Path getResizedImagePath(String id, ImageQuality imageQuality) throws IOException {
+        Path imagePath = getImagePath(getImageId(imageQuality, id));
+        if (!RESIZED_QUALITIES.contains(imageQuality) || Files.exists(imagePath)) {
+            return imagePath;
+        }
+        CompletableFuture<Void> pendingResize = pendingResizes.get(id);
+        if (pendingResize != null) {
+            pendingResize.join();
+        }
+        if (!Files.exists(imagePath)) {
+            BufferedImage original = ImageIO.read(getImagePath(id).toFile());
+            if (original == null) {
+                throw new IOException("Unable to read original image " + id);
+            }
+            writePng(getImageId(imageQuality, id), ImageResizeUtil.resizeImageWithHint(original, imageQuality.getSize(), imageQuality.getSize(), true));
+        }
+        return imagePath;
+    }
+
+    private Path getImagePath(String imageId) {
+        return rootPath.resolve(imageId + ".png");
     }
 
     @Override
     public void delete(String id) {
         delete(ImageData.class, id);
+        for (ImageQuality quality : ImageQuality.values()) {
+            imageCache.invalidate(getImageId(quality, id));
+        }
     }
 
     private String getImageId(final ImageQuality imageQuality, final String id) {
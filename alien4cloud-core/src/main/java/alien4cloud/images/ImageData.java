@@ -6,6 +6,8 @@ import lombok.Setter;
 import org.elasticsearch.annotation.ESObject;
 import org.elasticsearch.annotation.Id;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 @ESObject
 @Getter
 @Setter
@@ -14,4 +16,7 @@ public class ImageData {
     private String id;
     private byte[] data;
     private String mime;
+    /** Hash of the image data computed when the image is read, not persisted. */
+    @JsonIgnore
+    private String etag;
 }
\ No newline at end of file
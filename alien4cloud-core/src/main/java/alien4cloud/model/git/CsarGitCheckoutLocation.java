@@ -1,5 +1,7 @@
 package alien4cloud.model.git;
 
+import java.util.Map;
+
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Getter;
@@ -8,6 +10,14 @@ import lombok.Setter;
 
 import org.hibernate.validator.constraints.NotBlank;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import alien4cloud.utils.jackson.ConditionalAttributes;
+import alien4cloud.utils.jackson.ConditionalOnAttribute;
+import alien4cloud.utils.jackson.JSonMapEntryArrayDeSerializer;
+import alien4cloud.utils.jackson.JSonMapEntryArraySerializer;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,4 +30,9 @@ public class CsarGitCheckoutLocation {
     private String subPath;
     @ApiModelProperty(value = "unused field.", hidden = true)
     private String lastImportedHash;
+    @ApiModelProperty(value = "Content hash of the archives directories at the last import by archive id.", hidden = true)
+    @ConditionalOnAttribute(ConditionalAttributes.ES)
+    @JsonDeserialize(using = JSonMapEntryArrayDeSerializer.class)
+    @JsonSerialize(using = JSonMapEntryArraySerializer.class)
+    private Map<String, String> archiveHashes;
 }
\ No newline at end of file
@@ -441,9 +441,10 @@ public class LocationResourceService implements ILocationResourceService {
      */
     @Override
     public void saveResource(Location location, LocationResourceTemplate resourceTemplate) {
+        // the location update date is the version of the location resources (see NodeMatcherService), it must change only once the template is saved.
+        alienDAO.save(resourceTemplate);
         location.setLastUpdateDate(new Date());
         alienDAO.save(location);
-        alienDAO.save(resourceTemplate);
     }
 
     /*
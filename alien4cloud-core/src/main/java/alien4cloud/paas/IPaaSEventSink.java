@@ -0,0 +1,27 @@
+package alien4cloud.paas;
+
+import alien4cloud.paas.model.AbstractMonitorEvent;
+
+/**
+ * Sink in which an orchestrator plugin can push monitor events as soon as they happen. Events pushed to the sink are persisted and dispatched to the
+ * listeners like polled events.
+ *
+ * The sink is bounded, plugins that produce events faster than they are processed are slowed down (put) or notified (offer).
+ */
+public interface IPaaSEventSink {
+    /**
+     * Push an event to the sink, waiting if the sink is full.
+     *
+     * @param event The event to push.
+     * @throws InterruptedException If interrupted while waiting for space in the sink.
+     */
+    void put(AbstractMonitorEvent event) throws InterruptedException;
+
+    /**
+     * Push an event to the sink if there is space available.
+     *
+     * @param event The event to push.
+     * @return true if the event has been accepted, false if the sink is full.
+     */
+    boolean offer(AbstractMonitorEvent event);
+}
@@ -0,0 +1,14 @@
+package alien4cloud.paas;
+
+/**
+ * Optional interface for PaaS providers that push their monitor events to alien rather than waiting for {@link IPaaSProvider#getEventsSince} to be
+ * called. Alien does not poll for events the providers that implement this interface.
+ */
+public interface IPushEventsPaaSProvider extends IPaaSProvider {
+    /**
+     * Set the sink in which the provider must push it's events. Called when the provider is registered and with null when it is unregistered.
+     *
+     * @param eventSink The sink in which to push events or null if events must not be pushed anymore.
+     */
+    void setEventSink(IPaaSEventSink eventSink);
+}
@@ -2,6 +2,7 @@ package alien4cloud.paas;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
@@ -17,6 +18,7 @@ import org.springframework.stereotype.Component;
 import com.google.common.collect.Maps;
 
 import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.deployment.ActiveDeploymentRegistry;
 import alien4cloud.exception.AlreadyExistException;
 import alien4cloud.orchestrators.plugin.IOrchestratorPlugin;
 import alien4cloud.paas.exception.OrchestratorDisabledException;
@@ -29,8 +31,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @Component
 public class OrchestratorPluginService implements IPaasEventService {
-    @Resource(name = "alien-es-dao")
-    private IGenericSearchDAO alienDao;
+    @Inject
+    private ActiveDeploymentRegistry activeDeploymentRegistry;
     @Resource(name = "alien-monitor-es-dao")
     private IGenericSearchDAO alienMonitorDao;
     @Resource(name = "paas-monitor-scheduler")
@@ -40,6 +42,8 @@ public class OrchestratorPluginService implements IPaasEventService {
     private long monitorIntervalMs = 1000 * 30;
     @Inject
     private DeploymentStatusEventHandler deploymentStatusEventHandler;
+    @Inject
+    private PaaSEventDispatcher eventDispatcher;
 
     private Map<String, Registration> monitorRegistrations = Maps.newHashMap();
 
@@ -73,9 +77,16 @@ public class OrchestratorPluginService implements IPaasEventService {
             throw new AlreadyExistException("Cloud [" + orchestratorId + "] has already been registered");
         }
         // create the polling monitor responsible to monitor this instance.
-        PaaSProviderPollingMonitor monitor = new PaaSProviderPollingMonitor(alienDao, alienMonitorDao, instance, listeners, orchestratorId);
-        ScheduledFuture<?> monitorFuture = scheduler.scheduleAtFixedRate(monitor, monitorIntervalMs);
-        Registration registration = new Registration(instance, monitorFuture);
+        PaaSProviderPollingMonitor monitor = new PaaSProviderPollingMonitor(activeDeploymentRegistry, alienMonitorDao, instance, eventDispatcher, listeners,
+                orchestratorId);
+        // providers that push their events do not need to be polled.
+        ScheduledFuture<?> monitorFuture = null;
+        if (!monitor.isPushBased()) {
+            monitorFuture = scheduler.scheduleAtFixedRate(monitor, monitorIntervalMs);
+            // poll immediately when the orchestrator gets a deployment rather than waiting for the next scheduled poll.
+            activeDeploymentRegistry.setActivationListener(orchestratorId, () -> scheduler.schedule(monitor, new Date()));
+        }
+        Registration registration = new Registration(instance, monitor, monitorFuture);
         monitorRegistrations.put(orchestratorId, registration);
     }
 
@@ -88,7 +99,11 @@ public class OrchestratorPluginService implements IPaasEventService {
         log.info("Unregister provider with id {}", orchestratorId);
         Registration registration = monitorRegistrations.remove(orchestratorId);
         if (registration != null) {
-            registration.registration.cancel(false);
+            activeDeploymentRegistry.setActivationListener(orchestratorId, null);
+            if (registration.registration != null) {
+                registration.registration.cancel(false);
+            }
+            registration.monitor.close();
             return registration.instance;
         } else {
             return null;
@@ -126,6 +141,7 @@ public class OrchestratorPluginService implements IPaasEventService {
     @AllArgsConstructor(suppressConstructorProperties = true)
     private class Registration {
         private IOrchestratorPlugin instance;
+        private PaaSProviderPollingMonitor monitor;
         private ScheduledFuture<?> registration;
     }
 }
@@ -0,0 +1,179 @@
+package alien4cloud.paas;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import alien4cloud.paas.model.AbstractMonitorEvent;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dispatch monitor events polled from the orchestrators to the registered {@link IPaasEventListener}s.
+ *
+ * Events are dispatched on a bounded number of single threaded lanes. All events of a deployment are processed by the same lane so that the per-deployment
+ * ordering is kept while events of different deployments are processed in parallel. When a lane queue is full the polling thread waits for some space in
+ * the lane (back-pressure). Failed dispatches are retried on the lane with an exponential backoff before the next events of the lane are dispatched so a
+ * retried event is never applied after a more recent one.
+ */
+@Slf4j
+@Component
+public class PaaSEventDispatcher {
+    /** Rejection handler that makes the submitting thread wait for some space in the lane queue instead of dispatching the event out of the lane. */
+    private static final RejectedExecutionHandler BLOCKING_SUBMISSION = (runnable, executor) -> {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Event dispatcher has been shutdown.");
+        }
+        try {
+            executor.getQueue().put(runnable);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for the event dispatch lane.", e);
+        }
+    };
+
+    /** Number of dispatch lanes (threads). */
+    @Value("${paas_monitor.dispatcher.lanes:4}")
+    private int laneCount;
+    /** Maximum number of pending events per lane. */
+    @Value("${paas_monitor.dispatcher.lane_queue_size:5000}")
+    private int laneQueueSize;
+    /** Maximum number of retries for a listener that failed to handle an event. */
+    @Value("${paas_monitor.dispatcher.max_retry:3}")
+    private int maxRetry;
+    /** Delay before the first retry, doubled for every new retry. */
+    @Value("${paas_monitor.dispatcher.retry_delay_ms:10}")
+    private long retryDelayMs;
+    /** The metric registry is optional, when not defined metrics are only available through the getters. */
+    @Autowired(required = false)
+    private MetricRegistry metricRegistry;
+
+    private ThreadPoolExecutor[] lanes;
+
+    /** Number of events dispatched to listeners. */
+    @Getter
+    private final AtomicLong dispatchedEvents = new AtomicLong();
+    /** Number of listener dispatches that have been retried. */
+    @Getter
+    private final AtomicLong retriedDispatches = new AtomicLong();
+    /** Number of listener dispatches that failed after all retries. */
+    @Getter
+    private final AtomicLong failedDispatches = new AtomicLong();
+    /** Delay in milliseconds between the submission and the dispatch of the last dispatched event. */
+    @Getter
+    private final AtomicLong lastDispatchLagMs = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            final String threadName = "paas-event-dispatcher-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(laneQueueSize), runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }, BLOCKING_SUBMISSION);
+        }
+        if (metricRegistry != null) {
+            registerMetrics();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * Dispatch a batch of events to the given listeners. Events are dispatched asynchronously, in order for a given deployment.
+     *
+     * @param listeners The listeners to which to dispatch events.
+     * @param events The events to dispatch.
+     */
+    @SuppressWarnings("rawtypes")
+    public void dispatch(List<IPaasEventListener> listeners, AbstractMonitorEvent[] events) {
+        for (AbstractMonitorEvent event : events) {
+            final long submitTime = System.currentTimeMillis();
+            getLane(event).execute(() -> {
+                lastDispatchLagMs.set(System.currentTimeMillis() - submitTime);
+                // listeners are processed in registration order as the deployment status handler must be first.
+                for (IPaasEventListener listener : listeners) {
+                    dispatch(listener, event, 0);
+                }
+                dispatchedEvents.incrementAndGet();
+            });
+        }
+    }
+
+    /**
+     * @return The total number of events waiting for dispatch on all lanes.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            depth += lane.getQueue().size();
+        }
+        return depth;
+    }
+
+    private ThreadPoolExecutor getLane(AbstractMonitorEvent event) {
+        String partitionKey = event.getDeploymentId() == null ? event.getOrchestratorId() : event.getDeploymentId();
+        return lanes[(Objects.hashCode(partitionKey) & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void dispatch(IPaasEventListener listener, AbstractMonitorEvent event, int retry) {
+        try {
+            if (listener.canHandle(event)) {
+                listener.eventHappened(event);
+            }
+        } catch (Exception e) {
+            log.error("Failed to dispatch event {} to listener {} retry {} on {}.", event.toString(), listener.toString(), retry, maxRetry, e);
+            if (retry >= maxRetry) {
+                failedDispatches.incrementAndGet();
+                return;
+            }
+            retriedDispatches.incrementAndGet();
+            // the retry is done on the lane thread so the next events of the deployment are not dispatched before the retried one.
+            try {
+                Thread.sleep(retryDelayMs << retry);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                failedDispatches.incrementAndGet();
+                return;
+            }
+            dispatch(listener, event, retry + 1);
+        }
+    }
+
+    private void registerMetrics() {
+        String prefix = MetricRegistry.name(PaaSEventDispatcher.class);
+        registerGauge(MetricRegistry.name(prefix, "queue-depth"), (Gauge<Integer>) this::getQueueDepth);
+        registerGauge(MetricRegistry.name(prefix, "dispatched"), (Gauge<Long>) dispatchedEvents::get);
+        registerGauge(MetricRegistry.name(prefix, "retried"), (Gauge<Long>) retriedDispatches::get);
+        registerGauge(MetricRegistry.name(prefix, "failed"), (Gauge<Long>) failedDispatches::get);
+        registerGauge(MetricRegistry.name(prefix, "last-dispatch-lag-ms"), (Gauge<Long>) lastDispatchLagMs::get);
+    }
+
+    private void registerGauge(String metricName, Gauge<?> gauge) {
+        metricRegistry.remove(metricName);
+        metricRegistry.register(metricName, gauge);
+    }
+}
@@ -4,35 +4,40 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import org.elasticsearch.mapping.QueryHelper.SearchQueryHelperBuilder;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.GetMultipleDataResult;
-import alien4cloud.model.deployment.Deployment;
+import alien4cloud.deployment.ActiveDeploymentRegistry;
 import alien4cloud.paas.model.AbstractMonitorEvent;
 import alien4cloud.paas.model.PaaSDeploymentStatusMonitorEvent;
-import alien4cloud.utils.MapUtil;
 import alien4cloud.utils.TypeScanner;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Monitor service to watch a deployed topologies for a given PaaS provider.
+ *
+ * Events are polled from the provider unless it implements {@link IPushEventsPaaSProvider}, in which case the provider pushes events in a bounded sink that is
+ * drained by a dedicated thread.
  */
 @SuppressWarnings("unchecked")
 @Slf4j
 public class PaaSProviderPollingMonitor implements Runnable {
     private static final int MAX_POLLED_EVENTS = 500;
-    private static final int MAX_LISTENER_RETRY = 3;
-    private static final long LISTENER_FAIL_RETRY_SLEEP_MS = 10;
+    /** Maximum number of events pushed by a provider and waiting to be processed. */
+    private static final int PUSHED_EVENTS_CAPACITY = 10000;
 
-    private final IGenericSearchDAO dao;
+    private final ActiveDeploymentRegistry activeDeploymentRegistry;
     private final IGenericSearchDAO monitorDAO;
     private final IPaaSProvider paaSProvider;
+    private final PaaSEventDispatcher eventDispatcher;
     private Date lastPollingDate;
     @SuppressWarnings("rawtypes")
     private List<IPaasEventListener> listeners;
@@ -40,19 +45,24 @@ public class PaaSProviderPollingMonitor implements Runnable {
     private String orchestratorId;
     private boolean hasDeployments = false;
     private boolean getEventsInProgress = false;
+    /** Thread that drains the events pushed by the provider if it supports push. */
+    private Thread pushedEventsDrainer;
 
     /**
      * Create a new instance of the {@link PaaSProviderPollingMonitor} to monitor the given paas provider.
      *
+     * @param activeDeploymentRegistry The registry used to know if the orchestrator has active deployments.
      * @param paaSProvider The paas provider to monitor.
+     * @param eventDispatcher The dispatcher used to send the polled events to the listeners.
      */
     @SuppressWarnings("rawtypes")
-    public PaaSProviderPollingMonitor(IGenericSearchDAO dao, IGenericSearchDAO monitorDAO, IPaaSProvider paaSProvider, List<IPaasEventListener> listeners,
-            String orchestratorId) {
+    public PaaSProviderPollingMonitor(ActiveDeploymentRegistry activeDeploymentRegistry, IGenericSearchDAO monitorDAO, IPaaSProvider paaSProvider,
+            PaaSEventDispatcher eventDispatcher, List<IPaasEventListener> listeners, String orchestratorId) {
         this.orchestratorId = orchestratorId;
-        this.dao = dao;
+        this.activeDeploymentRegistry = activeDeploymentRegistry;
         this.monitorDAO = monitorDAO;
         this.paaSProvider = paaSProvider;
+        this.eventDispatcher = eventDispatcher;
         this.listeners = listeners;
         Set<Class<?>> eventClasses = Sets.newHashSet();
         try {
@@ -84,6 +94,105 @@ public class PaaSProviderPollingMonitor implements Runnable {
             log.debug("No monitor events found, the last polling date will be current date {}", this.lastPollingDate);
         }
         paaSEventsCallback = new PaaSEventsCallback();
+        if (paaSProvider instanceof IPushEventsPaaSProvider) {
+            PushedEventsSink eventSink = new PushedEventsSink();
+            pushedEventsDrainer = new Thread(eventSink, "paas-events-sink-" + orchestratorId);
+            pushedEventsDrainer.setDaemon(true);
+            pushedEventsDrainer.start();
+            ((IPushEventsPaaSProvider) paaSProvider).setEventSink(eventSink);
+        }
+    }
+
+    /**
+     * @return true if the monitored provider pushes it's events and does not need to be polled.
+     */
+    public boolean isPushBased() {
+        return pushedEventsDrainer != null;
+    }
+
+    /**
+     * Stop to receive events from the provider.
+     */
+    public void close() {
+        if (pushedEventsDrainer != null) {
+            ((IPushEventsPaaSProvider) paaSProvider).setEventSink(null);
+            pushedEventsDrainer.interrupt();
+        }
+    }
+
+    /**
+     * Persist a batch of events received from the provider and dispatch them to the listeners.
+     *
+     * @param auditEvents The events received from the provider.
+     */
+    private synchronized void processEvents(AbstractMonitorEvent[] auditEvents) {
+        if (log.isDebugEnabled() && auditEvents != null && auditEvents.length > 0) {
+            log.debug("Saving events for orchestrator {}", orchestratorId);
+            for (AbstractMonitorEvent event : auditEvents) {
+                log.debug(event.toString());
+            }
+        }
+        if (auditEvents != null && auditEvents.length > 0) {
+            Date lastEventDate = lastPollingDate;
+            for (AbstractMonitorEvent event : auditEvents) {
+                // Enrich event with cloud id before saving them
+                event.setOrchestratorId(orchestratorId);
+                // If not set initialize a date for event or update the last event date (last polling)
+                if (event.getDate() > 0) {
+                    Date eventDate = new Date(event.getDate());
+                    lastEventDate = eventDate.after(lastEventDate) ? eventDate : lastEventDate;
+                } else {
+                    event.setDate(System.currentTimeMillis());
+                }
+            }
+            // persist the whole batch in a single bulk request before dispatching so listeners never see events that are not stored.
+            monitorDAO.save(auditEvents);
+            if (lastEventDate != null) {
+                lastPollingDate = lastEventDate;
+            }
+            // dispatch is asynchronous, ordered per deployment, so slow listeners do not delay the next poll.
+            eventDispatcher.dispatch(listeners, auditEvents);
+            if (log.isDebugEnabled()) {
+                log.debug("Event dispatch queue depth is {}, last dispatch lag was {} ms", eventDispatcher.getQueueDepth(),
+                        eventDispatcher.getLastDispatchLagMs().get());
+            }
+        }
+    }
+
+    /**
+     * Bounded sink for pushed events, drained by batches of at most {@link #MAX_POLLED_EVENTS} events.
+     */
+    private class PushedEventsSink implements IPaaSEventSink, Runnable {
+        private final BlockingQueue<AbstractMonitorEvent> pushedEvents = new ArrayBlockingQueue<>(PUSHED_EVENTS_CAPACITY);
+
+        @Override
+        public void put(AbstractMonitorEvent event) throws InterruptedException {
+            pushedEvents.put(event);
+        }
+
+        @Override
+        public boolean offer(AbstractMonitorEvent event) {
+            return pushedEvents.offer(event);
+        }
+
+        @Override
+        public void run() {
+            List<AbstractMonitorEvent> batch = Lists.newArrayListWithCapacity(MAX_POLLED_EVENTS);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(pushedEvents.take());
+                    pushedEvents.drainTo(batch, MAX_POLLED_EVENTS - 1);
+                    processEvents(batch.toArray(new AbstractMonitorEvent[batch.size()]));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    log.error("Error happened while processing events pushed by orchestrator <" + orchestratorId + ">", e);
+                } finally {
+                    batch.clear();
+                }
+            }
+            log.info("Stopped to process events pushed by orchestrator <{}>", orchestratorId);
+        }
     }
 
     private class PaaSEventsCallback implements IPaaSCallback<AbstractMonitorEvent[]> {
@@ -93,35 +202,7 @@ public class PaaSProviderPollingMonitor implements Runnable {
                 if (log.isTraceEnabled()) {
                     log.trace("Polled from date {}", lastPollingDate);
                 }
-                if (log.isDebugEnabled() && auditEvents != null && auditEvents.length > 0) {
-                    log.debug("Saving events for orchestrator {}", orchestratorId);
-                    for (AbstractMonitorEvent event : auditEvents) {
-                        log.debug(event.toString());
-                    }
-                }
-                if (auditEvents != null && auditEvents.length > 0) {
-                    Date lastEventDate = lastPollingDate;
-                    for (AbstractMonitorEvent event : auditEvents) {
-                        // Enrich event with cloud id before saving them
-                        event.setOrchestratorId(orchestratorId);
-                        // If not set initialize a date for event or update the last event date (last polling)
-                        if (event.getDate() > 0) {
-                            Date eventDate = new Date(event.getDate());
-                            lastEventDate = eventDate.after(lastEventDate) ? eventDate : lastEventDate;
-                        } else {
-                            event.setDate(System.currentTimeMillis());
-                        }
-
-                        // dispatch the event to all listeners
-                        for (IPaasEventListener listener : listeners) {
-                            dispatchEvent(listener, event);
-                        }
-                    }
-                    monitorDAO.save(auditEvents);
-                    if (lastEventDate != null) {
-                        lastPollingDate = lastEventDate;
-                    }
-                }
+                processEvents(auditEvents);
                 getEventsInProgress = false;
             }
         }
@@ -138,64 +219,22 @@ public class PaaSProviderPollingMonitor implements Runnable {
         }
     }
 
-    /**
-     * Dispatch an event to the registered listener.
-     *
-     * @param listener The listener to which to send the event.
-     * @param event The event to dispatch.
-     */
-    private void dispatchEvent(IPaasEventListener listener, AbstractMonitorEvent event) {
-        dispatchEvent(listener, event, 0);
-    }
-
-    /**
-     * Dispatch an event to the registered listener.
-     * 
-     * @param listener The listener to which to send the event.
-     * @param event The event to dispatch.
-     * @param retry The current retry index (0 for first dispatch)
-     */
-    @SneakyThrows
-    private void dispatchEvent(IPaasEventListener listener, AbstractMonitorEvent event, int retry) {
-        try {
-            if (listener.canHandle(event)) {
-                listener.eventHappened(event);
-            }
-        } catch (Exception e) {
-            log.error("Failed to dispatch event {} to listener {} retry {} on {}.", event.toString(), listener.toString(), retry, MAX_LISTENER_RETRY, e);
-            // Even if that fails
-            if (retry < MAX_LISTENER_RETRY) {
-                Thread.sleep(LISTENER_FAIL_RETRY_SLEEP_MS);
-                dispatchEvent(listener, event, retry + 1);
-            }
-        }
-    }
-
     @Override
     public synchronized void run() {
         if (log.isTraceEnabled()) {
             log.trace("Poll scheduled");
         }
-        if (getEventsInProgress) {
-            // Get events since is running
+        if (getEventsInProgress || isPushBased()) {
+            // Get events since is running or events are pushed by the provider
             return;
         }
-        getEventsInProgress = true;
+        if (!hasDeployments) {
+            // in-memory check, idle orchestrators do not hit elastic search nor the orchestrator.
+            hasDeployments = activeDeploymentRegistry.hasActiveDeployments(orchestratorId);
+        }
         if (hasDeployments) {
+            getEventsInProgress = true;
             paaSProvider.getEventsSince(lastPollingDate, MAX_POLLED_EVENTS, paaSEventsCallback);
-        } else {
-            getEventsInProgress = false;
-            hasDeployments = getActiveDeployment() != null;
-        }
-    }
-
-    private Deployment getActiveDeployment() {
-        Deployment deployment = null;
-        GetMultipleDataResult<Deployment> dataResult = dao.search(Deployment.class, null,
-                MapUtil.newHashMap(new String[] { "orchestratorId", "endDate" }, new String[][] { new String[] { orchestratorId }, new String[] { null } }), 1);
-        if (dataResult.getData() != null && dataResult.getData().length > 0) {
-            deployment = dataResult.getData()[0];
         }
-        return deployment;
     }
 }
@@ -6,6 +6,10 @@ import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 
@@ -22,6 +26,7 @@ import org.springframework.stereotype.Component;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.GetMultipleDataResult;
@@ -53,6 +58,8 @@ public class PluginManager {
     private String pluginsWorkDirectory; // directory in which alien place plugins that are loaded.
     @Value("${directories.alien}/work/plugins/ui")
     private String pluginsUiDirectory; // directory in which alien place ui files from plugins so they are available from clients.
+    @Value("${plugins.loading_threads:4}")
+    private int loadingThreads; // maximum number of plugins contexts refreshed concurrently at initialization.
 
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
@@ -102,35 +109,88 @@ public class PluginManager {
     }
 
     /**
-     * Load all the plugins that have their dependencies fullfilled by loaded plugin.
+     * Load the plugins by levels of the dependency graph: the plugins that have their dependencies fullfilled by loaded plugins have their contexts refreshed
+     * concurrently, then the plugins that depends on them and so on.
      *
      * @param plugins the plugins to load.
      */
     private void loadPlugins(Plugin[] plugins) {
-        List<Plugin> missingDependencyPlugins = Lists.newArrayList();
-        for (Plugin plugin : plugins) {
-            // if the plugin has no unresolved dependency, load it
-            if (getMissingDependencies(plugin).size() == 0) {
-                try {
-                    loadPlugin(plugin);
-                } catch (PluginLoadingException e) {
-                    log.error("Alien server Initialization: failed to load plugin <" + plugin.getId() + ">");
-                    disablePlugin(plugin.getId());
+        long start = System.currentTimeMillis();
+        StringBuilder timingReport = new StringBuilder();
+        List<Plugin> remainingPlugins = Lists.newArrayList(plugins);
+        ExecutorService executor = Executors.newFixedThreadPool(loadingThreads,
+                new ThreadFactoryBuilder().setNameFormat("plugin-loader-%d").setDaemon(true).build());
+        try {
+            while (!remainingPlugins.isEmpty()) {
+                List<Plugin> level = Lists.newArrayList();
+                for (Plugin plugin : remainingPlugins) {
+                    // if the plugin has no unresolved dependency, load it
+                    if (getMissingDependencies(plugin).size() == 0) {
+                        level.add(plugin);
+                    }
                 }
-            } else {
-                missingDependencyPlugins.add(plugin);
+                if (level.isEmpty()) {
+                    // No plugins can be loaded meaning that remaining plugins are not loadable because some dependencies are missing
+                    for (Plugin plugin : remainingPlugins) {
+                        log.error("Failed to load plugin <" + plugin.getId() + "> as some dependencies are missing <" + getMissingDependencies(plugin) + ">");
+                        disablePlugin(plugin.getId());
+                    }
+                    break;
+                }
+                remainingPlugins.removeAll(level);
+                loadPluginsLevel(level, executor, timingReport);
             }
+        } finally {
+            executor.shutdown();
         }
-        if (missingDependencyPlugins.size() == plugins.length) {
-            // No plugins have been loaded meaning that remaining plugins are not loadable because some dependencies are missing
-            for (Plugin plugin : plugins) {
-                log.error("Failed to load plugin <" + plugin.getId() + "> as some dependencies are missing <" + getMissingDependencies(plugin) + ">");
+        log.info("Plugins loaded in {} ms:{}", System.currentTimeMillis() - start, timingReport);
+    }
+
+    /**
+     * Load plugins that only depends on already loaded plugins. Plugins contexts are refreshed concurrently while starting, exposing and linking the plugins is
+     * done sequentially from the calling thread in plugin order so the aspects of the plugins are applied in the same order on every boot.
+     *
+     * @param plugins The plugins to load.
+     * @param executor The executor used to refresh the plugins contexts.
+     * @param timingReport The report in which to add the loading time of the plugins.
+     */
+    private void loadPluginsLevel(List<Plugin> plugins, ExecutorService executor, StringBuilder timingReport) {
+        final ClassLoader parentClassLoader = Thread.currentThread().getContextClassLoader();
+        Map<Plugin, Future<StartedPlugin>> startedPlugins = Maps.newLinkedHashMap();
+        for (final Plugin plugin : plugins) {
+            startedPlugins.put(plugin, executor.submit(() -> startPluginContext(plugin, parentClassLoader)));
+        }
+        for (Entry<Plugin, Future<StartedPlugin>> startedPluginEntry : startedPlugins.entrySet()) {
+            Plugin plugin = startedPluginEntry.getKey();
+            try {
+                StartedPlugin startedPlugin = startedPluginEntry.getValue().get();
+                long linkStart = System.currentTimeMillis();
+                registerPlugin(plugin, startedPlugin.managedPlugin);
+                timingReport.append("\n  - ").append(plugin.getId()).append(": context refreshed in ").append(startedPlugin.durationMs)
+                        .append(" ms, started and linked in ").append(System.currentTimeMillis() - linkStart).append(" ms");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Alien server Initialization: interrupted while loading plugin <" + plugin.getId() + ">");
+                disablePlugin(plugin.getId());
+            } catch (Exception e) {
+                Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                log.error("Alien server Initialization: failed to load plugin <" + plugin.getId() + ">", cause);
                 disablePlugin(plugin.getId());
             }
-        } else {
-            if (missingDependencyPlugins.size() > 0) {
-                loadPlugins(missingDependencyPlugins.toArray(new Plugin[missingDependencyPlugins.size()]));
-            }
+        }
+    }
+
+    private StartedPlugin startPluginContext(Plugin plugin, ClassLoader parentClassLoader) throws IOException, ClassNotFoundException {
+        long start = System.currentTimeMillis();
+        Thread currentThread = Thread.currentThread();
+        ClassLoader threadClassLoader = currentThread.getContextClassLoader();
+        // the plugin context is refreshed with the same context class loader as if loaded from the initializing thread.
+        currentThread.setContextClassLoader(parentClassLoader);
+        try {
+            ManagedPlugin managedPlugin = startPluginContext(plugin, getPluginPath(plugin.getPluginPathId()), getPluginUiPath(plugin.getPluginPathId()));
+            return new StartedPlugin(managedPlugin, System.currentTimeMillis() - start);
+        } finally {
+            currentThread.setContextClassLoader(threadClassLoader);
         }
     }
 
@@ -350,6 +410,21 @@ public class PluginManager {
      * @throws ClassNotFoundException If we cannot load the class
      */
     private void loadPlugin(Plugin plugin, Path pluginPath, Path pluginUiPath) throws IOException, ClassNotFoundException {
+        registerPlugin(plugin, startPluginContext(plugin, pluginPath, pluginUiPath));
+    }
+
+    /**
+     * Create the class loader and refresh the spring context of a plugin. This doesn't modify the plugin manager state so plugins contexts can be refreshed
+     * concurrently. The context is started when the plugin is registered.
+     *
+     * @param plugin The plugin for which to refresh the context.
+     * @param pluginPath The path to the directory that contains the un-zipped plugin.
+     * @param pluginUiPath The path in which the ui files are located.
+     * @return The managed plugin of the refreshed context.
+     * @throws IOException In case there is an IO issue with the file.
+     * @throws ClassNotFoundException If we cannot load the class
+     */
+    private ManagedPlugin startPluginContext(Plugin plugin, Path pluginPath, Path pluginUiPath) throws IOException, ClassNotFoundException {
         // create a class loader to manage this plugin.
         final List<URL> classPathUrls = Lists.newArrayList();
         pluginPath = pluginPath.toRealPath();
@@ -394,15 +469,31 @@ public class PluginManager {
         pluginContext.registerBeanDefinition("alien-plugin-context", beanDefinition);
 
         pluginContext.refresh();
-        pluginContext.start();
-        ManagedPlugin managedPlugin = (ManagedPlugin) pluginContext.getBean("alien-plugin-context");
-
-        Map<String, PluginComponentDescriptor> componentDescriptors = getPluginComponentDescriptorAsMap(plugin);
+        return (ManagedPlugin) pluginContext.getBean("alien-plugin-context");
+    }
 
-        // expose plugin elements so they are available to plugins that depends from them.
-        expose(managedPlugin, componentDescriptors);
-        // register plugin elements in Alien
-        link(plugin, managedPlugin, componentDescriptors);
+    /**
+     * Start the context of a plugin then expose and link it. Starting the context applies its aspects on the overridable beans, so it must be done in plugin
+     * order. If the registration fails the plugin context is closed.
+     *
+     * @param plugin The plugin to register.
+     * @param managedPlugin The managed plugin of the refreshed plugin context.
+     */
+    private void registerPlugin(Plugin plugin, ManagedPlugin managedPlugin) {
+        try {
+            managedPlugin.getPluginContext().start();
+            Map<String, PluginComponentDescriptor> componentDescriptors = getPluginComponentDescriptorAsMap(plugin);
+
+            // expose plugin elements so they are available to plugins that depends from them.
+            expose(managedPlugin, componentDescriptors);
+            // register plugin elements in Alien
+            link(plugin, managedPlugin, componentDescriptors);
+        } catch (RuntimeException e) {
+            // the plugin won't be managed, stop (so its aspects are removed) and close its context as when the plugin is unloaded.
+            managedPlugin.getPluginContext().stop();
+            managedPlugin.getPluginContext().close();
+            throw e;
+        }
 
         // install static resources to be available for the application.
         pluginContexts.put(plugin.getId(), managedPlugin);
@@ -567,6 +658,12 @@ public class PluginManager {
         return pluginComponents;
     }
 
+    @AllArgsConstructor(suppressConstructorProperties = true)
+    private static final class StartedPlugin {
+        private ManagedPlugin managedPlugin;
+        private long durationMs;
+    }
+
     @AllArgsConstructor(suppressConstructorProperties = true)
     private final class PluginLinker<T> {
         private IPluginLinker<T> linker;
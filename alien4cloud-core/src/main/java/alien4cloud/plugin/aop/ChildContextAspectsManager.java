@@ -1,12 +1,14 @@
 package alien4cloud.plugin.aop;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
-import java.lang.reflect.UndeclaredThrowableException;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -51,12 +53,16 @@ import com.google.common.collect.Maps;
  * <li>the annotation can be used on the methods, type, interface or interface method.
  * <li>you can use several advices for the same bean in child context.
  * <li>the bean can be already proxied in the main context: in this case, the annotation should be present at interface level.
- * <li>proxies are applied in the order child contexts are started.
+ * <li>proxies are applied in the order child contexts are started, the plugin manager starts the plugins contexts in plugin order.
  * </ul>
+ * <p>
+ * Invocations on the proxies never lock: the targets are computed under a lock when child contexts are started or stopped and only then published
+ * through a volatile field. Methods are invoked through method handles that are cached per method.
  */
 @Component
 @Slf4j
 public class ChildContextAspectsManager implements ApplicationListener<ApplicationEvent>, BeanPostProcessor {
+    private static final Object[] NO_ARGS = new Object[0];
 
     /** All the candidates to be overriden by plugin child contexts. */
     private Map<Object, ProxyRegistry> overridableCandidates = Maps.newHashMap();
@@ -67,6 +73,9 @@ public class ChildContextAspectsManager implements ApplicationListener<Applicati
     /** We store all the names of beans that implements {@link ApplicationListener} per child context. */
     private Map<String, GenericApplicationListenerAdapter[]> childApplicationListeners = Maps.newHashMap();
 
+    /** Method handles used to invoke the methods of the proxied beans. */
+    private final Map<Method, MethodHandle> methodInvokers = new ConcurrentHashMap<>();
+
     private Lock lock = new ReentrantLock();
 
     @Resource
@@ -111,11 +120,13 @@ public class ChildContextAspectsManager implements ApplicationListener<Applicati
         ProxyRegistry proxyRegistry = overridableCandidates.get(bean);
         if (proxyRegistry == null) {
             proxyRegistry = new ProxyRegistry();
-            Object proxy = Proxy.newProxyInstance(bean.getClass().getClassLoader(), bean.getClass().getInterfaces(), new DynamicProxyInvocationHandler(bean));
-            proxyRegistry.proxy = proxy;
             proxyRegistry.target = bean;
+            proxyRegistry.nextTarget = bean;
             proxyRegistry.original = bean;
             proxyRegistry.beanName = id;
+            Object proxy = Proxy.newProxyInstance(bean.getClass().getClassLoader(), bean.getClass().getInterfaces(),
+                    new DynamicProxyInvocationHandler(proxyRegistry));
+            proxyRegistry.proxy = proxy;
             overridableCandidates.put(bean, proxyRegistry);
         }
     }
@@ -136,6 +147,7 @@ public class ChildContextAspectsManager implements ApplicationListener<Applicati
                 log.debug("context started with id: {}", ctx.getId());
             }
             decorateProxyCandidate(ctx);
+            publishTargets();
             detectApplicationListeners(ctx);
         } finally {
             lock.unlock();
@@ -179,6 +191,8 @@ public class ChildContextAspectsManager implements ApplicationListener<Applicati
                 for (ApplicationContext childContext : childContexts.values()) {
                     decorateProxyCandidate(childContext);
                 }
+                // invocations keep using the previous targets until the new ones are fully built
+                publishTargets();
             }
         } finally {
             lock.unlock();
@@ -229,11 +243,11 @@ public class ChildContextAspectsManager implements ApplicationListener<Applicati
             DefaultListableBeanFactory lbf = new DefaultListableBeanFactory(ctx);
             annotationAwareAspectJAutoProxyCreator.setBeanFactory(lbf);
             for (ProxyRegistry candidateProxyRegistry : overridableCandidates.values()) {
-                Object bean = candidateProxyRegistry.target;
+                Object bean = candidateProxyRegistry.nextTarget;
                 Object advicedBean = annotationAwareAspectJAutoProxyCreator.postProcessAfterInitialization(bean, candidateProxyRegistry.beanName);
                 if (bean != advicedBean) {
                     log.info("The bean with name {} is now proxied by {}", candidateProxyRegistry.beanName, advicedBean);
-                    candidateProxyRegistry.target = advicedBean;
+                    candidateProxyRegistry.nextTarget = advicedBean;
                 }
             }
         } finally {
@@ -241,6 +255,27 @@ public class ChildContextAspectsManager implements ApplicationListener<Applicati
         }
     }
 
+    /** Make the targets computed by the child contexts decoration visible to the invocations. Must be called under the lock. */
+    private void publishTargets() {
+        for (ProxyRegistry candidateProxyRegistry : overridableCandidates.values()) {
+            candidateProxyRegistry.target = candidateProxyRegistry.nextTarget;
+        }
+    }
+
+    /**
+     * Get the method handle to use to invoke a method of a proxied bean, the handle takes the target and the array of arguments and returns an object.
+     */
+    private MethodHandle getMethodInvoker(Method method) throws IllegalAccessException {
+        MethodHandle invoker = methodInvokers.get(method);
+        if (invoker == null) {
+            ReflectionUtils.makeAccessible(method);
+            MethodHandle methodHandle = MethodHandles.lookup().unreflect(method);
+            invoker = methodHandle.asType(methodHandle.type().generic()).asSpreader(Object[].class, method.getParameterTypes().length);
+            methodInvokers.put(method, invoker);
+        }
+        return invoker;
+    }
+
     /**
      * This {@link InvocationHandler} will invoke methods:
      * <ul>
@@ -249,51 +284,28 @@ public class ChildContextAspectsManager implements ApplicationListener<Applicati
      * </ul>
      */
     private class DynamicProxyInvocationHandler implements InvocationHandler {
-
         /**
-         * The original bean that is eventually overridden.
+         * The registry of the original bean that is eventually overridden.
          */
-        private Object obj;
+        private final ProxyRegistry proxyRegistry;
 
-        public DynamicProxyInvocationHandler(Object obj) {
+        public DynamicProxyInvocationHandler(ProxyRegistry proxyRegistry) {
             super();
-            this.obj = obj;
+            this.proxyRegistry = proxyRegistry;
         }
 
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            lock.lock();
-            Object target = obj;
-            try {
-                ProxyRegistry proxyRegistry = overridableCandidates.get(obj);
-                if (proxyRegistry != null) {
-                    if (log.isDebugEnabled()) {
-                        if (proxyRegistry.target != proxyRegistry.original) {
-                            log.debug("Invoking method <{}> on proxy", method);
-                        } else {
-                            log.debug("Invoking method <{}> on native bean (no proxy found)", method);
-                        }
-                    }
-                    target = proxyRegistry.target;
+            Object target = proxyRegistry.target;
+            if (log.isDebugEnabled()) {
+                if (target != proxyRegistry.original) {
+                    log.debug("Invoking method <{}> on proxy", method);
                 } else {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Invoking method <{}> on native bean (no proxy registry found)", method);
-                    }
-                }
-            } finally {
-                lock.unlock();
-            }
-            Object result = null;
-            try {
-                result = ReflectionUtils.invokeMethod(method, target, args);
-            } catch (Exception e) {
-                try {
-                    ReflectionUtils.handleReflectionException(e);
-                } catch (UndeclaredThrowableException ute) {
-                    throw ute.getUndeclaredThrowable();
+                    log.debug("Invoking method <{}> on native bean (no proxy found)", method);
                 }
             }
-            return result;
+            // exceptions thrown by the target are propagated as is by the method handle.
+            return (Object) getMethodInvoker(method).invokeExact(target, args == null ? NO_ARGS : args);
         }
     }
 
@@ -305,14 +317,17 @@ public class ChildContextAspectsManager implements ApplicationListener<Applicati
         private Object proxy;
 
         /** The target : the original bean eventually proxied by child context aspects. */
-        private Object target;
+        private volatile Object target;
+
+        /** The target being built while child contexts are started or stopped, published to the target once complete. */
+        private Object nextTarget;
 
         /** The original bean that is candidate for being proxied by child context aspects. */
         private Object original;
 
         /** The target become the origin, like just after main context startup. */
         public void reset() {
-            this.target = this.original;
+            this.nextTarget = this.original;
         }
     }
 
@@ -2,8 +2,6 @@ package alien4cloud.suggestions.services;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -23,6 +21,7 @@ import org.springframework.stereotype.Component;
 
 import alien4cloud.dao.ElasticSearchDAO;
 import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.IScrollIterator;
 import alien4cloud.dao.model.FetchContext;
 import alien4cloud.dao.model.GetMultipleDataResult;
 import alien4cloud.exception.InvalidArgumentException;
@@ -69,6 +68,8 @@ public class SuggestionService {
 
     /* The Levenshtein distance is a string metric for measuring the difference between two sequences. */
     private static final double MIN_JAROWINKLER = 0.0;
+    /* Number of suggestion entries fetched by a single request when iterating over all the entries. */
+    private static final int SCROLL_BATCH_SIZE = 100;
 
     /**
      * This method load the defaults suggestions to ES.
@@ -96,9 +97,10 @@ public class SuggestionService {
      * Iterate on default suggestions to update all associate property definition.
      */
     public void setAllSuggestionIdOnPropertyDefinition() {
-        List<AbstractSuggestionEntry> suggestionEntries = getAllSuggestionEntries();
-        if (suggestionEntries != null && !suggestionEntries.isEmpty()) {
-            for (AbstractSuggestionEntry suggestionEntry : suggestionEntries) {
+        try (IScrollIterator<AbstractSuggestionEntry> suggestionEntries = alienDAO.scroll(AbstractSuggestionEntry.class, null, FetchContext.SUMMARY,
+                SCROLL_BATCH_SIZE)) {
+            while (suggestionEntries.hasNext()) {
+                AbstractSuggestionEntry suggestionEntry = suggestionEntries.next();
                 if (suggestionEntry instanceof SuggestionEntry) {
                     setSuggestionIdOnPropertyDefinition((SuggestionEntry) suggestionEntry);
                 }
@@ -467,21 +469,6 @@ public class SuggestionService {
         return alienDAO.findById(AbstractSuggestionEntry.class, SuggestionEntry.generateId(index, type, elementId, property));
     }
 
-    /**
-     * Get all suggestionEntries, attention this method do not return suggested values
-     * 
-     * @return all suggestion entries without their values
-     */
-    private List<AbstractSuggestionEntry> getAllSuggestionEntries() {
-        GetMultipleDataResult<AbstractSuggestionEntry> result = alienDAO.search(AbstractSuggestionEntry.class, null, null, FetchContext.SUMMARY, 0,
-                Integer.MAX_VALUE);
-        if (result.getData() != null && result.getData().length > 0) {
-            return Arrays.asList(result.getData());
-        } else {
-            return new ArrayList<>();
-        }
-    }
-
     public void setAlienDAO(IGenericSearchDAO alienDAO) {
         this.alienDAO = alienDAO;
     }
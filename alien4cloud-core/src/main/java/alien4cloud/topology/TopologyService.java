@@ -30,10 +30,14 @@ import alien4cloud.tosca.container.ToscaTypeLoader;
 import alien4cloud.tosca.context.ToscaContext;
 import alien4cloud.tosca.normative.ToscaType;
 import alien4cloud.tosca.serializer.VelocityUtil;
+import alien4cloud.utils.FileUtil;
 import alien4cloud.utils.MapUtil;
 import alien4cloud.utils.VersionUtil;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
@@ -41,11 +45,14 @@ import org.apache.commons.lang.exception.ExceptionUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.elasticsearch.common.collect.Lists;
 import org.elasticsearch.mapping.FilterValuesStrategy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.regex.Pattern;
@@ -80,6 +87,21 @@ public class TopologyService {
 
     public static final Pattern NODE_NAME_PATTERN = Pattern.compile("^\\w+$");
     public static final Pattern NODE_NAME_REPLACE_PATTERN = Pattern.compile("\\W");
+    private static final String TOPOLOGY_YAML_TEMPLATE = "templates/topology-alien_dsl_1_2_0.yml.vm";
+
+    /** Directory in which the yaml files are generated before replacing the target files. */
+    private Path tempDirPath;
+
+    @Value("${directories.alien}/${directories.upload_temp}")
+    public void setTempDirPath(String tempDirPath) throws IOException {
+        this.tempDirPath = FileUtil.createDirectoryIfNotExists(tempDirPath);
+    }
+
+    @PostConstruct
+    public void init() {
+        // parse the template at startup rather than on the first export or save of a topology.
+        VelocityUtil.preload(TOPOLOGY_YAML_TEMPLATE);
+    }
 
     private ToscaTypeLoader initializeTypeLoader(Topology topology, boolean failOnTypeNotFound) {
         // FIXME we should use ToscaContext here, and why not allowing the caller to pass ona Context?
@@ -124,16 +146,20 @@ public class TopologyService {
      * @return A map of capability types defined in the given node types.
      */
     public Map<String, IndexedCapabilityType> getIndexedCapabilityTypes(Collection<IndexedNodeType> nodeTypes, Collection<CSARDependency> dependencies) {
-        Map<String, IndexedCapabilityType> capabilityTypes = Maps.newHashMap();
+        SetMultimap<Class<? extends IndexedToscaElement>, String> capabilityTypeIds = HashMultimap.create();
         for (IndexedNodeType nodeType : nodeTypes) {
             if (nodeType.getCapabilities() != null) {
                 for (CapabilityDefinition capabilityDefinition : nodeType.getCapabilities()) {
-                    IndexedCapabilityType capabilityType = csarRepoSearchService.getRequiredElementInDependencies(IndexedCapabilityType.class,
-                            capabilityDefinition.getType(), dependencies);
-                    capabilityTypes.put(capabilityDefinition.getType(), capabilityType);
+                    capabilityTypeIds.put(IndexedCapabilityType.class, capabilityDefinition.getType());
                 }
             }
         }
+        Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> types = csarRepoSearchService
+                .getRequiredElementsInDependencies(capabilityTypeIds, dependencies);
+        Map<String, IndexedCapabilityType> capabilityTypes = Maps.newHashMap();
+        for (String capabilityTypeId : capabilityTypeIds.values()) {
+            capabilityTypes.put(capabilityTypeId, (IndexedCapabilityType) types.get(IndexedCapabilityType.class, capabilityTypeId));
+        }
         return capabilityTypes;
     }
 
@@ -303,31 +329,37 @@ public class TopologyService {
 
     private Map<String, IndexedDataType> getDataTypes(Topology topology, Map<String, IndexedNodeType> nodeTypes,
             Map<String, IndexedRelationshipType> relationshipTypes, Map<String, IndexedCapabilityType> capabilityTypes) {
+        Set<String> dataTypeIds = Sets.newHashSet();
+        addDataTypeIds(dataTypeIds, nodeTypes);
+        addDataTypeIds(dataTypeIds, relationshipTypes);
+        addDataTypeIds(dataTypeIds, capabilityTypes);
+        // data types and primitive data types are fetched in a single request.
+        SetMultimap<Class<? extends IndexedToscaElement>, String> typeIds = HashMultimap.create();
+        typeIds.putAll(IndexedDataType.class, dataTypeIds);
+        typeIds.putAll(PrimitiveIndexedDataType.class, dataTypeIds);
+        Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> types = csarRepoSearchService.getElementsInDependencies(typeIds,
+                topology.getDependencies());
         Map<String, IndexedDataType> indexedDataTypes = Maps.newHashMap();
-        indexedDataTypes = fillDataTypes(topology, indexedDataTypes, nodeTypes);
-        indexedDataTypes = fillDataTypes(topology, indexedDataTypes, relationshipTypes);
-        indexedDataTypes = fillDataTypes(topology, indexedDataTypes, capabilityTypes);
+        for (String type : dataTypeIds) {
+            IndexedDataType dataType = (IndexedDataType) types.get(IndexedDataType.class, type);
+            if (dataType == null) {
+                dataType = (IndexedDataType) types.get(PrimitiveIndexedDataType.class, type);
+            }
+            indexedDataTypes.put(type, dataType);
+        }
         return indexedDataTypes;
     }
 
-    private <T extends IndexedInheritableToscaElement> Map<String, IndexedDataType> fillDataTypes(Topology topology,
-            Map<String, IndexedDataType> indexedDataTypes, Map<String, T> elements) {
+    private <T extends IndexedInheritableToscaElement> void addDataTypeIds(Set<String> dataTypeIds, Map<String, T> elements) {
         for (IndexedInheritableToscaElement indexedNodeType : elements.values()) {
             if (indexedNodeType.getProperties() != null) {
                 for (PropertyDefinition pd : indexedNodeType.getProperties().values()) {
-                    String type = pd.getType();
-                    if (ToscaType.isPrimitive(type) || indexedDataTypes.containsKey(type)) {
-                        continue;
-                    }
-                    IndexedDataType dataType = csarRepoSearchService.getElementInDependencies(IndexedDataType.class, type, topology.getDependencies());
-                    if (dataType == null) {
-                        dataType = csarRepoSearchService.getElementInDependencies(PrimitiveIndexedDataType.class, type, topology.getDependencies());
+                    if (!ToscaType.isPrimitive(pd.getType())) {
+                        dataTypeIds.add(pd.getType());
                     }
-                    indexedDataTypes.put(type, dataType);
                 }
             }
         }
-        return indexedDataTypes;
     }
 
     /**
@@ -491,7 +523,36 @@ public class TopologyService {
         return topologyTemplate;
     }
 
+    /**
+     * Generate the TOSCA yaml of a topology.
+     *
+     * @param topology The topology to serialize.
+     * @return The yaml of the topology or the stack trace of the error if the generation failed.
+     */
     public String getYaml(Topology topology) {
+        Map<String, Object> velocityCtx = getYamlContext(topology);
+        try {
+            StringWriter writer = new StringWriter();
+            VelocityUtil.generate(TOPOLOGY_YAML_TEMPLATE, writer, velocityCtx);
+            return writer.toString();
+        } catch (Exception e) {
+            log.error("Exception while templating YAML for topology " + topology.getId(), e);
+            return ExceptionUtils.getFullStackTrace(e);
+        }
+    }
+
+    /**
+     * Generate the TOSCA yaml of a topology directly into a file, without building the yaml in memory. The file is replaced only if the generation succeeds.
+     *
+     * @param topology The topology to serialize.
+     * @param targetPath The file in which to write the yaml.
+     * @throws IOException In case the file cannot be written.
+     */
+    public void writeYaml(Topology topology, Path targetPath) throws IOException {
+        VelocityUtil.generate(TOPOLOGY_YAML_TEMPLATE, targetPath, tempDirPath, getYamlContext(topology));
+    }
+
+    private Map<String, Object> getYamlContext(Topology topology) {
         Map<String, Object> velocityCtx = new HashMap<>();
         velocityCtx.put("topology", topology);
         velocityCtx.put("template_name", "template-id");
@@ -517,16 +578,7 @@ public class TopologyService {
                 velocityCtx.put("template_version", version.getVersion());
             }
         }
-
-        try {
-            StringWriter writer = new StringWriter();
-            VelocityUtil.generate("templates/topology-alien_dsl_1_2_0.yml.vm", writer, velocityCtx);
-            return writer.toString();
-        } catch (Exception e) {
-            log.error("Exception while templating YAML for topology " + topology.getId(), e);
-            return ExceptionUtils.getFullStackTrace(e);
-        }
-
+        return velocityCtx;
     }
 
     public void isUniqueNodeTemplateName(Topology topology, String newNodeTemplateName) {
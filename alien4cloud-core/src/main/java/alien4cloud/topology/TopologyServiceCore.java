@@ -13,7 +13,10 @@ import alien4cloud.model.topology.*;
 import alien4cloud.tosca.context.ToscaContextual;
 import alien4cloud.tosca.topology.NodeTemplateBuilder;
 import alien4cloud.utils.MapUtil;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Table;
 import lombok.extern.slf4j.Slf4j;
 import org.elasticsearch.common.collect.Lists;
 import org.elasticsearch.common.collect.Sets;
@@ -125,11 +128,14 @@ public class TopologyServiceCore {
         if (nodeTemplates == null) {
             return nodeTypes;
         }
+        SetMultimap<Class<? extends IndexedToscaElement>, String> typeIds = HashMultimap.create();
+        for (NodeTemplate template : nodeTemplates.values()) {
+            typeIds.put(IndexedNodeType.class, template.getType());
+        }
+        Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> types = getElementsInDependencies(typeIds, dependencies, failOnTypeNotFound);
         for (Map.Entry<String, NodeTemplate> template : nodeTemplates.entrySet()) {
             if (!nodeTypes.containsKey(template.getValue().getType())) {
-                IndexedNodeType nodeType = failOnTypeNotFound
-                        ? csarRepoSearchService.getRequiredElementInDependencies(IndexedNodeType.class, template.getValue().getType(), dependencies)
-                        : csarRepoSearchService.getElementInDependencies(IndexedNodeType.class, template.getValue().getType(), dependencies);
+                IndexedNodeType nodeType = (IndexedNodeType) types.get(IndexedNodeType.class, template.getValue().getType());
                 if (!abstractOnly || nodeType.isAbstract()) {
                     String key = useTemplateNameAsKey ? template.getKey() : template.getValue().getType();
                     nodeTypes.put(key, nodeType);
@@ -151,22 +157,19 @@ public class TopologyServiceCore {
         if (topology.getNodeTemplates() == null) {
             return relationshipTypes;
         }
-        for (Map.Entry<String, NodeTemplate> templateEntry : topology.getNodeTemplates().entrySet()) {
-            NodeTemplate template = templateEntry.getValue();
+        SetMultimap<Class<? extends IndexedToscaElement>, String> typeIds = HashMultimap.create();
+        for (NodeTemplate template : topology.getNodeTemplates().values()) {
             if (template.getRelationships() != null) {
-                for (Map.Entry<String, RelationshipTemplate> relationshipEntry : template.getRelationships().entrySet()) {
-                    RelationshipTemplate relationship = relationshipEntry.getValue();
-                    if (!relationshipTypes.containsKey(relationship.getType())) {
-                        IndexedRelationshipType relationshipType = failOnTypeNotFound
-                                ? csarRepoSearchService.getRequiredElementInDependencies(IndexedRelationshipType.class, relationship.getType(),
-                                        topology.getDependencies())
-                                : csarRepoSearchService.getElementInDependencies(IndexedRelationshipType.class, relationship.getType(),
-                                        topology.getDependencies());
-                        relationshipTypes.put(relationship.getType(), relationshipType);
-                    }
+                for (RelationshipTemplate relationship : template.getRelationships().values()) {
+                    typeIds.put(IndexedRelationshipType.class, relationship.getType());
                 }
             }
         }
+        Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> types = getElementsInDependencies(typeIds, topology.getDependencies(),
+                failOnTypeNotFound);
+        for (String relationshipType : typeIds.values()) {
+            relationshipTypes.put(relationshipType, (IndexedRelationshipType) types.get(IndexedRelationshipType.class, relationshipType));
+        }
         return relationshipTypes;
     }
 
@@ -181,22 +184,27 @@ public class TopologyServiceCore {
         if (topology.getNodeTemplates() == null) {
             return capabilityTypes;
         }
-        for (Map.Entry<String, NodeTemplate> templateEntry : topology.getNodeTemplates().entrySet()) {
-            NodeTemplate template = templateEntry.getValue();
+        SetMultimap<Class<? extends IndexedToscaElement>, String> typeIds = HashMultimap.create();
+        for (NodeTemplate template : topology.getNodeTemplates().values()) {
             if (template.getCapabilities() != null) {
-                for (Map.Entry<String, Capability> capabilityEntry : template.getCapabilities().entrySet()) {
-                    Capability capability = capabilityEntry.getValue();
-                    if (!capabilityTypes.containsKey(capability.getType())) {
-                        IndexedCapabilityType capabilityType = csarRepoSearchService.getRequiredElementInDependencies(IndexedCapabilityType.class,
-                                capability.getType(), topology.getDependencies());
-                        capabilityTypes.put(capability.getType(), capabilityType);
-                    }
+                for (Capability capability : template.getCapabilities().values()) {
+                    typeIds.put(IndexedCapabilityType.class, capability.getType());
                 }
             }
         }
+        Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> types = getElementsInDependencies(typeIds, topology.getDependencies(), true);
+        for (String capabilityType : typeIds.values()) {
+            capabilityTypes.put(capabilityType, (IndexedCapabilityType) types.get(IndexedCapabilityType.class, capabilityType));
+        }
         return capabilityTypes;
     }
 
+    private Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> getElementsInDependencies(
+            SetMultimap<Class<? extends IndexedToscaElement>, String> typeIds, Set<CSARDependency> dependencies, boolean failOnTypeNotFound) {
+        return failOnTypeNotFound ? csarRepoSearchService.getRequiredElementsInDependencies(typeIds, dependencies)
+                : csarRepoSearchService.getElementsInDependencies(typeIds, dependencies);
+    }
+
     /**
      * Build a node template
      * 
@@ -18,25 +18,20 @@ import alien4cloud.topology.task.RequirementsTask;
 import alien4cloud.topology.task.SuggestionsTask;
 import alien4cloud.topology.task.TaskLevel;
 import alien4cloud.topology.task.WorkflowTask;
-import alien4cloud.topology.validation.NodeFilterValidationService;
+import alien4cloud.topology.validation.NodeTemplatesValidationService;
+import alien4cloud.topology.validation.NodeTemplatesValidationService.NodeTemplatesValidation;
 import alien4cloud.topology.validation.TopologyAbstractRelationshipValidationService;
 import alien4cloud.topology.validation.TopologyArtifactsValidationService;
-import alien4cloud.topology.validation.TopologyPropertiesValidationService;
-import alien4cloud.topology.validation.TopologyRequirementBoundsValidationServices;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
 public class TopologyValidationService {
     @Resource
-    private TopologyPropertiesValidationService topologyPropertiesValidationService;
-    @Resource
-    private TopologyRequirementBoundsValidationServices topologyRequirementBoundsValidationServices;
+    private NodeTemplatesValidationService nodeTemplatesValidationService;
     @Resource
     private TopologyAbstractRelationshipValidationService topologyAbstractRelationshipValidationService;
     @Resource
-    private NodeFilterValidationService nodeFilterValidationService;
-    @Resource
     private WorkflowsBuilderService workflowBuilderService;
     @Resource
     private TopologyArtifactsValidationService topologyArtifactsValidationService;
@@ -45,10 +40,26 @@ public class TopologyValidationService {
      * Validate if a topology is valid for deployment configuration or not,
      * This is done before deployment configuration
      *
+     * Node templates that did not change since the previous validation of the topology are not validated again.
+     *
      * @param topology topology to be validated
      * @return the validation result
      */
     public TopologyValidationResult validateTopology(Topology topology) {
+        return validateTopology(topology, true);
+    }
+
+    /**
+     * Validate if a topology is valid for deployment configuration or not, validating all node templates.
+     *
+     * @param topology topology to be validated
+     * @return the validation result
+     */
+    public TopologyValidationResult validateTopologyFully(Topology topology) {
+        return validateTopology(topology, false);
+    }
+
+    private TopologyValidationResult validateTopology(Topology topology, boolean incremental) {
         TopologyValidationResult dto = new TopologyValidationResult();
         if (topology.getNodeTemplates() == null || topology.getNodeTemplates().size() < 1) {
             dto.setValid(false);
@@ -66,17 +77,17 @@ public class TopologyValidationService {
         // TODO should we do this here or not?
         // dto.addToWarningList(topologyAbstractNodeValidationService.findReplacementForAbstracts(topology));
 
-        // validate requirements lowerBounds
-        dto.addTasks(topologyRequirementBoundsValidationServices.validateRequirementsLowerBounds(topology));
-
-        // validate the node filters for all relationships
-        dto.addTasks(nodeFilterValidationService.validateStaticRequirementFilters(topology));
+        // validate requirements lowerBounds, node filters for all relationships and properties of the node templates
+        NodeTemplatesValidation nodeTemplatesValidation = incremental ? nodeTemplatesValidationService.validate(topology)
+                : nodeTemplatesValidationService.validateFully(topology);
+        dto.addTasks(nodeTemplatesValidation.getRequirementsTasks());
+        dto.addTasks(nodeTemplatesValidation.getNodeFiltersTasks());
 
         // validate that all artifacts has been filled
         dto.addTasks(topologyArtifactsValidationService.validate(topology));
 
         // validate required properties (properties of NodeTemplate, Relationship and Capability)
-        List<PropertiesTask> validateProperties = topologyPropertiesValidationService.validateStaticProperties(topology);
+        List<PropertiesTask> validateProperties = nodeTemplatesValidation.getPropertiesTasks();
 
         // List<PropertiesTask> validateProperties = null;
         if (hasOnlyPropertiesWarnings(validateProperties)) {
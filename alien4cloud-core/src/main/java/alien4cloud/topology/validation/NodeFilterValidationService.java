@@ -2,6 +2,7 @@ package alien4cloud.topology.validation;
 
 import alien4cloud.component.CSARRepositorySearchService;
 import alien4cloud.model.components.*;
+import alien4cloud.model.topology.Capability;
 import alien4cloud.model.topology.NodeTemplate;
 import alien4cloud.model.topology.RelationshipTemplate;
 import alien4cloud.model.topology.Topology;
@@ -25,6 +26,8 @@ import javax.annotation.Resource;
 import java.util.List;
 import java.util.Map;
 
+import static alien4cloud.utils.AlienUtils.safe;
+
 /**
  * Performs validation of node filters for all relationship of topology.
  */
@@ -60,29 +63,66 @@ public class NodeFilterValidationService {
         Map<String, IndexedNodeType> nodeTypes = topologyServiceCore.getIndexedNodeTypesFromTopology(topology, false, true, true);
         Map<String, IndexedCapabilityType> capabilityTypes = topologyServiceCore.getIndexedCapabilityTypesFromTopology(topology);
         for (Map.Entry<String, NodeTemplate> nodeTempEntry : nodeTemplates.entrySet()) {
-            Map<String, RelationshipTemplate> relationshipsMap = nodeTempEntry.getValue().getRelationships();
-            if (relationshipsMap == null || relationshipsMap.isEmpty()) {
-                continue;
+            NodeFiltersTask task = validateRequirementFilters(topology, nodeTempEntry.getKey(), nodeTypes, capabilityTypes, skipInputs);
+            if (task != null) {
+                toReturnTaskList.add(task);
             }
-            IndexedNodeType sourceNodeType = csarRepoSearchService.getRequiredElementInDependencies(IndexedNodeType.class, nodeTempEntry.getValue().getType(),
-                    topology.getDependencies());
-            if (sourceNodeType.isAbstract()) {
-                continue;
+        }
+        return toReturnTaskList.isEmpty() ? null : toReturnTaskList;
+    }
+
+    /**
+     * Performs validation of the node filters of the relationships of a single node template of a topology.
+     *
+     * @param topology The topology that contains the node template.
+     * @param nodeTemplateName The name of the source node template of the relationships to check.
+     * @return The task to be done to satisfy the node filters or null if the relationships targets satisfy the node filters.
+     */
+    public NodeFiltersTask validateStaticRequirementFilters(Topology topology, String nodeTemplateName) {
+        Map<String, RelationshipTemplate> relationshipsMap = topology.getNodeTemplates().get(nodeTemplateName).getRelationships();
+        if (relationshipsMap == null || relationshipsMap.isEmpty()) {
+            return null;
+        }
+        // only the types of the relationships targets are required to validate the node filters of the node.
+        Map<String, NodeTemplate> targets = Maps.newHashMap();
+        Map<String, IndexedCapabilityType> capabilityTypes = Maps.newHashMap();
+        for (RelationshipTemplate relationshipTemplate : relationshipsMap.values()) {
+            NodeTemplate target = topology.getNodeTemplates().get(relationshipTemplate.getTarget());
+            targets.put(relationshipTemplate.getTarget(), target);
+            for (Capability capability : safe(target.getCapabilities()).values()) {
+                if (!capabilityTypes.containsKey(capability.getType())) {
+                    capabilityTypes.put(capability.getType(), csarRepoSearchService.getRequiredElementInDependencies(IndexedCapabilityType.class,
+                            capability.getType(), topology.getDependencies()));
+                }
             }
+        }
+        Map<String, IndexedNodeType> nodeTypes = topologyServiceCore.getIndexedNodeTypesFromDependencies(targets, topology.getDependencies(), false, true,
+                true);
+        return validateRequirementFilters(topology, nodeTemplateName, nodeTypes, capabilityTypes, true);
+    }
+
+    private NodeFiltersTask validateRequirementFilters(Topology topology, String nodeTemplateName, Map<String, IndexedNodeType> nodeTypes,
+            Map<String, IndexedCapabilityType> capabilityTypes, boolean skipInputs) {
+        NodeTemplate nodeTemplate = topology.getNodeTemplates().get(nodeTemplateName);
+        Map<String, RelationshipTemplate> relationshipsMap = nodeTemplate.getRelationships();
+        if (relationshipsMap == null || relationshipsMap.isEmpty()) {
+            return null;
+        }
+        IndexedNodeType sourceNodeType = csarRepoSearchService.getRequiredElementInDependencies(IndexedNodeType.class, nodeTemplate.getType(),
+                topology.getDependencies());
+        if (sourceNodeType.isAbstract()) {
+            return null;
+        }
 
-            NodeFiltersTask task = new NodeFiltersTask();
-            task.setNodeTemplateName(nodeTempEntry.getKey());
-            task.setCode(TaskCode.NODE_FILTER_INVALID);
-            task.setComponent(sourceNodeType);
-            task.setNodeFiltersToSatisfy(Lists.<NodeFilterToSatisfy> newArrayList());
+        NodeFiltersTask task = new NodeFiltersTask();
+        task.setNodeTemplateName(nodeTemplateName);
+        task.setCode(TaskCode.NODE_FILTER_INVALID);
+        task.setComponent(sourceNodeType);
+        task.setNodeFiltersToSatisfy(Lists.<NodeFilterToSatisfy> newArrayList());
 
-            validateFiltersForNode(sourceNodeType, relationshipsMap, topology, nodeTypes, capabilityTypes, task, skipInputs);
+        validateFiltersForNode(sourceNodeType, relationshipsMap, topology, nodeTypes, capabilityTypes, task, skipInputs);
 
-            if (!task.getNodeFiltersToSatisfy().isEmpty()) {
-                toReturnTaskList.add(task);
-            }
-        }
-        return toReturnTaskList.isEmpty() ? null : toReturnTaskList;
+        return task.getNodeFiltersToSatisfy().isEmpty() ? null : task;
     }
 
     private void validateFiltersForNode(IndexedNodeType sourceNodeType, Map<String, RelationshipTemplate> relationshipsMap, Topology topology,
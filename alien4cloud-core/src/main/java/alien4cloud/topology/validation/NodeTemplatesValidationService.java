@@ -0,0 +1,220 @@
+package alien4cloud.topology.validation;
+
+import static alien4cloud.utils.AlienUtils.safe;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import alien4cloud.exception.TechnicalException;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.topology.task.NodeFiltersTask;
+import alien4cloud.topology.task.PropertiesTask;
+import alien4cloud.topology.task.RequirementsTask;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Validation of the node templates of a topology (requirements lower bounds, node filters and properties) that only validates the node templates that changed
+ * since the previous validation of the same topology.
+ *
+ * Results are cached per topology and node template with a fingerprint of the node template (including its relationships) and of the targets of its
+ * relationships as the node filters are checked against the targets. A node template is validated again when it is touched by an edition or when one of its
+ * relationships targets is. Topologies without id, topologies whose dependencies changed and archives updates fall back to the validation of all node
+ * templates.
+ */
+@Slf4j
+@Component
+public class NodeTemplatesValidationService {
+    @Resource
+    private TopologyPropertiesValidationService topologyPropertiesValidationService;
+    @Resource
+    private TopologyRequirementBoundsValidationServices topologyRequirementBoundsValidationServices;
+    @Resource
+    private NodeFilterValidationService nodeFilterValidationService;
+
+    @Value("${topology.validation.incremental:true}")
+    private boolean incremental;
+    @Value("${topology.validation.cache_max_size:500}")
+    private long cacheMaxSize;
+    @Value("${topology.validation.cache_expire_minutes:30}")
+    private long cacheExpireMinutes;
+
+    private final ObjectMapper fingerprintMapper = new ObjectMapper();
+    private Cache<String, TopologyNodesValidation> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder().maximumSize(cacheMaxSize).expireAfterAccess(cacheExpireMinutes, TimeUnit.MINUTES).build();
+    }
+
+    /**
+     * Validate the node templates of a topology, reusing the results of the node templates that did not change since the previous validation.
+     *
+     * @param topology The topology to validate.
+     * @return The validation tasks of the node templates.
+     */
+    public NodeTemplatesValidation validate(Topology topology) {
+        if (!incremental || topology.getId() == null) {
+            return validateFully(topology);
+        }
+        TopologyNodesValidation previous = cache.getIfPresent(topology.getId());
+        Set<CSARDependency> dependencies = topology.getDependencies() == null ? Sets.<CSARDependency> newHashSet() : topology.getDependencies();
+        if (previous != null && !previous.dependencies.equals(dependencies)) {
+            // types may have changed, all node templates must be validated again.
+            previous = null;
+        }
+
+        Map<String, HashCode> templateFingerprints = Maps.newHashMap();
+        for (Map.Entry<String, NodeTemplate> nodeTemplateEntry : topology.getNodeTemplates().entrySet()) {
+            templateFingerprints.put(nodeTemplateEntry.getKey(), fingerprint(nodeTemplateEntry.getValue()));
+        }
+
+        TopologyNodesValidation current = new TopologyNodesValidation(Sets.newHashSet(dependencies), Maps.<String, NodeValidation> newHashMap());
+        NodeTemplatesValidation result = new NodeTemplatesValidation();
+        int validatedNodes = 0;
+        try {
+            for (Map.Entry<String, NodeTemplate> nodeTemplateEntry : topology.getNodeTemplates().entrySet()) {
+                String nodeTemplateName = nodeTemplateEntry.getKey();
+                HashCode fingerprint = fingerprint(nodeTemplateName, nodeTemplateEntry.getValue(), templateFingerprints);
+                NodeValidation nodeValidation = previous == null ? null : previous.nodes.get(nodeTemplateName);
+                if (nodeValidation == null || !nodeValidation.fingerprint.equals(fingerprint)) {
+                    nodeValidation = validate(topology, nodeTemplateName, fingerprint);
+                    validatedNodes++;
+                }
+                current.nodes.put(nodeTemplateName, nodeValidation);
+                result.add(nodeValidation);
+            }
+        } catch (RuntimeException e) {
+            cache.invalidate(topology.getId());
+            throw e;
+        }
+        cache.put(topology.getId(), current);
+        log.debug("Validated {} node templates out of {} for topology {}", validatedNodes, current.nodes.size(), topology.getId());
+        return result;
+    }
+
+    /**
+     * Validate all the node templates of a topology without using the cached results.
+     *
+     * @param topology The topology to validate.
+     * @return The validation tasks of the node templates.
+     */
+    public NodeTemplatesValidation validateFully(Topology topology) {
+        NodeTemplatesValidation result = new NodeTemplatesValidation();
+        result.requirementsTasks = topologyRequirementBoundsValidationServices.validateRequirementsLowerBounds(topology);
+        result.nodeFiltersTasks = nodeFilterValidationService.validateStaticRequirementFilters(topology);
+        result.propertiesTasks = topologyPropertiesValidationService.validateStaticProperties(topology);
+        return result;
+    }
+
+    /**
+     * Remove the cached validation results of the topologies that depends on an archive. This must be called when the elements of an archive are deleted or
+     * overridden.
+     *
+     * @param archiveName The name of the archive.
+     * @param archiveVersion The version of the archive.
+     */
+    public void invalidate(String archiveName, String archiveVersion) {
+        for (Map.Entry<String, TopologyNodesValidation> entry : cache.asMap().entrySet()) {
+            for (CSARDependency dependency : entry.getValue().dependencies) {
+                if (archiveName.equals(dependency.getName()) && archiveVersion.equals(dependency.getVersion())) {
+                    cache.invalidate(entry.getKey());
+                    break;
+                }
+            }
+        }
+    }
+
+    private NodeValidation validate(Topology topology, String nodeTemplateName, HashCode fingerprint) {
+        return new NodeValidation(fingerprint, topologyRequirementBoundsValidationServices.validateRequirementsLowerBounds(topology, nodeTemplateName),
+                nodeFilterValidationService.validateStaticRequirementFilters(topology, nodeTemplateName),
+                topologyPropertiesValidationService.validateStaticProperties(topology, nodeTemplateName));
+    }
+
+    private HashCode fingerprint(String nodeTemplateName, NodeTemplate nodeTemplate, Map<String, HashCode> templateFingerprints) {
+        Hasher hasher = Hashing.murmur3_128().newHasher().putBytes(templateFingerprints.get(nodeTemplateName).asBytes());
+        for (RelationshipTemplate relationshipTemplate : safe(nodeTemplate.getRelationships()).values()) {
+            HashCode targetFingerprint = templateFingerprints.get(relationshipTemplate.getTarget());
+            if (targetFingerprint != null) {
+                hasher.putBytes(targetFingerprint.asBytes());
+            }
+        }
+        return hasher.hash();
+    }
+
+    private HashCode fingerprint(NodeTemplate nodeTemplate) {
+        try {
+            return Hashing.murmur3_128().hashBytes(fingerprintMapper.writeValueAsBytes(nodeTemplate));
+        } catch (JsonProcessingException e) {
+            throw new TechnicalException("Unable to serialize node template <" + nodeTemplate.getName() + ">", e);
+        }
+    }
+
+    /**
+     * Validation tasks of the node templates of a topology. Lists are null when there is no task.
+     */
+    @Getter
+    public static class NodeTemplatesValidation {
+        private List<RequirementsTask> requirementsTasks;
+        private List<NodeFiltersTask> nodeFiltersTasks;
+        private List<PropertiesTask> propertiesTasks;
+
+        private void add(NodeValidation nodeValidation) {
+            requirementsTasks = add(requirementsTasks, nodeValidation.requirementsTask);
+            nodeFiltersTasks = add(nodeFiltersTasks, nodeValidation.nodeFiltersTask);
+            if (nodeValidation.propertiesTasks != null) {
+                for (PropertiesTask propertiesTask : nodeValidation.propertiesTasks) {
+                    propertiesTasks = add(propertiesTasks, propertiesTask);
+                }
+            }
+        }
+
+        private <T> List<T> add(List<T> tasks, T task) {
+            if (task == null) {
+                return tasks;
+            }
+            List<T> result = tasks == null ? Lists.<T> newArrayList() : tasks;
+            result.add(task);
+            return result;
+        }
+    }
+
+    /** Cached validation of the node templates of a topology. */
+    @AllArgsConstructor
+    private static class TopologyNodesValidation {
+        private final Set<CSARDependency> dependencies;
+        private final Map<String, NodeValidation> nodes;
+    }
+
+    /** Cached validation tasks of a node template. */
+    @AllArgsConstructor
+    private static class NodeValidation {
+        private final HashCode fingerprint;
+        private final RequirementsTask requirementsTask;
+        private final NodeFiltersTask nodeFiltersTask;
+        private final List<PropertiesTask> propertiesTasks;
+    }
+}
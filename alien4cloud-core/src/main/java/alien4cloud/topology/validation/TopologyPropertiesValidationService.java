@@ -81,53 +81,71 @@ public class TopologyPropertiesValidationService {
 
         // create task by nodetemplate
         for (Map.Entry<String, NodeTemplate> nodeTempEntry : nodeTemplates.entrySet()) {
-            NodeTemplate nodeTemplate = nodeTempEntry.getValue();
-            IndexedNodeType relatedIndexedNodeType = csarRepoSearchService.getRequiredElementInDependencies(IndexedNodeType.class, nodeTemplate.getType(),
-                    topology.getDependencies());
-            // do pass if abstract node
-            if (relatedIndexedNodeType.isAbstract()) {
-                continue;
-            }
+            validateNodeProperties(topology, nodeTempEntry.getKey(), nodeTempEntry.getValue(), skipInputProperties, toReturnTaskList);
+        }
+        return toReturnTaskList.isEmpty() ? null : toReturnTaskList;
+    }
 
-            // Define a task regarding properties
-            PropertiesTask task = new PropertiesTask();
-            task.setNodeTemplateName(nodeTempEntry.getKey());
-            task.setComponent(relatedIndexedNodeType);
-            task.setCode(TaskCode.PROPERTIES);
-            task.setProperties(Maps.<TaskLevel, List<String>> newHashMap());
+    /**
+     * Validate that the properties values of a single node template are matching the property definitions (required & constraints).
+     * Skips properties defined as get_input
+     *
+     * @param topology The topology that contains the node template.
+     * @param nodeTemplateName The name of the node template to validate.
+     * @return A list tasks to be done to make this node template valid or null if the node template is valid.
+     */
+    public List<PropertiesTask> validateStaticProperties(Topology topology, String nodeTemplateName) {
+        List<PropertiesTask> toReturnTaskList = Lists.newArrayList();
+        validateNodeProperties(topology, nodeTemplateName, topology.getNodeTemplates().get(nodeTemplateName), true, toReturnTaskList);
+        return toReturnTaskList.isEmpty() ? null : toReturnTaskList;
+    }
 
-            // Check the properties of node template
-            if (MapUtils.isNotEmpty(nodeTemplate.getProperties())) {
-                addRequiredPropertyIdToTaskProperties(null, nodeTemplate.getProperties(), relatedIndexedNodeType.getProperties(), task, skipInputProperties);
-            }
+    private void validateNodeProperties(Topology topology, String nodeTemplateName, NodeTemplate nodeTemplate, boolean skipInputProperties,
+            List<PropertiesTask> toReturnTaskList) {
+        IndexedNodeType relatedIndexedNodeType = csarRepoSearchService.getRequiredElementInDependencies(IndexedNodeType.class, nodeTemplate.getType(),
+                topology.getDependencies());
+        // do pass if abstract node
+        if (relatedIndexedNodeType.isAbstract()) {
+            return;
+        }
 
-            // Check relationships PD
-            for (Map.Entry<String, RelationshipTemplate> relationshipEntry : safe(nodeTemplate.getRelationships()).entrySet()) {
-                RelationshipTemplate relationship = relationshipEntry.getValue();
-                if (relationship.getProperties() == null || relationship.getProperties().isEmpty()) {
-                    continue;
-                }
-                addRequiredPropertyIdToTaskProperties("relationships[" + relationshipEntry.getKey() + "]", relationship.getProperties(),
-                        getRelationshipPropertyDefinition(topology, nodeTemplate), task, skipInputProperties);
+        // Define a task regarding properties
+        PropertiesTask task = new PropertiesTask();
+        task.setNodeTemplateName(nodeTemplateName);
+        task.setComponent(relatedIndexedNodeType);
+        task.setCode(TaskCode.PROPERTIES);
+        task.setProperties(Maps.<TaskLevel, List<String>> newHashMap());
+
+        // Check the properties of node template
+        if (MapUtils.isNotEmpty(nodeTemplate.getProperties())) {
+            addRequiredPropertyIdToTaskProperties(null, nodeTemplate.getProperties(), relatedIndexedNodeType.getProperties(), task, skipInputProperties);
+        }
+
+        // Check relationships PD
+        for (Map.Entry<String, RelationshipTemplate> relationshipEntry : safe(nodeTemplate.getRelationships()).entrySet()) {
+            RelationshipTemplate relationship = relationshipEntry.getValue();
+            if (relationship.getProperties() == null || relationship.getProperties().isEmpty()) {
+                continue;
             }
-            for (Map.Entry<String, Capability> capabilityEntry : safe(nodeTemplate.getCapabilities()).entrySet()) {
-                Capability capability = capabilityEntry.getValue();
-                if (capability.getProperties() == null || capability.getProperties().isEmpty()) {
-                    continue;
-                }
-                addRequiredPropertyIdToTaskProperties("capabilities[" + capabilityEntry.getKey() + "]", capability.getProperties(),
-                        getCapabilitiesPropertyDefinition(topology, nodeTemplate), task, skipInputProperties);
-                if (capability.getType().equals(NormativeComputeConstants.SCALABLE_CAPABILITY_TYPE)) {
-                    Map<String, AbstractPropertyValue> scalableProperties = capability.getProperties();
-                    verifyScalableProperties(scalableProperties, toReturnTaskList, nodeTempEntry.getKey(), skipInputProperties);
-                }
+            addRequiredPropertyIdToTaskProperties("relationships[" + relationshipEntry.getKey() + "]", relationship.getProperties(),
+                    getRelationshipPropertyDefinition(topology, nodeTemplate), task, skipInputProperties);
+        }
+        for (Map.Entry<String, Capability> capabilityEntry : safe(nodeTemplate.getCapabilities()).entrySet()) {
+            Capability capability = capabilityEntry.getValue();
+            if (capability.getProperties() == null || capability.getProperties().isEmpty()) {
+                continue;
             }
-
-            if (MapUtils.isNotEmpty(task.getProperties())) {
-                toReturnTaskList.add(task);
+            addRequiredPropertyIdToTaskProperties("capabilities[" + capabilityEntry.getKey() + "]", capability.getProperties(),
+                    getCapabilitiesPropertyDefinition(topology, nodeTemplate), task, skipInputProperties);
+            if (capability.getType().equals(NormativeComputeConstants.SCALABLE_CAPABILITY_TYPE)) {
+                Map<String, AbstractPropertyValue> scalableProperties = capability.getProperties();
+                verifyScalableProperties(scalableProperties, toReturnTaskList, nodeTemplateName, skipInputProperties);
             }
         }
-        return toReturnTaskList.isEmpty() ? null : toReturnTaskList;
+
+        if (MapUtils.isNotEmpty(task.getProperties())) {
+            toReturnTaskList.add(task);
+        }
     }
 
     private Map<String, PropertyDefinition> getCapabilitiesPropertyDefinition(Topology topology, NodeTemplate nodeTemplate) {
@@ -70,35 +70,52 @@ public class TopologyRequirementBoundsValidationServices {
         List<RequirementsTask> toReturnTaskList = Lists.newArrayList();
         Map<String, NodeTemplate> nodeTemplates = topology.getNodeTemplates();
         for (Map.Entry<String, NodeTemplate> nodeTempEntry : nodeTemplates.entrySet()) {
-            NodeTemplate nodeTemp = nodeTempEntry.getValue();
-            if (nodeTemp.getRequirements() == null) {
-                continue;
+            RequirementsTask task = validateRequirementsLowerBounds(topology, nodeTempEntry.getKey(), nodeTempEntry.getValue());
+            if (task != null) {
+                toReturnTaskList.add(task);
             }
-            IndexedNodeType relatedIndexedNodeType = csarRepoSearchService.getRequiredElementInDependencies(IndexedNodeType.class, nodeTemp.getType(),
-                    topology.getDependencies());
-            // do pass if abstract node
-            if (relatedIndexedNodeType.isAbstract()) {
-                continue;
-            }
-            RequirementsTask task = new RequirementsTask();
-            task.setNodeTemplateName(nodeTempEntry.getKey());
-            task.setCode(TaskCode.SATISFY_LOWER_BOUND);
-            task.setComponent(relatedIndexedNodeType);
-            task.setRequirementsToImplement(Lists.<RequirementToSatisfy> newArrayList());
-            if (CollectionUtils.isNotEmpty(relatedIndexedNodeType.getRequirements())) {
-                for (RequirementDefinition reqDef : relatedIndexedNodeType.getRequirements()) {
-                    int count = countRelationshipsForRequirement(reqDef.getId(), reqDef.getType(), nodeTemp.getRelationships());
-                    if (count < reqDef.getLowerBound()) {
-                        task.getRequirementsToImplement().add(new RequirementToSatisfy(reqDef.getId(), reqDef.getType(), reqDef.getLowerBound() - count));
-                        continue;
-                    }
-                }
-                if (CollectionUtils.isNotEmpty(task.getRequirementsToImplement())) {
-                    toReturnTaskList.add(task);
+        }
+        return toReturnTaskList.isEmpty() ? null : toReturnTaskList;
+    }
+
+    /**
+     * Perform validation of requirements bounds/occurences for a single node template of a topology.
+     *
+     * @param topology The topology that contains the node template.
+     * @param nodeTemplateName The name of the node template to check.
+     * @return The task to be done to make the node template compliant or null if the node template is compliant.
+     */
+    public RequirementsTask validateRequirementsLowerBounds(Topology topology, String nodeTemplateName) {
+        return validateRequirementsLowerBounds(topology, nodeTemplateName, topology.getNodeTemplates().get(nodeTemplateName));
+    }
+
+    private RequirementsTask validateRequirementsLowerBounds(Topology topology, String nodeTemplateName, NodeTemplate nodeTemp) {
+        if (nodeTemp.getRequirements() == null) {
+            return null;
+        }
+        IndexedNodeType relatedIndexedNodeType = csarRepoSearchService.getRequiredElementInDependencies(IndexedNodeType.class, nodeTemp.getType(),
+                topology.getDependencies());
+        // do pass if abstract node
+        if (relatedIndexedNodeType.isAbstract()) {
+            return null;
+        }
+        RequirementsTask task = new RequirementsTask();
+        task.setNodeTemplateName(nodeTemplateName);
+        task.setCode(TaskCode.SATISFY_LOWER_BOUND);
+        task.setComponent(relatedIndexedNodeType);
+        task.setRequirementsToImplement(Lists.<RequirementToSatisfy> newArrayList());
+        if (CollectionUtils.isNotEmpty(relatedIndexedNodeType.getRequirements())) {
+            for (RequirementDefinition reqDef : relatedIndexedNodeType.getRequirements()) {
+                int count = countRelationshipsForRequirement(reqDef.getId(), reqDef.getType(), nodeTemp.getRelationships());
+                if (count < reqDef.getLowerBound()) {
+                    task.getRequirementsToImplement().add(new RequirementToSatisfy(reqDef.getId(), reqDef.getType(), reqDef.getLowerBound() - count));
                 }
             }
+            if (CollectionUtils.isNotEmpty(task.getRequirementsToImplement())) {
+                return task;
+            }
         }
-        return toReturnTaskList.isEmpty() ? null : toReturnTaskList;
+        return null;
     }
 
     /**
@@ -0,0 +1,208 @@
+package alien4cloud.tosca;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import alien4cloud.exception.InvalidArgumentException;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.CSARSource;
+import alien4cloud.model.git.CsarDependenciesBean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Upload of multiple TOSCA archives at once.
+ *
+ * Archives are first pre-parsed concurrently to find their dependencies and sorted by dependency level. Archives of a level only depend on archives of the
+ * previous levels so they are uploaded concurrently. Parsing and uploads of all batches share a single pool of threads and no pool thread ever waits for
+ * another task: the next level is submitted when the last upload of the previous level completes. A batch that contains the same archive (name and version)
+ * twice is rejected before any upload.
+ */
+@Slf4j
+@Component
+public class ArchiveBatchUploadService {
+    @Inject
+    private ArchiveUploadService archiveUploadService;
+    /** Maximum number of archives parsed or uploaded concurrently by all batches and git imports. */
+    @Value("${upload.batch_threads:4}")
+    private int uploadThreads;
+    private ExecutorService archiveExecutor;
+
+    @PostConstruct
+    public void init() {
+        // archives are parsed and uploaded from the pool threads, propagate the security context as upload checks the user roles.
+        archiveExecutor = new DelegatingSecurityContextExecutorService(
+                Executors.newFixedThreadPool(uploadThreads, new ThreadFactoryBuilder().setNameFormat("archive-upload-%d").setDaemon(true).build()));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        archiveExecutor.shutdown();
+    }
+
+    /**
+     * Run an archive processing task on the shared archive threads with the security context of the caller. The task must not wait for other tasks of the
+     * pool.
+     *
+     * @param task The task to run.
+     * @return The future result of the task.
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return archiveExecutor.submit(task);
+    }
+
+    /**
+     * Parse archives concurrently to find their dependencies. Archives that cannot be parsed are ignored.
+     *
+     * @param paths The paths of the archives to parse.
+     * @return The map of archive to archive dependencies.
+     */
+    public Map<CSARDependency, CsarDependenciesBean> preParsing(Set<Path> paths) {
+        return preParsing(paths, ConcurrentHashMap.<CSARDependency> newKeySet());
+    }
+
+    private Map<CSARDependency, CsarDependenciesBean> preParsing(Set<Path> paths, Set<CSARDependency> duplicates) {
+        Map<CSARDependency, CsarDependenciesBean> csarDependenciesBeans = new ConcurrentHashMap<>();
+        CompletableFuture<?>[] parsings = paths.stream().map(path -> CompletableFuture.runAsync(() -> {
+            CsarDependenciesBean csarBean = archiveUploadService.preParse(path);
+            if (csarBean != null && csarDependenciesBeans.putIfAbsent(csarBean.getSelf(), csarBean) != null) {
+                duplicates.add(csarBean.getSelf());
+            }
+        }, archiveExecutor)).toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(parsings).join();
+        return Maps.newHashMap(csarDependenciesBeans);
+    }
+
+    /**
+     * Upload TOSCA archives in the order of their dependencies, the method returns as soon as the archives are pre-parsed and the upload is started.
+     *
+     * @param paths The paths of the archives to upload.
+     * @param csarSource The source of the upload.
+     * @param listener The listener notified of the result of every archive as soon as it is processed.
+     * @return A future completed once all archives have been processed.
+     * @throws InvalidArgumentException If several archives of the batch have the same name and version, in such case no archive is uploaded.
+     */
+    public CompletableFuture<Void> uploadAll(Set<Path> paths, CSARSource csarSource, IArchiveUploadListener listener) {
+        Set<CSARDependency> duplicates = ConcurrentHashMap.newKeySet();
+        Map<CSARDependency, CsarDependenciesBean> csarDependenciesBeans = preParsing(paths, duplicates);
+        if (!duplicates.isEmpty()) {
+            throw new InvalidArgumentException("The batch contains several archives with the same name and version: " + duplicates);
+        }
+        Set<Path> notParsedPaths = Sets.newHashSet(paths);
+        for (CsarDependenciesBean csarBean : csarDependenciesBeans.values()) {
+            notParsedPaths.remove(csarBean.getPath());
+        }
+        List<List<Path>> levels = Lists.newArrayList();
+        // archives that cannot be parsed are uploaded first so their parsing errors are reported.
+        levels.add(Lists.newArrayList(notParsedPaths));
+        for (List<CsarDependenciesBean> level : sortByDependencyLevel(csarDependenciesBeans)) {
+            levels.add(toPaths(level));
+        }
+        // remaining archives have cyclic dependencies, try to upload them anyway so the user gets the errors.
+        levels.add(toPaths(csarDependenciesBeans.values()));
+        return uploadLevels(levels.iterator(), csarSource, listener);
+    }
+
+    private CompletableFuture<Void> uploadLevels(Iterator<List<Path>> levels, CSARSource csarSource, IArchiveUploadListener listener) {
+        if (!levels.hasNext()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<?>[] uploads = levels.next().stream()
+                .map(path -> CompletableFuture.runAsync(() -> upload(path, csarSource, listener), archiveExecutor)).toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(uploads).thenCompose(result -> uploadLevels(levels, csarSource, listener));
+    }
+
+    private void upload(Path path, CSARSource csarSource, IArchiveUploadListener listener) {
+        try {
+            listener.uploaded(path, archiveUploadService.upload(path, csarSource));
+        } catch (Exception e) {
+            log.debug("Failed to upload archive {}", path, e);
+            listener.failed(path, e);
+        }
+    }
+
+    private List<Path> toPaths(Iterable<CsarDependenciesBean> csarBeans) {
+        List<Path> paths = Lists.newArrayList();
+        for (CsarDependenciesBean csarBean : csarBeans) {
+            paths.add(csarBean.getPath());
+        }
+        return paths;
+    }
+
+    /**
+     * Sort archives by dependency levels: archives of a level only depends on archives of the previous levels.
+     *
+     * Sorted archives are removed from the given map, archives that remain in the map after sorting have cyclic dependencies.
+     *
+     * @param elements The archives to sort.
+     * @return The list of levels.
+     */
+    public List<List<CsarDependenciesBean>> sortByDependencyLevel(Map<CSARDependency, CsarDependenciesBean> elements) {
+        List<List<CsarDependenciesBean>> sortedCsars = Lists.newArrayList();
+
+        List<CsarDependenciesBean> independents = Lists.newArrayList();
+        for (Map.Entry<CSARDependency, CsarDependenciesBean> entry : elements.entrySet()) {
+            CsarDependenciesBean csar = entry.getValue();
+            if (csar.getDependencies() == null) {
+                // the element has no dependencies
+                independents.add(csar);
+            } else {
+                // complete the list of dependent elements
+                List<CSARDependency> toClears = Lists.newArrayList();
+                for (CSARDependency dependent : csar.getDependencies()) {
+                    CsarDependenciesBean providedDependency = elements.get(dependent);
+                    if (providedDependency == null) {
+                        // remove the dependency as it may be in the alien repo
+                        toClears.add(dependent);
+                    } else {
+                        providedDependency.getDependents().add(entry.getValue());
+                    }
+                }
+                for (CSARDependency toClear : toClears) {
+                    csar.getDependencies().remove(toClear);
+                }
+                if (csar.getDependencies().isEmpty()) {
+                    independents.add(csar);
+                }
+            }
+        }
+
+        while (independents.size() > 0) {
+            sortedCsars.add(independents); // elements have no more dependencies
+            List<CsarDependenciesBean> nextLevel = Lists.newArrayList();
+            for (CsarDependenciesBean independent : independents) {
+                elements.remove(independent.getSelf()); // remove from the elements
+                for (CsarDependenciesBean dependent : independent.getDependents()) {
+                    dependent.getDependencies().remove(independent.getSelf());
+                    if (dependent.getDependencies().isEmpty()) {
+                        nextLevel.add(dependent);
+                    }
+                }
+            }
+            independents = nextLevel;
+        }
+
+        return sortedCsars;
+    }
+}
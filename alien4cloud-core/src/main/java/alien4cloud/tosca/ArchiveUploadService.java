@@ -1,15 +1,11 @@
 package alien4cloud.tosca;
 
 import java.nio.file.Path;
-import java.util.Map;
-import java.util.Set;
 
 import javax.inject.Inject;
 
 import org.springframework.stereotype.Component;
 
-import com.google.common.collect.Maps;
-
 import alien4cloud.component.repository.exception.CSARUsedInActiveDeployment;
 import alien4cloud.component.repository.exception.CSARVersionAlreadyExistsException;
 import alien4cloud.model.components.CSARDependency;
@@ -83,24 +79,26 @@ public class ArchiveUploadService {
         return toSimpleResult(parsingResult);
     }
 
+    /**
+     * Parse an archive to find its dependencies.
+     *
+     * @param path The path of the archive to parse.
+     * @return The archive and its dependencies or null if the archive cannot be parsed.
+     */
     @ToscaContextual
-    public Map<CSARDependency, CsarDependenciesBean> preParsing(Set<Path> paths) throws ParsingException {
-        Map<CSARDependency, CsarDependenciesBean> csarDependenciesBeans = Maps.newHashMap();
-        for (Path path : paths) {
-            try {
-                ParsingResult<ArchiveRoot> parsingResult = parser.parse(path);
-                CsarDependenciesBean csarDepContainer = new CsarDependenciesBean();
-                csarDepContainer.setPath(path);
-                csarDepContainer
-                        .setSelf(new CSARDependency(parsingResult.getResult().getArchive().getName(), parsingResult.getResult().getArchive().getVersion()));
-                csarDepContainer.setDependencies(parsingResult.getResult().getArchive().getDependencies());
-                csarDependenciesBeans.put(csarDepContainer.getSelf(), csarDepContainer);
-            } catch (Exception e) {
-                // TODO: error should be returned in a way or another
-                log.debug("Not able to parse archive, ignoring it", e);
-            }
+    public CsarDependenciesBean preParse(Path path) {
+        try {
+            ParsingResult<ArchiveRoot> parsingResult = parser.parse(path);
+            CsarDependenciesBean csarDepContainer = new CsarDependenciesBean();
+            csarDepContainer.setPath(path);
+            csarDepContainer.setSelf(new CSARDependency(parsingResult.getResult().getArchive().getName(), parsingResult.getResult().getArchive().getVersion()));
+            csarDepContainer.setDependencies(parsingResult.getResult().getArchive().getDependencies());
+            return csarDepContainer;
+        } catch (Exception e) {
+            // TODO: error should be returned in a way or another
+            log.debug("Not able to parse archive, ignoring it", e);
+            return null;
         }
-        return csarDependenciesBeans;
     }
 
     /**
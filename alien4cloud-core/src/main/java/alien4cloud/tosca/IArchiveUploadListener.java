@@ -0,0 +1,27 @@
+package alien4cloud.tosca;
+
+import java.nio.file.Path;
+
+import alien4cloud.model.components.Csar;
+import alien4cloud.tosca.parser.ParsingResult;
+
+/**
+ * Callback notified of the progress of a batch archive upload. Methods are called from the upload threads.
+ */
+public interface IArchiveUploadListener {
+    /**
+     * Called when an archive has been processed (the result may contains parsing errors).
+     *
+     * @param path The path of the archive.
+     * @param result The result of the upload.
+     */
+    void uploaded(Path path, ParsingResult<Csar> result);
+
+    /**
+     * Called when an archive failed to be uploaded.
+     *
+     * @param path The path of the archive.
+     * @param e The cause of the failure.
+     */
+    void failed(Path path, Exception e);
+}
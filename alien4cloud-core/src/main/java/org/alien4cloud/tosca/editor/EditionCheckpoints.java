@@ -0,0 +1,121 @@
+package org.alien4cloud.tosca.editor;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import alien4cloud.dao.ElasticSearchMapper;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.utils.TreeNode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Memory bounded set of in-memory snapshots of an {@link EditionContext} state taken after the execution of some operations.
+ *
+ * Checkpoints allow undo/redo to restore the state of the nearest previous checkpoint and to replay only the operations executed after it rather than
+ * reloading the topology from elastic search and replaying the full operation history. The checkpoint at index -1 (state before any operation) is the base
+ * checkpoint and is never evicted, other checkpoints are evicted from the oldest when the memory budget is exceeded.
+ */
+@Slf4j
+public class EditionCheckpoints {
+    /** Index of the base checkpoint (state of the topology before any operation). */
+    public static final int BASE_INDEX = -1;
+    /** Topologies are serialized using the same mapper as for elastic search so a restored topology is the same as a topology read from the index. */
+    private static final ObjectMapper MAPPER = ElasticSearchMapper.getInstance();
+
+    /** Maximum approximate size in bytes of all the checkpoints. */
+    private final long maxBytes;
+    private final TreeMap<Integer, Checkpoint> checkpoints = new TreeMap<>();
+    @Getter
+    private long totalBytes = 0;
+
+    public EditionCheckpoints(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Take a checkpoint of the given state.
+     *
+     * @param operationIndex The index of the last operation applied on the state.
+     * @param topology The topology to snapshot.
+     * @param archiveContentTree The archive content tree to snapshot, null if the tree is the one of the local repository.
+     * @throws IOException In case the serialization of the topology fails.
+     */
+    public synchronized void take(int operationIndex, Topology topology, TreeNode archiveContentTree) throws IOException {
+        Checkpoint checkpoint = new Checkpoint(MAPPER.writeValueAsBytes(topology), archiveContentTree == null ? null : archiveContentTree.deepCopy());
+        Checkpoint previous = checkpoints.put(operationIndex, checkpoint);
+        if (previous != null) {
+            totalBytes -= previous.getTopology().length;
+        }
+        totalBytes += checkpoint.getTopology().length;
+        // evict the oldest checkpoints (but the base one) until we fit in the budget.
+        while (totalBytes > maxBytes) {
+            Integer oldest = checkpoints.higherKey(BASE_INDEX);
+            if (oldest == null) {
+                break;
+            }
+            totalBytes -= checkpoints.remove(oldest).getTopology().length;
+            log.debug("Evicted edition checkpoint at index {}, {} checkpoints bytes remaining.", oldest, totalBytes);
+        }
+    }
+
+    /**
+     * Restore the state of the nearest checkpoint taken at or before the given index in the given edition context.
+     *
+     * @param at The index of the operation we want to restore.
+     * @param context The context in which to restore the state.
+     * @return The index of the restored checkpoint or null if no checkpoint is available.
+     * @throws IOException In case the deserialization of the topology fails.
+     */
+    public synchronized Integer restore(int at, EditionContext context) throws IOException {
+        Map.Entry<Integer, Checkpoint> entry = checkpoints.floorEntry(at);
+        if (entry == null) {
+            return null;
+        }
+        Topology topology = MAPPER.readValue(entry.getValue().getTopology(), Topology.class);
+        TreeNode archiveContentTree = entry.getValue().getArchiveContentTree();
+        context.reset(topology, archiveContentTree == null ? null : archiveContentTree.deepCopy());
+        return entry.getKey();
+    }
+
+    /**
+     * Remove all checkpoints taken at or after the given index.
+     *
+     * @param from The index from which to remove checkpoints.
+     */
+    public synchronized void invalidateFrom(int from) {
+        Map<Integer, Checkpoint> invalidated = checkpoints.tailMap(from, true);
+        for (Checkpoint checkpoint : invalidated.values()) {
+            totalBytes -= checkpoint.getTopology().length;
+        }
+        invalidated.clear();
+    }
+
+    /**
+     * Remove all checkpoints including the base one.
+     */
+    public synchronized void clear() {
+        checkpoints.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * @return The number of checkpoints currently kept.
+     */
+    public synchronized int size() {
+        return checkpoints.size();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Checkpoint {
+        /** The topology serialized as json. */
+        private byte[] topology;
+        /** Deep copy of the archive content tree or null if the tree is the one of the local repository. */
+        private TreeNode archiveContentTree;
+    }
+}
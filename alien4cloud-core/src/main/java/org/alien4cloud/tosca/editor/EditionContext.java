@@ -5,9 +5,11 @@ import alien4cloud.tosca.context.ToscaContext;
 import alien4cloud.utils.DirectoryJSonWalker;
 import alien4cloud.utils.TreeNode;
 import com.google.common.collect.Lists;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import lombok.SneakyThrows;
 import org.alien4cloud.tosca.editor.operations.AbstractEditorOperation;
 import org.alien4cloud.tosca.editor.operations.RecoverTopologyOperation;
 
@@ -39,10 +41,16 @@ public class EditionContext {
     private int lastSavedOperationIndex = -1;
     /** List of commands that have been applied to the topology from the last-saved version. */
     private List<AbstractEditorOperation> operations = Lists.newArrayList();
-    /** Root of the file hierarchy. */
+    /** Root of the file hierarchy under edition, null when it is the same as the one of the local repository (created lazily). */
+    @Getter(AccessLevel.NONE)
     private TreeNode archiveContentTree;
+    /** Root of the file hierarchy of the local repository, built lazily and maintained by commitable processors when files are written. */
+    @Setter(AccessLevel.NONE)
+    private TreeNode repositoryContentTree;
     /** List of the operations generated to recover the topology */
     private RecoverTopologyOperation recoveryOperation;
+    /** In-memory checkpoints of the context state used to speed up undo/redo. */
+    private EditionCheckpoints checkpoints;
 
     /**
      * Create a new instance of a topology edition context from an existing topology.
@@ -50,12 +58,35 @@ public class EditionContext {
      * @param topology The topology for which to create the context.
      * @param localGitPath The git location associated with the topology.
      */
-    public EditionContext(Topology topology, Path localGitPath) throws IOException {
+    public EditionContext(Topology topology, Path localGitPath) {
         this.topology = topology;
         this.toscaContext = new ToscaContext.Context(topology.getDependencies());
         this.localGitPath = localGitPath;
-        // initialize the file tree based on the git repository location
-        this.archiveContentTree = DirectoryJSonWalker.getDirectoryTree(this.localGitPath);
+        // the file tree is built from the git repository location on first access.
+    }
+
+    /**
+     * Get the root of the file hierarchy under edition. If no file operation has been processed the tree is a copy of the local repository tree.
+     *
+     * @return The root of the file hierarchy under edition.
+     */
+    @SneakyThrows(IOException.class)
+    public TreeNode getArchiveContentTree() {
+        if (archiveContentTree == null) {
+            if (repositoryContentTree == null) {
+                repositoryContentTree = DirectoryJSonWalker.getDirectoryTree(this.localGitPath);
+            }
+            archiveContentTree = repositoryContentTree.deepCopy();
+        }
+        return archiveContentTree;
+    }
+
+    /**
+     * Mark the local repository file tree as outdated so it is walked again on next access (when files are changed out of the editor operations).
+     */
+    public void invalidateContentTrees() {
+        this.repositoryContentTree = null;
+        this.archiveContentTree = null;
     }
 
     /**
@@ -65,8 +96,18 @@ public class EditionContext {
      * @throws IOException In case we wait to initialize the archive content tree.
      */
     public void reset(Topology editionClone) throws IOException {
-        this.topology = editionClone;
+        reset(editionClone, null);
+    }
+
+    /**
+     * Reset the topology context to a given state.
+     *
+     * @param topology The topology to use in the context.
+     * @param archiveContentTree The archive content tree to use in the context, null to use the one of the local repository.
+     */
+    public void reset(Topology topology, TreeNode archiveContentTree) {
+        this.topology = topology;
         this.toscaContext = new ToscaContext.Context(topology.getDependencies());
-        this.archiveContentTree = DirectoryJSonWalker.getDirectoryTree(this.localGitPath);
+        this.archiveContentTree = archiveContentTree;
     }
 }
\ No newline at end of file
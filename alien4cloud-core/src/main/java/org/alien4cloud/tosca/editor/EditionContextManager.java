@@ -1,8 +1,6 @@
 package org.alien4cloud.tosca.editor;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.TimeUnit;
 
@@ -12,6 +10,7 @@ import javax.inject.Inject;
 
 import org.alien4cloud.tosca.editor.operations.AbstractEditorOperation;
 import org.alien4cloud.tosca.editor.operations.UpdateFileOperation;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.google.common.cache.*;
@@ -41,6 +40,12 @@ public class EditionContextManager {
     private EditorRepositoryService repositoryService;
     @Inject
     private IFileRepository artifactRepository;
+    /** Number of operations between two in-memory checkpoints of an edition context (0 or less disables checkpoints but the base one). */
+    @Value("${editor.checkpoint.interval:10}")
+    private int checkpointInterval;
+    /** Approximate maximum memory in bytes used by the checkpoints of a single edition context. */
+    @Value("${editor.checkpoint.max_bytes_per_context:20971520}")
+    private long checkpointMaxBytes;
 
     // TODO make cache management time a parameter
     private LoadingCache<String, EditionContext> contextCache;
@@ -73,13 +78,13 @@ public class EditionContextManager {
                     topology.setYamlFilePath("topology.yml");
                     // export the content of the topology in the yaml.
                     Path targetPath = topologyGitPath.resolve(topology.getYamlFilePath());
-                    String yaml = topologyService.getYaml(topology);
-                    try (BufferedWriter writer = Files.newBufferedWriter(targetPath)) {
-                        writer.write(yaml);
-                    }
+                    topologyService.writeYaml(topology, targetPath);
                 }
                 log.debug("Topology context for topology {} loaded", topologyId);
-                return new EditionContext(topology, topologyGitPath);
+                EditionContext context = new EditionContext(topology, topologyGitPath);
+                context.setCheckpoints(new EditionCheckpoints(checkpointMaxBytes));
+                context.getCheckpoints().take(EditionCheckpoints.BASE_INDEX, context.getTopology(), null);
+                return context;
             }
         });
     }
@@ -108,6 +113,58 @@ public class EditionContextManager {
         contextThreadLocal.get().reset(topology);
     }
 
+    /**
+     * Restore the state of the context from the nearest checkpoint taken at or before the given operation index. If no checkpoint is available the context is
+     * reset to it's initial state and a new base checkpoint is taken.
+     *
+     * @param at The index of the operation to restore.
+     * @return The index of the last operation applied on the restored state, operations after this index have to be replayed.
+     * @throws IOException In case the restore or the reset of the context fails.
+     */
+    public int restoreCheckpoint(int at) throws IOException {
+        EditionContext context = contextThreadLocal.get();
+        Integer restoredIndex = context.getCheckpoints().restore(at, context);
+        if (restoredIndex == null) {
+            reset();
+            context.getCheckpoints().take(EditionCheckpoints.BASE_INDEX, context.getTopology(), null);
+            restoredIndex = EditionCheckpoints.BASE_INDEX;
+        }
+        ToscaContext.set(context.getToscaContext());
+        return restoredIndex;
+    }
+
+    /**
+     * Take a checkpoint of the current context state if the given operation index matches the checkpoint interval. Checkpoints taken after the given index
+     * are invalidated. Checkpoints are an optimization so a failure to take one is logged but not propagated.
+     *
+     * @param operationIndex The index of the last operation applied on the current context state.
+     */
+    public void checkpoint(int operationIndex) {
+        EditionContext context = contextThreadLocal.get();
+        context.getCheckpoints().invalidateFrom(operationIndex);
+        if (checkpointInterval > 0 && (operationIndex + 1) % checkpointInterval == 0) {
+            try {
+                context.getCheckpoints().take(operationIndex, context.getTopology(), context.getArchiveContentTree());
+            } catch (IOException e) {
+                log.warn("Unable to take checkpoint of topology <" + context.getTopology().getId() + "> at operation " + operationIndex, e);
+            }
+        }
+    }
+
+    /**
+     * Drop all checkpoints and use the current context state as the new base checkpoint (after a save for example). If the snapshot fails next restore will
+     * reset the context from the saved topology.
+     */
+    public void rebaseCheckpoints() {
+        EditionContext context = contextThreadLocal.get();
+        context.getCheckpoints().clear();
+        try {
+            context.getCheckpoints().take(EditionCheckpoints.BASE_INDEX, context.getTopology(), null);
+        } catch (IOException e) {
+            log.warn("Unable to take base checkpoint of topology <" + context.getTopology().getId() + ">", e);
+        }
+    }
+
     /**
      * Get the current topology edition context for the thread.
      * 
@@ -2,7 +2,6 @@ package org.alien4cloud.tosca.editor;
 
 import static alien4cloud.utils.FileUtil.isZipFile;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -180,13 +179,18 @@ public class EditorService {
         process(operation);
 
         List<AbstractEditorOperation> operations = EditionContextManager.get().getOperations();
-        if (EditionContextManager.get().getLastOperationIndex() == operations.size() - 1) {
+        boolean appendedOnLast = EditionContextManager.get().getLastOperationIndex() == operations.size() - 1;
+        if (appendedOnLast) {
             // Clear the operations to 'redo'.
             CollectionUtils.clearFrom(operations, EditionContextManager.get().getLastOperationIndex() + 1);
         }
         // update the last operation and index
         EditionContextManager.get().getOperations().add(operation);
         EditionContextManager.get().setLastOperationIndex(EditionContextManager.get().getOperations().size() - 1);
+        if (appendedOnLast) {
+            // the state matches a replay of all the operations so we can checkpoint it.
+            editionContextManager.checkpoint(EditionContextManager.get().getLastOperationIndex());
+        }
     }
 
     /**
@@ -224,10 +228,10 @@ public class EditorService {
                 return dtoBuilder.buildTopologyDTO(EditionContextManager.get());
             }
 
-            // TODO Improve this by avoiding dao query for (deep) cloning topology and keeping cache for TOSCA types that are required.
-            editionContextManager.reset();
+            // restore the nearest checkpoint and replay only the operations executed after it.
+            int restoredIndex = editionContextManager.restoreCheckpoint(at);
 
-            for (int i = 0; i < at + 1; i++) {
+            for (int i = restoredIndex + 1; i < at + 1; i++) {
                 AbstractEditorOperation operation = EditionContextManager.get().getOperations().get(i);
                 IEditorOperationProcessor processor = processorMap.get(operation.getClass());
                 processor.process(operation);
@@ -299,15 +303,14 @@ public class EditorService {
         // TODO add support for undo even after save, this require ability to rollback files to git state, we need file rollback support for that..
         context.setOperations(Lists.newArrayList(context.getOperations().subList(context.getLastOperationIndex() + 1, context.getOperations().size())));
         context.setLastOperationIndex(-1);
+        // operation indexes have changed, the saved state is the new base.
+        editionContextManager.rebaseCheckpoints();
     }
 
     private void saveYamlFile() throws IOException {
         Topology topology = EditionContextManager.getTopology();
         Path targetPath = EditionContextManager.get().getLocalGitPath().resolve(topology.getYamlFilePath());
-        String yaml = topologyService.getYaml(topology);
-        try (BufferedWriter writer = Files.newBufferedWriter(targetPath)) {
-            writer.write(yaml);
-        }
+        topologyService.writeYaml(topology, targetPath);
     }
 
     /**
@@ -382,6 +385,9 @@ public class EditorService {
 
             // Local git commit
             repositoryService.commit(topologyId, commitMessage);
+            // files have been replaced, drop checkpoints and file trees so they are reloaded from the saved topology and repository.
+            EditionContextManager.get().getCheckpoints().clear();
+            EditionContextManager.get().invalidateContentTrees();
         } finally {
             EditionContextManager.get().setCurrentOperation(null);
             editionContextManager.destroy();
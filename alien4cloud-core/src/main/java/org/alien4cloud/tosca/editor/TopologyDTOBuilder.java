@@ -4,7 +4,10 @@ import java.util.Map;
 
 import org.springframework.stereotype.Service;
 
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
 
 import alien4cloud.model.components.*;
 import alien4cloud.model.topology.AbstractTemplate;
@@ -39,12 +42,32 @@ public class TopologyDTOBuilder {
 
     private <T extends Topology> void buildAbstractTopologyDTO(T topology, AbstractTopologyDTO<T> topologyDTO) {
         topologyDTO.setTopology(topology);
+        loadTemplatesTypes(topology);
         topologyDTO.setNodeTypes(getNodeTypes(topology));
         topologyDTO.setRelationshipTypes(getRelationshipTypes(topology));
         topologyDTO.setCapabilityTypes(getCapabilityTypes(topologyDTO));
         topologyDTO.setDataTypes(getDataTypes(topologyDTO));
     }
 
+    /**
+     * Load the node and relationship types of the topology in the tosca context using a single request.
+     */
+    private <T extends Topology> void loadTemplatesTypes(T topology) {
+        if (topology.getNodeTemplates() == null) {
+            return;
+        }
+        SetMultimap<Class<? extends IndexedToscaElement>, String> typeIds = HashMultimap.create();
+        for (NodeTemplate nodeTemplate : topology.getNodeTemplates().values()) {
+            typeIds.put(IndexedNodeType.class, nodeTemplate.getType());
+            if (nodeTemplate.getRelationships() != null) {
+                for (AbstractTemplate relationshipTemplate : nodeTemplate.getRelationships().values()) {
+                    typeIds.put(IndexedRelationshipType.class, relationshipTemplate.getType());
+                }
+            }
+        }
+        ToscaContext.load(typeIds);
+    }
+
     private <T extends Topology> Map<String, IndexedNodeType> getNodeTypes(T topology) {
         Map<String, IndexedNodeType> types = Maps.newHashMap();
         fillTypeMap(IndexedNodeType.class, types, topology.getNodeTemplates(), false, false);
@@ -64,6 +87,17 @@ public class TopologyDTOBuilder {
     private <T extends Topology> Map<String, IndexedCapabilityType> getCapabilityTypes(AbstractTopologyDTO<T> topologyDTO) {
         Map<String, IndexedCapabilityType> types = Maps.newHashMap();
         Map<String, IndexedNodeType> delayedNodeTypeAddMap = Maps.newHashMap();
+        SetMultimap<Class<? extends IndexedToscaElement>, String> typeIds = HashMultimap.create();
+        for (IndexedNodeType nodeType : topologyDTO.getNodeTypes().values()) {
+            for (CapabilityDefinition capabilityDefinition : nodeType.getCapabilities()) {
+                typeIds.put(IndexedCapabilityType.class, capabilityDefinition.getType());
+            }
+            for (RequirementDefinition requirementDefinition : nodeType.getRequirements()) {
+                typeIds.put(IndexedCapabilityType.class, requirementDefinition.getType());
+                typeIds.put(IndexedNodeType.class, requirementDefinition.getType());
+            }
+        }
+        ToscaContext.load(typeIds);
         for (IndexedNodeType nodeType : topologyDTO.getNodeTypes().values()) {
             for (CapabilityDefinition capabilityDefinition : nodeType.getCapabilities()) {
                 types.put(capabilityDefinition.getType(), ToscaContext.get(IndexedCapabilityType.class, capabilityDefinition.getType()));
@@ -103,6 +137,8 @@ public class TopologyDTOBuilder {
     }
 
     private Map<String, IndexedDataType> getDataTypes(AbstractTopologyDTO topologyDTO) {
+        loadDataTypes(Iterables.concat(topologyDTO.getNodeTypes().values(), topologyDTO.getRelationshipTypes().values(),
+                topologyDTO.getCapabilityTypes().values()));
         Map<String, IndexedDataType> indexedDataTypes = Maps.newHashMap();
         indexedDataTypes = fillDataTypes(indexedDataTypes, topologyDTO.getNodeTypes());
         indexedDataTypes = fillDataTypes(indexedDataTypes, topologyDTO.getRelationshipTypes());
@@ -110,6 +146,24 @@ public class TopologyDTOBuilder {
         return indexedDataTypes;
     }
 
+    /**
+     * Load the data types of the properties of the given elements in the tosca context using a single request.
+     */
+    private void loadDataTypes(Iterable<IndexedInheritableToscaElement> elements) {
+        SetMultimap<Class<? extends IndexedToscaElement>, String> typeIds = HashMultimap.create();
+        for (IndexedInheritableToscaElement element : elements) {
+            if (element.getProperties() != null) {
+                for (PropertyDefinition pd : element.getProperties().values()) {
+                    if (!ToscaType.isPrimitive(pd.getType())) {
+                        typeIds.put(IndexedDataType.class, pd.getType());
+                        typeIds.put(PrimitiveIndexedDataType.class, pd.getType());
+                    }
+                }
+            }
+        }
+        ToscaContext.load(typeIds);
+    }
+
     private <T extends IndexedInheritableToscaElement> Map<String, IndexedDataType> fillDataTypes(Map<String, IndexedDataType> indexedDataTypes,
             Map<String, T> elements) {
         for (IndexedInheritableToscaElement indexedNodeType : elements.values()) {
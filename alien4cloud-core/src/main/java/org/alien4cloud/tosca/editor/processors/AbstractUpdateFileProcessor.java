@@ -4,7 +4,6 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.util.TreeSet;
 
 import javax.inject.Inject;
 
@@ -29,37 +28,12 @@ public abstract class AbstractUpdateFileProcessor<T extends AbstractUpdateFileOp
 
     @Override
     public void process(T operation) {
-        // archive content tree is actually a node that contains only the folder of the topology
-        TreeNode root = EditionContextManager.get().getArchiveContentTree().getChildren().first();
-        // walk the file path to insert an element
-        TreeNode target = root;
         if (operation.getPath().endsWith("/")) {
             throw new InvalidPathException("Path <" + operation.getPath() + "> is invalid (must be a file and not a directory).");
         }
 
         // File upload management
-        String[] pathElements = operation.getPath().split("/");
-        for (int i = 0; i < pathElements.length; i++) {
-            String pathElement = pathElements[i];
-            TreeNode child = target.getChild(pathElement);
-            if (child == null) {
-                if (target.isLeaf()) {
-                    throw new InvalidPathException("Path <" + operation.getPath() + "> is invalid (one of the folder of the path is actualy a file).");
-                }
-                // add an element
-                child = new TreeNode();
-                child.setName(pathElement);
-                child.setFullPath(target.getFullPath() + "/" + pathElement);
-                child.setParent(target);
-                target.getChildren().add(child);
-                if (i == pathElements.length - 1) {
-                    child.setLeaf(true);
-                } else {
-                    child.setChildren(new TreeSet<>());
-                }
-            }
-            target = child;
-        }
+        TreeNode target = FileProcessorHelper.getOrCreateFileTreeNode(EditionContextManager.get().getArchiveContentTree(), operation.getPath());
         if (target.isLeaf()) {
             // store the file in the local temporary file repository
             // If already applied the input stream is closed and I should just get the artifact id
@@ -97,6 +71,11 @@ public abstract class AbstractUpdateFileProcessor<T extends AbstractUpdateFileOp
             Files.copy(inputStream, targetPath, StandardCopyOption.REPLACE_EXISTING);
         }
         FileProcessorHelper.getFileTreeNode(operation.getPath()).setArtifactId(null);
+        // keep the local repository tree in sync with the written file rather than walking the repository again.
+        TreeNode repositoryContentTree = EditionContextManager.get().getRepositoryContentTree();
+        if (repositoryContentTree != null) {
+            FileProcessorHelper.getOrCreateFileTreeNode(repositoryContentTree, operation.getPath());
+        }
         artifactRepository.deleteFile(operation.getTempFileId());
     }
 }
@@ -72,5 +72,9 @@ public class DeleteFileProcessor implements IEditorCommitableProcessor<DeleteFil
         // remove the file on the local repository
         Path targetPath = EditionContextManager.get().getLocalGitPath().resolve(operation.getPath());
         FileUtil.delete(targetPath);
+        TreeNode repositoryContentTree = EditionContextManager.get().getRepositoryContentTree();
+        if (repositoryContentTree != null) {
+            FileProcessorHelper.removeFileTreeNode(repositoryContentTree, operation.getPath());
+        }
     }
 }
\ No newline at end of file
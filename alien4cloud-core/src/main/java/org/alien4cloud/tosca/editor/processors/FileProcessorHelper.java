@@ -1,6 +1,9 @@
 package org.alien4cloud.tosca.editor.processors;
 
+import java.util.TreeSet;
+
 import org.alien4cloud.tosca.editor.EditionContextManager;
+import org.alien4cloud.tosca.editor.exception.InvalidPathException;
 
 import alien4cloud.exception.NotFoundException;
 import alien4cloud.utils.TreeNode;
@@ -19,7 +22,19 @@ public final class FileProcessorHelper {
      * @return the tree node from the archive.
      */
     public static TreeNode getFileTreeNode(String path) {
-        TreeNode root = EditionContextManager.get().getArchiveContentTree().getChildren().first();
+        return getFileTreeNode(EditionContextManager.get().getArchiveContentTree(), path);
+    }
+
+    /**
+     * Get the tree node that represents a file from an archive content tree.
+     *
+     * @param archiveContentTree The archive content tree in which to lookup.
+     * @param path The path of the file in the archive.
+     * @return the tree node from the archive.
+     */
+    public static TreeNode getFileTreeNode(TreeNode archiveContentTree, String path) {
+        // archive content tree is actually a node that contains only the folder of the topology
+        TreeNode root = archiveContentTree.getChildren().first();
         TreeNode target = root;
         String[] pathElements = path.split("/");
         for (int i = 0; i < pathElements.length; i++) {
@@ -32,4 +47,55 @@ public final class FileProcessorHelper {
         }
         return target;
     }
+
+    /**
+     * Get the tree node that represents a file from an archive content tree and create it (and the missing parent folders) if not existing.
+     *
+     * @param archiveContentTree The archive content tree in which to lookup or add the file.
+     * @param path The path of the file in the archive.
+     * @return the tree node from the archive.
+     */
+    public static TreeNode getOrCreateFileTreeNode(TreeNode archiveContentTree, String path) {
+        TreeNode root = archiveContentTree.getChildren().first();
+        // walk the file path to insert an element
+        TreeNode target = root;
+        String[] pathElements = path.split("/");
+        for (int i = 0; i < pathElements.length; i++) {
+            String pathElement = pathElements[i];
+            TreeNode child = target.getChild(pathElement);
+            if (child == null) {
+                if (target.isLeaf()) {
+                    throw new InvalidPathException("Path <" + path + "> is invalid (one of the folder of the path is actualy a file).");
+                }
+                // add an element
+                child = new TreeNode();
+                child.setName(pathElement);
+                child.setFullPath(target.getFullPath() + "/" + pathElement);
+                child.setParent(target);
+                target.getChildren().add(child);
+                if (i == pathElements.length - 1) {
+                    child.setLeaf(true);
+                } else {
+                    child.setChildren(new TreeSet<>());
+                }
+            }
+            target = child;
+        }
+        return target;
+    }
+
+    /**
+     * Remove the tree node that represents a file or a folder from an archive content tree if it exists.
+     *
+     * @param archiveContentTree The archive content tree from which to remove the file.
+     * @param path The path of the file in the archive.
+     */
+    public static void removeFileTreeNode(TreeNode archiveContentTree, String path) {
+        try {
+            TreeNode target = getFileTreeNode(archiveContentTree, path);
+            target.getParent().getChildren().remove(target);
+        } catch (NotFoundException e) {
+            // nothing to remove
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package alien4cloud.component;
+
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.CapabilityDefinition;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedToscaElement;
+import alien4cloud.model.components.PropertyDefinition;
+
+/**
+ * Check the hits, misses and invalidations of the element cache and that cached elements are never shared with the callers.
+ */
+public class ToscaElementCacheTest {
+    private static final CSARDependency NORMATIVE = new CSARDependency("tosca-normative-types", "1.0.0");
+    private static final CSARDependency OTHER = new CSARDependency("other-types", "1.0.0");
+    private static final String ROOT = "tosca.nodes.Root";
+
+    private ToscaElementCache cache;
+
+    @Before
+    public void init() {
+        cache = new ToscaElementCache();
+        cache.init();
+    }
+
+    @Test
+    public void unknownElementsAreMissed() {
+        Assert.assertNull(cache.get(NORMATIVE, IndexedNodeType.class, ROOT));
+        Assert.assertEquals(1, cache.getStats().missCount());
+    }
+
+    @Test
+    public void cachedElementsAreHit() {
+        cache.put(Lists.newArrayList(NORMATIVE, OTHER), IndexedNodeType.class, ROOT, Lists.newArrayList(nodeType(NORMATIVE)));
+
+        Optional<IndexedToscaElement> cached = cache.get(NORMATIVE, IndexedNodeType.class, ROOT);
+        Assert.assertTrue(cached.isPresent());
+        IndexedNodeType nodeType = (IndexedNodeType) cached.get();
+        Assert.assertEquals(ROOT, nodeType.getElementId());
+        Assert.assertEquals("string", nodeType.getProperties().get("name").getType());
+        Assert.assertEquals("feature", nodeType.getCapabilities().get(0).getId());
+        // the other dependency is known as not defining the element.
+        Assert.assertFalse(cache.get(OTHER, IndexedNodeType.class, ROOT).isPresent());
+        // elements are cached per type.
+        Assert.assertNull(cache.get(NORMATIVE, IndexedToscaElement.class, ROOT));
+        Assert.assertEquals(2, cache.getStats().hitCount());
+    }
+
+    @Test
+    public void invalidationRemovesTheElementsOfTheArchive() {
+        cache.put(Lists.newArrayList(NORMATIVE, OTHER), IndexedNodeType.class, ROOT, Lists.newArrayList(nodeType(NORMATIVE)));
+
+        cache.invalidate(NORMATIVE.getName(), NORMATIVE.getVersion());
+
+        Assert.assertNull(cache.get(NORMATIVE, IndexedNodeType.class, ROOT));
+        Assert.assertNotNull(cache.get(OTHER, IndexedNodeType.class, ROOT));
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void cachedElementsAreNotSharedWithCallers() {
+        IndexedNodeType nodeType = nodeType(NORMATIVE);
+        cache.put(Lists.newArrayList(NORMATIVE), IndexedNodeType.class, ROOT, Lists.newArrayList(nodeType));
+        // modifying the element once cached (as done when merging a parent type into a child type) doesn't modify the cache.
+        nodeType.getProperties().get("name").setType("integer");
+        nodeType.getCapabilities().clear();
+
+        IndexedNodeType first = (IndexedNodeType) cache.get(NORMATIVE, IndexedNodeType.class, ROOT).get();
+        Assert.assertEquals("string", first.getProperties().get("name").getType());
+        Assert.assertEquals(1, first.getCapabilities().size());
+        first.getProperties().get("name").setType("integer");
+
+        IndexedNodeType second = (IndexedNodeType) cache.get(NORMATIVE, IndexedNodeType.class, ROOT).get();
+        Assert.assertNotSame(first, second);
+        Assert.assertNotSame(first.getProperties().get("name"), second.getProperties().get("name"));
+        Assert.assertEquals("string", second.getProperties().get("name").getType());
+    }
+
+    private IndexedNodeType nodeType(CSARDependency archive) {
+        IndexedNodeType nodeType = new IndexedNodeType();
+        nodeType.setElementId(ROOT);
+        nodeType.setArchiveName(archive.getName());
+        nodeType.setArchiveVersion(archive.getVersion());
+        nodeType.setProperties(Maps.<String, PropertyDefinition> newHashMap());
+        PropertyDefinition propertyDefinition = new PropertyDefinition();
+        propertyDefinition.setType("string");
+        nodeType.getProperties().put("name", propertyDefinition);
+        CapabilityDefinition capabilityDefinition = new CapabilityDefinition();
+        capabilityDefinition.setId("feature");
+        capabilityDefinition.setType("tosca.capabilities.Feature");
+        nodeType.setCapabilities(Lists.newArrayList(capabilityDefinition));
+        return nodeType;
+    }
+}
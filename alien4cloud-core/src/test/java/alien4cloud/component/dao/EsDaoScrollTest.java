@@ -0,0 +1,99 @@
+package alien4cloud.component.dao;
+
+import java.util.Set;
+
+import javax.annotation.Resource;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.google.common.collect.Sets;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.IScrollIterator;
+import alien4cloud.dao.WriteConsistency;
+import alien4cloud.model.application.Application;
+
+/**
+ * Check the scroll over search results and the delete by query against the embedded elastic search.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:application-context-test.xml")
+public class EsDaoScrollTest extends AbstractDAOTest {
+    private static final int APPLICATION_COUNT = 57;
+
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO dao;
+
+    @Test
+    public void scrollReturnsAllResultsAcrossBatches() {
+        saveApplications();
+
+        Set<String> ids = Sets.newHashSet();
+        // with a scan search the batch size applies to every shard, a small size makes sure that several batches are fetched.
+        try (IScrollIterator<Application> iterator = dao.scroll(Application.class, QueryBuilders.matchAllQuery(), null, 2)) {
+            Assert.assertEquals(APPLICATION_COUNT, iterator.getTotalResults());
+            while (iterator.hasNext()) {
+                Application application = iterator.next();
+                Assert.assertTrue("Application " + application.getId() + " returned twice", ids.add(application.getId()));
+            }
+            Assert.assertFalse(iterator.hasNext());
+        }
+        Assert.assertEquals(APPLICATION_COUNT, ids.size());
+    }
+
+    @Test
+    public void scrollReturnsOnlyMatchingResults() {
+        saveApplications();
+
+        int count = 0;
+        try (IScrollIterator<Application> iterator = dao.scroll(Application.class, QueryBuilders.termQuery("name", "application-even"), null, 5)) {
+            while (iterator.hasNext()) {
+                Assert.assertEquals("application-even", iterator.next().getName());
+                count++;
+            }
+        }
+        Assert.assertEquals((APPLICATION_COUNT + 1) / 2, count);
+    }
+
+    @Test
+    public void scrollIteratorCanBeClosedBeforeAllResultsAreRead() {
+        saveApplications();
+
+        IScrollIterator<Application> iterator = dao.scroll(Application.class, QueryBuilders.matchAllQuery(), null, 2);
+        Assert.assertNotNull(iterator.next());
+        iterator.close();
+        Assert.assertFalse(iterator.hasNext());
+        // closing twice is a no-op.
+        iterator.close();
+    }
+
+    @Test
+    public void deleteByQueryDeletesOnlyMatchingElements() {
+        saveApplications();
+
+        dao.delete(Application.class, QueryBuilders.termQuery("name", "application-even"), WriteConsistency.IMMEDIATE);
+
+        Assert.assertEquals(0, dao.count(Application.class, QueryBuilders.termQuery("name", "application-even")));
+        Assert.assertEquals(APPLICATION_COUNT / 2, dao.count(Application.class, QueryBuilders.matchAllQuery()));
+
+        // deleting with a query that matches nothing does not fail.
+        dao.delete(Application.class, QueryBuilders.termQuery("name", "application-even"), WriteConsistency.IMMEDIATE);
+        Assert.assertEquals(APPLICATION_COUNT / 2, dao.count(Application.class, QueryBuilders.matchAllQuery()));
+    }
+
+    private void saveApplications() {
+        Application[] applications = new Application[APPLICATION_COUNT];
+        for (int i = 0; i < APPLICATION_COUNT; i++) {
+            Application application = new Application();
+            application.setId("application-" + i);
+            application.setName(i % 2 == 0 ? "application-even" : "application-odd");
+            applications[i] = application;
+        }
+        dao.save(applications, WriteConsistency.IMMEDIATE);
+    }
+}
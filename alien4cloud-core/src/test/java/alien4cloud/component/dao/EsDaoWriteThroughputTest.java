@@ -0,0 +1,69 @@
+package alien4cloud.component.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import javax.annotation.Resource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import alien4cloud.dao.ElasticSearchDAO;
+import alien4cloud.dao.WriteConsistency;
+import alien4cloud.model.application.Application;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compare write throughput of the different {@link WriteConsistency} modes against the embedded elastic search node and check the visibility guarantees of
+ * each mode.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:application-context-test.xml")
+@Slf4j
+public class EsDaoWriteThroughputTest extends AbstractDAOTest {
+    private static final int DOCUMENT_COUNT = 500;
+
+    @Resource(name = "alien-es-dao")
+    private ElasticSearchDAO dao;
+
+    @Test
+    public void immediateWritesShouldBeVisibleWhenSaveReturns() throws Exception {
+        long throughput = saveApplications(WriteConsistency.IMMEDIATE);
+        assertEquals(DOCUMENT_COUNT, dao.count(Application.class, null));
+        log.info("Write throughput with consistency <{}>: {} docs/s", WriteConsistency.IMMEDIATE, throughput);
+    }
+
+    @Test
+    public void waitForVisibleWritesShouldBeVisibleWhenSaveReturns() throws Exception {
+        long refreshesBefore = dao.getRefreshQueue().getExecutedRefreshes().get();
+        long throughput = saveApplications(WriteConsistency.WAIT_FOR_VISIBLE);
+        assertEquals(DOCUMENT_COUNT, dao.count(Application.class, null));
+        log.info("Write throughput with consistency <{}>: {} docs/s", WriteConsistency.WAIT_FOR_VISIBLE, throughput);
+        assertTrue(dao.getRefreshQueue().getExecutedRefreshes().get() > refreshesBefore);
+    }
+
+    @Test
+    public void eventualWritesShouldBeVisibleAfterFlush() throws Exception {
+        long refreshesBefore = dao.getRefreshQueue().getExecutedRefreshes().get();
+        long throughput = saveApplications(WriteConsistency.EVENTUAL);
+        dao.getRefreshQueue().flush();
+        assertEquals(DOCUMENT_COUNT, dao.count(Application.class, null));
+        log.info("Write throughput with consistency <{}>: {} docs/s", WriteConsistency.EVENTUAL, throughput);
+        // refreshes have been coalesced
+        assertTrue(dao.getRefreshQueue().getExecutedRefreshes().get() - refreshesBefore < DOCUMENT_COUNT);
+    }
+
+    private long saveApplications(WriteConsistency consistency) {
+        long start = System.nanoTime();
+        for (int i = 0; i < DOCUMENT_COUNT; i++) {
+            Application application = new Application();
+            application.setId(consistency.name() + "-" + i);
+            application.setName("application-" + i);
+            dao.save(application, consistency);
+        }
+        long durationMs = Math.max(1, (System.nanoTime() - start) / 1000000);
+        return DOCUMENT_COUNT * 1000L / durationMs;
+    }
+}
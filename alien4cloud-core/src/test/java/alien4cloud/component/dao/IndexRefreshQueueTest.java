@@ -0,0 +1,59 @@
+package alien4cloud.component.dao;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import alien4cloud.dao.IndexRefreshQueue;
+import alien4cloud.model.application.Application;
+
+/**
+ * Check that the writes registered in the refresh queue are refreshed by the background refresher, on flush and once the queue is shut down.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:application-context-test.xml")
+public class IndexRefreshQueueTest extends AbstractDAOTest {
+    private static final String INDEX = Application.class.getSimpleName().toLowerCase();
+
+    @Test
+    public void registeredWritesAreRefreshedByTheBackgroundRefresher() throws Exception {
+        IndexRefreshQueue refreshQueue = new IndexRefreshQueue(nodeClient, 10);
+        try {
+            refreshQueue.register(INDEX).get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(1, refreshQueue.getExecutedRefreshes().get());
+        } finally {
+            refreshQueue.shutdown();
+        }
+    }
+
+    @Test
+    public void pendingWritesAreRefreshedOnShutdown() throws Exception {
+        IndexRefreshQueue refreshQueue = new IndexRefreshQueue(nodeClient, TimeUnit.HOURS.toMillis(1));
+        ListenableFuture<List<Void>> refresh = refreshQueue.register(INDEX);
+        Assert.assertFalse(refresh.isDone());
+
+        refreshQueue.shutdown();
+        Assert.assertTrue(refresh.isDone());
+        refresh.get();
+    }
+
+    @Test
+    public void writesRegisteredAfterShutdownAreRefreshedSynchronously() throws Exception {
+        IndexRefreshQueue refreshQueue = new IndexRefreshQueue(nodeClient, TimeUnit.HOURS.toMillis(1));
+        refreshQueue.shutdown();
+
+        ListenableFuture<List<Void>> refresh = refreshQueue.register(INDEX);
+        Assert.assertTrue(refresh.isDone());
+        refresh.get();
+        // must not block as there is no background refresher anymore.
+        refreshQueue.registerAndWait(INDEX);
+        Assert.assertEquals(2, refreshQueue.getExecutedRefreshes().get());
+    }
+}
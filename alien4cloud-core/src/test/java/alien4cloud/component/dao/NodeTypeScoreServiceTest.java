@@ -1,6 +1,7 @@
 package alien4cloud.component.dao;
 
 import java.util.Date;
+import java.util.HashMap;
 
 import javax.annotation.Resource;
 
@@ -14,6 +15,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import alien4cloud.Constants;
 import alien4cloud.component.NodeTypeScoreService;
 import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.WriteConsistency;
 import alien4cloud.dao.model.GetMultipleDataResult;
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.model.topology.NodeTemplate;
@@ -22,7 +24,7 @@ import alien4cloud.utils.MapUtil;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration("classpath:application-context-test.xml")
-public class NodeTypeScoreServiceTest {
+public class NodeTypeScoreServiceTest extends AbstractDAOTest {
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO dao;
 
@@ -89,4 +91,62 @@ public class NodeTypeScoreServiceTest {
         Assert.assertEquals(10, ((IndexedNodeType) data.getData()[3]).getAlienScore());
     }
 
+    @Test
+    public void usageIsCountedOncePerTopology() {
+        IndexedNodeType gondor = nodeType("gondor", "1.0.0");
+        IndexedNodeType rohan = nodeType("rohan", "1.0.0");
+        dao.save(new IndexedNodeType[] { gondor, rohan }, WriteConsistency.IMMEDIATE);
+        // gondor is used twice in the first topology and once in the second one.
+        dao.save(topology("topology1", "gondor", "gondor", "rohan"), WriteConsistency.IMMEDIATE);
+        dao.save(topology("topology2", "gondor"), WriteConsistency.IMMEDIATE);
+
+        scoreService.run();
+
+        Assert.assertEquals(1002, dao.findById(IndexedNodeType.class, gondor.getId()).getAlienScore());
+        Assert.assertEquals(1001, dao.findById(IndexedNodeType.class, rohan.getId()).getAlienScore());
+    }
+
+    @Test
+    public void changedScoresAreUpdatedInBulkWithoutModifyingOtherFields() {
+        // more node types than a single bulk update request.
+        IndexedNodeType[] nodeTypes = new IndexedNodeType[1234];
+        for (int i = 0; i < nodeTypes.length; i++) {
+            nodeTypes[i] = nodeType("type" + i, "1.0.0");
+        }
+        dao.save(nodeTypes, WriteConsistency.IMMEDIATE);
+
+        scoreService.run();
+
+        Assert.assertEquals(nodeTypes.length, scoreService.getLastUpdatedScores());
+        for (IndexedNodeType nodeType : new IndexedNodeType[] { nodeTypes[0], nodeTypes[600], nodeTypes[nodeTypes.length - 1] }) {
+            IndexedNodeType updated = dao.findById(IndexedNodeType.class, nodeType.getId());
+            Assert.assertEquals(1000, updated.getAlienScore());
+            Assert.assertEquals(nodeType.getArchiveName(), updated.getArchiveName());
+            Assert.assertEquals(nodeType.getElementId(), updated.getElementId());
+        }
+
+        // scores didn't change so nothing has to be updated.
+        scoreService.run();
+        Assert.assertEquals(0, scoreService.getLastUpdatedScores());
+    }
+
+    private IndexedNodeType nodeType(String elementId, String version) {
+        IndexedNodeType indexedNodeType = new IndexedNodeType();
+        indexedNodeType.setElementId(elementId);
+        indexedNodeType.setArchiveName("middleEarth");
+        indexedNodeType.setArchiveVersion(version);
+        indexedNodeType.setCreationDate(new Date());
+        indexedNodeType.setLastUpdateDate(new Date());
+        return indexedNodeType;
+    }
+
+    private Topology topology(String id, String... nodeTypes) {
+        Topology topology = new Topology();
+        topology.setId(id);
+        topology.setNodeTemplates(new HashMap<String, NodeTemplate>());
+        for (int i = 0; i < nodeTypes.length; i++) {
+            topology.getNodeTemplates().put("node" + i, new NodeTemplate(nodeTypes[i], null, null, null, null, null, null, null));
+        }
+        return topology;
+    }
 }
@@ -18,12 +18,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import alien4cloud.component.repository.CsarFileRepository;
 import alien4cloud.component.repository.ICsarRepositry;
 import alien4cloud.component.repository.exception.CSARStorageFailureException;
 import alien4cloud.component.repository.exception.CSARVersionAlreadyExistsException;
 import alien4cloud.component.repository.exception.CSARVersionNotFoundException;
 import alien4cloud.utils.FileUtil;
+import alien4cloud.utils.TreeNode;
 
 @Slf4j
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -50,6 +53,25 @@ public class CsarRepositoryTest {
         testStoreSuccessful("1.0");
     }
 
+    @Test
+    public void storeCSARShouldExpandArchiveAndWriteContentTree() throws CSARVersionAlreadyExistsException, CSARVersionNotFoundException, IOException {
+        cleanup();
+        storeTestCSAR(testFileName, "1.0", tmpPath);
+        Path expandedPath = repo.getExpandedCSAR(testFileName, "1.0");
+        assertTrue(Files.isRegularFile(expandedPath.resolve("Definitions/tosca-base-types.yaml")));
+        assertEquals(Files.size(Paths.get(tmpPath)), Files.size(repo.getCSAR(testFileName, "1.0")));
+
+        TreeNode contentTree = new ObjectMapper().readValue(expandedPath.getParent().resolve("content.json").toFile(), TreeNode.class);
+        TreeNode expandedNode = contentTree.getChildren().first();
+        assertEquals("expanded", expandedNode.getName());
+        TreeNode definitions = expandedNode.getChild("Definitions");
+        assertFalse(definitions.isLeaf());
+        TreeNode yaml = definitions.getChild("tosca-base-types.yaml");
+        assertTrue(yaml.isLeaf());
+        assertEquals("/expanded/Definitions/tosca-base-types.yaml", yaml.getFullPath());
+        assertEquals(9, expandedNode.getChild("images").getChildren().size());
+    }
+
     @Test
     public void getCASERTest() throws CSARVersionNotFoundException, CSARVersionAlreadyExistsException {
         cleanup();
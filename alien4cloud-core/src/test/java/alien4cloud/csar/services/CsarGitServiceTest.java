@@ -0,0 +1,159 @@
+package alien4cloud.csar.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.git.RepositoryManager;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.CSARSource;
+import alien4cloud.model.components.Csar;
+import alien4cloud.model.git.CsarDependenciesBean;
+import alien4cloud.model.git.CsarGitCheckoutLocation;
+import alien4cloud.model.git.CsarGitRepository;
+import alien4cloud.tosca.ArchiveBatchUploadService;
+import alien4cloud.tosca.ArchiveUploadService;
+import alien4cloud.tosca.parser.ParsingContext;
+import alien4cloud.tosca.parser.ParsingResult;
+import alien4cloud.utils.FileUtil;
+
+/**
+ * Check that the import of a git repository only uploads the archives whose content changed since the previous import.
+ */
+public class CsarGitServiceTest {
+    private static final String VERSION = "1.0.0";
+
+    private Path tempDir;
+    private Path sourceRepository;
+    private CsarGitRepository csarGitRepository;
+    private CsarGitService csarGitService;
+    private ArchiveUploadService uploadService;
+    private ArchiveBatchUploadService batchUploadService;
+    /** Names of the archives that have been uploaded. */
+    private final List<String> uploadedArchives = Lists.newArrayList();
+
+    @Before
+    public void init() throws Exception {
+        tempDir = Files.createTempDirectory("csar-git-test");
+        sourceRepository = tempDir.resolve("source");
+        RepositoryManager.create(sourceRepository, null);
+        writeArchive("archive-a", "a");
+        writeArchive("archive-b", "b");
+        RepositoryManager.commitAll(sourceRepository, "test", "test@alien4cloud.org", "initial archives");
+
+        CsarGitCheckoutLocation checkoutLocation = new CsarGitCheckoutLocation();
+        checkoutLocation.setBranchId("master");
+        csarGitRepository = new CsarGitRepository();
+        csarGitRepository.setId("repository");
+        csarGitRepository.setRepositoryUrl(sourceRepository.toUri().toString());
+        csarGitRepository.setImportLocations(Lists.newArrayList(checkoutLocation));
+
+        CsarGitRepositoryService csarGitRepositoryService = Mockito.mock(CsarGitRepositoryService.class);
+        Mockito.when(csarGitRepositoryService.getOrFail(csarGitRepository.getId())).thenReturn(csarGitRepository);
+        CsarService csarService = Mockito.mock(CsarService.class);
+        Mockito.when(csarService.get(Mockito.anyString(), Mockito.eq(VERSION))).thenAnswer(new Answer<Csar>() {
+            @Override
+            public Csar answer(InvocationOnMock invocation) throws Throwable {
+                String name = (String) invocation.getArguments()[0];
+                return uploadedArchives.contains(name) ? new Csar(name, VERSION) : null;
+            }
+        });
+        uploadService = Mockito.mock(ArchiveUploadService.class);
+        Mockito.when(uploadService.preParse(Mockito.any(Path.class))).thenAnswer(new Answer<CsarDependenciesBean>() {
+            @Override
+            public CsarDependenciesBean answer(InvocationOnMock invocation) throws Throwable {
+                Path path = (Path) invocation.getArguments()[0];
+                CsarDependenciesBean bean = new CsarDependenciesBean();
+                bean.setPath(path);
+                bean.setSelf(new CSARDependency(path.getParent().getFileName().toString(), VERSION));
+                return bean;
+            }
+        });
+        Mockito.when(uploadService.upload(Mockito.any(Path.class), Mockito.eq(CSARSource.GIT))).thenAnswer(new Answer<ParsingResult<Csar>>() {
+            @Override
+            public ParsingResult<Csar> answer(InvocationOnMock invocation) throws Throwable {
+                String name = ((Path) invocation.getArguments()[0]).getParent().getFileName().toString();
+                synchronized (uploadedArchives) {
+                    uploadedArchives.add(name);
+                }
+                return new ParsingResult<>(new Csar(name, VERSION), new ParsingContext(name));
+            }
+        });
+
+        batchUploadService = new ArchiveBatchUploadService();
+        ReflectionTestUtils.setField(batchUploadService, "archiveUploadService", uploadService);
+        ReflectionTestUtils.setField(batchUploadService, "uploadThreads", 2);
+        batchUploadService.init();
+
+        csarGitService = new CsarGitService();
+        csarGitService.setTempDirPath(tempDir.resolve("upload").toString());
+        ReflectionTestUtils.setField(csarGitService, "csarGitRepositoryService", csarGitRepositoryService);
+        ReflectionTestUtils.setField(csarGitService, "csarFinderService", new CsarFinderService());
+        ReflectionTestUtils.setField(csarGitService, "uploadService", uploadService);
+        ReflectionTestUtils.setField(csarGitService, "batchUploadService", batchUploadService);
+        ReflectionTestUtils.setField(csarGitService, "alienDAO", Mockito.mock(IGenericSearchDAO.class));
+        ReflectionTestUtils.setField(csarGitService, "csarService", csarService);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        batchUploadService.destroy();
+        FileUtil.delete(tempDir);
+    }
+
+    @Test
+    public void unchangedArchivesAreNotImportedAgain() throws Exception {
+        Assert.assertEquals(2, csarGitService.importFromGitRepository(csarGitRepository.getId()).size());
+        Assert.assertEquals(Sets.newHashSet("archive-a", "archive-b"), Sets.newHashSet(uploadedArchives));
+
+        // the checkout is cloned again (the repository is not stored locally) but the content did not change.
+        Assert.assertTrue(csarGitService.importFromGitRepository(csarGitRepository.getId()).isEmpty());
+        Assert.assertEquals(2, uploadedArchives.size());
+    }
+
+    @Test
+    public void changedArchiveIsImportedAgain() throws Exception {
+        csarGitService.importFromGitRepository(csarGitRepository.getId());
+
+        writeArchive("archive-b", "b updated");
+        RepositoryManager.commitAll(sourceRepository, "test", "test@alien4cloud.org", "update archive b");
+
+        List<ParsingResult<Csar>> results = csarGitService.importFromGitRepository(csarGitRepository.getId());
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals("archive-b", results.get(0).getResult().getName());
+        Assert.assertEquals(Lists.newArrayList("archive-b"), uploadedArchives.subList(2, uploadedArchives.size()));
+    }
+
+    @Test
+    public void deletedArchiveIsImportedAgain() throws Exception {
+        csarGitService.importFromGitRepository(csarGitRepository.getId());
+
+        // the archive has been removed from the catalog, it must be imported even if the content did not change.
+        uploadedArchives.remove("archive-a");
+        List<ParsingResult<Csar>> results = csarGitService.importFromGitRepository(csarGitRepository.getId());
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals("archive-a", results.get(0).getResult().getName());
+    }
+
+    private void writeArchive(String name, String description) throws IOException {
+        Path archivePath = Files.createDirectories(sourceRepository.resolve(name));
+        String content = "tosca_definitions_version: alien_dsl_1_2_0\ntemplate_name: " + name + "\ntemplate_version: " + VERSION + "\ndescription: "
+                + description + "\n";
+        Files.write(archivePath.resolve("types.yml"), content.getBytes(Charsets.UTF_8));
+    }
+}
@@ -0,0 +1,131 @@
+package alien4cloud.deployment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Lists;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.model.deployment.Deployment;
+
+/**
+ * Check the loading of the active deployments and the activation of the orchestrators when deployments are registered and unregistered.
+ */
+public class ActiveDeploymentRegistryTest {
+    private IGenericSearchDAO alienDao;
+    private ActiveDeploymentRegistry registry;
+    private AtomicInteger activations;
+
+    @Before
+    public void init() {
+        alienDao = Mockito.mock(IGenericSearchDAO.class);
+        registry = new ActiveDeploymentRegistry();
+        ReflectionTestUtils.setField(registry, "alienDao", alienDao);
+        activations = new AtomicInteger();
+    }
+
+    @Test
+    public void activeDeploymentsAreLoadedOnInit() {
+        initSearch(deployment("1", "orchestrator1"), deployment("2", "orchestrator1"), deployment("3", "orchestrator2"));
+
+        registry.init();
+
+        Assert.assertTrue(registry.hasActiveDeployments("orchestrator1"));
+        Assert.assertTrue(registry.hasActiveDeployments("orchestrator2"));
+        Assert.assertFalse(registry.hasActiveDeployments("orchestrator3"));
+    }
+
+    @Test
+    public void orchestratorIsInactiveOnceAllDeploymentsAreUnregistered() {
+        initSearch();
+        registry.init();
+
+        registry.register(deployment("1", "orchestrator1"));
+        registry.register(deployment("2", "orchestrator1"));
+        registry.unregister(deployment("1", "orchestrator1"));
+        Assert.assertTrue(registry.hasActiveDeployments("orchestrator1"));
+        registry.unregister(deployment("2", "orchestrator1"));
+        Assert.assertFalse(registry.hasActiveDeployments("orchestrator1"));
+        // unregistering an unknown deployment is ignored.
+        registry.unregister(deployment("3", "orchestrator2"));
+        Assert.assertFalse(registry.hasActiveDeployments("orchestrator2"));
+    }
+
+    @Test
+    public void listenerIsTriggeredOnFirstActiveDeploymentOnly() {
+        initSearch(deployment("1", "orchestrator1"));
+        registry.init();
+        registry.setActivationListener("orchestrator1", () -> activations.incrementAndGet());
+
+        // the orchestrator is already active.
+        registry.register(deployment("2", "orchestrator1"));
+        Assert.assertEquals(0, activations.get());
+
+        registry.unregister(deployment("1", "orchestrator1"));
+        registry.unregister(deployment("2", "orchestrator1"));
+        registry.register(deployment("3", "orchestrator1"));
+        Assert.assertEquals(1, activations.get());
+
+        registry.unregister(deployment("3", "orchestrator1"));
+        registry.setActivationListener("orchestrator1", null);
+        registry.register(deployment("4", "orchestrator1"));
+        Assert.assertEquals(1, activations.get());
+    }
+
+    @Test
+    public void concurrentRegistrationsTriggerASingleActivation() throws Exception {
+        initSearch();
+        registry.init();
+        registry.setActivationListener("orchestrator1", () -> activations.incrementAndGet());
+
+        int threads = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 100; round++) {
+                activations.set(0);
+                List<Callable<Void>> registrations = Lists.newArrayList();
+                for (int i = 0; i < threads; i++) {
+                    final Deployment deployment = deployment(round + "-" + i, "orchestrator1");
+                    registrations.add(() -> {
+                        registry.register(deployment);
+                        return null;
+                    });
+                }
+                for (Future<Void> future : executorService.invokeAll(registrations)) {
+                    future.get();
+                }
+                Assert.assertEquals(1, activations.get());
+                for (int i = 0; i < threads; i++) {
+                    registry.unregister(deployment(round + "-" + i, "orchestrator1"));
+                }
+                Assert.assertFalse(registry.hasActiveDeployments("orchestrator1"));
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private void initSearch(Deployment... deployments) {
+        Mockito.when(alienDao.search(Mockito.eq(Deployment.class), Mockito.anyString(), Mockito.any(Map.class), Mockito.anyInt()))
+                .thenReturn(new GetMultipleDataResult<>(new String[0], deployments));
+    }
+
+    private Deployment deployment(String id, String orchestratorId) {
+        Deployment deployment = new Deployment();
+        deployment.setId(id);
+        deployment.setOrchestratorId(orchestratorId);
+        return deployment;
+    }
+}
@@ -0,0 +1,143 @@
+package alien4cloud.deployment;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Maps;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.deployment.Deployment;
+import alien4cloud.orchestrators.plugin.IOrchestratorPlugin;
+import alien4cloud.paas.IPaaSCallback;
+import alien4cloud.paas.OrchestratorPluginService;
+import alien4cloud.paas.model.InstanceInformation;
+import alien4cloud.paas.model.InstanceStatus;
+import alien4cloud.paas.model.PaaSInstanceStateMonitorEvent;
+import alien4cloud.paas.model.PaaSTopologyDeploymentContext;
+
+/**
+ * Check that instances information are served from the {@link InstanceStateStore} and that the orchestrator plugin is only requested to reconcile it.
+ */
+public class DeploymentRuntimeStateServiceTest {
+    private DeploymentRuntimeStateService deploymentRuntimeStateService;
+    private InstanceStateStore instanceStateStore;
+    private IOrchestratorPlugin<?> orchestratorPlugin;
+    private Deployment deployment;
+    /** Instance state returned by the orchestrator plugin, an exception is thrown when null. */
+    private String pluginState;
+    /** Event received while the orchestrator plugin computes the instances information. */
+    private PaaSInstanceStateMonitorEvent concurrentEvent;
+
+    @Before
+    public void init() {
+        instanceStateStore = new InstanceStateStore();
+        ReflectionTestUtils.setField(instanceStateStore, "reconcileIntervalMs", 60000L);
+
+        orchestratorPlugin = Mockito.mock(IOrchestratorPlugin.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            @SuppressWarnings({ "rawtypes", "unchecked" })
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                if (concurrentEvent != null) {
+                    instanceStateStore.eventHappened(concurrentEvent);
+                }
+                IPaaSCallback<Map<String, Map<String, InstanceInformation>>> callback = (IPaaSCallback) invocation.getArguments()[1];
+                if (pluginState == null) {
+                    callback.onFailure(new IllegalStateException("Orchestrator failure"));
+                } else {
+                    callback.onSuccess(instances(pluginState));
+                }
+                return null;
+            }
+        }).when(orchestratorPlugin).getInstancesInformation(Mockito.any(PaaSTopologyDeploymentContext.class), Mockito.any(IPaaSCallback.class));
+        OrchestratorPluginService orchestratorPluginService = Mockito.mock(OrchestratorPluginService.class);
+        Mockito.when(orchestratorPluginService.getOrFail("orchestrator")).thenReturn(orchestratorPlugin);
+
+        deploymentRuntimeStateService = new DeploymentRuntimeStateService();
+        ReflectionTestUtils.setField(deploymentRuntimeStateService, "alienMonitorDao", Mockito.mock(IGenericSearchDAO.class));
+        ReflectionTestUtils.setField(deploymentRuntimeStateService, "deploymentContextService", Mockito.mock(DeploymentContextService.class));
+        ReflectionTestUtils.setField(deploymentRuntimeStateService, "deploymentTopologyService", Mockito.mock(DeploymentTopologyService.class));
+        ReflectionTestUtils.setField(deploymentRuntimeStateService, "orchestratorPluginService", orchestratorPluginService);
+        ReflectionTestUtils.setField(deploymentRuntimeStateService, "instanceStateStore", instanceStateStore);
+
+        deployment = new Deployment();
+        deployment.setId("deployment");
+        deployment.setOrchestratorId("orchestrator");
+    }
+
+    @Test
+    public void instancesInformationAreServedFromTheStore() {
+        pluginState = "started";
+        Assert.assertEquals("started", getState(false));
+        pluginState = "stopped";
+        // the projection is up to date, the plugin is not requested.
+        Assert.assertEquals("started", getState(false));
+        Mockito.verify(orchestratorPlugin, Mockito.times(1)).getInstancesInformation(Mockito.any(PaaSTopologyDeploymentContext.class),
+                Mockito.any(IPaaSCallback.class));
+
+        Assert.assertEquals("stopped", getState(true));
+        Assert.assertEquals("stopped", getState(false));
+    }
+
+    @Test
+    public void refreshKeepsEventsReceivedDuringTheReconciliation() {
+        pluginState = "starting";
+        getState(false);
+
+        concurrentEvent = new PaaSInstanceStateMonitorEvent();
+        concurrentEvent.setDeploymentId(deployment.getId());
+        concurrentEvent.setNodeTemplateId("compute");
+        concurrentEvent.setInstanceId("0");
+        concurrentEvent.setInstanceState("started");
+        Assert.assertEquals("started", getState(true));
+        concurrentEvent = null;
+        Assert.assertEquals("started", getState(false));
+    }
+
+    @Test
+    public void failedRefreshKeepsTheProjection() {
+        pluginState = "started";
+        getState(false);
+
+        pluginState = null;
+        Assert.assertNull(getState(true));
+        Assert.assertEquals("started", getState(false));
+    }
+
+    private String getState(boolean refresh) {
+        final AtomicReference<String> state = new AtomicReference<>();
+        IPaaSCallback<Map<String, Map<String, InstanceInformation>>> callback = new IPaaSCallback<Map<String, Map<String, InstanceInformation>>>() {
+            @Override
+            public void onSuccess(Map<String, Map<String, InstanceInformation>> data) {
+                state.set(data.get("compute").get("0").getState());
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                state.set(null);
+            }
+        };
+        if (refresh) {
+            deploymentRuntimeStateService.refreshInstancesInformation(deployment, callback);
+        } else {
+            deploymentRuntimeStateService.getInstancesInformation(deployment, callback);
+        }
+        return state.get();
+    }
+
+    private Map<String, Map<String, InstanceInformation>> instances(String state) {
+        Map<String, InstanceInformation> nodeInstances = Maps.newHashMap();
+        nodeInstances.put("0", new InstanceInformation(state, InstanceStatus.SUCCESS, null, null, null));
+        Map<String, Map<String, InstanceInformation>> instances = Maps.newHashMap();
+        instances.put("compute", nodeInstances);
+        return instances;
+    }
+}
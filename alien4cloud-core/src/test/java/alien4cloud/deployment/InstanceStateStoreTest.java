@@ -0,0 +1,134 @@
+package alien4cloud.deployment;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Maps;
+
+import alien4cloud.paas.model.DeploymentStatus;
+import alien4cloud.paas.model.InstanceInformation;
+import alien4cloud.paas.model.InstanceStatus;
+import alien4cloud.paas.model.PaaSDeploymentStatusMonitorEvent;
+import alien4cloud.paas.model.PaaSInstancePersistentResourceMonitorEvent;
+import alien4cloud.paas.model.PaaSInstanceStateMonitorEvent;
+
+public class InstanceStateStoreTest {
+    private static final String DEPLOYMENT_ID = "deployment";
+
+    private InstanceStateStore store;
+
+    @Before
+    public void init() {
+        store = new InstanceStateStore();
+        ReflectionTestUtils.setField(store, "reconcileIntervalMs", 60000L);
+    }
+
+    @Test
+    public void eventsAreAppliedOnceReconciled() {
+        store.eventHappened(stateEvent("compute", "0", "started"));
+        Assert.assertNull(store.get(DEPLOYMENT_ID));
+
+        store.reconcile(store.startReconcile(DEPLOYMENT_ID), snapshot("compute", "0", "starting"));
+        Assert.assertEquals("starting", store.get(DEPLOYMENT_ID).get("compute").get("0").getState());
+
+        store.eventHappened(stateEvent("compute", "0", "started"));
+        store.eventHappened(stateEvent("compute", "1", "initial"));
+        PaaSInstancePersistentResourceMonitorEvent persistentResourceEvent = new PaaSInstancePersistentResourceMonitorEvent("compute", "0", "volume_id",
+                "vol-1");
+        persistentResourceEvent.setDeploymentId(DEPLOYMENT_ID);
+        store.eventHappened(persistentResourceEvent);
+        Map<String, Map<String, InstanceInformation>> instances = store.get(DEPLOYMENT_ID);
+        Assert.assertEquals("started", instances.get("compute").get("0").getState());
+        Assert.assertEquals("vol-1", instances.get("compute").get("0").getAttributes().get("volume_id"));
+        Assert.assertEquals("initial", instances.get("compute").get("1").getState());
+
+        // an event without state is sent when an instance is deleted.
+        store.eventHappened(stateEvent("compute", "1", null));
+        Assert.assertFalse(store.get(DEPLOYMENT_ID).get("compute").containsKey("1"));
+    }
+
+    @Test
+    public void returnedInstancesAreCopies() {
+        store.reconcile(store.startReconcile(DEPLOYMENT_ID), snapshot("compute", "0", "started"));
+        store.get(DEPLOYMENT_ID).get("compute").get("0").setState("altered");
+        Assert.assertEquals("started", store.get(DEPLOYMENT_ID).get("compute").get("0").getState());
+    }
+
+    @Test
+    public void expiredInstancesMustBeReconciled() {
+        store.reconcile(store.startReconcile(DEPLOYMENT_ID), snapshot("compute", "0", "started"));
+        Assert.assertNotNull(store.get(DEPLOYMENT_ID));
+
+        ReflectionTestUtils.setField(store, "reconcileIntervalMs", -1L);
+        Assert.assertNull(store.get(DEPLOYMENT_ID));
+    }
+
+    @Test
+    public void eventsReceivedDuringReconcileAreAppliedOnTheSnapshot() {
+        store.reconcile(store.startReconcile(DEPLOYMENT_ID), snapshot("compute", "0", "starting"));
+
+        InstanceStateStore.Reconciliation reconciliation = store.startReconcile(DEPLOYMENT_ID);
+        // the event is received while the orchestrator plugin computes the snapshot that does not include it.
+        store.eventHappened(stateEvent("compute", "0", "started"));
+        Map<String, Map<String, InstanceInformation>> reconciled = store.reconcile(reconciliation, snapshot("compute", "0", "starting"));
+
+        Assert.assertEquals("started", reconciled.get("compute").get("0").getState());
+        Assert.assertEquals("started", store.get(DEPLOYMENT_ID).get("compute").get("0").getState());
+    }
+
+    @Test
+    public void eventsReceivedDuringFirstReconcileAreAppliedOnTheSnapshot() {
+        InstanceStateStore.Reconciliation reconciliation = store.startReconcile(DEPLOYMENT_ID);
+        store.eventHappened(stateEvent("compute", "0", "started"));
+        Assert.assertNull(store.get(DEPLOYMENT_ID));
+
+        store.reconcile(reconciliation, snapshot("compute", "0", "starting"));
+        Assert.assertEquals("started", store.get(DEPLOYMENT_ID).get("compute").get("0").getState());
+    }
+
+    @Test
+    public void cancelledReconcileKeepsTheProjection() {
+        store.reconcile(store.startReconcile(DEPLOYMENT_ID), snapshot("compute", "0", "starting"));
+
+        InstanceStateStore.Reconciliation reconciliation = store.startReconcile(DEPLOYMENT_ID);
+        store.eventHappened(stateEvent("compute", "0", "started"));
+        store.cancel(reconciliation);
+
+        Assert.assertEquals("started", store.get(DEPLOYMENT_ID).get("compute").get("0").getState());
+    }
+
+    @Test
+    public void undeployedDeploymentIsEvicted() {
+        InstanceStateStore.Reconciliation reconciliation = store.startReconcile(DEPLOYMENT_ID);
+        PaaSDeploymentStatusMonitorEvent undeployed = new PaaSDeploymentStatusMonitorEvent();
+        undeployed.setDeploymentId(DEPLOYMENT_ID);
+        undeployed.setDeploymentStatus(DeploymentStatus.UNDEPLOYED);
+        store.eventHappened(undeployed);
+
+        // a reconciliation started before the undeployment must not add the deployment again.
+        store.reconcile(reconciliation, snapshot("compute", "0", "started"));
+        Assert.assertNull(store.get(DEPLOYMENT_ID));
+    }
+
+    private PaaSInstanceStateMonitorEvent stateEvent(String nodeTemplateId, String instanceId, String state) {
+        PaaSInstanceStateMonitorEvent event = new PaaSInstanceStateMonitorEvent();
+        event.setDeploymentId(DEPLOYMENT_ID);
+        event.setNodeTemplateId(nodeTemplateId);
+        event.setInstanceId(instanceId);
+        event.setInstanceState(state);
+        event.setInstanceStatus(InstanceStatus.SUCCESS);
+        return event;
+    }
+
+    private Map<String, Map<String, InstanceInformation>> snapshot(String nodeTemplateId, String instanceId, String state) {
+        Map<String, InstanceInformation> nodeInstances = Maps.newHashMap();
+        nodeInstances.put(instanceId, new InstanceInformation(state, InstanceStatus.SUCCESS, null, null, null));
+        Map<String, Map<String, InstanceInformation>> instances = Maps.newHashMap();
+        instances.put(nodeTemplateId, nodeInstances);
+        return instances;
+    }
+}
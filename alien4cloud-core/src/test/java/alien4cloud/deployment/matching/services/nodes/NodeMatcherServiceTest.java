@@ -0,0 +1,150 @@
+package alien4cloud.deployment.matching.services.nodes;
+
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Maps;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.events.LocationTemplateCreated;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.deployment.matching.MatchingConfiguration;
+import alien4cloud.model.orchestrators.locations.Location;
+import alien4cloud.model.orchestrators.locations.LocationResourceTemplate;
+import alien4cloud.model.orchestrators.locations.LocationResources;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.orchestrators.locations.services.ILocationResourceService;
+import alien4cloud.orchestrators.locations.services.LocationMatchingConfigurationService;
+import alien4cloud.orchestrators.locations.services.LocationResourceService;
+import alien4cloud.orchestrators.locations.services.LocationService;
+import alien4cloud.orchestrators.plugin.IOrchestratorPlugin;
+import alien4cloud.paas.OrchestratorPluginService;
+
+/**
+ * Check when the index of the resources of a location is reused, rebuilt or evicted.
+ */
+public class NodeMatcherServiceTest {
+    private static final String ORCHESTRATOR_ID = "orchestrator";
+
+    private LocationService locationService;
+    private ILocationResourceService locationResourceService;
+    private LocationMatchingConfigurationService locationMatchingConfigurationService;
+    private OrchestratorPluginService orchestratorPluginService;
+    private NodeMatcherService nodeMatcherService;
+
+    private Location location;
+    private Location otherLocation;
+
+    @Before
+    public void init() {
+        locationService = Mockito.mock(LocationService.class);
+        locationResourceService = Mockito.mock(ILocationResourceService.class);
+        locationMatchingConfigurationService = Mockito.mock(LocationMatchingConfigurationService.class);
+        orchestratorPluginService = Mockito.mock(OrchestratorPluginService.class);
+        nodeMatcherService = new NodeMatcherService();
+        ReflectionTestUtils.setField(nodeMatcherService, "defaultNodeMatcher", new DefaultNodeMatcher());
+        ReflectionTestUtils.setField(nodeMatcherService, "locationService", locationService);
+        ReflectionTestUtils.setField(nodeMatcherService, "locationResourceService", locationResourceService);
+        ReflectionTestUtils.setField(nodeMatcherService, "locationMatchingConfigurationService", locationMatchingConfigurationService);
+        ReflectionTestUtils.setField(nodeMatcherService, "orchestratorPluginService", orchestratorPluginService);
+
+        location = location("location");
+        otherLocation = location("other-location");
+        Mockito.when(locationResourceService.getLocationResources(Mockito.any(Location.class))).thenReturn(new LocationResources());
+        Mockito.when(locationMatchingConfigurationService.getMatchingConfiguration(Mockito.any(Location.class)))
+                .thenReturn(Maps.<String, MatchingConfiguration> newHashMap());
+        Mockito.when(orchestratorPluginService.get(ORCHESTRATOR_ID)).thenReturn(Mockito.mock(IOrchestratorPlugin.class));
+    }
+
+    @Test
+    public void indexIsReusedWhileTheLocationIsNotUpdated() {
+        match(location);
+        match(location);
+
+        Mockito.verify(locationResourceService, Mockito.times(1)).getLocationResources(location);
+    }
+
+    @Test
+    public void indexIsRebuiltWhenTheLocationIsUpdated() {
+        match(location);
+        location.setLastUpdateDate(new Date(location.getLastUpdateDate().getTime() + 1));
+        match(location);
+
+        Mockito.verify(locationResourceService, Mockito.times(2)).getLocationResources(location);
+    }
+
+    @Test
+    public void indexIsRebuiltWhenTheOrchestratorPluginChanges() {
+        match(location);
+        // the orchestrator has been disabled and enabled again.
+        Mockito.when(orchestratorPluginService.get(ORCHESTRATOR_ID)).thenReturn(Mockito.mock(IOrchestratorPlugin.class));
+        match(location);
+
+        Mockito.verify(locationMatchingConfigurationService, Mockito.times(2)).getMatchingConfiguration(location);
+        Mockito.verify(locationResourceService, Mockito.times(2)).getLocationResources(location);
+    }
+
+    @Test
+    public void locationResourceEventEvictsTheIndexOfTheLocation() {
+        match(location);
+        match(otherLocation);
+
+        LocationTemplateCreated event = new LocationTemplateCreated(this);
+        event.setLocation(location);
+        nodeMatcherService.onApplicationEvent(event);
+        match(location);
+        match(otherLocation);
+
+        Mockito.verify(locationResourceService, Mockito.times(2)).getLocationResources(location);
+        Mockito.verify(locationResourceService, Mockito.times(1)).getLocationResources(otherLocation);
+    }
+
+    @Test
+    public void locationResourceEventWithoutLocationEvictsAllIndexes() {
+        match(location);
+        match(otherLocation);
+
+        nodeMatcherService.onApplicationEvent(new LocationTemplateCreated(this));
+        match(location);
+        match(otherLocation);
+
+        Mockito.verify(locationResourceService, Mockito.times(2)).getLocationResources(location);
+        Mockito.verify(locationResourceService, Mockito.times(2)).getLocationResources(otherLocation);
+    }
+
+    @Test
+    public void resourceTemplateIsSavedBeforeTheLocationIsUpdated() {
+        // a matching that reads the new update date of the location must also read the saved template, else the index is outdated but never rebuilt.
+        IGenericSearchDAO alienDAO = Mockito.mock(IGenericSearchDAO.class);
+        LocationResourceService resourceService = new LocationResourceService();
+        ReflectionTestUtils.setField(resourceService, "alienDAO", alienDAO);
+        LocationResourceTemplate resourceTemplate = new LocationResourceTemplate();
+        Date lastUpdateDate = location.getLastUpdateDate();
+
+        resourceService.saveResource(location, resourceTemplate);
+
+        InOrder inOrder = Mockito.inOrder(alienDAO);
+        inOrder.verify(alienDAO).save(resourceTemplate);
+        inOrder.verify(alienDAO).save(location);
+        Assert.assertNotSame(lastUpdateDate, location.getLastUpdateDate());
+    }
+
+    private void match(Location location) {
+        Mockito.when(locationService.getOrFail(location.getId())).thenReturn(location);
+        nodeMatcherService.match(Maps.<String, IndexedNodeType> newHashMap(), Maps.<String, NodeTemplate> newHashMap(), location.getId());
+    }
+
+    private Location location(String id) {
+        Location location = new Location();
+        location.setId(id);
+        location.setOrchestratorId(ORCHESTRATOR_ID);
+        location.setLastUpdateDate(new Date(0));
+        return location;
+    }
+}
@@ -0,0 +1,155 @@
+package alien4cloud.images;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+
+import alien4cloud.utils.FileUtil;
+import alien4cloud.utils.ImageQuality;
+
+/**
+ * Check the background generation of resized images and the image cache of the {@link ImageDAO}, elastic search documents are kept in memory.
+ */
+public class ImageDAOTest {
+    private Path tempDir;
+    private ImageDAO imageDAO;
+    private ExecutorService resizeExecutor;
+    /** Mime type of the image documents saved by id. */
+    private final Map<String, String> savedImages = Maps.newConcurrentMap();
+
+    @Before
+    public void init() throws IOException {
+        tempDir = Files.createTempDirectory("image-dao-test");
+        imageDAO = Mockito.spy(new ImageDAO());
+        imageDAO.setRootPath(tempDir.toString());
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                for (ImageData imageData : (ImageData[]) invocation.getArguments()[0]) {
+                    savedImages.put(imageData.getId(), imageData.getMime());
+                }
+                return null;
+            }
+        }).when(imageDAO).save(Mockito.any(ImageData[].class));
+        Mockito.doAnswer(new Answer<ImageData>() {
+            @Override
+            public ImageData answer(InvocationOnMock invocation) throws Throwable {
+                String id = (String) invocation.getArguments()[1];
+                if (!savedImages.containsKey(id)) {
+                    return null;
+                }
+                ImageData imageData = new ImageData();
+                imageData.setId(id);
+                imageData.setMime(savedImages.get(id));
+                return imageData;
+            }
+        }).when(imageDAO).findById(Mockito.eq(ImageData.class), Mockito.anyString());
+        resizeExecutor = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(imageDAO, "resizeExecutor", resizeExecutor);
+        ReflectionTestUtils.setField(imageDAO, "imageCache", CacheBuilder.newBuilder().maximumSize(100).<String, ImageData> build());
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        resizeExecutor.shutdownNow();
+        FileUtil.delete(tempDir);
+    }
+
+    @Test
+    public void resizedQualitiesAreGeneratedInBackground() throws Exception {
+        String id = imageDAO.writeImage(png(300));
+        Assert.assertEquals(5, savedImages.size());
+        Assert.assertEquals(300, width(imageDAO.readImage(id, ImageQuality.QUALITY_BEST)));
+
+        resizeExecutor.shutdown();
+        Assert.assertTrue(resizeExecutor.awaitTermination(10, TimeUnit.SECONDS));
+        for (ImageQuality quality : EnumSet.of(ImageQuality.QUALITY_16, ImageQuality.QUALITY_32, ImageQuality.QUALITY_64, ImageQuality.QUALITY_128)) {
+            Assert.assertTrue(Files.exists(tempDir.resolve(quality.name() + id + ".png")));
+        }
+        Assert.assertEquals(64, width(imageDAO.readImage(id, ImageQuality.QUALITY_64)));
+    }
+
+    @Test
+    public void readWaitsForThePendingResize() throws Exception {
+        // the single resize thread is busy until the latch is released.
+        resizeExecutor.shutdown();
+        resizeExecutor = Executors.newSingleThreadExecutor();
+        ReflectionTestUtils.setField(imageDAO, "resizeExecutor", resizeExecutor);
+        final CountDownLatch release = new CountDownLatch(1);
+        resizeExecutor.submit(() -> release.await(10, TimeUnit.SECONDS));
+        final String id = imageDAO.writeImage(png(300));
+
+        final AtomicReference<ImageData> read = new AtomicReference<>();
+        Thread reader = new Thread(() -> read.set(imageDAO.readImage(id, ImageQuality.QUALITY_32)));
+        reader.start();
+        reader.join(200);
+        Assert.assertTrue(reader.isAlive());
+        Assert.assertFalse(Files.exists(tempDir.resolve(ImageQuality.QUALITY_32.name() + id + ".png")));
+
+        release.countDown();
+        reader.join(TimeUnit.SECONDS.toMillis(10));
+        Assert.assertFalse(reader.isAlive());
+        Assert.assertEquals(32, width(read.get()));
+    }
+
+    @Test
+    public void missingQualityIsGeneratedOnDemand() throws Exception {
+        String id = imageDAO.writeImage(png(300));
+        resizeExecutor.shutdown();
+        Assert.assertTrue(resizeExecutor.awaitTermination(10, TimeUnit.SECONDS));
+        Files.delete(tempDir.resolve(ImageQuality.QUALITY_16.name() + id + ".png"));
+
+        Assert.assertEquals(16, width(imageDAO.readImage(id, ImageQuality.QUALITY_16)));
+        Assert.assertTrue(Files.exists(tempDir.resolve(ImageQuality.QUALITY_16.name() + id + ".png")));
+    }
+
+    @Test
+    public void cachedImagesAreCopies() throws Exception {
+        String id = imageDAO.writeImage(png(100));
+        ImageData first = imageDAO.readImage(id, ImageQuality.QUALITY_BEST);
+        Assert.assertNotNull(first.getEtag());
+        byte[] data = first.getData().clone();
+        first.getData()[0] = (byte) ~data[0];
+        first.setEtag("altered");
+
+        ImageData second = imageDAO.readImage(id, ImageQuality.QUALITY_BEST);
+        Assert.assertArrayEquals(data, second.getData());
+        Assert.assertNotEquals("altered", second.getEtag());
+        // the second read is served from the cache.
+        Mockito.verify(imageDAO, Mockito.times(1)).findById(ImageData.class, id);
+    }
+
+    private byte[] png(int size) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB), "png", bos);
+        return bos.toByteArray();
+    }
+
+    private int width(ImageData imageData) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(imageData.getData())).getWidth();
+    }
+}
@@ -0,0 +1,123 @@
+package alien4cloud.paas;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Lists;
+
+import alien4cloud.paas.model.AbstractMonitorEvent;
+import alien4cloud.paas.model.PaaSMessageMonitorEvent;
+
+/**
+ * Check that events of a deployment are dispatched in order even when the lane is full or when a listener fails.
+ */
+public class PaaSEventDispatcherTest {
+    private static final int EVENTS = 50;
+
+    private PaaSEventDispatcher dispatcher;
+
+    @Before
+    public void init() {
+        dispatcher = new PaaSEventDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "laneCount", 1);
+        ReflectionTestUtils.setField(dispatcher, "laneQueueSize", 1);
+        ReflectionTestUtils.setField(dispatcher, "maxRetry", 3);
+        ReflectionTestUtils.setField(dispatcher, "retryDelayMs", 5L);
+        dispatcher.init();
+    }
+
+    @After
+    public void destroy() {
+        dispatcher.destroy();
+    }
+
+    @Test
+    public void eventsAreDispatchedInOrderOnTheLaneWhenTheLaneIsFull() throws InterruptedException {
+        RecordingListener listener = new RecordingListener(0, EVENTS);
+        dispatchEvents(listener);
+
+        Assert.assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(expectedMessages(), listener.messages);
+        for (String threadName : listener.threadNames) {
+            Assert.assertTrue(threadName, threadName.startsWith("paas-event-dispatcher-"));
+        }
+    }
+
+    @Test
+    public void retriedEventIsDispatchedBeforeTheNextEvents() throws InterruptedException {
+        RecordingListener listener = new RecordingListener(2, EVENTS);
+        dispatchEvents(listener);
+
+        Assert.assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(expectedMessages(), listener.messages);
+        Assert.assertEquals(2, dispatcher.getRetriedDispatches().get());
+        Assert.assertEquals(0, dispatcher.getFailedDispatches().get());
+    }
+
+    @Test
+    public void eventIsSkippedAfterMaxRetries() throws InterruptedException {
+        RecordingListener listener = new RecordingListener(Integer.MAX_VALUE, EVENTS - 1);
+        dispatchEvents(listener);
+
+        Assert.assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(expectedMessages().subList(1, EVENTS), listener.messages);
+        Assert.assertEquals(3, dispatcher.getRetriedDispatches().get());
+        Assert.assertEquals(1, dispatcher.getFailedDispatches().get());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void dispatchEvents(RecordingListener listener) {
+        List<IPaasEventListener> listeners = Lists.<IPaasEventListener> newArrayList(listener);
+        for (int i = 0; i < EVENTS; i++) {
+            PaaSMessageMonitorEvent event = new PaaSMessageMonitorEvent();
+            event.setDeploymentId("deployment");
+            event.setMessage(String.valueOf(i));
+            dispatcher.dispatch(listeners, new AbstractMonitorEvent[] { event });
+        }
+    }
+
+    private List<String> expectedMessages() {
+        List<String> messages = Lists.newArrayList();
+        for (int i = 0; i < EVENTS; i++) {
+            messages.add(String.valueOf(i));
+        }
+        return messages;
+    }
+
+    /** Listener that records the dispatched messages and fails on the first event a given number of times. */
+    private static class RecordingListener implements IPaasEventListener<PaaSMessageMonitorEvent> {
+        private final List<String> messages = Collections.synchronizedList(Lists.<String> newArrayList());
+        private final List<String> threadNames = Collections.synchronizedList(Lists.<String> newArrayList());
+        private final CountDownLatch done;
+        private int failures;
+
+        private RecordingListener(int failures, int expectedEvents) {
+            this.failures = failures;
+            this.done = new CountDownLatch(expectedEvents);
+        }
+
+        @Override
+        public void eventHappened(PaaSMessageMonitorEvent event) {
+            if ("0".equals(event.getMessage()) && failures > 0) {
+                failures--;
+                throw new IllegalStateException("Failure on first event");
+            }
+            messages.add(event.getMessage());
+            threadNames.add(Thread.currentThread().getName());
+            done.countDown();
+        }
+
+        @Override
+        public boolean canHandle(PaaSMessageMonitorEvent event) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package alien4cloud.plugin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.plugin.model.ManagedPlugin;
+import alien4cloud.plugin.model.PluginComponentDescriptor;
+import alien4cloud.plugin.model.PluginDescriptor;
+import alien4cloud.utils.FileUtil;
+
+/**
+ * Check the loading of the enabled plugins on initialization: dependency levels, plugins that fail to load and start order.
+ */
+public class PluginManagerTest {
+    /** Ids of the plugins in the order their contexts have been started. */
+    private static final List<String> STARTED_PLUGINS = Collections.synchronizedList(Lists.<String> newArrayList());
+    /** Ids of the plugins in the order their contexts have been stopped. */
+    private static final List<String> STOPPED_PLUGINS = Collections.synchronizedList(Lists.<String> newArrayList());
+
+    private Path tempDir;
+    private IGenericSearchDAO alienDAO;
+    private StaticApplicationContext alienContext;
+    private PluginManager pluginManager;
+    private Map<String, Plugin> plugins;
+
+    @Before
+    public void init() throws IOException {
+        STARTED_PLUGINS.clear();
+        STOPPED_PLUGINS.clear();
+        tempDir = Files.createTempDirectory("plugin-manager-test");
+        alienDAO = Mockito.mock(IGenericSearchDAO.class);
+        alienContext = new StaticApplicationContext();
+        alienContext.refresh();
+        pluginManager = new PluginManager();
+        ReflectionTestUtils.setField(pluginManager, "alienDAO", alienDAO);
+        ReflectionTestUtils.setField(pluginManager, "alienContext", alienContext);
+        ReflectionTestUtils.setField(pluginManager, "pluginsWorkDirectory", tempDir.resolve("content").toString());
+        ReflectionTestUtils.setField(pluginManager, "pluginsUiDirectory", tempDir.resolve("ui").toString());
+        ReflectionTestUtils.setField(pluginManager, "loadingThreads", 4);
+
+        plugins = Maps.newHashMap();
+        Mockito.when(alienDAO.findById(Mockito.eq(Plugin.class), Mockito.anyString())).thenAnswer(new Answer<Plugin>() {
+            @Override
+            public Plugin answer(InvocationOnMock invocation) throws Throwable {
+                return plugins.get(invocation.getArguments()[1]);
+            }
+        });
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        for (ManagedPlugin managedPlugin : pluginManager.getPluginContexts().values()) {
+            managedPlugin.getPluginContext().close();
+        }
+        alienContext.close();
+        FileUtil.delete(tempDir);
+    }
+
+    @Test
+    public void pluginsAreLoadedAfterTheirDependencies() throws IOException {
+        Plugin base = plugin("base", ExposingConfiguration.class);
+        Plugin dependent = plugin("dependent", StartRecorderConfiguration.class, base);
+        Plugin transitive = plugin("transitive", StartRecorderConfiguration.class, dependent);
+
+        initialize(transitive, dependent, base);
+
+        Assert.assertEquals(Lists.newArrayList(base.getId(), dependent.getId(), transitive.getId()), STARTED_PLUGINS);
+        Assert.assertEquals(3, pluginManager.getPluginContexts().size());
+        // the beans exposed by a plugin are available to the plugins that depend on it.
+        Object exposedService = pluginManager.getPluginContexts().get(base.getId()).getPluginContext().getBean("exposedService");
+        Assert.assertSame(exposedService, pluginManager.getPluginContexts().get(dependent.getId()).getPluginContext().getBean("exposedService"));
+        Assert.assertTrue(base.isEnabled() && dependent.isEnabled() && transitive.isEnabled());
+    }
+
+    @Test
+    public void pluginThatFailsToLoadDisablesItsDependents() throws IOException {
+        Plugin failing = plugin("failing", FailingConfiguration.class);
+        Plugin dependent = plugin("dependent", StartRecorderConfiguration.class, failing);
+        Plugin transitive = plugin("transitive", StartRecorderConfiguration.class, dependent);
+        Plugin independent = plugin("independent", StartRecorderConfiguration.class);
+
+        initialize(failing, dependent, transitive, independent);
+
+        Assert.assertEquals(Lists.newArrayList(independent.getId()), STARTED_PLUGINS);
+        Assert.assertEquals(Collections.singleton(independent.getId()), pluginManager.getPluginContexts().keySet());
+        Assert.assertFalse(failing.isEnabled());
+        Assert.assertFalse(dependent.isEnabled());
+        Assert.assertFalse(transitive.isEnabled());
+        Assert.assertTrue(independent.isEnabled());
+        Mockito.verify(alienDAO, Mockito.times(3)).save(Mockito.any(Plugin.class));
+    }
+
+    @Test
+    public void pluginThatFailsToRegisterIsClosedAndDisabled() throws IOException {
+        final List<ManagedPlugin> loadedPlugins = Lists.newArrayList();
+        alienContext.getBeanFactory().registerSingleton("failingCallback", new IPluginLoadingCallback() {
+            @Override
+            public void onPluginLoaded(ManagedPlugin managedPlugin) {
+                loadedPlugins.add(managedPlugin);
+                if ("unlinkable".equals(managedPlugin.getPlugin().getDescriptor().getId())) {
+                    throw new IllegalStateException("Plugin cannot be linked");
+                }
+            }
+
+            @Override
+            public void onPluginClosed(ManagedPlugin managedPlugin) {
+            }
+        });
+        Plugin unlinkable = plugin("unlinkable", StartRecorderConfiguration.class);
+        Plugin dependent = plugin("dependent", StartRecorderConfiguration.class, unlinkable);
+        Plugin other = plugin("other", StartRecorderConfiguration.class);
+
+        initialize(unlinkable, dependent, other);
+
+        Assert.assertEquals(2, loadedPlugins.size());
+        Assert.assertSame(unlinkable, loadedPlugins.get(0).getPlugin());
+        Assert.assertFalse(loadedPlugins.get(0).getPluginContext().isActive());
+        Assert.assertEquals(Lists.newArrayList(unlinkable.getId(), other.getId()), STARTED_PLUGINS);
+        Assert.assertEquals(Lists.newArrayList(unlinkable.getId()), STOPPED_PLUGINS);
+        Assert.assertEquals(Collections.singleton(other.getId()), pluginManager.getPluginContexts().keySet());
+        Assert.assertFalse(unlinkable.isEnabled());
+        Assert.assertFalse(dependent.isEnabled());
+        Assert.assertTrue(other.isEnabled());
+    }
+
+    @Test
+    public void pluginsAreStartedInPluginOrderWhateverTheirRefreshTime() throws IOException {
+        List<Plugin> loadOrder = Lists.newArrayList();
+        // the first plugin is the last one to be refreshed.
+        loadOrder.add(plugin("slow", SlowConfiguration.class));
+        for (int i = 0; i < 7; i++) {
+            loadOrder.add(plugin("plugin" + i, StartRecorderConfiguration.class));
+        }
+
+        initialize(loadOrder.toArray(new Plugin[loadOrder.size()]));
+
+        List<String> expectedOrder = Lists.newArrayList();
+        for (Plugin plugin : loadOrder) {
+            expectedOrder.add(plugin.getId());
+        }
+        Assert.assertEquals(expectedOrder, STARTED_PLUGINS);
+    }
+
+    private void initialize(Plugin... enabledPlugins) throws IOException {
+        Mockito.when(alienDAO.find(Mockito.eq(Plugin.class), Mockito.any(Map.class), Mockito.anyInt()))
+                .thenReturn(new GetMultipleDataResult<>(new String[0], enabledPlugins));
+        pluginManager.initialize();
+    }
+
+    private Plugin plugin(String id, Class<?> configurationClass, Plugin... dependencies) throws IOException {
+        PluginDescriptor descriptor = new PluginDescriptor();
+        descriptor.setId(id);
+        descriptor.setName(id);
+        descriptor.setVersion("1.0.0");
+        descriptor.setConfigurationClass(configurationClass.getName());
+        String[] dependencyIds = new String[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            dependencyIds[i] = dependencies[i].getId();
+        }
+        descriptor.setDependencies(dependencyIds);
+        PluginComponentDescriptor componentDescriptor = new PluginComponentDescriptor();
+        componentDescriptor.setBeanName("exposedService");
+        componentDescriptor.setName("exposedService");
+        descriptor.setComponentDescriptors(configurationClass == ExposingConfiguration.class ? new PluginComponentDescriptor[] { componentDescriptor }
+                : new PluginComponentDescriptor[0]);
+
+        Plugin plugin = new Plugin(descriptor, id);
+        Files.createDirectories(tempDir.resolve("content").resolve(id));
+        plugins.put(plugin.getId(), plugin);
+        return plugin;
+    }
+
+    /**
+     * Record the id of its plugin when the plugin context is started or stopped.
+     */
+    public static class StartRecorder implements Lifecycle {
+        private final String pluginId;
+        private boolean running;
+
+        public StartRecorder(ManagedPlugin managedPlugin) {
+            this.pluginId = managedPlugin.getPlugin().getId();
+        }
+
+        @Override
+        public void start() {
+            running = true;
+            STARTED_PLUGINS.add(pluginId);
+        }
+
+        @Override
+        public void stop() {
+            running = false;
+            STOPPED_PLUGINS.add(pluginId);
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+    }
+
+    @Configuration
+    public static class StartRecorderConfiguration {
+        @Bean
+        public StartRecorder startRecorder(ManagedPlugin managedPlugin) {
+            return new StartRecorder(managedPlugin);
+        }
+    }
+
+    @Configuration
+    public static class ExposingConfiguration extends StartRecorderConfiguration {
+        @Bean
+        public Object exposedService() {
+            return new Object();
+        }
+    }
+
+    @Configuration
+    public static class SlowConfiguration extends StartRecorderConfiguration {
+        @Bean
+        public Object slowService() throws InterruptedException {
+            Thread.sleep(300);
+            return new Object();
+        }
+    }
+
+    @Configuration
+    public static class FailingConfiguration {
+        @Bean
+        public Object failingService() {
+            throw new IllegalStateException("Plugin context cannot be refreshed");
+        }
+    }
+}
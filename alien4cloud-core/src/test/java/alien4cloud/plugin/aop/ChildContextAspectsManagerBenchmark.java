@@ -0,0 +1,82 @@
+package alien4cloud.plugin.aop;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measure the throughput of invocations on beans proxied by the {@link ChildContextAspectsManager} when called concurrently by many threads. This is not run
+ * as part of the build, run it manually (on both revisions) to compare dispatch changes.
+ *
+ * Threads and iterations are configured with benchmark.threads, benchmark.warmup and benchmark.iterations (invocations per thread).
+ */
+@Slf4j
+@Ignore
+public class ChildContextAspectsManagerBenchmark {
+
+    @Test
+    public void benchmarkContendedInvocations() throws Exception {
+        int threads = Integer.getInteger("benchmark.threads", 16);
+        int warmup = Integer.getInteger("benchmark.warmup", 100000);
+        int iterations = Integer.getInteger("benchmark.iterations", 1000000);
+
+        ChildContextAspectsManager manager = new ChildContextAspectsManager();
+        ICounter counter = (ICounter) manager.postProcessAfterInitialization(new Counter(), "counter");
+        Assert.assertNotEquals(Counter.class, counter.getClass());
+
+        invoke(counter, threads, warmup);
+        long start = System.nanoTime();
+        long total = invoke(counter, threads, iterations);
+        long durationNs = System.nanoTime() - start;
+        log.info("{} threads performed {} invocations in {} ms: {} invocations per second", threads, total, durationNs / 1000000,
+                (long) (total * 1000000000d / durationNs));
+    }
+
+    private long invoke(final ICounter counter, int threads, final int iterations) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Long>> tasks = Lists.newArrayList();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        long sum = 0;
+                        for (int j = 0; j < iterations; j++) {
+                            sum += counter.add(j, 1);
+                        }
+                        return sum > 0 ? (long) iterations : 0L;
+                    }
+                });
+            }
+            long total = 0;
+            for (Future<Long> future : executorService.invokeAll(tasks)) {
+                total += future.get();
+            }
+            return total;
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    public interface ICounter {
+        long add(long value, int increment);
+    }
+
+    @Overridable
+    public static class Counter implements ICounter {
+        @Override
+        public long add(long value, int increment) {
+            return value + increment;
+        }
+    }
+}
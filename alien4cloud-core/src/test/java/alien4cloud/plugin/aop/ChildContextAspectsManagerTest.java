@@ -0,0 +1,196 @@
+package alien4cloud.plugin.aop;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.event.ContextStartedEvent;
+import org.springframework.context.event.ContextStoppedEvent;
+
+/**
+ * Check that invocations on overridable beans never wait for child contexts to be started or stopped and that exceptions thrown by the beans are propagated
+ * unchanged.
+ */
+public class ChildContextAspectsManagerTest {
+    private ChildContextAspectsManager manager;
+    private ICounter counter;
+    private ExecutorService executor;
+
+    @Before
+    public void init() {
+        manager = new ChildContextAspectsManager();
+        counter = (ICounter) manager.postProcessAfterInitialization(new Counter(), "counter");
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void cleanup() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void invocationsUseThePreviousTargetWhileAChildContextStarts() throws Exception {
+        Assert.assertEquals(2, counter.add(1, 1));
+        BlockingChildContext childContext = new BlockingChildContext(HundredAspect.class);
+
+        Future<?> start = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                manager.onApplicationEvent(new ContextStartedEvent(childContext));
+            }
+        });
+        childContext.awaitDecoration();
+        // the child context is being decorated, invocations are not blocked and use the original bean.
+        Assert.assertEquals(2, (long) invoke(1, 1));
+
+        childContext.release();
+        start.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(102, counter.add(1, 1));
+        childContext.close();
+    }
+
+    @Test
+    public void invocationsUseThePreviousTargetWhileAChildContextStops() throws Exception {
+        BlockingChildContext remainingContext = new BlockingChildContext(TenAspect.class);
+        remainingContext.release();
+        manager.onApplicationEvent(new ContextStartedEvent(remainingContext));
+        AnnotationConfigApplicationContext stoppedContext = new AnnotationConfigApplicationContext(HundredAspect.class);
+        manager.onApplicationEvent(new ContextStartedEvent(stoppedContext));
+        Assert.assertEquals(112, counter.add(1, 1));
+
+        remainingContext.block();
+        Future<?> stop = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                manager.onApplicationEvent(new ContextStoppedEvent(stoppedContext));
+            }
+        });
+        // proxies are rebuilt with the remaining context, invocations keep using the aspects of both contexts meanwhile.
+        remainingContext.awaitDecoration();
+        Assert.assertEquals(112, (long) invoke(1, 1));
+
+        remainingContext.release();
+        stop.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(12, counter.add(1, 1));
+        stoppedContext.close();
+        remainingContext.close();
+    }
+
+    @Test
+    public void exceptionsArePropagatedUnchanged() throws Exception {
+        assertPropagated(new IOException("checked"));
+        assertPropagated(new IllegalStateException("unchecked"));
+
+        // exceptions are also propagated unchanged by the targets proxied by child contexts aspects.
+        AnnotationConfigApplicationContext childContext = new AnnotationConfigApplicationContext(HundredAspect.class);
+        manager.onApplicationEvent(new ContextStartedEvent(childContext));
+        Assert.assertEquals(102, counter.add(1, 1));
+        assertPropagated(new IOException("checked"));
+        assertPropagated(new IllegalStateException("unchecked"));
+        childContext.close();
+    }
+
+    private void assertPropagated(Exception exception) {
+        try {
+            counter.fail(exception);
+            Assert.fail("The exception must be propagated");
+        } catch (Exception e) {
+            Assert.assertSame(exception, e);
+        }
+    }
+
+    /** Invoke the counter from another thread, fails if the invocation is blocked. */
+    private Long invoke(final long value, final int increment) throws Exception {
+        return executor.submit(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return counter.add(value, increment);
+            }
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    public interface ICounter {
+        long add(long value, int increment);
+
+        void fail(Exception exception) throws Exception;
+    }
+
+    @Overridable
+    public static class Counter implements ICounter {
+        @Override
+        public long add(long value, int increment) {
+            return value + increment;
+        }
+
+        @Override
+        public void fail(Exception exception) throws Exception {
+            throw exception;
+        }
+    }
+
+    @Aspect
+    public static class HundredAspect {
+        @Around("execution(long add(long, int))")
+        public Object add(ProceedingJoinPoint joinPoint) throws Throwable {
+            return (Long) joinPoint.proceed() + 100;
+        }
+    }
+
+    @Aspect
+    public static class TenAspect {
+        @Around("execution(long add(long, int))")
+        public Object add(ProceedingJoinPoint joinPoint) throws Throwable {
+            return (Long) joinPoint.proceed() + 10;
+        }
+    }
+
+    /** Child context that blocks the decoration of the overridable beans (that starts by getting the context class loader) until released. */
+    private static class BlockingChildContext extends AnnotationConfigApplicationContext {
+        private volatile CountDownLatch decorating = new CountDownLatch(1);
+        private volatile CountDownLatch released = new CountDownLatch(1);
+        private volatile boolean refreshed;
+
+        private BlockingChildContext(Class<?> aspectClass) {
+            super(aspectClass);
+            refreshed = true;
+        }
+
+        @Override
+        public ClassLoader getClassLoader() {
+            if (refreshed) {
+                decorating.countDown();
+                try {
+                    Assert.assertTrue(released.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.getClassLoader();
+        }
+
+        private void awaitDecoration() throws InterruptedException {
+            Assert.assertTrue(decorating.await(10, TimeUnit.SECONDS));
+        }
+
+        private void block() {
+            decorating = new CountDownLatch(1);
+            released = new CountDownLatch(1);
+        }
+
+        private void release() {
+            released.countDown();
+        }
+    }
+}
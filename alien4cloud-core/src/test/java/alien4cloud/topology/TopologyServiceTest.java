@@ -0,0 +1,98 @@
+package alien4cloud.topology;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+
+import alien4cloud.model.components.AbstractPropertyValue;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.ScalarPropertyValue;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.utils.FileUtil;
+
+/**
+ * Check that the yaml written to a file is the one returned by the topology service and that the file is replaced in place.
+ */
+public class TopologyServiceTest {
+    private Path workDir;
+    private Path tempDir;
+    private Path gitDir;
+    private TopologyService topologyService;
+
+    @Before
+    public void init() throws IOException {
+        workDir = Files.createTempDirectory("topology-service-test");
+        tempDir = workDir.resolve("upload");
+        gitDir = Files.createDirectories(workDir.resolve("editor"));
+        topologyService = new TopologyService();
+        topologyService.setTempDirPath(tempDir.toString());
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        FileUtil.delete(workDir);
+    }
+
+    @Test
+    public void writeYamlGeneratesTheYamlOfTheTopology() throws IOException {
+        Topology topology = buildTopology();
+        Path targetPath = gitDir.resolve("topology.yml");
+
+        topologyService.writeYaml(topology, targetPath);
+
+        Assert.assertEquals(topologyService.getYaml(topology), new String(Files.readAllBytes(targetPath), Charsets.UTF_8));
+        // no temporary file is left in the temporary directory nor in the git working tree.
+        assertChildren(tempDir);
+        assertChildren(gitDir, targetPath);
+    }
+
+    @Test
+    public void writeYamlKeepsThePermissionsOfTheReplacedFile() throws IOException {
+        Path targetPath = gitDir.resolve("topology.yml");
+        Files.write(targetPath, "previous content".getBytes(Charsets.UTF_8));
+        Assume.assumeNotNull(Files.getFileAttributeView(targetPath, PosixFileAttributeView.class));
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(targetPath, permissions);
+        Topology topology = buildTopology();
+
+        topologyService.writeYaml(topology, targetPath);
+
+        Assert.assertEquals(topologyService.getYaml(topology), new String(Files.readAllBytes(targetPath), Charsets.UTF_8));
+        Assert.assertEquals(permissions, Files.getPosixFilePermissions(targetPath));
+        assertChildren(tempDir);
+    }
+
+    private void assertChildren(Path directory, Path... expectedChildren) throws IOException {
+        try (Stream<Path> children = Files.list(directory)) {
+            Assert.assertArrayEquals(expectedChildren, children.toArray());
+        }
+    }
+
+    private Topology buildTopology() {
+        // the content does not matter, the generated file is compared to getYaml.
+        NodeTemplate nodeTemplate = new NodeTemplate();
+        nodeTemplate.setType("tosca.nodes.SoftwareComponent");
+        nodeTemplate.setProperties(Maps.<String, AbstractPropertyValue> newHashMap());
+        nodeTemplate.getProperties().put("name", new ScalarPropertyValue("a value containing a : and a \""));
+        Topology topology = new Topology();
+        topology.getDependencies().add(new CSARDependency("tosca-normative-types", "1.0.0"));
+        topology.setNodeTemplates(Maps.<String, NodeTemplate> newHashMap());
+        topology.getNodeTemplates().put("node", nodeTemplate);
+        return topology;
+    }
+}
@@ -0,0 +1,240 @@
+package alien4cloud.topology.validation;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+
+import alien4cloud.component.CSARRepositorySearchService;
+import alien4cloud.model.components.AbstractPropertyValue;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.CapabilityDefinition;
+import alien4cloud.model.components.IndexedCapabilityType;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedToscaElement;
+import alien4cloud.model.components.NodeFilter;
+import alien4cloud.model.components.PropertyConstraint;
+import alien4cloud.model.components.PropertyDefinition;
+import alien4cloud.model.components.RequirementDefinition;
+import alien4cloud.model.components.ScalarPropertyValue;
+import alien4cloud.model.components.constraints.EqualConstraint;
+import alien4cloud.model.topology.Capability;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.model.topology.Requirement;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.topology.TopologyServiceCore;
+import alien4cloud.topology.validation.NodeTemplatesValidationService.NodeTemplatesValidation;
+
+/**
+ * Check that the incremental validation of the node templates of a topology gives the same results as the full validation after each edition.
+ */
+public class NodeTemplatesValidationServiceTest {
+    private static final String COMPUTE_TYPE = "test.Compute";
+    private static final String SOFTWARE_TYPE = "test.Software";
+    private static final String CONTAINER_TYPE = "test.Container";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger typeLookups = new AtomicInteger();
+    private NodeTemplatesValidationService nodeTemplatesValidationService;
+    private Topology topology;
+
+    @Before
+    public void init() {
+        final Map<String, IndexedToscaElement> types = Maps.newHashMap();
+        types.put(COMPUTE_TYPE, computeType());
+        types.put(SOFTWARE_TYPE, softwareType());
+        IndexedCapabilityType containerType = new IndexedCapabilityType();
+        containerType.setElementId(CONTAINER_TYPE);
+        types.put(CONTAINER_TYPE, containerType);
+
+        CSARRepositorySearchService searchService = Mockito.mock(CSARRepositorySearchService.class);
+        Answer<IndexedToscaElement> typeAnswer = new Answer<IndexedToscaElement>() {
+            @Override
+            public IndexedToscaElement answer(InvocationOnMock invocation) throws Throwable {
+                typeLookups.incrementAndGet();
+                return types.get(invocation.getArguments()[1]);
+            }
+        };
+        Mockito.when(searchService.getRequiredElementInDependencies(Mockito.any(Class.class), Mockito.anyString(), Mockito.any(Collection.class)))
+                .thenAnswer(typeAnswer);
+        Answer<Object> typesAnswer = new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                SetMultimap<Class<? extends IndexedToscaElement>, String> elementIds = (SetMultimap) invocation.getArguments()[0];
+                Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> result = HashBasedTable.create();
+                for (Map.Entry<Class<? extends IndexedToscaElement>, String> entry : elementIds.entries()) {
+                    typeLookups.incrementAndGet();
+                    result.put(entry.getKey(), entry.getValue(), types.get(entry.getValue()));
+                }
+                return result;
+            }
+        };
+        Mockito.when(searchService.getRequiredElementsInDependencies(Mockito.any(SetMultimap.class), Mockito.any(Collection.class))).thenAnswer(typesAnswer);
+
+        TopologyServiceCore topologyServiceCore = new TopologyServiceCore();
+        ReflectionTestUtils.setField(topologyServiceCore, "csarRepoSearchService", searchService);
+        TopologyPropertiesValidationService propertiesValidationService = new TopologyPropertiesValidationService();
+        ReflectionTestUtils.setField(propertiesValidationService, "csarRepoSearchService", searchService);
+        TopologyRequirementBoundsValidationServices requirementBoundsValidationServices = new TopologyRequirementBoundsValidationServices();
+        ReflectionTestUtils.setField(requirementBoundsValidationServices, "csarRepoSearchService", searchService);
+        NodeFilterValidationService nodeFilterValidationService = new NodeFilterValidationService();
+        ReflectionTestUtils.setField(nodeFilterValidationService, "csarRepoSearchService", searchService);
+        ReflectionTestUtils.setField(nodeFilterValidationService, "topologyServiceCore", topologyServiceCore);
+
+        nodeTemplatesValidationService = new NodeTemplatesValidationService();
+        ReflectionTestUtils.setField(nodeTemplatesValidationService, "topologyPropertiesValidationService", propertiesValidationService);
+        ReflectionTestUtils.setField(nodeTemplatesValidationService, "topologyRequirementBoundsValidationServices", requirementBoundsValidationServices);
+        ReflectionTestUtils.setField(nodeTemplatesValidationService, "nodeFilterValidationService", nodeFilterValidationService);
+        ReflectionTestUtils.setField(nodeTemplatesValidationService, "incremental", true);
+        ReflectionTestUtils.setField(nodeTemplatesValidationService, "cacheMaxSize", 10L);
+        ReflectionTestUtils.setField(nodeTemplatesValidationService, "cacheExpireMinutes", 10L);
+        nodeTemplatesValidationService.init();
+
+        topology = new Topology();
+        topology.setId("topology");
+        topology.setDependencies(Sets.newHashSet(new CSARDependency("test-types", "1.0")));
+        topology.setNodeTemplates(Maps.<String, NodeTemplate> newLinkedHashMap());
+        addNode(compute("compute1", "linux"));
+        addNode(compute("compute2", "windows"));
+        addNode(software("software1", "80", "compute1"));
+        addNode(software("software2", "", null));
+        addNode(software("software3", "8080", "compute2"));
+    }
+
+    @Test
+    public void incrementalValidationShouldMatchFullValidationAfterEachEdition() throws Exception {
+        assertEquivalent();
+
+        // the node filter of the source of the relationship is no more satisfied.
+        topology.getNodeTemplates().get("compute1").getProperties().put("os", new ScalarPropertyValue("windows"));
+        assertEquivalent();
+
+        // a relationship is added and a property is set.
+        topology.getNodeTemplates().put("software2", software("software2", "90", "compute2"));
+        assertEquivalent();
+
+        topology.getNodeTemplates().get("software1").getRelationships().clear();
+        assertEquivalent();
+
+        topology.getNodeTemplates().remove("software3");
+        assertEquivalent();
+
+        NodeTemplate renamed = topology.getNodeTemplates().remove("software1");
+        renamed.setName("software4");
+        addNode(renamed);
+        assertEquivalent();
+
+        topology.getNodeTemplates().get("compute2").getProperties().put("os", new ScalarPropertyValue("linux"));
+        assertEquivalent();
+
+        topology.setDependencies(Sets.newHashSet(new CSARDependency("test-types", "1.1")));
+        assertEquivalent();
+    }
+
+    @Test
+    public void unchangedNodeTemplatesShouldNotBeValidatedAgain() {
+        nodeTemplatesValidationService.validate(topology);
+        typeLookups.set(0);
+        nodeTemplatesValidationService.validate(topology);
+        Assert.assertEquals(0, typeLookups.get());
+
+        nodeTemplatesValidationService.invalidate("test-types", "1.0");
+        nodeTemplatesValidationService.validate(topology);
+        Assert.assertTrue(typeLookups.get() > 0);
+    }
+
+    private void assertEquivalent() throws Exception {
+        NodeTemplatesValidation incremental = nodeTemplatesValidationService.validate(topology);
+        NodeTemplatesValidation full = nodeTemplatesValidationService.validateFully(topology);
+        Assert.assertEquals(mapper.writeValueAsString(full.getRequirementsTasks()), mapper.writeValueAsString(incremental.getRequirementsTasks()));
+        Assert.assertEquals(mapper.writeValueAsString(full.getNodeFiltersTasks()), mapper.writeValueAsString(incremental.getNodeFiltersTasks()));
+        Assert.assertEquals(mapper.writeValueAsString(full.getPropertiesTasks()), mapper.writeValueAsString(incremental.getPropertiesTasks()));
+    }
+
+    private void addNode(NodeTemplate nodeTemplate) {
+        topology.getNodeTemplates().put(nodeTemplate.getName(), nodeTemplate);
+    }
+
+    private IndexedNodeType computeType() {
+        IndexedNodeType computeType = new IndexedNodeType();
+        computeType.setElementId(COMPUTE_TYPE);
+        computeType.setProperties(Maps.<String, PropertyDefinition> newHashMap());
+        computeType.getProperties().put("os", stringProperty());
+        computeType.setCapabilities(Lists.newArrayList(new CapabilityDefinition("host", CONTAINER_TYPE, Integer.MAX_VALUE)));
+        computeType.setRequirements(Lists.<RequirementDefinition> newArrayList());
+        return computeType;
+    }
+
+    private IndexedNodeType softwareType() {
+        IndexedNodeType softwareType = new IndexedNodeType();
+        softwareType.setElementId(SOFTWARE_TYPE);
+        softwareType.setProperties(Maps.<String, PropertyDefinition> newHashMap());
+        softwareType.getProperties().put("port", stringProperty());
+        softwareType.setCapabilities(Lists.<CapabilityDefinition> newArrayList());
+        RequirementDefinition host = new RequirementDefinition("host", CONTAINER_TYPE);
+        EqualConstraint linuxConstraint = new EqualConstraint();
+        linuxConstraint.setEqual("linux");
+        host.setNodeFilter(new NodeFilter());
+        host.getNodeFilter().getProperties().put("os", Lists.<PropertyConstraint> newArrayList(linuxConstraint));
+        softwareType.setRequirements(Lists.newArrayList(host));
+        return softwareType;
+    }
+
+    private PropertyDefinition stringProperty() {
+        PropertyDefinition propertyDefinition = new PropertyDefinition();
+        propertyDefinition.setType("string");
+        return propertyDefinition;
+    }
+
+    private NodeTemplate compute(String name, String os) {
+        NodeTemplate compute = nodeTemplate(name, COMPUTE_TYPE, "os", os);
+        Capability host = new Capability();
+        host.setType(CONTAINER_TYPE);
+        compute.setCapabilities(Maps.<String, Capability> newLinkedHashMap());
+        compute.getCapabilities().put("host", host);
+        return compute;
+    }
+
+    private NodeTemplate software(String name, String port, String host) {
+        NodeTemplate software = nodeTemplate(name, SOFTWARE_TYPE, "port", port);
+        Requirement requirement = new Requirement();
+        requirement.setType(CONTAINER_TYPE);
+        software.setRequirements(Maps.<String, Requirement> newLinkedHashMap());
+        software.getRequirements().put("host", requirement);
+        software.setRelationships(Maps.<String, RelationshipTemplate> newLinkedHashMap());
+        if (host != null) {
+            RelationshipTemplate hostedOn = new RelationshipTemplate();
+            hostedOn.setType("test.HostedOn");
+            hostedOn.setTarget(host);
+            hostedOn.setRequirementName("host");
+            hostedOn.setRequirementType(CONTAINER_TYPE);
+            software.getRelationships().put("hostedOn" + host, hostedOn);
+        }
+        return software;
+    }
+
+    private NodeTemplate nodeTemplate(String name, String type, String propertyName, String propertyValue) {
+        NodeTemplate nodeTemplate = new NodeTemplate();
+        nodeTemplate.setName(name);
+        nodeTemplate.setType(type);
+        nodeTemplate.setProperties(Maps.<String, AbstractPropertyValue> newLinkedHashMap());
+        nodeTemplate.getProperties().put(propertyName, new ScalarPropertyValue(propertyValue));
+        return nodeTemplate;
+    }
+}
@@ -0,0 +1,161 @@
+package alien4cloud.tosca;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import alien4cloud.exception.InvalidArgumentException;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.CSARSource;
+import alien4cloud.model.components.Csar;
+import alien4cloud.model.git.CsarDependenciesBean;
+import alien4cloud.tosca.parser.ParsingContext;
+import alien4cloud.tosca.parser.ParsingError;
+import alien4cloud.tosca.parser.ParsingException;
+import alien4cloud.tosca.parser.ParsingResult;
+
+/**
+ * Check that the archives of a batch are parsed concurrently and uploaded in the order of their dependencies on the shared upload threads.
+ */
+public class ArchiveBatchUploadServiceTest {
+    private static final String VERSION = "1.0.0";
+
+    private ArchiveUploadService archiveUploadService;
+    private ArchiveBatchUploadService batchUploadService;
+    /** Dependencies of the archives by archive name, archives not in the map cannot be parsed. */
+    private final Map<String, Set<String>> archives = Maps.newHashMap();
+    /** Names of the archives in upload order. */
+    private final List<String> uploadedArchives = Collections.synchronizedList(Lists.<String> newArrayList());
+    /** Name of the authenticated user when archives are uploaded. */
+    private final Set<String> uploadUsers = Collections.synchronizedSet(Sets.<String> newHashSet());
+
+    @Before
+    public void init() throws Exception {
+        archiveUploadService = Mockito.mock(ArchiveUploadService.class);
+        Mockito.when(archiveUploadService.preParse(Mockito.any(Path.class))).thenAnswer(new Answer<CsarDependenciesBean>() {
+            @Override
+            public CsarDependenciesBean answer(InvocationOnMock invocation) throws Throwable {
+                Path path = (Path) invocation.getArguments()[0];
+                String name = path.getFileName().toString();
+                if (!archives.containsKey(name)) {
+                    return null;
+                }
+                CsarDependenciesBean bean = new CsarDependenciesBean();
+                bean.setPath(path);
+                bean.setSelf(new CSARDependency(name, VERSION));
+                Set<CSARDependency> dependencies = Sets.newHashSet();
+                for (String dependency : archives.get(name)) {
+                    dependencies.add(new CSARDependency(dependency, VERSION));
+                }
+                bean.setDependencies(dependencies);
+                return bean;
+            }
+        });
+        Mockito.when(archiveUploadService.upload(Mockito.any(Path.class), Mockito.eq(CSARSource.UPLOAD))).thenAnswer(new Answer<ParsingResult<Csar>>() {
+            @Override
+            public ParsingResult<Csar> answer(InvocationOnMock invocation) throws Throwable {
+                String name = ((Path) invocation.getArguments()[0]).getFileName().toString();
+                uploadedArchives.add(name);
+                uploadUsers.add(SecurityContextHolder.getContext().getAuthentication().getName());
+                if (!archives.containsKey(name)) {
+                    throw new ParsingException(name, Lists.<ParsingError> newArrayList());
+                }
+                return new ParsingResult<>(new Csar(name, VERSION), new ParsingContext(name));
+            }
+        });
+
+        batchUploadService = new ArchiveBatchUploadService();
+        ReflectionTestUtils.setField(batchUploadService, "archiveUploadService", archiveUploadService);
+        ReflectionTestUtils.setField(batchUploadService, "uploadThreads", 2);
+        batchUploadService.init();
+    }
+
+    @After
+    public void cleanup() {
+        batchUploadService.destroy();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void archivesArePreParsedConcurrently() {
+        // both archives must be parsed at the same time to cross the barrier.
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        Mockito.when(archiveUploadService.preParse(Mockito.any(Path.class))).thenAnswer(new Answer<CsarDependenciesBean>() {
+            @Override
+            public CsarDependenciesBean answer(InvocationOnMock invocation) throws Throwable {
+                barrier.await(10, TimeUnit.SECONDS);
+                CsarDependenciesBean bean = new CsarDependenciesBean();
+                bean.setPath((Path) invocation.getArguments()[0]);
+                bean.setSelf(new CSARDependency(bean.getPath().getFileName().toString(), VERSION));
+                return bean;
+            }
+        });
+
+        Map<CSARDependency, CsarDependenciesBean> beans = batchUploadService.preParsing(Sets.newHashSet(Paths.get("a"), Paths.get("b")));
+        Assert.assertEquals(Sets.newHashSet(new CSARDependency("a", VERSION), new CSARDependency("b", VERSION)), beans.keySet());
+    }
+
+    @Test
+    public void archivesAreUploadedInDependencyOrder() throws Exception {
+        archives.put("a", Sets.<String> newHashSet());
+        archives.put("b", Sets.newHashSet("a"));
+        archives.put("c", Sets.newHashSet("b", "a"));
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin", null));
+
+        final List<String> uploaded = Collections.synchronizedList(Lists.<String> newArrayList());
+        final List<String> failed = Collections.synchronizedList(Lists.<String> newArrayList());
+        batchUploadService.uploadAll(Sets.newHashSet(Paths.get("c"), Paths.get("invalid"), Paths.get("b"), Paths.get("a")), CSARSource.UPLOAD,
+                new IArchiveUploadListener() {
+                    @Override
+                    public void uploaded(Path path, ParsingResult<Csar> result) {
+                        uploaded.add(result.getResult().getName());
+                    }
+
+                    @Override
+                    public void failed(Path path, Exception e) {
+                        failed.add(path.getFileName().toString());
+                    }
+                }).get(10, TimeUnit.SECONDS);
+
+        // archives that cannot be parsed are uploaded first so their errors are reported.
+        Assert.assertEquals(Lists.newArrayList("invalid", "a", "b", "c"), uploadedArchives);
+        Assert.assertEquals(Lists.newArrayList("a", "b", "c"), uploaded);
+        Assert.assertEquals(Lists.newArrayList("invalid"), failed);
+        // the security context of the caller is propagated to the upload threads.
+        Assert.assertEquals(Sets.newHashSet("admin"), uploadUsers);
+    }
+
+    @Test
+    public void batchWithTheSameArchiveTwiceIsRejectedBeforeAnyUpload() {
+        archives.put("a", Sets.<String> newHashSet());
+        archives.put("b", Sets.<String> newHashSet());
+
+        try {
+            batchUploadService.uploadAll(Sets.newHashSet(Paths.get("first", "a"), Paths.get("second", "a"), Paths.get("b")), CSARSource.UPLOAD,
+                    Mockito.mock(IArchiveUploadListener.class));
+            Assert.fail("A batch that contains twice the same archive must be rejected");
+        } catch (InvalidArgumentException e) {
+            Assert.assertTrue(uploadedArchives.isEmpty());
+        }
+    }
+}
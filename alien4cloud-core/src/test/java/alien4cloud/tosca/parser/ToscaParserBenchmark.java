@@ -0,0 +1,60 @@
+package alien4cloud.tosca.parser;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.google.common.collect.Lists;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measure the throughput of the tosca parser. This is not run as part of the build, run it manually to compare parser changes.
+ *
+ * The parsed definitions can be changed through the benchmark.files system property (comma separated paths), for example to parse the normative types and a
+ * large archive definition. Iterations are configured with benchmark.warmup and benchmark.iterations.
+ */
+@Slf4j
+@Ignore
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:tosca/parser-application-context.xml")
+public class ToscaParserBenchmark {
+    private static final String DEFAULT_FILES = "src/test/resources/tosca/SimpleProfil_alien130/parsing/implementation_artifact.yml,"
+            + "src/test/resources/tosca/SimpleProfil_alien130/parsing/deployment_artifact.yml";
+
+    @Resource
+    private ToscaParser parser;
+
+    @Test
+    public void benchmarkParsing() throws ParsingException {
+        List<Path> files = Lists.newArrayList();
+        for (String file : System.getProperty("benchmark.files", DEFAULT_FILES).split(",")) {
+            files.add(Paths.get(file.trim()));
+        }
+        int warmup = Integer.getInteger("benchmark.warmup", 200);
+        int iterations = Integer.getInteger("benchmark.iterations", 2000);
+
+        parse(files, warmup);
+        long start = System.nanoTime();
+        parse(files, iterations);
+        long durationNs = System.nanoTime() - start;
+        log.info("Parsed {} files {} times in {} ms: {} parsings per second", files.size(), iterations, durationNs / 1000000,
+                (long) (files.size() * (double) iterations * 1000000000 / durationNs));
+    }
+
+    private void parse(List<Path> files, int iterations) throws ParsingException {
+        for (int i = 0; i < iterations; i++) {
+            for (Path file : files) {
+                parser.parseFile(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package alien4cloud.tosca.serializer;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import alien4cloud.model.components.AbstractPropertyValue;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.FunctionPropertyValue;
+import alien4cloud.model.components.ScalarPropertyValue;
+import alien4cloud.model.topology.Capability;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.model.topology.Topology;
+
+import com.google.common.collect.Lists;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measure the time and the memory allocated to serialize a topology to yaml, in memory and directly to a file. Results are reported per 100 node templates.
+ * This is not run as part of the build, run it manually (on both revisions) to compare serialization changes.
+ *
+ * The topology size and iterations are configured with benchmark.nodes, benchmark.warmup and benchmark.iterations.
+ */
+@Slf4j
+@Ignore
+public class ToscaSerializerBenchmark {
+    private static final String TEMPLATE = "templates/topology-alien_dsl_1_2_0.yml.vm";
+
+    @Test
+    public void benchmarkSerialization() throws Exception {
+        int nodes = Integer.getInteger("benchmark.nodes", 500);
+        int warmup = Integer.getInteger("benchmark.warmup", 50);
+        int iterations = Integer.getInteger("benchmark.iterations", 200);
+
+        Map<String, Object> velocityCtx = new HashMap<>();
+        velocityCtx.put("topology", buildTopology(nodes));
+        velocityCtx.put("template_name", "benchmark");
+        velocityCtx.put("template_version", "1.0.0-SNAPSHOT");
+        velocityCtx.put("template_author", "benchmark");
+
+        Path targetPath = Files.createTempFile("topology", ".yml");
+        try {
+            for (int i = 0; i < warmup; i++) {
+                VelocityUtil.generate(TEMPLATE, new StringWriter(), velocityCtx);
+                VelocityUtil.generate(TEMPLATE, targetPath, targetPath.getParent(), velocityCtx);
+            }
+
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                StringWriter writer = new StringWriter();
+                VelocityUtil.generate(TEMPLATE, writer, velocityCtx);
+                Files.write(targetPath, writer.toString().getBytes("UTF-8"));
+            }
+            report("in memory", nodes, iterations, System.nanoTime() - start, allocatedBytes() - allocated);
+
+            allocated = allocatedBytes();
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                VelocityUtil.generate(TEMPLATE, targetPath, targetPath.getParent(), velocityCtx);
+            }
+            report("to file", nodes, iterations, System.nanoTime() - start, allocatedBytes() - allocated);
+        } finally {
+            Files.deleteIfExists(targetPath);
+        }
+    }
+
+    private void report(String mode, int nodes, int iterations, long durationNs, long allocatedBytes) {
+        double per100Nodes = 100d / nodes / iterations;
+        log.info("Serialization {} of {} nodes: {} µs and {} KB allocated per 100 nodes", mode, nodes, (long) (durationNs / 1000 * per100Nodes),
+                (long) (allocatedBytes / 1024 * per100Nodes));
+    }
+
+    private long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private Topology buildTopology(int nodes) {
+        Topology topology = new Topology();
+        topology.setDependencies(new HashSet<CSARDependency>());
+        topology.getDependencies().add(new CSARDependency("tosca-normative-types", "1.0.0"));
+        topology.setNodeTemplates(new HashMap<String, NodeTemplate>());
+        for (int i = 0; i < nodes; i++) {
+            NodeTemplate nodeTemplate = new NodeTemplate();
+            nodeTemplate.setType("tosca.nodes.SoftwareComponent");
+            nodeTemplate.setProperties(buildProperties(i));
+            nodeTemplate.setCapabilities(new HashMap<String, Capability>());
+            Capability capability = new Capability();
+            capability.setProperties(buildProperties(i));
+            nodeTemplate.getCapabilities().put("feature", capability);
+            if (i > 0) {
+                RelationshipTemplate relationshipTemplate = new RelationshipTemplate();
+                relationshipTemplate.setTarget("node" + (i - 1));
+                relationshipTemplate.setType("tosca.relationships.DependsOn");
+                relationshipTemplate.setRequirementName("dependency");
+                relationshipTemplate.setRequirementType("tosca.capabilities.Node");
+                nodeTemplate.setRelationships(new HashMap<String, RelationshipTemplate>());
+                nodeTemplate.getRelationships().put("dependsOnNode" + (i - 1), relationshipTemplate);
+            }
+            topology.getNodeTemplates().put("node" + i, nodeTemplate);
+        }
+        return topology;
+    }
+
+    private Map<String, AbstractPropertyValue> buildProperties(int index) {
+        Map<String, AbstractPropertyValue> properties = new HashMap<>();
+        properties.put("name", new ScalarPropertyValue("component " + index));
+        properties.put("description", new ScalarPropertyValue("a value containing a : and a \""));
+        FunctionPropertyValue function = new FunctionPropertyValue();
+        function.setFunction("get_input");
+        function.setParameters(Lists.newArrayList("input" + index));
+        properties.put("port", function);
+        return properties;
+    }
+}
@@ -0,0 +1,133 @@
+package org.alien4cloud.tosca.editor;
+
+import java.io.IOException;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+import alien4cloud.dao.ElasticSearchMapper;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.utils.TreeNode;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Check the edition checkpoints and measure undo latency as a function of the history length with and without checkpoints.
+ */
+@Slf4j
+public class EditionCheckpointsTest {
+    private static final int CHECKPOINT_INTERVAL = 10;
+
+    @Test
+    public void restoreShouldReturnNearestPreviousCheckpoint() throws IOException {
+        EditionCheckpoints checkpoints = new EditionCheckpoints(Long.MAX_VALUE);
+        EditionContext context = new EditionContext();
+        Topology topology = newTopology();
+        checkpoints.take(EditionCheckpoints.BASE_INDEX, topology, newTree());
+        for (int i = 0; i < 25; i++) {
+            apply(topology, i);
+            if ((i + 1) % CHECKPOINT_INTERVAL == 0) {
+                checkpoints.take(i, topology, newTree());
+            }
+        }
+        Assert.assertEquals(Integer.valueOf(-1), checkpoints.restore(5, context));
+        Assert.assertNull(context.getTopology().getNodeTemplates());
+        Assert.assertEquals(Integer.valueOf(9), checkpoints.restore(15, context));
+        Assert.assertEquals(10, context.getTopology().getNodeTemplates().size());
+        Assert.assertEquals(Integer.valueOf(19), checkpoints.restore(24, context));
+        Assert.assertEquals(20, context.getTopology().getNodeTemplates().size());
+
+        // restored tree is a copy with parents links
+        TreeNode child = context.getArchiveContentTree().getChild("topology.yml");
+        Assert.assertNotNull(child);
+        Assert.assertSame(context.getArchiveContentTree(), child.getParent());
+
+        checkpoints.invalidateFrom(10);
+        Assert.assertEquals(Integer.valueOf(9), checkpoints.restore(24, context));
+    }
+
+    @Test
+    public void oldestCheckpointsShouldBeEvictedButBase() throws IOException {
+        Topology topology = newTopology();
+        long topologySize = ElasticSearchMapper.getInstance().writeValueAsBytes(topology).length;
+        EditionCheckpoints checkpoints = new EditionCheckpoints(topologySize);
+        checkpoints.take(EditionCheckpoints.BASE_INDEX, topology, newTree());
+        apply(topology, 0);
+        checkpoints.take(0, topology, newTree());
+        // base checkpoint is kept even if it fills the budget.
+        Assert.assertEquals(1, checkpoints.size());
+        Assert.assertEquals(Integer.valueOf(-1), checkpoints.restore(0, new EditionContext()));
+    }
+
+    @Test
+    public void undoLatencyByHistoryLength() throws IOException {
+        for (int historyLength : new int[] { 50, 100, 200, 400 }) {
+            EditionCheckpoints checkpoints = new EditionCheckpoints(Long.MAX_VALUE);
+            Topology topology = newTopology();
+            checkpoints.take(EditionCheckpoints.BASE_INDEX, topology, newTree());
+            for (int i = 0; i < historyLength; i++) {
+                apply(topology, i);
+                if ((i + 1) % CHECKPOINT_INTERVAL == 0) {
+                    checkpoints.take(i, topology, newTree());
+                }
+            }
+            // undo the last operation
+            int at = historyLength - 2;
+
+            EditionContext context = new EditionContext();
+            long start = System.nanoTime();
+            int restored = checkpoints.restore(EditionCheckpoints.BASE_INDEX, context);
+            int fullReplayed = replay(context.getTopology(), restored, at);
+            long fullReplayNs = System.nanoTime() - start;
+            String expected = ElasticSearchMapper.getInstance().writeValueAsString(context.getTopology());
+
+            start = System.nanoTime();
+            restored = checkpoints.restore(at, context);
+            int replayed = replay(context.getTopology(), restored, at);
+            long checkpointNs = System.nanoTime() - start;
+
+            Assert.assertEquals(expected, ElasticSearchMapper.getInstance().writeValueAsString(context.getTopology()));
+            Assert.assertTrue(replayed < CHECKPOINT_INTERVAL);
+            log.info("History of {} operations: full replay of {} operations in {} µs, checkpoint replay of {} operations in {} µs", historyLength,
+                    fullReplayed, fullReplayNs / 1000, replayed, checkpointNs / 1000);
+        }
+    }
+
+    private int replay(Topology topology, int from, int at) {
+        for (int i = from + 1; i <= at; i++) {
+            apply(topology, i);
+        }
+        return at - from;
+    }
+
+    private void apply(Topology topology, int operationIndex) {
+        if (topology.getNodeTemplates() == null) {
+            topology.setNodeTemplates(Maps.newLinkedHashMap());
+        }
+        NodeTemplate nodeTemplate = new NodeTemplate();
+        nodeTemplate.setName("Compute_" + operationIndex);
+        nodeTemplate.setType("tosca.nodes.Compute");
+        topology.getNodeTemplates().put(nodeTemplate.getName(), nodeTemplate);
+    }
+
+    private Topology newTopology() {
+        Topology topology = new Topology();
+        topology.setId("topology");
+        topology.setYamlFilePath("topology.yml");
+        return topology;
+    }
+
+    private TreeNode newTree() {
+        TreeNode root = new TreeNode("");
+        root.setChildren(new TreeSet<>());
+        TreeNode child = new TreeNode("topology.yml");
+        child.setFullPath("topology.yml");
+        child.setLeaf(true);
+        child.setParent(root);
+        root.getChildren().add(child);
+        return root;
+    }
+}
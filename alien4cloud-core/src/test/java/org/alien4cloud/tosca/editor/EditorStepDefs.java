@@ -29,6 +29,7 @@ import org.springframework.test.context.ContextConfiguration;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
+import alien4cloud.dao.ElasticSearchMapper;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.model.components.*;
 import alien4cloud.model.templates.TopologyTemplate;
@@ -84,6 +85,8 @@ public class EditorStepDefs {
     private Map<String, String> topologyIdToLastOperationId = new HashMap<>();
 
     private List<Class> typesToClean = Lists.newArrayList();
+
+    private Map<String, String> rememberedTopologies = new HashMap<>();
     public static final Path CSAR_TARGET_PATH = Paths.get("target/csars");
 
     public EditorStepDefs() {
@@ -230,6 +233,55 @@ public class EditorStepDefs {
         topologyIdToLastOperationId.put(topologyIds.getLast(), null);
     }
 
+    @When("^I undo/redo to the operation at index (-?\\d+)$")
+    public void i_undo_redo_to_the_operation_at_index(int at) throws Throwable {
+        thrownException = null;
+        String topologyId = topologyIds.getLast();
+        try {
+            TopologyDTO topologyDTO = editorService.undoRedo(topologyId, at, topologyIdToLastOperationId.get(topologyId));
+            topologyIdToLastOperationId.put(topologyId, at == -1 ? null : topologyDTO.getOperations().get(at).getId());
+            topologyEvaluationContext = new StandardEvaluationContext(topologyDTO.getTopology());
+            dtoEvaluationContext = new StandardEvaluationContext(topologyDTO);
+        } catch (Exception e) {
+            log.error("Exception occurred while undoing/redoing operations", e);
+            thrownException = e;
+            exceptionEvaluationContext = new StandardEvaluationContext(e);
+        }
+    }
+
+    @Then("^The edition context should have (\\d+) checkpoints$")
+    public void the_edition_context_should_have_checkpoints(int expected) throws Throwable {
+        try {
+            editionContextManager.init(topologyIds.getLast());
+            Assert.assertEquals(expected, EditionContextManager.get().getCheckpoints().size());
+        } finally {
+            editionContextManager.destroy();
+        }
+    }
+
+    @When("^I drop the edition checkpoints$")
+    public void i_drop_the_edition_checkpoints() throws Throwable {
+        try {
+            editionContextManager.init(topologyIds.getLast());
+            // next undo/redo will have to reset the topology and replay all the operations.
+            EditionContextManager.get().getCheckpoints().clear();
+        } finally {
+            editionContextManager.destroy();
+        }
+    }
+
+    @When("^I remember the topology as \"(.*?)\"$")
+    public void i_remember_the_topology_as(String name) throws Throwable {
+        Topology topology = (Topology) topologyEvaluationContext.getRootObject().getValue();
+        rememberedTopologies.put(name, ElasticSearchMapper.getInstance().writeValueAsString(topology));
+    }
+
+    @Then("^The topology should be the same as \"(.*?)\"$")
+    public void the_topology_should_be_the_same_as(String name) throws Throwable {
+        Topology topology = (Topology) topologyEvaluationContext.getRootObject().getValue();
+        Assert.assertEquals(rememberedTopologies.get(name), ElasticSearchMapper.getInstance().writeValueAsString(topology));
+    }
+
     @Given("^I upload a file located at \"(.*?)\" to the archive path \"(.*?)\"$")
     public void i_upload_a_file_located_at_to_the_archive_path(String filePath, String archiveTargetPath) throws Throwable {
         UpdateFileOperation updateFileOperation = new UpdateFileOperation(archiveTargetPath, Files.newInputStream(Paths.get(filePath)));
@@ -0,0 +1,79 @@
+Feature: Topology editor: undo and redo operations
+
+  Background:
+    Given I am authenticated with "ADMIN" role
+    And I create an empty topology
+
+  Scenario: Undo/redo from a checkpoint should give the same topology as a reset and a replay of all the operations
+    Given I execute the operation
+      | type              | org.alien4cloud.tosca.editor.operations.nodetemplate.AddNodeOperation |
+      | nodeName          | Compute                                                               |
+      | indexedNodeTypeId | tosca.nodes.Compute:1.0                                               |
+    And I execute the operation
+      | type              | org.alien4cloud.tosca.editor.operations.nodetemplate.AddNodeOperation |
+      | nodeName          | Compute2                                                              |
+      | indexedNodeTypeId | tosca.nodes.Compute:1.0                                               |
+    And I execute the operation
+      | type              | org.alien4cloud.tosca.editor.operations.nodetemplate.AddNodeOperation |
+      | nodeName          | software_component                                                    |
+      | indexedNodeTypeId | tosca.nodes.SoftwareComponent:1.0.0-SNAPSHOT                          |
+    And I execute the operation
+      | type          | org.alien4cloud.tosca.editor.operations.nodetemplate.UpdateNodePropertyValueOperation |
+      | nodeName      | software_component                                                                    |
+      | propertyName  | component_version                                                                     |
+      | propertyValue | 1.0.0                                                                                 |
+    And I execute the operation
+      | type     | org.alien4cloud.tosca.editor.operations.nodetemplate.RenameNodeOperation |
+      | nodeName | Compute2                                                                 |
+      | newName  | Server                                                                   |
+    And I execute the operation
+      | type              | org.alien4cloud.tosca.editor.operations.nodetemplate.AddNodeOperation |
+      | nodeName          | Java                                                                  |
+      | indexedNodeTypeId | fastconnect.nodes.Java:1.0                                            |
+    And I execute the operation
+      | type                   | org.alien4cloud.tosca.editor.operations.relationshiptemplate.AddRelationshipOperation |
+      | nodeName               | Java                                                                                  |
+      | relationshipName       | MyRelationship                                                                        |
+      | relationshipType       | tosca.relationships.HostedOn                                                          |
+      | relationshipVersion    | 1.0                                                                                   |
+      | requirementName        | host                                                                                  |
+      | target                 | Compute                                                                               |
+      | targetedCapabilityName | host                                                                                  |
+    And I execute the operation
+      | type              | org.alien4cloud.tosca.editor.operations.nodetemplate.AddNodeOperation |
+      | nodeName          | Compute3                                                              |
+      | indexedNodeTypeId | tosca.nodes.Compute:1.0                                               |
+    And I execute the operation
+      | type     | org.alien4cloud.tosca.editor.operations.nodetemplate.DeleteNodeOperation |
+      | nodeName | Compute3                                                                 |
+    And I execute the operation
+      | type          | org.alien4cloud.tosca.editor.operations.nodetemplate.UpdateNodePropertyValueOperation |
+      | nodeName      | software_component                                                                    |
+      | propertyName  | component_version                                                                     |
+      | propertyValue | 1.1.0                                                                                 |
+    And I execute the operation
+      | type     | org.alien4cloud.tosca.editor.operations.nodetemplate.RenameNodeOperation |
+      | nodeName | Compute                                                                  |
+      | newName  | Host                                                                     |
+    And I execute the operation
+      | type          | org.alien4cloud.tosca.editor.operations.nodetemplate.UpdateNodePropertyValueOperation |
+      | nodeName      | software_component                                                                    |
+      | propertyName  | component_version                                                                     |
+      | propertyValue | 1.2.0                                                                                 |
+    And I remember the topology as "latest"
+    And The edition context should have 2 checkpoints
+    When I undo/redo to the operation at index 10
+    Then No exception should be thrown
+    And The SPEL expression "nodeTemplates.size()" should return 4
+    And The SPEL expression "nodeTemplates['Java'].relationships['MyRelationship'].target" should return "Host"
+    And The SPEL expression "nodeTemplates['software_component'].properties['component_version'].value" should return "1.1.0"
+    And I remember the topology as "checkpoint restore"
+    When I undo/redo to the operation at index 11
+    Then The topology should be the same as "latest"
+    When I drop the edition checkpoints
+    Then The edition context should have 0 checkpoints
+    When I undo/redo to the operation at index 10
+    Then No exception should be thrown
+    And The topology should be the same as "checkpoint restore"
+    When I undo/redo to the operation at index 11
+    Then The topology should be the same as "latest"
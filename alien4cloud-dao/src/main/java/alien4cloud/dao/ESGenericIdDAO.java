@@ -1,19 +1,26 @@
 package alien4cloud.dao;
 
 import alien4cloud.exception.IndexingServiceException;
+import lombok.Getter;
 import lombok.SneakyThrows;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.get.MultiGetItemResponse;
 import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.common.collect.Lists;
 import org.elasticsearch.mapping.MappingBuilder;
+import org.springframework.beans.factory.annotation.Value;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * ElasticSearch DAO to manage id based operations.
@@ -22,31 +29,74 @@ import java.util.List;
  */
 public abstract class ESGenericIdDAO extends ESIndexMapper implements IGenericIdDAO {
 
+    /** Consistency used by write operations that do not specify one explicitly. */
+    @Getter
+    @Value("${elasticSearch.write_consistency:IMMEDIATE}")
+    private WriteConsistency defaultWriteConsistency = WriteConsistency.IMMEDIATE;
+    /** Interval in milliseconds between two coalesced refreshes of the indices written with a non-immediate consistency. */
+    @Value("${elasticSearch.refresh_interval_ms:200}")
+    private long refreshIntervalMs = 200;
+
+    private volatile IndexRefreshQueue refreshQueue;
+
     @Override
-    @SneakyThrows({ IOException.class })
     public <T> void save(T data) {
+        save(data, defaultWriteConsistency);
+    }
+
+    @Override
+    @SneakyThrows({ IOException.class })
+    public <T> void save(T data, WriteConsistency consistency) {
         String indexName = getIndexForType(data.getClass());
         String typeName = MappingBuilder.indexTypeFromClass(data.getClass());
 
         String json = getJsonMapper().writeValueAsString(data);
-        getClient().prepareIndex(indexName, typeName).setOperationThreaded(false).setSource(json).setRefresh(true).execute().actionGet();
+        getClient().prepareIndex(indexName, typeName).setOperationThreaded(false).setSource(json).setRefresh(consistency == WriteConsistency.IMMEDIATE)
+                .execute().actionGet();
+        afterWrite(consistency, indexName);
     }
 
     @Override
-    @SneakyThrows({ IOException.class })
     public <T> void save(T[] entities) {
+        save(entities, defaultWriteConsistency);
+    }
+
+    @Override
+    @SneakyThrows({ IOException.class })
+    public <T> void save(T[] entities, WriteConsistency consistency) {
         if (entities == null || entities.length == 0) {
             return;
         }
-        BulkRequestBuilder bulkRequestBuilder = getClient().prepareBulk().setRefresh(true);
+        BulkRequestBuilder bulkRequestBuilder = getClient().prepareBulk().setRefresh(consistency == WriteConsistency.IMMEDIATE);
+        Set<String> indices = new LinkedHashSet<>();
         for (T data : entities) {
             String indexName = getIndexForType(data.getClass());
             String typeName = MappingBuilder.indexTypeFromClass(data.getClass());
 
             String json = getJsonMapper().writeValueAsString(data);
             bulkRequestBuilder.add(getClient().prepareIndex(indexName, typeName).setSource(json));
+            indices.add(indexName);
         }
         bulkRequestBuilder.execute().actionGet();
+        afterWrite(consistency, indices.toArray(new String[indices.size()]));
+    }
+
+    @Override
+    public void updateFields(Class<?> clazz, Map<String, Map<String, Object>> fieldsById, WriteConsistency consistency) {
+        if (fieldsById == null || fieldsById.isEmpty()) {
+            return;
+        }
+        String indexName = getIndexForType(clazz);
+        String typeName = MappingBuilder.indexTypeFromClass(clazz);
+        BulkRequestBuilder bulkRequestBuilder = getClient().prepareBulk().setRefresh(consistency == WriteConsistency.IMMEDIATE);
+        for (Map.Entry<String, Map<String, Object>> fieldsEntry : fieldsById.entrySet()) {
+            bulkRequestBuilder.add(getClient().prepareUpdate(indexName, typeName, fieldsEntry.getKey()).setDoc(fieldsEntry.getValue()));
+        }
+        BulkResponse bulkResponse = bulkRequestBuilder.execute().actionGet();
+        if (bulkResponse.hasFailures()) {
+            throw new IndexingServiceException("Failed to update documents of type <" + typeName + ">: " + bulkResponse.buildFailureMessage());
+        }
+        afterWrite(consistency, indexName);
     }
 
     @SuppressWarnings("unchecked")
@@ -97,10 +147,59 @@ public abstract class ESGenericIdDAO extends ESIndexMapper implements IGenericId
 
     @Override
     public void delete(Class<?> clazz, String id) {
+        delete(clazz, id, defaultWriteConsistency);
+    }
+
+    @Override
+    public void delete(Class<?> clazz, String id, WriteConsistency consistency) {
         assertIdNotNullFor(id, "delete");
         String indexName = getIndexForType(clazz);
         String typeName = MappingBuilder.indexTypeFromClass(clazz);
-        getClient().prepareDelete(indexName, typeName, id).setRefresh(true).execute().actionGet();
+        getClient().prepareDelete(indexName, typeName, id).setRefresh(consistency == WriteConsistency.IMMEDIATE).execute().actionGet();
+        afterWrite(consistency, indexName);
+    }
+
+    /**
+     * Ensure that a write operation on the given indices will be made visible to search requests according to the requested consistency.
+     *
+     * @param consistency The consistency requested for the write operation.
+     * @param indices The indices that have been modified by the write operation.
+     */
+    protected void afterWrite(WriteConsistency consistency, String... indices) {
+        switch (consistency) {
+        case WAIT_FOR_VISIBLE:
+            getRefreshQueue().registerAndWait(indices);
+            break;
+        case EVENTUAL:
+            getRefreshQueue().register(indices);
+            break;
+        default:
+            // refresh has been performed as part of the write request.
+            break;
+        }
+    }
+
+    /**
+     * Get the write-behind refresh queue of this dao (created on first usage).
+     *
+     * @return The refresh queue of this dao.
+     */
+    public IndexRefreshQueue getRefreshQueue() {
+        if (refreshQueue == null) {
+            synchronized (this) {
+                if (refreshQueue == null) {
+                    refreshQueue = new IndexRefreshQueue(getClient(), refreshIntervalMs);
+                }
+            }
+        }
+        return refreshQueue;
+    }
+
+    @PreDestroy
+    public void shutdownRefreshQueue() {
+        if (refreshQueue != null) {
+            refreshQueue.shutdown();
+        }
     }
 
     private void assertIdNotNullFor(String id, String operation) {
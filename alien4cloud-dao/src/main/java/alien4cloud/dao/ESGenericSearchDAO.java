@@ -6,22 +6,29 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import javax.annotation.Resource;
 
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.count.CountRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.common.lucene.search.function.CombineFunction;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders;
 import org.elasticsearch.mapping.*;
 import org.elasticsearch.mapping.QueryHelper.SearchQueryHelperBuilder;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.terms.InternalTerms;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.sort.SortBuilder;
@@ -34,6 +41,7 @@ import com.google.common.collect.Maps;
 import alien4cloud.dao.model.FacetedSearchFacet;
 import alien4cloud.dao.model.FacetedSearchResult;
 import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.exception.IndexingServiceException;
 import alien4cloud.rest.utils.JsonUtil;
 import alien4cloud.utils.ElasticSearchUtil;
 import alien4cloud.utils.MapUtil;
@@ -46,6 +54,11 @@ import lombok.SneakyThrows;
  */
 public abstract class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearchDAO {
     // private static final String SCORE_SCRIPT = "_score * ((doc.containsKey('alienScore') && !doc['alienScore'].empty) ? doc['alienScore'].value : 1)";
+    /** Duration for which elastic search keeps a scroll context between two batches. */
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+    /** Number of elements per shard deleted by a single bulk request when deleting by query. */
+    private static final int DELETE_BATCH_SIZE = 1000;
+
     @Resource
     private ElasticSearchClient esClient;
     @Resource
@@ -72,30 +85,123 @@ public abstract class ESGenericSearchDAO extends ESGenericIdDAO implements IGene
 
     @Override
     public void delete(Class<?> clazz, QueryBuilder query) {
+        delete(clazz, query, getDefaultWriteConsistency());
+    }
+
+    @Override
+    public void delete(Class<?> clazz, QueryBuilder query, WriteConsistency consistency) {
         String indexName = getIndexForType(clazz);
         String typeName = MappingBuilder.indexTypeFromClass(clazz);
 
-        // get all elements and then use a bulk delete to remove data.
-        SearchRequestBuilder searchRequestBuilder = getClient().prepareSearch(indexName).setTypes(getTypesFromClass(clazz)).setQuery(query).setNoFields()
-                .setFetchSource(false);
-        searchRequestBuilder.setFrom(0).setSize(1000);
-        SearchResponse response = searchRequestBuilder.execute().actionGet();
+        // scan the ids of the elements to delete and use bulk deletes without refresh, the scroll is a snapshot so deletes do not affect it.
+        SearchResponse response = getClient().prepareSearch(indexName).setTypes(getTypesFromClass(clazz)).setQuery(query).setNoFields().setFetchSource(false)
+                .setSearchType(SearchType.SCAN).setScroll(SCROLL_KEEP_ALIVE).setSize(DELETE_BATCH_SIZE).execute().actionGet();
+        long deleted = 0;
+        try {
+            while (true) {
+                response = getClient().prepareSearchScroll(response.getScrollId()).setScroll(SCROLL_KEEP_ALIVE).execute().actionGet();
+                if (!somethingFound(response)) {
+                    break;
+                }
+                BulkRequestBuilder bulkRequestBuilder = getClient().prepareBulk();
+                for (SearchHit hit : response.getHits().getHits()) {
+                    bulkRequestBuilder.add(getClient().prepareDelete(indexName, typeName, hit.getId()));
+                }
+                BulkResponse bulkResponse = bulkRequestBuilder.execute().actionGet();
+                if (bulkResponse.hasFailures()) {
+                    throw new IndexingServiceException("Failed to delete elements of type " + typeName + ": " + bulkResponse.buildFailureMessage());
+                }
+                deleted += bulkResponse.getItems().length;
+            }
+        } finally {
+            clearScroll(response.getScrollId());
+        }
 
-        while (somethingFound(response)) {
-            BulkRequestBuilder bulkRequestBuilder = getClient().prepareBulk().setRefresh(true);
+        if (deleted == 0) {
+            return;
+        }
+        if (consistency == WriteConsistency.IMMEDIATE) {
+            getClient().admin().indices().prepareRefresh(indexName).execute().actionGet();
+        } else {
+            afterWrite(consistency, indexName);
+        }
+    }
 
-            for (int i = 0; i < response.getHits().hits().length; i++) {
-                String id = response.getHits().hits()[i].getId();
-                bulkRequestBuilder.add(getClient().prepareDelete(indexName, typeName, id));
-            }
+    @Override
+    public <T> IScrollIterator<T> scroll(Class<T> clazz, QueryBuilder query, String fetchContext, int batchSize) {
+        SearchRequestBuilder searchRequestBuilder = getClient().prepareSearch(getIndexForType(clazz)).setTypes(getTypesFromClass(clazz))
+                .setSearchType(SearchType.SCAN).setScroll(SCROLL_KEEP_ALIVE).setSize(batchSize);
+        if (query != null) {
+            searchRequestBuilder.setQuery(query);
+        }
+        if (fetchContext != null) {
+            setFetchContext(searchRequestBuilder, clazz, fetchContext);
+        }
+        return new ScrollIterator<T>(searchRequestBuilder.execute().actionGet());
+    }
+
+    private void clearScroll(String scrollId) {
+        if (scrollId != null) {
+            getClient().prepareClearScroll().addScrollId(scrollId).execute().actionGet();
+        }
+    }
+
+    /**
+     * Iterator over the results of a scan search, the next batch of results is fetched when the current one has been consumed.
+     */
+    private class ScrollIterator<T> implements IScrollIterator<T> {
+        private final long totalResults;
+        private String scrollId;
+        private SearchHit[] hits = new SearchHit[0];
+        private int index;
+
+        private ScrollIterator(SearchResponse scanResponse) {
+            this.totalResults = scanResponse.getHits().getTotalHits();
+            // the scan response contains no hits, only the scroll id to fetch the first batch.
+            this.scrollId = scanResponse.getScrollId();
+        }
 
-            bulkRequestBuilder.execute().actionGet();
+        @Override
+        public long getTotalResults() {
+            return totalResults;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < hits.length) {
+                return true;
+            }
+            if (scrollId == null) {
+                return false;
+            }
+            SearchResponse response = getClient().prepareSearchScroll(scrollId).setScroll(SCROLL_KEEP_ALIVE).execute().actionGet();
+            scrollId = response.getScrollId();
+            if (!somethingFound(response)) {
+                close();
+                return false;
+            }
+            hits = response.getHits().getHits();
+            index = 0;
+            return true;
+        }
 
-            if (response.getHits().totalHits() == response.getHits().hits().length) {
-                response = null;
-            } else {
-                response = searchRequestBuilder.execute().actionGet();
+        @Override
+        @SuppressWarnings("unchecked")
+        @SneakyThrows({ IOException.class })
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            SearchHit hit = hits[index++];
+            return (T) getJsonMapper().readValue(hit.getSourceAsString(), getClassFromType(hit.getType()));
+        }
+
+        @Override
+        public void close() {
+            String toClear = scrollId;
+            scrollId = null;
+            hits = new SearchHit[0];
+            clearScroll(toClear);
         }
     }
 
@@ -147,6 +253,59 @@ public abstract class ESGenericSearchDAO extends ESGenericIdDAO implements IGene
         return doCustomFind(clazz, query, sortBuilder, Integer.MAX_VALUE);
     }
 
+    @Override
+    public List<Object> customFindMultiple(Class<?>[] classes, QueryBuilder[] queries) {
+        List<Object> results = Lists.newArrayListWithCapacity(queries.length);
+        for (List<Object> queryResults : customFindAllMultiple(classes, queries, 1)) {
+            results.add(queryResults.isEmpty() ? null : queryResults.get(0));
+        }
+        return results;
+    }
+
+    @Override
+    @SneakyThrows({ IOException.class })
+    public List<List<Object>> customFindAllMultiple(Class<?>[] classes, QueryBuilder[] queries, int maxElements) {
+        List<List<Object>> results = Lists.newArrayListWithCapacity(queries.length);
+        if (queries.length == 0) {
+            return results;
+        }
+        MultiSearchRequestBuilder multiSearchRequestBuilder = getClient().prepareMultiSearch();
+        for (int i = 0; i < queries.length; i++) {
+            multiSearchRequestBuilder.add(getClient().prepareSearch(getIndexForType(classes[i])).setTypes(getTypesFromClass(classes[i])).setQuery(queries[i])
+                    .setSize(maxElements));
+        }
+        MultiSearchResponse multiSearchResponse = multiSearchRequestBuilder.execute().actionGet();
+        for (MultiSearchResponse.Item item : multiSearchResponse.getResponses()) {
+            if (item.isFailure()) {
+                throw new IndexingServiceException("Failed to execute multi search request: " + item.getFailureMessage());
+            }
+            SearchResponse response = item.getResponse();
+            List<Object> queryResults = Lists.newArrayList();
+            if (somethingFound(response)) {
+                for (SearchHit hit : response.getHits().getHits()) {
+                    queryResults.add(getJsonMapper().readValue(hit.getSourceAsString(), getClassFromType(hit.getType())));
+                }
+            }
+            results.add(queryResults);
+        }
+        return results;
+    }
+
+    @Override
+    public Map<String, Long> countByTerms(Class<?> clazz, String field) {
+        // size 0 on terms aggregation means all the terms.
+        SearchResponse searchResponse = getClient().prepareSearch(getIndexForType(clazz)).setTypes(getTypesFromClass(clazz)).setSize(0)
+                .addAggregation(AggregationBuilders.terms("terms_count").field(field).size(0)).execute().actionGet();
+        Map<String, Long> counts = Maps.newHashMap();
+        Terms terms = searchResponse.getAggregations() == null ? null : (Terms) searchResponse.getAggregations().get("terms_count");
+        if (terms != null) {
+            for (Terms.Bucket bucket : terms.getBuckets()) {
+                counts.put(bucket.getKey(), bucket.getDocCount());
+            }
+        }
+        return counts;
+    }
+
     @Override
     public <T> GetMultipleDataResult<T> find(Class<T> clazz, Map<String, String[]> filters, int maxElements) {
         return find(clazz, filters, 0, maxElements);
@@ -370,7 +529,17 @@ public abstract class ESGenericSearchDAO extends ESGenericIdDAO implements IGene
     @Override
     public <T> List<T> findByIdsWithContext(Class<T> clazz, String fetchContext, String... ids) {
 
+        // TODO: correctly manage "from" and "size"
+        SearchRequestBuilder searchRequestBuilder = getClient().prepareSearch(getIndexForType(clazz))
+                .setQuery(QueryBuilders.idsQuery(MappingBuilder.indexTypeFromClass(clazz)).ids(ids)).setSize(20);
         // get the fetch context for the given type and apply it to the search
+        setFetchContext(searchRequestBuilder, clazz, fetchContext);
+
+        SearchResponse searchResponse = searchRequestBuilder.execute().actionGet();
+        return toGetListOfData(searchResponse, clazz);
+    }
+
+    private void setFetchContext(SearchRequestBuilder searchRequestBuilder, Class<?> clazz, String fetchContext) {
         List<String> includes = new ArrayList<String>();
         List<String> excludes = new ArrayList<String>();
         SourceFetchContext sourceFetchContext = getMappingBuilder().getFetchSource(clazz.getName(), fetchContext);
@@ -383,13 +552,7 @@ public abstract class ESGenericSearchDAO extends ESGenericIdDAO implements IGene
 
         String[] inc = includes.isEmpty() ? null : includes.toArray(new String[includes.size()]);
         String[] exc = excludes.isEmpty() ? null : excludes.toArray(new String[excludes.size()]);
-
-        // TODO: correctly manage "from" and "size"
-        SearchRequestBuilder searchRequestBuilder = getClient().prepareSearch(getIndexForType(clazz))
-                .setQuery(QueryBuilders.idsQuery(MappingBuilder.indexTypeFromClass(clazz)).ids(ids)).setFetchSource(inc, exc).setSize(20);
-
-        SearchResponse searchResponse = searchRequestBuilder.execute().actionGet();
-        return toGetListOfData(searchResponse, clazz);
+        searchRequestBuilder.setFetchSource(inc, exc);
     }
 
     @Override
@@ -1,6 +1,7 @@
 package alien4cloud.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import org.elasticsearch.index.query.QueryBuilder;
 
@@ -17,6 +18,14 @@ public interface IGenericIdDAO {
      */
     <T> void save(T entity);
 
+    /**
+     * Saves an entity into the repository with a specific write consistency.
+     * 
+     * @param entity the entity to save
+     * @param consistency Defines when the saved entity becomes visible to search requests.
+     */
+    <T> void save(T entity, WriteConsistency consistency);
+
     /**
      * Bulk save multiple entities into the repository
      * 
@@ -24,6 +33,23 @@ public interface IGenericIdDAO {
      */
     <T> void save(T[] entities);
 
+    /**
+     * Bulk save multiple entities into the repository with a specific write consistency.
+     * 
+     * @param entities The entities to save.
+     * @param consistency Defines when the saved entities become visible to search requests.
+     */
+    <T> void save(T[] entities, WriteConsistency consistency);
+
+    /**
+     * Bulk update some fields of multiple entities of the same type, other fields are left unchanged.
+     *
+     * @param clazz The class of the entities to update.
+     * @param fieldsById Map of entity id to the map of field name to new value.
+     * @param consistency Defines when the updated entities become visible to search requests.
+     */
+    void updateFields(Class<?> clazz, Map<String, Map<String, Object>> fieldsById, WriteConsistency consistency);
+
     /**
      * Find an instance from the given class.
      * 
@@ -49,4 +75,20 @@ public interface IGenericIdDAO {
      * @param id The id of the object to delete.
      */
     void delete(Class<?> clazz, String id);
+
+    /**
+     * Delete an instance from the given class with a specific write consistency.
+     * 
+     * @param clazz The class of the object to delete.
+     * @param id The id of the object to delete.
+     * @param consistency Defines when the deletion becomes visible to search requests.
+     */
+    void delete(Class<?> clazz, String id, WriteConsistency consistency);
+
+    /**
+     * Get the consistency applied to write operations that do not specify one.
+     * 
+     * @return The default write consistency of the dao.
+     */
+    WriteConsistency getDefaultWriteConsistency();
 }
\ No newline at end of file
@@ -62,6 +62,29 @@ public interface IGenericSearchDAO extends IGenericIdDAO {
      */
     void delete(Class<?> clazz, QueryBuilder query);
 
+    /**
+     * Delete all the data of a given class that match a query. Matching ids are streamed from elastic search and deleted by bulk requests, the index is
+     * refreshed once all data have been deleted according to the given consistency.
+     *
+     * @param clazz The type of data to delete.
+     * @param query The query that matches the data to delete.
+     * @param consistency The consistency of the delete operation.
+     */
+    void delete(Class<?> clazz, QueryBuilder query, WriteConsistency consistency);
+
+    /**
+     * Iterate over all the data of a given class that match a query. Results are fetched lazily by batches so the memory used does not depend on the number of
+     * results, there is no guarantee on the order of the results.
+     *
+     * @param clazz The type of data to query.
+     * @param query The query to execute (null to match all).
+     * @param fetchContext The fetch context to apply to the results (null to fetch full documents).
+     * @param batchSize The maximum number of results fetched from every shard of the index by a single request to elastic search (scan scroll), a request
+     *            returns up to batchSize * number of shards results.
+     * @return An iterator over the results that must be closed if not fully consumed.
+     */
+    <T> IScrollIterator<T> scroll(Class<T> clazz, QueryBuilder query, String fetchContext, int batchSize);
+
     /**
      * Run a custom query on elastic search for the given class.
      *
@@ -100,6 +123,34 @@ public interface IGenericSearchDAO extends IGenericIdDAO {
      */
     <T> List<T> customFindAll(Class<T> clazz, QueryBuilder query, SortBuilder sortBuilder);
 
+    /**
+     * Run multiple custom queries on elastic search in a single multi-search request.
+     *
+     * @param classes The type of data to query for each of the queries.
+     * @param queries The queries to execute (must have the same length as classes).
+     * @return A list that contains, for each query and in the same order, the first matching result or null if nothing matches the query.
+     */
+    List<Object> customFindMultiple(Class<?>[] classes, QueryBuilder[] queries);
+
+    /**
+     * Run multiple custom queries on elastic search in a single multi-search request.
+     *
+     * @param classes The type of data to query for each of the queries.
+     * @param queries The queries to execute (must have the same length as classes).
+     * @param maxElements The maximum number of results to return for each query.
+     * @return A list that contains, for each query and in the same order, the list of matching results (empty if nothing matches the query).
+     */
+    List<List<Object>> customFindAllMultiple(Class<?>[] classes, QueryBuilder[] queries, int maxElements);
+
+    /**
+     * Count the number of documents for every value of a field using a single terms aggregation.
+     *
+     * @param clazz The type of data to aggregate.
+     * @param field The field on which to aggregate (must be a not analyzed field).
+     * @return A map of field value to the number of documents that have this value.
+     */
+    Map<String, Long> countByTerms(Class<?> clazz, String field);
+
     /**
      * Run a query build from a {@link SearchQueryHelperBuilder}.
      *
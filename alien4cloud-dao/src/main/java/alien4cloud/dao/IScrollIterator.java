@@ -0,0 +1,24 @@
+package alien4cloud.dao;
+
+import java.util.Iterator;
+
+/**
+ * Iterator over the results of a search that are fetched lazily from elastic search by batches.
+ *
+ * The iterator keeps a scroll context opened on elastic search until all results have been read or until it is closed, iterators that are not fully consumed
+ * must be closed.
+ *
+ * @param <T> The type of the results.
+ */
+public interface IScrollIterator<T> extends Iterator<T>, AutoCloseable {
+    /**
+     * @return The total number of results matching the search.
+     */
+    long getTotalResults();
+
+    /**
+     * Release the scroll context of the search.
+     */
+    @Override
+    void close();
+}
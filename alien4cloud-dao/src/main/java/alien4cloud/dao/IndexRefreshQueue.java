@@ -0,0 +1,137 @@
+package alien4cloud.dao;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elasticsearch.client.Client;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import alien4cloud.exception.IndexingServiceException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind refresh queue that coalesces elastic search index refreshes.
+ *
+ * Writes performed with a {@link WriteConsistency} other than {@link WriteConsistency#IMMEDIATE} register the indices they modified in this queue. A single
+ * background thread refreshes all dirty indices at a fixed interval, so that many writes on the same index share a single refresh.
+ */
+@Slf4j
+public class IndexRefreshQueue {
+    private final Client client;
+    private final ScheduledExecutorService scheduler;
+    /** Map of index name to the future that will be completed once the next refresh of the index is done. */
+    private final ConcurrentHashMap<String, SettableFuture<Void>> pendingRefreshes = new ConcurrentHashMap<>();
+    /** Once shut down there is no background refresher anymore and writes are refreshed synchronously when registered. */
+    private volatile boolean shutdown;
+
+    /** Number of writes that have been registered in the queue. */
+    @Getter
+    private final AtomicLong registeredWrites = new AtomicLong();
+    /** Number of refresh requests actually sent to elastic search. */
+    @Getter
+    private final AtomicLong executedRefreshes = new AtomicLong();
+
+    /**
+     * Create a new refresh queue and start the background refresher.
+     *
+     * @param client The elastic search client to use to trigger refreshes.
+     * @param refreshIntervalMs The interval in milliseconds between two coalesced refreshes.
+     */
+    public IndexRefreshQueue(Client client, long refreshIntervalMs) {
+        this.client = client;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "es-index-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flush, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Register a write on the given indices.
+     *
+     * @param indices The indices that have been modified by the write.
+     * @return A future that is completed once all the given indices have been refreshed after the write (already completed if the queue is shut down).
+     */
+    public ListenableFuture<List<Void>> register(String... indices) {
+        registeredWrites.incrementAndGet();
+        List<ListenableFuture<Void>> futures = Lists.newArrayListWithCapacity(indices.length);
+        for (String index : indices) {
+            futures.add(pendingRefreshes.computeIfAbsent(index, key -> SettableFuture.create()));
+        }
+        if (shutdown) {
+            // the flag is checked after the registration so the write is either flushed by shutdown or here.
+            flush();
+        }
+        return Futures.allAsList(futures);
+    }
+
+    /**
+     * Register a write on the given indices and block until the indices have been refreshed.
+     *
+     * @param indices The indices that have been modified by the write.
+     */
+    public void registerAndWait(String... indices) {
+        try {
+            register(indices).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexingServiceException("Interrupted while waiting for refresh of indices.", e);
+        } catch (ExecutionException e) {
+            throw new IndexingServiceException("Failed to refresh indices.", e.getCause());
+        }
+    }
+
+    /**
+     * Refresh all the indices that have pending writes and complete the associated futures.
+     */
+    public void flush() {
+        if (pendingRefreshes.isEmpty()) {
+            return;
+        }
+        // futures are removed before the refresh is triggered so any write registered after this point will be covered by the next flush.
+        Map<String, SettableFuture<Void>> toRefresh = Maps.newHashMap();
+        for (String index : pendingRefreshes.keySet()) {
+            SettableFuture<Void> future = pendingRefreshes.remove(index);
+            if (future != null) {
+                toRefresh.put(index, future);
+            }
+        }
+        if (toRefresh.isEmpty()) {
+            return;
+        }
+        try {
+            client.admin().indices().prepareRefresh(toRefresh.keySet().toArray(new String[toRefresh.size()])).execute().actionGet();
+            executedRefreshes.incrementAndGet();
+            for (SettableFuture<Void> future : toRefresh.values()) {
+                future.set(null);
+            }
+        } catch (Exception e) {
+            log.error("Failed to refresh indices <" + toRefresh.keySet() + ">", e);
+            for (SettableFuture<Void> future : toRefresh.values()) {
+                future.setException(e);
+            }
+        }
+    }
+
+    /**
+     * Flush the pending refreshes and stop the background refresher, writes registered afterwards are refreshed synchronously.
+     */
+    public void shutdown() {
+        shutdown = true;
+        scheduler.shutdown();
+        flush();
+    }
+}
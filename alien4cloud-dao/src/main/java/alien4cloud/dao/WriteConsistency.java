@@ -0,0 +1,16 @@
+package alien4cloud.dao;
+
+/**
+ * Defines when the result of a write operation performed through an {@link IGenericIdDAO} becomes visible to search requests.
+ *
+ * Note that get operations (findById, findByIds) are realtime in elastic search and always see the latest written version of a document, whatever the
+ * consistency used to write it.
+ */
+public enum WriteConsistency {
+    /** The index is refreshed as part of the write request, data is searchable as soon as the call returns (read-your-writes). */
+    IMMEDIATE,
+    /** The write does not refresh the index itself but the call blocks until the next coalesced refresh of the index has completed. */
+    WAIT_FOR_VISIBLE,
+    /** The call returns as soon as data is indexed, it becomes searchable after the next coalesced refresh of the index. */
+    EVENTUAL
+}
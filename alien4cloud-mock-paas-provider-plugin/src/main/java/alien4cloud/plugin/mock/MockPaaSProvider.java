@@ -20,6 +20,8 @@ import alien4cloud.model.components.IndexedRelationshipType;
 import alien4cloud.model.deployment.Deployment;
 import alien4cloud.model.topology.*;
 import alien4cloud.paas.IPaaSCallback;
+import alien4cloud.paas.IPaaSEventSink;
+import alien4cloud.paas.IPushEventsPaaSProvider;
 import alien4cloud.paas.exception.PluginConfigurationException;
 import alien4cloud.paas.model.*;
 import alien4cloud.paas.plan.ToscaNodeLifecycleConstants;
@@ -32,7 +34,7 @@ import alien4cloud.tosca.normative.NormativeRelationshipConstants;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-public abstract class MockPaaSProvider extends AbstractPaaSProvider {
+public abstract class MockPaaSProvider extends AbstractPaaSProvider implements IPushEventsPaaSProvider {
     public static final String PUBLIC_IP = "ip_address";
     public static final String TOSCA_ID = "tosca_id";
     public static final String TOSCA_NAME = "tosca_name";
@@ -47,6 +49,9 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
 
     private final List<AbstractMonitorEvent> toBeDeliveredEvents = Collections.synchronizedList(new ArrayList<AbstractMonitorEvent>());
 
+    /** Sink in which events are pushed when alien supports it, events are kept for polling otherwise. */
+    private volatile IPaaSEventSink eventSink;
+
     @Resource
     private CSARRepositorySearchService csarRepoSearchService;
 
@@ -216,12 +221,12 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
                 event.setDeploymentStatus(status);
                 event.setDate((new Date()).getTime());
                 event.setDeploymentId(paaSDeploymentIdToAlienDeploymentIdMap.get(deploymentPaaSId));
-                toBeDeliveredEvents.add(event);
+                deliverEvent(event);
                 PaaSMessageMonitorEvent messageMonitorEvent = new PaaSMessageMonitorEvent();
                 messageMonitorEvent.setDate((new Date()).getTime());
                 messageMonitorEvent.setDeploymentId(paaSDeploymentIdToAlienDeploymentIdMap.get(deploymentPaaSId));
                 messageMonitorEvent.setMessage("APPLICATIONS.RUNTIME.EVENTS.MESSAGE_EVENT.STATUS_DEPLOYMENT_CHANGED");
-                toBeDeliveredEvents.add(messageMonitorEvent);
+                deliverEvent(messageMonitorEvent);
             }
         }, 2, TimeUnit.SECONDS);
         return oldDeploymentStatus;
@@ -251,19 +256,19 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
                 event.setDeploymentId(paaSDeploymentIdToAlienDeploymentIdMap.get(deploymentPaaSId));
                 event.setRuntimeProperties(cloned.getRuntimeProperties());
                 event.setAttributes(cloned.getAttributes());
-                toBeDeliveredEvents.add(event);
+                deliverEvent(event);
 
                 if (deployment.getSourceName().equals(BLOCKSTORAGE_APPLICATION) && cloned.getState().equalsIgnoreCase("created")) {
                     PaaSInstancePersistentResourceMonitorEvent prme = new PaaSInstancePersistentResourceMonitorEvent(nodeId, instanceId.toString(),
                             NormativeBlockStorageConstants.VOLUME_ID, UUID.randomUUID().toString());
-                    toBeDeliveredEvents.add(prme);
+                    deliverEvent(prme);
                 }
 
                 PaaSMessageMonitorEvent messageMonitorEvent = new PaaSMessageMonitorEvent();
                 messageMonitorEvent.setDate((new Date()).getTime());
                 messageMonitorEvent.setDeploymentId(paaSDeploymentIdToAlienDeploymentIdMap.get(deploymentPaaSId));
                 messageMonitorEvent.setMessage("APPLICATIONS.RUNTIME.EVENTS.MESSAGE_EVENT.INSTANCE_STATE_CHANGED");
-                toBeDeliveredEvents.add(messageMonitorEvent);
+                deliverEvent(messageMonitorEvent);
             }
         }, delay, TimeUnit.SECONDS);
     }
@@ -278,7 +283,7 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
                 event.setNodeTemplateId(nodeId);
                 event.setDate((new Date()).getTime());
                 event.setDeploymentId(paaSDeploymentIdToAlienDeploymentIdMap.get(deploymentPaaSId));
-                toBeDeliveredEvents.add(event);
+                deliverEvent(event);
             }
         }, delay, TimeUnit.SECONDS);
     }
@@ -453,6 +458,26 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
         }
     }
 
+    @Override
+    public void setEventSink(IPaaSEventSink eventSink) {
+        this.eventSink = eventSink;
+    }
+
+    private void deliverEvent(AbstractMonitorEvent event) {
+        IPaaSEventSink sink = eventSink;
+        if (sink == null) {
+            toBeDeliveredEvents.add(event);
+            return;
+        }
+        try {
+            // block the simulation when alien does not consume events fast enough
+            sink.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            toBeDeliveredEvents.add(event);
+        }
+    }
+
     @Override
     public void getEventsSince(Date date, int maxEvents, IPaaSCallback<AbstractMonitorEvent[]> eventsCallback) {
         AbstractMonitorEvent[] events = toBeDeliveredEvents.toArray(new AbstractMonitorEvent[toBeDeliveredEvents.size()]);
@@ -230,7 +230,8 @@ public class ApplicationDeploymentController {
     @RequestMapping(value = "/{applicationId}/environments/{applicationEnvironmentId}/deployment/informations", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
     public DeferredResult<RestResponse<Map<String, Map<String, InstanceInformation>>>> getInstanceInformation(@PathVariable String applicationId,
-            @PathVariable String applicationEnvironmentId) {
+            @PathVariable String applicationEnvironmentId,
+            @ApiParam(value = "Reload the instances informations from the orchestrator rather than from the monitored state.") @RequestParam(required = false, defaultValue = "false") boolean refresh) {
         Application application = applicationService.checkAndGetApplication(applicationId);
         ApplicationEnvironment environment = applicationEnvironmentService.getEnvironmentByIdOrDefault(application.getId(), applicationEnvironmentId);
         if (!AuthorizationUtil.hasAuthorizationForApplication(application, ApplicationRole.APPLICATION_MANAGER)) {
@@ -243,7 +244,7 @@ public class ApplicationDeploymentController {
             instancesDeferredResult.setResult(RestResponseBuilder.<Map<String, Map<String, InstanceInformation>>> builder().build());
         } else {
             try {
-                deploymentRuntimeStateService.getInstancesInformation(deployment, new IPaaSCallback<Map<String, Map<String, InstanceInformation>>>() {
+                IPaaSCallback<Map<String, Map<String, InstanceInformation>>> callback = new IPaaSCallback<Map<String, Map<String, InstanceInformation>>>() {
                     @Override
                     public void onSuccess(Map<String, Map<String, InstanceInformation>> data) {
                         instancesDeferredResult.setResult(RestResponseBuilder.<Map<String, Map<String, InstanceInformation>>> builder().data(data).build());
@@ -253,7 +254,12 @@ public class ApplicationDeploymentController {
                     public void onFailure(Throwable throwable) {
                         instancesDeferredResult.setErrorResult(throwable);
                     }
-                });
+                };
+                if (refresh) {
+                    deploymentRuntimeStateService.refreshInstancesInformation(deployment, callback);
+                } else {
+                    deploymentRuntimeStateService.getInstancesInformation(deployment, callback);
+                }
             } catch (OrchestratorDisabledException e) {
                 log.error("Cannot get instance informations as topology plugin cannot be found.", e);
                 instancesDeferredResult.setResult(RestResponseBuilder.<Map<String, Map<String, InstanceInformation>>> builder().build());
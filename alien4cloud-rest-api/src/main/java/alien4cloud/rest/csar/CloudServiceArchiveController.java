@@ -1,11 +1,16 @@
 package alien4cloud.rest.csar;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import javax.annotation.Resource;
 import javax.validation.Valid;
@@ -21,6 +26,7 @@ import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import com.google.common.collect.Lists;
 
@@ -41,7 +47,9 @@ import alien4cloud.model.components.Csar;
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.rest.component.SearchRequest;
 import alien4cloud.rest.model.*;
+import alien4cloud.tosca.ArchiveBatchUploadService;
 import alien4cloud.tosca.ArchiveUploadService;
+import alien4cloud.tosca.IArchiveUploadListener;
 import alien4cloud.tosca.parser.ParsingError;
 import alien4cloud.tosca.parser.ParsingErrorLevel;
 import alien4cloud.tosca.parser.ParsingException;
@@ -58,6 +66,8 @@ import springfox.documentation.annotations.ApiIgnore;
 @RequestMapping({ "/rest/csars", "/rest/v1/csars", "/rest/latest/csars" })
 @Slf4j
 public class CloudServiceArchiveController {
+    /** Newline delimited json, the format of the streamed batch upload results. */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
 
     @Resource
     private ArchiveUploadService csarUploadService;
@@ -68,6 +78,11 @@ public class CloudServiceArchiveController {
     private Path tempDirPath;
     @Resource
     private CsarService csarService;
+    @Resource
+    private ArchiveBatchUploadService batchUploadService;
+    /** Maximum duration of a batch upload request. */
+    @Value("${upload.batch_timeout_ms:3600000}")
+    private long batchUploadTimeoutMs;
 
     @ApiOperation(value = "Upload a csar zip file.")
     @RequestMapping(method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -82,44 +97,172 @@ public class CloudServiceArchiveController {
             // save the archive in the temp directory
             FileUploadUtil.safeTransferTo(csarPath, csar);
             // load, parse the archive definitions and save on disk
-            ParsingResult<Csar> result = csarUploadService.upload(csarPath, CSARSource.UPLOAD);
-            RestError error = null;
-            if (result.hasError(ParsingErrorLevel.ERROR)) {
-                error = RestErrorBuilder.builder(RestErrorCode.CSAR_PARSING_ERROR).build();
+            return toUploadResponse(csarUploadService.upload(csarPath, CSARSource.UPLOAD));
+        } catch (ParsingException | CSARVersionAlreadyExistsException | CSARUsedInActiveDeployment e) {
+            return toUploadErrorResponse(csar.getOriginalFilename(), e);
+        } finally {
+            if (csarPath != null) {
+                // Clean up
+                try {
+                    FileUtil.delete(csarPath);
+                } catch (IOException e) {
+                    // The repository might just move the file instead of copying to save IO disk access
+                }
+            }
+        }
+    }
+
+    @ApiOperation(value = "Upload multiple csar zip files.", notes = "Files may be archives or zip files that contains archives. Archives are uploaded in the order of their dependencies, independent archives being uploaded concurrently. A batch that contains the same archive (name and version) twice is rejected before any upload. The response is streamed as newline delimited json (application/x-ndjson): one line with the json upload result (file name, upload result and error) of every archive as soon as it is processed.")
+    @RequestMapping(value = "/batch", method = RequestMethod.POST, produces = APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'COMPONENTS_MANAGER', 'ARCHITECT')")
+    @Audit
+    public ResponseBodyEmitter uploadCSARs(@RequestParam("file") MultipartFile[] csars) throws IOException {
+        // uploaded files are removed at the end of the request so they must be saved before going asynchronous.
+        final Path batchPath = Files.createTempDirectory(tempDirPath, "batch");
+        boolean uploadStarted = false;
+        try {
+            final Map<Path, String> fileNames = Maps.newHashMap();
+            for (MultipartFile csar : csars) {
+                log.info("Serving batch file upload with name [" + csar.getOriginalFilename() + "]");
+                Path csarPath = Files.createTempFile(batchPath, null, '.' + CsarFileRepository.CSAR_EXTENSION);
+                FileUploadUtil.safeTransferTo(csarPath, csar);
+                if (isZipOfArchives(csarPath)) {
+                    fileNames.putAll(expandArchives(csarPath, batchPath));
+                    FileUtil.delete(csarPath);
+                } else {
+                    fileNames.put(csarPath, csar.getOriginalFilename());
+                }
             }
-            return RestResponseBuilder.<CsarUploadResult> builder().error(error).data(toUploadResult(result)).build();
-        } catch (ParsingException e) {
-            log.error("Error happened while parsing csar file <" + e.getFileName() + ">", e);
-            String fileName = e.getFileName() == null ? csar.getOriginalFilename() : e.getFileName();
 
-            CsarUploadResult uploadResult = new CsarUploadResult();
+            final ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchUploadTimeoutMs);
+            batchUploadService.uploadAll(fileNames.keySet(), CSARSource.UPLOAD, new IArchiveUploadListener() {
+                @Override
+                public void uploaded(Path path, ParsingResult<Csar> result) {
+                    RestResponse<CsarUploadResult> response = toUploadResponse(result);
+                    send(emitter, new CsarBatchUploadResult(fileNames.get(path), response.getData(), response.getError()));
+                }
+
+                @Override
+                public void failed(Path path, Exception e) {
+                    RestResponse<CsarUploadResult> response = toUploadErrorResponse(fileNames.get(path), e);
+                    send(emitter, new CsarBatchUploadResult(fileNames.get(path), response.getData(), response.getError()));
+                }
+            }).whenComplete((result, error) -> {
+                if (error == null) {
+                    emitter.complete();
+                } else {
+                    log.error("Batch upload failed", error);
+                    emitter.completeWithError(error);
+                }
+                deleteBatchDirectory(batchPath);
+            });
+            uploadStarted = true;
+            return emitter;
+        } finally {
+            if (!uploadStarted) {
+                deleteBatchDirectory(batchPath);
+            }
+        }
+    }
+
+    private void deleteBatchDirectory(Path batchPath) {
+        try {
+            FileUtil.delete(batchPath);
+        } catch (IOException e) {
+            log.warn("Failed to cleanup batch upload directory", e);
+        }
+    }
+
+    private void send(ResponseBodyEmitter emitter, CsarBatchUploadResult result) {
+        // results are sent from the upload threads.
+        synchronized (emitter) {
+            try {
+                emitter.send(result, MediaType.APPLICATION_JSON);
+                emitter.send("\n", MediaType.TEXT_PLAIN);
+            } catch (IOException e) {
+                log.debug("Unable to send batch upload result, client may have disconnected", e);
+            }
+        }
+    }
+
+    /**
+     * Check if a zip file contains only archives (zip or csar files) rather than TOSCA definitions.
+     */
+    private boolean isZipOfArchives(Path zipPath) throws IOException {
+        if (!FileUtil.isZipFile(zipPath)) {
+            return false;
+        }
+        boolean containsArchives = false;
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (!entry.getName().endsWith(".zip") && !entry.getName().endsWith('.' + CsarFileRepository.CSAR_EXTENSION)) {
+                    return false;
+                }
+                containsArchives = true;
+            }
+        }
+        return containsArchives;
+    }
+
+    private Map<Path, String> expandArchives(Path zipPath, Path targetPath) throws IOException {
+        Map<Path, String> fileNames = Maps.newHashMap();
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                Path archivePath = Files.createTempFile(targetPath, null, '.' + CsarFileRepository.CSAR_EXTENSION);
+                try (InputStream is = zipFile.getInputStream(entry)) {
+                    Files.copy(is, archivePath, StandardCopyOption.REPLACE_EXISTING);
+                }
+                fileNames.put(archivePath, entry.getName());
+            }
+        }
+        return fileNames;
+    }
+
+    private RestResponse<CsarUploadResult> toUploadResponse(ParsingResult<Csar> result) {
+        RestError error = null;
+        if (result.hasError(ParsingErrorLevel.ERROR)) {
+            error = RestErrorBuilder.builder(RestErrorCode.CSAR_PARSING_ERROR).build();
+        }
+        return RestResponseBuilder.<CsarUploadResult> builder().error(error).data(toUploadResult(result)).build();
+    }
+
+    private RestResponse<CsarUploadResult> toUploadErrorResponse(String originalFileName, Exception exception) {
+        CsarUploadResult uploadResult = new CsarUploadResult();
+        if (exception instanceof ParsingException) {
+            ParsingException e = (ParsingException) exception;
+            log.error("Error happened while parsing csar file <" + e.getFileName() + ">", e);
+            String fileName = e.getFileName() == null ? originalFileName : e.getFileName();
             uploadResult.getErrors().put(fileName, e.getParsingErrors());
             return RestResponseBuilder.<CsarUploadResult> builder().error(RestErrorBuilder.builder(RestErrorCode.CSAR_INVALID_ERROR).build()).data(uploadResult)
                     .build();
-        } catch (CSARVersionAlreadyExistsException e) {
-            log.error("A CSAR with the same name and the same version already existed in the repository", e);
-            CsarUploadResult uploadResult = new CsarUploadResult();
-            uploadResult.getErrors().put(csar.getOriginalFilename(), Lists.newArrayList(new ParsingError(ErrorCode.CSAR_ALREADY_EXISTS, "CSAR already exists",
-                    null, "Unable to override an existing CSAR if the version is not a SNAPSHOT version.", null, null)));
+        }
+        if (exception instanceof CSARVersionAlreadyExistsException) {
+            log.error("A CSAR with the same name and the same version already existed in the repository", exception);
+            uploadResult.getErrors().put(originalFileName, Lists.newArrayList(new ParsingError(ErrorCode.CSAR_ALREADY_EXISTS, "CSAR already exists", null,
+                    "Unable to override an existing CSAR if the version is not a SNAPSHOT version.", null, null)));
             return RestResponseBuilder.<CsarUploadResult> builder().error(RestErrorBuilder.builder(RestErrorCode.ALREADY_EXIST_ERROR).build())
                     .data(uploadResult).build();
-        } catch (CSARUsedInActiveDeployment e) {
-            log.error("This csar is used in an active deployment. It cannot be overrided.", e);
-            CsarUploadResult uploadResult = new CsarUploadResult();
-            uploadResult.getErrors().put(csar.getOriginalFilename(), Lists.newArrayList(new ParsingError(ErrorCode.CSAR_USED_IN_ACTIVE_DEPLOYMENT,
+        }
+        if (exception instanceof CSARUsedInActiveDeployment) {
+            log.error("This csar is used in an active deployment. It cannot be overrided.", exception);
+            uploadResult.getErrors().put(originalFileName, Lists.newArrayList(new ParsingError(ErrorCode.CSAR_USED_IN_ACTIVE_DEPLOYMENT,
                     "CSAR used in active deployment", null, "Unable to override a csar used in an active deployment.", null, null)));
             return RestResponseBuilder.<CsarUploadResult> builder().error(RestErrorBuilder.builder(RestErrorCode.RESOURCE_USED_ERROR).build())
                     .data(uploadResult).build();
-        } finally {
-            if (csarPath != null) {
-                // Clean up
-                try {
-                    FileUtil.delete(csarPath);
-                } catch (IOException e) {
-                    // The repository might just move the file instead of copying to save IO disk access
-                }
-            }
         }
+        log.error("Unexpected error while uploading csar file <" + originalFileName + ">", exception);
+        return RestResponseBuilder.<CsarUploadResult> builder()
+                .error(RestErrorBuilder.builder(RestErrorCode.UNCATEGORIZED_ERROR).message(exception.getMessage()).build()).data(uploadResult).build();
     }
 
     private CsarUploadResult toUploadResult(ParsingResult<Csar> result) {
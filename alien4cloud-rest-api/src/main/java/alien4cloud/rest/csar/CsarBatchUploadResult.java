@@ -0,0 +1,21 @@
+package alien4cloud.rest.csar;
+
+import alien4cloud.rest.model.RestError;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Result of the upload of an archive in a batch upload.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor(suppressConstructorProperties = true)
+public class CsarBatchUploadResult {
+    /** Name of the uploaded file (or of the archive entry when archives are uploaded as a zip of archives). */
+    private String fileName;
+    private CsarUploadResult data;
+    private RestError error;
+}
@@ -10,6 +10,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.support.WebApplicationContextUtils;
@@ -49,6 +50,14 @@ public class ImageServlet extends HttpServlet {
 
         final ImageData imageData = this.imageDAO.readImage(imageId, imageQuality);
         if (imageData != null) {
+            if (imageData.getEtag() != null) {
+                String etag = "\"" + imageData.getEtag() + "\"";
+                resp.setHeader(HttpHeaders.ETAG, etag);
+                if (etag.equals(req.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+                    resp.setStatus(HttpStatus.NOT_MODIFIED.value());
+                    return;
+                }
+            }
             // Set content type
             resp.setContentType(imageData.getMime());
             // Set content size
@@ -0,0 +1,140 @@
+package alien4cloud.rest.csar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import alien4cloud.model.components.CSARSource;
+import alien4cloud.model.components.Csar;
+import alien4cloud.rest.utils.JsonUtil;
+import alien4cloud.tosca.ArchiveBatchUploadService;
+import alien4cloud.tosca.IArchiveUploadListener;
+import alien4cloud.tosca.parser.ParsingContext;
+import alien4cloud.tosca.parser.ParsingResult;
+import alien4cloud.utils.FileUtil;
+
+/**
+ * Check that the batch upload endpoint saves the uploaded files, expands zips of archives and streams one result per archive.
+ */
+public class CloudServiceArchiveControllerTest {
+    private Path tempDir;
+    private ArchiveBatchUploadService batchUploadService;
+    private CloudServiceArchiveController controller;
+
+    @Before
+    public void init() throws IOException {
+        tempDir = Files.createTempDirectory("csar-controller-test");
+        batchUploadService = Mockito.mock(ArchiveBatchUploadService.class);
+        controller = new CloudServiceArchiveController();
+        controller.setTempDirPath(tempDir.toString());
+        ReflectionTestUtils.setField(controller, "batchUploadService", batchUploadService);
+        ReflectionTestUtils.setField(controller, "batchUploadTimeoutMs", 10000L);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        FileUtil.delete(tempDir);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void batchUploadStreamsOneResultPerArchive() throws Exception {
+        final List<String> uploadedContents = Lists.newArrayList();
+        Mockito.when(batchUploadService.uploadAll(Mockito.anySetOf(Path.class), Mockito.eq(CSARSource.UPLOAD), Mockito.any(IArchiveUploadListener.class)))
+                .thenAnswer(new Answer<CompletableFuture<Void>>() {
+                    @Override
+                    public CompletableFuture<Void> answer(InvocationOnMock invocation) throws Throwable {
+                        IArchiveUploadListener listener = (IArchiveUploadListener) invocation.getArguments()[2];
+                        for (Path path : (Set<Path>) invocation.getArguments()[0]) {
+                            String content = new String(Files.readAllBytes(path), Charsets.UTF_8);
+                            uploadedContents.add(content);
+                            listener.uploaded(path, new ParsingResult<>(new Csar(content, "1.0.0"), new ParsingContext(content)));
+                        }
+                        return CompletableFuture.completedFuture(null);
+                    }
+                });
+
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.fileUpload("/rest/v1/csars/batch")
+                .file(new MockMultipartFile("file", "single.csar", null, "single".getBytes(Charsets.UTF_8)))
+                .file(new MockMultipartFile("file", "bundle.zip", null, zip("first.csar", "first", "second.zip", "second"))))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+        result.getAsyncResult();
+
+        Assert.assertEquals(Sets.newHashSet("single", "first", "second"), Sets.newHashSet(uploadedContents));
+        Set<String> fileNames = Sets.newHashSet();
+        for (String line : result.getResponse().getContentAsString().split("\n")) {
+            CsarBatchUploadResult uploadResult = JsonUtil.readObject(line, CsarBatchUploadResult.class);
+            Assert.assertNull(uploadResult.getError());
+            fileNames.add(uploadResult.getFileName());
+        }
+        Assert.assertEquals(Sets.newHashSet("single.csar", "first.csar", "second.zip"), fileNames);
+        // the saved files are removed once the upload completes.
+        assertTempDirectoryIsEmpty();
+    }
+
+    @Test
+    public void savedFilesAreRemovedWhenTheUploadCannotStart() throws Exception {
+        MultipartFile unreadable = new MockMultipartFile("file", "unreadable.csar", null, "unreadable".getBytes(Charsets.UTF_8)) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+        MultipartFile valid = new MockMultipartFile("file", "valid.csar", null, "valid".getBytes(Charsets.UTF_8));
+        try {
+            controller.uploadCSARs(new MultipartFile[] { valid, unreadable });
+            Assert.fail("The upload must fail as a file cannot be saved");
+        } catch (IOException e) {
+            Assert.assertEquals("Connection reset", e.getMessage());
+        }
+        assertTempDirectoryIsEmpty();
+        Mockito.verifyZeroInteractions(batchUploadService);
+    }
+
+    private void assertTempDirectoryIsEmpty() throws IOException {
+        try (Stream<Path> children = Files.list(tempDir)) {
+            Assert.assertEquals(0, children.count());
+        }
+    }
+
+    private byte[] zip(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bos)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zos.putNextEntry(new ZipEntry(namesAndContents[i]));
+                zos.write(namesAndContents[i + 1].getBytes(Charsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+        return bos.toByteArray();
+    }
+}
@@ -0,0 +1,70 @@
+package alien4cloud.servlet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.images.IImageDAO;
+import alien4cloud.images.ImageData;
+import alien4cloud.utils.ImageQuality;
+
+public class ImageServletTest {
+    private static final byte[] DATA = new byte[] { 1, 2, 3 };
+
+    private ImageServlet imageServlet;
+
+    @Before
+    public void init() {
+        ImageData imageData = new ImageData();
+        imageData.setId("image");
+        imageData.setData(DATA);
+        imageData.setMime("image/png");
+        imageData.setEtag("hash");
+        IImageDAO imageDAO = Mockito.mock(IImageDAO.class);
+        Mockito.when(imageDAO.readImage("image", ImageQuality.QUALITY_32)).thenReturn(imageData);
+        imageServlet = new ImageServlet();
+        ReflectionTestUtils.setField(imageServlet, "imageDAO", imageDAO);
+    }
+
+    @Test
+    public void imageIsReturnedWithItsEtag() throws Exception {
+        MockHttpServletResponse response = get(null);
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatus());
+        Assert.assertEquals("\"hash\"", response.getHeader(HttpHeaders.ETAG));
+        Assert.assertEquals("image/png", response.getContentType());
+        Assert.assertArrayEquals(DATA, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void matchingEtagReturnsNotModified() throws Exception {
+        MockHttpServletResponse response = get("\"hash\"");
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        Assert.assertEquals("\"hash\"", response.getHeader(HttpHeaders.ETAG));
+        Assert.assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void staleEtagReturnsTheImage() throws Exception {
+        MockHttpServletResponse response = get("\"previous\"");
+        Assert.assertEquals(HttpStatus.OK.value(), response.getStatus());
+        Assert.assertArrayEquals(DATA, response.getContentAsByteArray());
+    }
+
+    private MockHttpServletResponse get(String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/img");
+        request.setParameter("id", "image");
+        request.setParameter("quality", ImageQuality.QUALITY_32.name());
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        imageServlet.doGet(request, response);
+        return response;
+    }
+}
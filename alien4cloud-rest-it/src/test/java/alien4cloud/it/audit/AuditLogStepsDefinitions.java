@@ -23,24 +23,20 @@ import cucumber.api.java.en.Then;
 import cucumber.api.java.en.When;
 
 public class AuditLogStepsDefinitions {
+    /** Audit traces are saved asynchronously, searches are retried until the expected number of traces is indexed or this timeout expires. */
+    private static final long AUDIT_SEARCH_TIMEOUT_MS = 10000L;
 
     private AuditConfigurationDTO currentAuditConfiguration = null;
 
     @Then("^I should have no audit trace in Alien$")
     public void I_should_have_no_audit_trace_in_Alien() throws Throwable {
-        SearchRequest req = new SearchRequest(null, "", 0, 1, null);
-        String jSon = JsonUtil.toString(req);
-        String restResponse = Context.getRestClientInstance().postJSon("/rest/v1/audit/search", jSon);
-        FacetedSearchResult searchResult = JsonUtil.read(restResponse, FacetedSearchResult.class).getData();
+        FacetedSearchResult searchResult = searchAuditTraces(0, 1);
         Assert.assertEquals(0, searchResult.getTotalResults());
     }
 
     @Then("^I should have (\\d+) audit traces in Alien:$")
     public void I_should_have_audit_traces_in_Alien(int numberOfResult, DataTable rawExpectedAuditTraces) throws Throwable {
-        SearchRequest req = new SearchRequest(null, "", 0, numberOfResult, null);
-        String jSon = JsonUtil.toString(req);
-        String restResponse = Context.getRestClientInstance().postJSon("/rest/v1/audit/search", jSon);
-        FacetedSearchResult searchResult = JsonUtil.read(restResponse, FacetedSearchResult.class).getData();
+        FacetedSearchResult searchResult = searchAuditTraces(numberOfResult, numberOfResult);
         Assert.assertEquals(numberOfResult, searchResult.getTotalResults());
         Object[] searchData = searchResult.getData();
         List<AuditTrace> actualTraces = Lists.newArrayList();
@@ -55,6 +51,19 @@ public class AuditLogStepsDefinitions {
         }
     }
 
+    private FacetedSearchResult searchAuditTraces(int expectedTotal, int size) throws IOException, InterruptedException {
+        String jSon = JsonUtil.toString(new SearchRequest(null, "", 0, size, null));
+        long timeout = System.currentTimeMillis() + AUDIT_SEARCH_TIMEOUT_MS;
+        while (true) {
+            String restResponse = Context.getRestClientInstance().postJSon("/rest/v1/audit/search", jSon);
+            FacetedSearchResult searchResult = JsonUtil.read(restResponse, FacetedSearchResult.class).getData();
+            if (searchResult.getTotalResults() == expectedTotal || System.currentTimeMillis() > timeout) {
+                return searchResult;
+            }
+            Thread.sleep(200L);
+        }
+    }
+
     private boolean auditContains(List<AuditTrace> traces, String userName, String category, String action) {
         for (AuditTrace trace : traces) {
             boolean userMatch = trace.getUserName().equals(userName);
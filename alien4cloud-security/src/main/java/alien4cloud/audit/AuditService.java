@@ -1,7 +1,9 @@
 package alien4cloud.audit;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +16,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.method.HandlerMethod;
 
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+
 import alien4cloud.audit.annotation.Audit;
 import alien4cloud.audit.model.AuditConfiguration;
 import alien4cloud.audit.model.AuditTrace;
@@ -31,32 +36,45 @@ public class AuditService {
 
     @Resource(name = "alien-audit-dao")
     private IGenericSearchDAO alienDAO;
+    @Resource
+    private AuditTraceWriter auditTraceWriter;
 
     /**
-     * Cache the instance of audit configuration bad idea ?
+     * Snapshot of the saved audit configuration with the audited methods, built on startup and replaced as a whole when the configuration is saved so that
+     * readers never lock.
+     */
+    private volatile AuditSnapshot auditSnapshot;
+    /**
+     * The audit descriptor of every controller method that went through the audit filter, absent for methods that cannot be audited.
      */
-    private AuditConfiguration auditConfiguration;
+    private final Map<java.lang.reflect.Method, Optional<Method>> auditedMethodsCache = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        auditSnapshot = new AuditSnapshot(alienDAO.findById(AuditConfiguration.class, AuditConfiguration.ID));
+    }
 
     /**
-     * Get the audit configuration, this method will cache the configuration in memory
+     * Get the audit configuration, the returned configuration is a copy that can be modified and then saved with {@link #saveAuditConfiguration}.
      * 
-     * @return the audit configuration
+     * @return the audit configuration or null if it has not been initialized yet
      */
-    public synchronized AuditConfiguration getAuditConfiguration() {
-        if (this.auditConfiguration == null) {
-            this.auditConfiguration = alienDAO.findById(AuditConfiguration.class, AuditConfiguration.ID);
-        }
-        return this.auditConfiguration;
+    public AuditConfiguration getAuditConfiguration() {
+        return copy(auditSnapshot.configuration);
     }
 
-
     public synchronized void saveAuditConfiguration(AuditConfiguration auditConfiguration) {
         alienDAO.save(auditConfiguration);
-        this.auditConfiguration = auditConfiguration;
+        this.auditSnapshot = new AuditSnapshot(auditConfiguration);
     }
 
+    /**
+     * Save an audit trace asynchronously, the trace is written to elastic search in a batch by the {@link AuditTraceWriter}.
+     *
+     * @param auditTrace The audit trace to save.
+     */
     public void saveAuditTrace(AuditTrace auditTrace) {
-        alienDAO.save(auditTrace);
+        auditTraceWriter.write(auditTrace);
     }
 
     public AuditConfiguration getMandatoryAuditConfiguration() {
@@ -85,6 +103,11 @@ public class AuditService {
     }
 
     public Method getAuditedMethod(HandlerMethod controllerMethod) {
+        return auditedMethodsCache.computeIfAbsent(controllerMethod.getMethod(), key -> Optional.fromNullable(computeAuditedMethod(controllerMethod)))
+                .orNull();
+    }
+
+    private Method computeAuditedMethod(HandlerMethod controllerMethod) {
         RequestMapping methodMapping = AnnotationUtils.findAnnotation(controllerMethod.getMethod(), RequestMapping.class);
         RequestMapping controllerMapping = AnnotationUtils.findAnnotation(controllerMethod.getMethod().getDeclaringClass(), RequestMapping.class);
         String httpMethod = null;
@@ -108,9 +131,24 @@ public class AuditService {
                 controllerMethod, audit));
     }
 
-    public boolean isMethodAudited(AuditConfiguration auditConfiguration, HandlerMethod controllerMethod) {
+    /**
+     * Check if a controller method is audited by the current configuration.
+     *
+     * @param controllerMethod The controller method.
+     * @return True if the method is audited.
+     */
+    public boolean isMethodAudited(HandlerMethod controllerMethod) {
         Method method = getAuditedMethod(controllerMethod);
-        return method != null && Boolean.TRUE.equals(auditConfiguration.getAuditedMethodsMap().get(method));
+        return method != null && Boolean.TRUE.equals(auditSnapshot.auditedMethods.get(method));
+    }
+
+    /**
+     * Check if the current configuration audits at least one method, when false requests don't have to be resolved to their controller method.
+     *
+     * @return True if audit is enabled and at least one method is audited.
+     */
+    public boolean isAnyMethodAudited() {
+        return auditSnapshot.anyMethodAudited;
     }
 
     public String getAuditCategoryName(HandlerMethod method, Audit audit) {
@@ -139,4 +177,30 @@ public class AuditService {
         return audit;
     }
 
+    private static AuditConfiguration copy(AuditConfiguration configuration) {
+        if (configuration == null) {
+            return null;
+        }
+        AuditConfiguration copy = new AuditConfiguration();
+        copy.setId(configuration.getId());
+        copy.setEnabled(configuration.isEnabled());
+        copy.setAuditedMethodsMap(configuration.getAuditedMethodsMap());
+        return copy;
+    }
+
+    /**
+     * Immutable view of an audit configuration and of it's audited methods, the configuration is copied so later changes of the saved instance are ignored.
+     */
+    private static class AuditSnapshot {
+        private final AuditConfiguration configuration;
+        private final Map<Method, Boolean> auditedMethods;
+        private final boolean anyMethodAudited;
+
+        private AuditSnapshot(AuditConfiguration configuration) {
+            this.configuration = copy(configuration);
+            this.auditedMethods = this.configuration == null ? ImmutableMap.<Method, Boolean> of()
+                    : ImmutableMap.copyOf(this.configuration.getAuditedMethodsMap());
+            this.anyMethodAudited = this.configuration != null && this.configuration.isEnabled() && auditedMethods.containsValue(Boolean.TRUE);
+        }
+    }
 }
@@ -0,0 +1,295 @@
+package alien4cloud.audit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+
+import alien4cloud.audit.model.AuditTrace;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.WriteConsistency;
+import alien4cloud.rest.utils.JsonUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write audit traces to elastic search out of the request threads.
+ *
+ * Traces are added to a bounded in-memory queue drained by a background thread that saves them using bulk requests. When the queue is full the
+ * {@link OverflowPolicy} defines if the request thread waits, if the trace is dropped or if it is appended to a local spill file. Traces of a bulk request that
+ * fails are also appended to the spill file. Spilled traces are saved to elastic search when the writer is started again and after the next successful bulk
+ * request.
+ */
+@Slf4j
+@Component
+public class AuditTraceWriter {
+    /** Behavior of the writer when the queue is full. */
+    public enum OverflowPolicy {
+        /** The calling thread waits until some space is available in the queue. */
+        BLOCK,
+        /** The trace is dropped and the dropped traces counter is incremented. */
+        DROP,
+        /** The trace is appended to the spill file. */
+        SPILL
+    }
+
+    @Resource(name = "alien-audit-dao")
+    private IGenericSearchDAO alienDAO;
+    /** The metric registry is optional, when not defined metrics are only available through the getters. */
+    @Autowired(required = false)
+    private MetricRegistry metricRegistry;
+
+    @Value("${audit.writer.queue_size:10000}")
+    private int queueSize;
+    @Value("${audit.writer.batch_size:500}")
+    private int batchSize;
+    @Value("${audit.writer.overflow_policy:SPILL}")
+    private OverflowPolicy overflowPolicy;
+    @Value("${audit.writer.spill_file:${directories.alien}/audit/audit-spill.json}")
+    private String spillFile;
+
+    private BlockingQueue<AuditTrace> queue;
+    private Path spillPath;
+    /** Spill file being replayed, spilled traces are moved to this file so traces spilled during the replay are not lost. */
+    private Path replayPath;
+    private Thread writerThread;
+    private volatile boolean running;
+    private Timer batchTimer;
+
+    /** Number of traces saved to elastic search. */
+    @Getter
+    private final AtomicLong writtenTraces = new AtomicLong();
+    /** Number of traces dropped because the queue was full. */
+    @Getter
+    private final AtomicLong droppedTraces = new AtomicLong();
+    /** Number of traces appended to the spill file because the queue was full or because they could not be saved. */
+    @Getter
+    private final AtomicLong spilledTraces = new AtomicLong();
+    /** Number of traces that could not be saved to elastic search (they are spilled to be saved later). */
+    @Getter
+    private final AtomicLong failedTraces = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueSize);
+        spillPath = Paths.get(spillFile);
+        replayPath = spillPath.resolveSibling(spillPath.getFileName() + ".replay");
+        if (metricRegistry != null) {
+            registerMetrics();
+        }
+        running = true;
+        writerThread = new Thread(this::drain, "audit-trace-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        // the writer thread is not interrupted as it would close the spill file channel while failed traces are spilled, it stops within a poll timeout.
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        // save the traces that are still queued.
+        List<AuditTrace> batch = Lists.newArrayList();
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Queue an audit trace to be saved.
+     *
+     * @param auditTrace The audit trace to save.
+     */
+    public void write(AuditTrace auditTrace) {
+        if (queue.offer(auditTrace)) {
+            return;
+        }
+        switch (overflowPolicy) {
+        case BLOCK:
+            try {
+                queue.put(auditTrace);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                droppedTraces.incrementAndGet();
+            }
+            break;
+        case SPILL:
+            spill(auditTrace);
+            break;
+        default:
+            droppedTraces.incrementAndGet();
+            log.debug("Audit queue is full, dropping audit trace {}", auditTrace);
+        }
+    }
+
+    /**
+     * @return The number of traces waiting to be saved.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void drain() {
+        replaySpillFile();
+        List<AuditTrace> batch = Lists.newArrayListWithCapacity(batchSize);
+        while (running) {
+            try {
+                AuditTrace first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (write(batch) && Files.isRegularFile(spillPath)) {
+                    // elastic search is available, save the traces that have been spilled meanwhile.
+                    replaySpillFile();
+                }
+            } catch (InterruptedException e) {
+                // destroy saves the remaining traces.
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Save a batch of traces, the traces are spilled if the bulk request fails.
+     *
+     * @param batch The traces to save.
+     * @return True if the traces have been saved to elastic search.
+     */
+    private boolean write(List<AuditTrace> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        Timer.Context timerContext = batchTimer == null ? null : batchTimer.time();
+        try {
+            alienDAO.save(batch.toArray(new AuditTrace[batch.size()]), WriteConsistency.EVENTUAL);
+            writtenTraces.addAndGet(batch.size());
+            return true;
+        } catch (Exception e) {
+            failedTraces.addAndGet(batch.size());
+            log.warn("Unable to save {} audit traces, spilling them to {}", batch.size(), spillPath, e);
+            spill(batch);
+            return false;
+        } finally {
+            if (timerContext != null) {
+                timerContext.stop();
+            }
+        }
+    }
+
+    private void spill(AuditTrace auditTrace) {
+        spill(Lists.newArrayList(auditTrace));
+    }
+
+    private synchronized void spill(List<AuditTrace> auditTraces) {
+        try {
+            Files.createDirectories(spillPath.getParent());
+            try (Writer writer = Files.newBufferedWriter(spillPath, Charsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (AuditTrace auditTrace : auditTraces) {
+                    writer.write(JsonUtil.toString(auditTrace));
+                    writer.write('\n');
+                }
+            }
+            spilledTraces.addAndGet(auditTraces.size());
+        } catch (IOException e) {
+            droppedTraces.addAndGet(auditTraces.size());
+            log.warn("Unable to spill {} audit traces", auditTraces.size(), e);
+        }
+    }
+
+    /**
+     * Save the spilled traces, only called from the writer thread (or once it is stopped). Traces that cannot be saved are spilled again.
+     */
+    private void replaySpillFile() {
+        synchronized (this) {
+            // a replay file is left when the writer has been stopped while replaying, it is replayed first.
+            try {
+                if (!Files.isRegularFile(replayPath)) {
+                    if (!Files.isRegularFile(spillPath)) {
+                        return;
+                    }
+                    Files.move(spillPath, replayPath, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                log.error("Unable to move spilled audit traces from {} to {}", spillPath, replayPath, e);
+                return;
+            }
+        }
+        int replayed = 0;
+        List<AuditTrace> batch = Lists.newArrayListWithCapacity(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(replayPath, Charsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    batch.add(JsonUtil.readObject(line, AuditTrace.class));
+                } catch (IOException e) {
+                    droppedTraces.incrementAndGet();
+                    log.warn("Skipping invalid spilled audit trace {}", line, e);
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    replayed += write(batch) ? batch.size() : 0;
+                    batch.clear();
+                }
+            }
+            replayed += write(batch) ? batch.size() : 0;
+        } catch (IOException e) {
+            log.error("Unable to replay spilled audit traces from {}", replayPath, e);
+            return;
+        }
+        try {
+            Files.delete(replayPath);
+        } catch (IOException e) {
+            log.error("Unable to delete replayed audit traces file {}", replayPath, e);
+        }
+        log.info("Replayed {} spilled audit traces from {}", replayed, spillPath);
+    }
+
+    private void registerMetrics() {
+        String prefix = MetricRegistry.name(AuditTraceWriter.class);
+        metricRegistry.remove(MetricRegistry.name(prefix, "queue-depth"));
+        metricRegistry.register(MetricRegistry.name(prefix, "queue-depth"), (Gauge<Integer>) this::getQueueDepth);
+        registerCounterGauge(prefix, "written", writtenTraces);
+        registerCounterGauge(prefix, "dropped", droppedTraces);
+        registerCounterGauge(prefix, "spilled", spilledTraces);
+        registerCounterGauge(prefix, "failed", failedTraces);
+        batchTimer = metricRegistry.timer(MetricRegistry.name(prefix, "batch-write"));
+    }
+
+    private void registerCounterGauge(String prefix, String name, AtomicLong counter) {
+        String metricName = MetricRegistry.name(prefix, name);
+        metricRegistry.remove(metricName);
+        metricRegistry.register(metricName, (Gauge<Long>) counter::get);
+    }
+}
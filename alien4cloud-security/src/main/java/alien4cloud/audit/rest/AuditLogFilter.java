@@ -27,7 +27,6 @@ import org.springframework.web.servlet.HandlerMapping;
 
 import alien4cloud.audit.AuditService;
 import alien4cloud.audit.annotation.Audit;
-import alien4cloud.audit.model.AuditConfiguration;
 import alien4cloud.audit.model.AuditTrace;
 import alien4cloud.security.AuthorizationUtil;
 import alien4cloud.security.model.User;
@@ -148,8 +147,8 @@ public class AuditLogFilter extends OncePerRequestFilter implements Ordered {
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        AuditConfiguration configuration = auditService.getAuditConfiguration();
-        if (configuration == null || !configuration.isEnabled()) {
+        // checked before resolving the handler method so that requests are not slowed down when nothing is audited.
+        if (!auditService.isAnyMethodAudited()) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -163,7 +162,7 @@ public class AuditLogFilter extends OncePerRequestFilter implements Ordered {
             filterChain.doFilter(request, response);
             return;
         }
-        if (!auditService.isMethodAudited(configuration, method)) {
+        if (!auditService.isMethodAudited(method)) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -2,6 +2,8 @@ package alien4cloud.security.spring.ldap;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
@@ -21,8 +23,11 @@ import alien4cloud.security.users.IAlienUserDao;
 import alien4cloud.security.model.Role;
 import alien4cloud.security.model.User;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * Provider responsible to authenticate agains LDAP.
@@ -32,6 +37,8 @@ import com.google.common.collect.Maps;
 @Conditional(LdapCondition.class)
 @Component("ldap-provider")
 public class LdapAuthenticationProvider implements AuthenticationProvider {
+    /** Number of users read and saved in a single request to the user store. */
+    private static final int IMPORT_BATCH_SIZE = 1000;
 
     @Resource
     private LdapUserDao ldapUserDao;
@@ -44,9 +51,14 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
     @Value("${ldap.mapping.roles.mapping:}")
     private String[] roleMappings;
     private Map<String, String> parsedRoleMappings;
+    @Value("${ldap.roles_cache_ttl_seconds:60}")
+    private long rolesCacheTtlSeconds;
+    /** Users that logged in recently, their roles are not synchronized again from LDAP until the entry expires. */
+    private Cache<String, Boolean> ldapRolesCache;
 
     @PostConstruct
     public void importLdapUsers() {
+        ldapRolesCache = CacheBuilder.newBuilder().expireAfterWrite(rolesCacheTtlSeconds, TimeUnit.SECONDS).build();
         // parse role mappings
         for (String roleMapping : roleMappings) {
             String[] mapping = roleMapping.split("=");
@@ -63,25 +75,62 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
         }
 
         if (ldapUserDao.getLdapTemplate().getContextSource() != null) {
-            List<User> users = ldapUserDao.getUsers();
             checkRoles();
-            for (User user : users) {
-                // refresh roles based on ldap.
-                User alienUser = alienUserDao.find(user.getUsername());
-                if (alienUser == null) {
-                    // eventually update if a mapping exists for this user.
-                    mapLdapRoles(user, user);
-                    if(user.getRoles() == null || user.getRoles().length == 0) {
-                        // initialize the user with default roles.
-                        user.setRoles(defaultRoles);
-                    }
-                    alienUserDao.save(user);
-                } else {
-                    mapLdapRoles(user, alienUser);
-                    alienUserDao.save(alienUser);
+            final AtomicInteger ldapUsersCount = new AtomicInteger();
+            final AtomicInteger savedUsersCount = new AtomicInteger();
+            ldapUserDao.getUsers(page -> {
+                for (List<User> users : Lists.partition(page, IMPORT_BATCH_SIZE)) {
+                    ldapUsersCount.addAndGet(users.size());
+                    savedUsersCount.addAndGet(importLdapUsers(users));
                 }
+            });
+            log.info("Imported {} LDAP users, {} users have been created or updated.", ldapUsersCount.get(), savedUsersCount.get());
+        }
+    }
+
+    /**
+     * Create the LDAP users that don't exist in alien and refresh the roles of existing users based on ldap, only created and modified users are saved.
+     *
+     * @param users The users read from LDAP.
+     * @return The number of saved users.
+     */
+    private int importLdapUsers(List<User> users) {
+        String[] usernames = new String[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            usernames[i] = users.get(i).getUsername();
+        }
+        Map<String, User> alienUsers = Maps.newHashMap();
+        List<User> existingUsers = alienUserDao.find(usernames);
+        if (existingUsers != null) {
+            for (User alienUser : existingUsers) {
+                alienUsers.put(alienUser.getUsername(), alienUser);
+            }
+        }
+
+        List<User> toSave = Lists.newArrayList();
+        for (User user : users) {
+            User alienUser = alienUsers.get(user.getUsername());
+            if (alienUser == null) {
+                toSave.add(createAlienUser(user));
+            } else if (mapLdapRoles(user, alienUser)) {
+                // refresh roles based on ldap.
+                toSave.add(alienUser);
             }
         }
+        if (!toSave.isEmpty()) {
+            alienUserDao.save(toSave.toArray(new User[toSave.size()]));
+        }
+        return toSave.size();
+    }
+
+    private User createAlienUser(User ldapUser) {
+        // eventually update if a mapping exists for this user.
+        mapLdapRoles(ldapUser, ldapUser);
+        if (ldapUser.getRoles() == null || ldapUser.getRoles().length == 0) {
+            // initialize the user with default roles.
+            ldapUser.setRoles(defaultRoles);
+        }
+        return ldapUser;
     }
 
     @Override
@@ -102,20 +151,35 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
 
     private void updateLdapUserRoles(String login, Authentication auth) {
         if (auth.isAuthenticated() && parsedRoleMappings != null) {
+            if (ldapRolesCache.getIfPresent(login) != null) {
+                // roles have been refreshed recently.
+                return;
+            }
             // refresh roles if loaded from mapping
             User ldapUser = ldapUserDao.getById(login);
+            if (ldapUser == null) {
+                return;
+            }
             User user = alienUserDao.find(login);
-
-            if (ldapUser != null) {
-                mapLdapRoles(ldapUser, user);
+            if (user == null) {
+                // the user has been added to LDAP after the import.
+                user = createAlienUser(ldapUser);
+                alienUserDao.save(user);
+            } else if (mapLdapRoles(ldapUser, user)) {
+                alienUserDao.save(user);
             }
-            alienUserDao.save(user);
+            ldapRolesCache.put(login, Boolean.TRUE);
         }
     }
 
-    private void mapLdapRoles(User ldapUser, User user) {
+    /**
+     * Set the roles of an alien user from the roles of the LDAP user using the role mappings.
+     *
+     * @return True if the roles of the alien user have been modified.
+     */
+    private boolean mapLdapRoles(User ldapUser, User user) {
         if(ldapUser.getRoles() == null || parsedRoleMappings == null) {
-            return;
+            return false;
         }
 
         List<String> userRoles = Lists.newArrayList();
@@ -125,8 +189,9 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
                 userRoles.add(alienRole);
             }
         }
+        boolean changed = user.getRoles() == null || !Sets.newHashSet(user.getRoles()).equals(Sets.newHashSet(userRoles));
         user.setRoles(userRoles.toArray(new String[userRoles.size()]));
-
+        return changed;
     }
 
     @Override
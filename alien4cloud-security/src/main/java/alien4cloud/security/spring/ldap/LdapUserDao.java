@@ -1,15 +1,21 @@
 package alien4cloud.security.spring.ldap;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.annotation.Resource;
+import javax.naming.directory.SearchControls;
 
 import lombok.Getter;
 import lombok.Setter;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Conditional;
+import org.springframework.ldap.control.PagedResultsDirContextProcessor;
+import org.springframework.ldap.core.LdapOperations;
 import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.LdapOperationsCallback;
+import org.springframework.ldap.core.support.SingleContextSource;
 import org.springframework.stereotype.Component;
 
 import alien4cloud.security.model.User;
@@ -34,6 +40,9 @@ public class LdapUserDao {
     @Value("${ldap.mapping.id}")
     private String userIdKey;
 
+    @Value("${ldap.page_size:1000}")
+    private int pageSize;
+
     /**
      * Authenticate the user against ldap.
      * 
@@ -53,6 +62,32 @@ public class LdapUserDao {
         return ldapTemplate.search("", this.filter, userLdapAttributeMapper);
     }
 
+    /**
+     * Process all users from LDAP page by page. When ldap.page_size is positive the search uses the paged results control (the LDAP server must support it),
+     * otherwise all users are fetched in a single page.
+     * 
+     * @param pageConsumer The consumer called for every page of users.
+     */
+    public void getUsers(final Consumer<List<User>> pageConsumer) {
+        if (pageSize <= 0) {
+            pageConsumer.accept(getUsers());
+            return;
+        }
+        final SearchControls searchControls = new SearchControls();
+        searchControls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        final PagedResultsDirContextProcessor processor = new PagedResultsDirContextProcessor(pageSize);
+        // pages must be read using the same connection.
+        SingleContextSource.doWithSingleContext(ldapTemplate.getContextSource(), new LdapOperationsCallback<Void>() {
+            @Override
+            public Void doWithLdapOperations(LdapOperations operations) {
+                do {
+                    pageConsumer.accept(operations.search("", filter, searchControls, userLdapAttributeMapper, processor));
+                } while (processor.hasMore());
+                return null;
+            }
+        });
+    }
+
     /**
      * Find a user based on it's username/id
      * 
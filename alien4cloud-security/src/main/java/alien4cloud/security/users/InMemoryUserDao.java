@@ -24,6 +24,13 @@ public class InMemoryUserDao implements IAlienUserDao {
         userMap.put(user.getUsername(), user);
     }
 
+    @Override
+    public void save(User[] users) {
+        for (User user : users) {
+            save(user);
+        }
+    }
+
     @Override
     public User find(String username) {
         return userMap.get(username);
@@ -0,0 +1,94 @@
+package alien4cloud.audit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+
+import com.google.common.collect.ImmutableMap;
+
+import alien4cloud.audit.model.AuditConfiguration;
+import alien4cloud.audit.model.Method;
+import alien4cloud.dao.IGenericSearchDAO;
+
+/**
+ * Check that the audited methods are the ones of the saved configuration, whatever the changes made to the configuration instances afterwards.
+ */
+public class AuditServiceTest {
+    private IGenericSearchDAO alienDAO;
+    private AuditService auditService;
+    private HandlerMethod handlerMethod;
+
+    @Before
+    public void init() throws NoSuchMethodException {
+        alienDAO = Mockito.mock(IGenericSearchDAO.class);
+        auditService = new AuditService();
+        ReflectionTestUtils.setField(auditService, "alienDAO", alienDAO);
+        handlerMethod = new HandlerMethod(new TestController(), TestController.class.getMethod("get"));
+    }
+
+    @Test
+    public void configurationIsLoadedOnInit() {
+        Mockito.when(alienDAO.findById(AuditConfiguration.class, AuditConfiguration.ID)).thenReturn(configuration(true));
+        auditService.init();
+
+        Assert.assertTrue(auditService.isAnyMethodAudited());
+        Assert.assertTrue(auditService.isMethodAudited(handlerMethod));
+        Assert.assertTrue(auditService.getAuditConfiguration().getAuditedMethodsMap().get(auditedMethod()));
+        Mockito.verify(alienDAO, Mockito.times(1)).findById(AuditConfiguration.class, AuditConfiguration.ID);
+    }
+
+    @Test
+    public void nothingIsAuditedBeforeTheConfigurationIsInitialized() {
+        auditService.init();
+
+        Assert.assertNull(auditService.getAuditConfiguration());
+        Assert.assertFalse(auditService.isAnyMethodAudited());
+        Assert.assertFalse(auditService.isMethodAudited(handlerMethod));
+
+        auditService.saveAuditConfiguration(configuration(true));
+        Assert.assertTrue(auditService.isAnyMethodAudited());
+        Assert.assertTrue(auditService.isMethodAudited(handlerMethod));
+    }
+
+    @Test
+    public void configurationChangesAreAppliedOnceSaved() {
+        Mockito.when(alienDAO.findById(AuditConfiguration.class, AuditConfiguration.ID)).thenReturn(configuration(true));
+        auditService.init();
+
+        AuditConfiguration configuration = auditService.getAuditConfiguration();
+        configuration.setAuditedMethodsMap(ImmutableMap.of(auditedMethod(), false));
+        Assert.assertTrue(auditService.isMethodAudited(handlerMethod));
+
+        auditService.saveAuditConfiguration(configuration);
+        Assert.assertFalse(auditService.isMethodAudited(handlerMethod));
+        Assert.assertFalse(auditService.isAnyMethodAudited());
+
+        // the saved instance is not shared with the service.
+        configuration.setAuditedMethodsMap(ImmutableMap.of(auditedMethod(), true));
+        Assert.assertFalse(auditService.isMethodAudited(handlerMethod));
+        Assert.assertFalse(auditService.getAuditConfiguration().getAuditedMethodsMap().get(auditedMethod()));
+    }
+
+    private AuditConfiguration configuration(boolean audited) {
+        AuditConfiguration configuration = new AuditConfiguration();
+        configuration.setAuditedMethodsMap(ImmutableMap.of(auditedMethod(), audited));
+        return configuration;
+    }
+
+    private Method auditedMethod() {
+        return auditService.getAuditedMethod(handlerMethod);
+    }
+
+    @RequestMapping("/rest/test")
+    public static class TestController {
+        @RequestMapping(method = RequestMethod.GET)
+        public String get() {
+            return "test";
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package alien4cloud.audit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+
+import alien4cloud.audit.model.AuditTrace;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.WriteConsistency;
+import alien4cloud.utils.FileUtil;
+
+/**
+ * Check the batching of audit traces by the {@link AuditTraceWriter} and its behavior when the queue is full or when elastic search fails.
+ */
+public class AuditTraceWriterTest {
+    private Path tempDir;
+    private Path spillPath;
+    private IGenericSearchDAO alienDAO;
+    private AuditTraceWriter writer;
+    /** Actions of the saved traces. */
+    private final List<String> savedActions = Collections.synchronizedList(Lists.<String> newArrayList());
+    /** Size of the bulk requests. */
+    private final List<Integer> batchSizes = Collections.synchronizedList(Lists.<Integer> newArrayList());
+    /** Counted down when the writer thread starts to save the first batch. */
+    private CountDownLatch saving;
+    /** Released to let the writer thread save the first batch. */
+    private CountDownLatch release;
+    /** Number of bulk requests that fail before bulk requests succeed. */
+    private volatile int failures;
+
+    @Before
+    public void init() throws IOException {
+        tempDir = Files.createTempDirectory("audit-writer-test");
+        spillPath = tempDir.resolve("audit").resolve("audit-spill.json");
+        saving = new CountDownLatch(1);
+        release = new CountDownLatch(0);
+        alienDAO = Mockito.mock(IGenericSearchDAO.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                saving.countDown();
+                Assert.assertTrue(release.await(10, TimeUnit.SECONDS));
+                if (failures > 0) {
+                    failures--;
+                    throw new IllegalStateException("Elastic search failure");
+                }
+                Object[] traces = (Object[]) invocation.getArguments()[0];
+                for (Object trace : traces) {
+                    savedActions.add(((AuditTrace) trace).getAction());
+                }
+                batchSizes.add(traces.length);
+                return null;
+            }
+        }).when(alienDAO).save(Mockito.any(AuditTrace[].class), Mockito.eq(WriteConsistency.EVENTUAL));
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        release.countDown();
+        if (writer != null) {
+            writer.destroy();
+        }
+        FileUtil.delete(tempDir);
+    }
+
+    @Test
+    public void tracesAreSavedInBatches() throws Exception {
+        release = new CountDownLatch(1);
+        writer = startWriter(100, 10, AuditTraceWriter.OverflowPolicy.DROP);
+        writer.write(trace("first"));
+        Assert.assertTrue(saving.await(10, TimeUnit.SECONDS));
+        // traces are queued while the first batch is saved.
+        for (int i = 0; i < 25; i++) {
+            writer.write(trace(String.valueOf(i)));
+        }
+        release.countDown();
+
+        waitFor(() -> writer.getWrittenTraces().get() == 26);
+        Assert.assertEquals(Lists.newArrayList(1, 10, 10, 5), batchSizes);
+        Assert.assertEquals(26, savedActions.size());
+    }
+
+    @Test
+    public void dropPolicyDropsTracesWhenTheQueueIsFull() throws Exception {
+        writer = startWriterWithFullQueue(AuditTraceWriter.OverflowPolicy.DROP);
+        writer.write(trace("dropped"));
+        Assert.assertEquals(1, writer.getDroppedTraces().get());
+
+        release.countDown();
+        waitFor(() -> writer.getWrittenTraces().get() == 2);
+        Assert.assertEquals(Lists.newArrayList("first", "queued"), savedActions);
+    }
+
+    @Test
+    public void blockPolicyWaitsForSpaceInTheQueue() throws Exception {
+        writer = startWriterWithFullQueue(AuditTraceWriter.OverflowPolicy.BLOCK);
+        Thread requestThread = new Thread(() -> writer.write(trace("blocked")));
+        requestThread.start();
+        requestThread.join(200);
+        Assert.assertTrue(requestThread.isAlive());
+
+        release.countDown();
+        requestThread.join(TimeUnit.SECONDS.toMillis(10));
+        Assert.assertFalse(requestThread.isAlive());
+        waitFor(() -> writer.getWrittenTraces().get() == 3);
+        Assert.assertEquals(Lists.newArrayList("first", "queued", "blocked"), savedActions);
+        Assert.assertEquals(0, writer.getDroppedTraces().get());
+    }
+
+    @Test
+    public void spilledTracesAreSavedOnRestart() throws Exception {
+        writer = startWriterWithFullQueue(AuditTraceWriter.OverflowPolicy.SPILL);
+        writer.write(trace("spilled"));
+        Assert.assertEquals(1, writer.getSpilledTraces().get());
+        Assert.assertEquals(1, Files.readAllLines(spillPath, Charsets.UTF_8).size());
+
+        // stop the writer before the queued traces are saved, no successful bulk request replays the spill file.
+        failures = 2;
+        release.countDown();
+        writer.destroy();
+        Assert.assertEquals(3, Files.readAllLines(spillPath, Charsets.UTF_8).size());
+        Assert.assertTrue(savedActions.isEmpty());
+
+        writer = startWriter(10, 10, AuditTraceWriter.OverflowPolicy.SPILL);
+        waitFor(() -> writer.getWrittenTraces().get() == 3);
+        Assert.assertEquals(Lists.newArrayList("spilled", "first", "queued"), savedActions);
+        Assert.assertFalse(Files.exists(spillPath));
+    }
+
+    @Test
+    public void failedBatchesAreSpilledAndReplayed() throws Exception {
+        failures = 1;
+        writer = startWriter(10, 10, AuditTraceWriter.OverflowPolicy.DROP);
+        writer.write(trace("failed"));
+        waitFor(() -> writer.getSpilledTraces().get() == 1);
+        Assert.assertEquals(1, writer.getFailedTraces().get());
+        Assert.assertEquals(1, Files.readAllLines(spillPath, Charsets.UTF_8).size());
+
+        // the next successful bulk request replays the spilled traces.
+        writer.write(trace("next"));
+        waitFor(() -> writer.getWrittenTraces().get() == 2);
+        Assert.assertEquals(Lists.newArrayList("next", "failed"), savedActions);
+        Assert.assertFalse(Files.exists(spillPath));
+    }
+
+    /**
+     * Start a writer with a queue of a single element and fill it, the writer thread is blocked saving the first trace until {@link #release} is counted down.
+     */
+    private AuditTraceWriter startWriterWithFullQueue(AuditTraceWriter.OverflowPolicy overflowPolicy) throws InterruptedException {
+        release = new CountDownLatch(1);
+        AuditTraceWriter fullWriter = startWriter(1, 10, overflowPolicy);
+        fullWriter.write(trace("first"));
+        Assert.assertTrue(saving.await(10, TimeUnit.SECONDS));
+        fullWriter.write(trace("queued"));
+        return fullWriter;
+    }
+
+    private AuditTraceWriter startWriter(int queueSize, int batchSize, AuditTraceWriter.OverflowPolicy overflowPolicy) {
+        AuditTraceWriter auditTraceWriter = new AuditTraceWriter();
+        ReflectionTestUtils.setField(auditTraceWriter, "alienDAO", alienDAO);
+        ReflectionTestUtils.setField(auditTraceWriter, "queueSize", queueSize);
+        ReflectionTestUtils.setField(auditTraceWriter, "batchSize", batchSize);
+        ReflectionTestUtils.setField(auditTraceWriter, "overflowPolicy", overflowPolicy);
+        ReflectionTestUtils.setField(auditTraceWriter, "spillFile", spillPath.toString());
+        auditTraceWriter.init();
+        return auditTraceWriter;
+    }
+
+    private AuditTrace trace(String action) {
+        AuditTrace auditTrace = new AuditTrace();
+        auditTrace.setCategory("test");
+        auditTrace.setAction(action);
+        auditTrace.setUserName("user");
+        return auditTrace;
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Condition not met before timeout", System.currentTimeMillis() < timeout);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -54,12 +54,7 @@ public class AbstractLdapTest {
     public List<User> createUserList(int userCount) throws NamingException {
         List<User> userList = com.google.common.collect.Lists.newArrayList();
         for (int i = 0; i < userCount; i++) {
-            Attributes attrUser = new BasicAttributes();
-            attrUser.put(userIdKey, "id_" + i);
-            attrUser.put(userFirstNameKey, "firstName_" + i);
-            attrUser.put(userLastNameKey, "lastName_" + i);
-            attrUser.put(userEmailKey, "lastName_" + i + "@test.com");
-            attrUser.put(userActiveKey, userActiveValue);
+            Attributes attrUser = createUserAttributes(i);
             User user = attributeMapper.mapFromAttributes(attrUser);
             assertUserMapper(attrUser, user);
             userList.add(user);
@@ -67,6 +62,22 @@ public class AbstractLdapTest {
         return userList;
     }
 
+    /**
+     * Create the LDAP attributes of a user.
+     * 
+     * @param index index of the user used to generate its attributes.
+     * @return The attributes of the user.
+     */
+    public Attributes createUserAttributes(int index) {
+        Attributes attrUser = new BasicAttributes();
+        attrUser.put(userIdKey, "id_" + index);
+        attrUser.put(userFirstNameKey, "firstName_" + index);
+        attrUser.put(userLastNameKey, "lastName_" + index);
+        attrUser.put(userEmailKey, "lastName_" + index + "@test.com");
+        attrUser.put(userActiveKey, userActiveValue);
+        return attrUser;
+    }
+
     /**
      * Prepare the LDAP template mock to return a list of users.
      * 
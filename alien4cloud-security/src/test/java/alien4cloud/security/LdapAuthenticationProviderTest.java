@@ -7,10 +7,13 @@ import javax.naming.NamingException;
 
 import alien4cloud.security.model.User;
 import alien4cloud.security.users.IAlienUserDao;
+import org.junit.After;
+import org.junit.Assert;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.MethodSorters;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.ldap.core.ContextSource;
 import org.springframework.ldap.core.LdapTemplate;
@@ -18,6 +21,11 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import alien4cloud.security.spring.ldap.LdapAuthenticationProvider;
 
@@ -32,26 +40,34 @@ public class LdapAuthenticationProviderTest extends AbstractLdapTest {
     @Resource
     private LdapAuthenticationProvider ldapAuthenticationProvider;
 
+    @After
+    public void cleanup() {
+        Mockito.reset(alienUserDao, ldapTemplate);
+        ReflectionTestUtils.setField(ldapAuthenticationProvider, "parsedRoleMappings", null);
+    }
+
     @Test
     public void testLdapUserImport() throws NamingException {
         Mockito.when(ldapTemplate.getContextSource()).thenReturn(Mockito.mock(ContextSource.class));
         int userCount = 10;
         List<User> users = prepareGetAllUserMock(userCount);
 
-        // for each user we should check if it exists in the user repository and only if not then we add it.
-        for (int i = 0; i < users.size(); i++) {
-            User user = users.get(i);
-            if (i % 2 == 0) {
-                user.setLastName("test");
-                Mockito.when(alienUserDao.find(user.getUsername())).thenReturn(user);
-            } else {
-                Mockito.when(alienUserDao.find(user.getUsername())).thenReturn(user);
-            }
+        // users that already exist in the user repository and which roles don't change are not saved again.
+        List<User> existingUsers = Lists.newArrayList();
+        for (int i = 0; i < users.size(); i += 2) {
+            existingUsers.add(users.get(i));
         }
+        Mockito.when(alienUserDao.find(Mockito.<String[]> anyVararg())).thenReturn(existingUsers);
 
         ldapAuthenticationProvider.importLdapUsers();
 
-        Mockito.verify(alienUserDao, Mockito.times(users.size())).save(Mockito.any(User.class));
+        ArgumentCaptor<User[]> savedUsers = ArgumentCaptor.forClass(User[].class);
+        Mockito.verify(alienUserDao, Mockito.times(1)).save(savedUsers.capture());
+        Mockito.verify(alienUserDao, Mockito.never()).save(Mockito.any(User.class));
+        Assert.assertEquals(users.size() - existingUsers.size(), savedUsers.getValue().length);
+        for (User savedUser : savedUsers.getValue()) {
+            Assert.assertFalse(existingUsers.contains(savedUser));
+        }
     }
 
     @Test
@@ -71,4 +87,67 @@ public class LdapAuthenticationProviderTest extends AbstractLdapTest {
         Mockito.when(ldapTemplate.authenticate("", getUserIdKey() + "=" + userName, password)).thenReturn(false);
         ldapAuthenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(userName, password));
     }
+
+    @Test
+    public void testLoginCreatesUnknownAlienUser() {
+        String userName = "ldapOnlyUser";
+        prepareLogin(userName, "LDAP_ADMINS");
+
+        login(userName);
+
+        ArgumentCaptor<User> savedUser = ArgumentCaptor.forClass(User.class);
+        Mockito.verify(alienUserDao, Mockito.times(1)).save(savedUser.capture());
+        Assert.assertEquals(userName, savedUser.getValue().getUsername());
+        Assert.assertArrayEquals(new String[] { "ADMIN" }, savedUser.getValue().getRoles());
+    }
+
+    @Test
+    public void testLoginDoesNotSaveUnchangedRoles() {
+        String userName = "unchangedRolesUser";
+        prepareLogin(userName, "LDAP_ADMINS");
+        Mockito.when(alienUserDao.find(userName)).thenReturn(alienUser(userName, "ADMIN"));
+
+        login(userName);
+
+        Mockito.verify(alienUserDao, Mockito.times(1)).find(userName);
+        Mockito.verify(alienUserDao, Mockito.never()).save(Mockito.any(User.class));
+    }
+
+    @Test
+    public void testLoginWithinCacheTtlDoesNotSynchronizeRoles() {
+        String userName = "cachedRolesUser";
+        prepareLogin(userName, "LDAP_ADMINS");
+        Mockito.when(alienUserDao.find(userName)).thenReturn(alienUser(userName, "COMPONENTS_BROWSER"));
+
+        login(userName);
+        login(userName);
+
+        // only the first login reads the user from LDAP and from the user store and updates its roles.
+        Mockito.verify(ldapTemplate, Mockito.times(1)).search("", "(" + getUserIdKey() + "=" + userName + ")", attributeMapper);
+        Mockito.verify(alienUserDao, Mockito.times(1)).find(userName);
+        ArgumentCaptor<User> savedUser = ArgumentCaptor.forClass(User.class);
+        Mockito.verify(alienUserDao, Mockito.times(1)).save(savedUser.capture());
+        Assert.assertArrayEquals(new String[] { "ADMIN" }, savedUser.getValue().getRoles());
+    }
+
+    /**
+     * Map the LDAP_ADMINS LDAP role to the alien ADMIN role and prepare the LDAP template mock to authenticate the user and return it with the given roles.
+     */
+    private void prepareLogin(String userName, String... ldapRoles) {
+        ReflectionTestUtils.setField(ldapAuthenticationProvider, "parsedRoleMappings", Maps.newHashMap(ImmutableMap.of("LDAP_ADMINS", "ADMIN")));
+        Mockito.when(ldapTemplate.authenticate("", getUserIdKey() + "=" + userName, userName)).thenReturn(true);
+        User ldapUser = alienUser(userName, ldapRoles);
+        Mockito.when(ldapTemplate.search("", "(" + getUserIdKey() + "=" + userName + ")", attributeMapper)).thenReturn(Lists.newArrayList(ldapUser));
+    }
+
+    private User alienUser(String userName, String... roles) {
+        User user = new User();
+        user.setUsername(userName);
+        user.setRoles(roles);
+        return user;
+    }
+
+    private void login(String userName) {
+        ldapAuthenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(userName, userName));
+    }
 }
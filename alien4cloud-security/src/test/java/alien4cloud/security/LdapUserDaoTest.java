@@ -1,8 +1,17 @@
 package alien4cloud.security;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
+import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsResponseControl;
 
 import org.elasticsearch.common.collect.Lists;
 import org.junit.Assert;
@@ -11,6 +20,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.MethodSorters;
 import org.mockito.Mockito;
+import org.springframework.ldap.core.ContextSource;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -32,6 +42,44 @@ public class LdapUserDaoTest extends AbstractLdapTest {
         Assert.assertEquals(userCount, users.size());
     }
 
+    @Test
+    public void getAllUsersPageByPage() throws Exception {
+        ContextSource contextSource = Mockito.mock(ContextSource.class);
+        LdapContext ldapContext = Mockito.mock(LdapContext.class);
+        Mockito.when(ldapTemplate.getContextSource()).thenReturn(contextSource);
+        Mockito.when(contextSource.getReadWriteContext()).thenReturn(ldapContext);
+        Mockito.when(contextSource.getReadOnlyContext()).thenReturn(ldapContext);
+        Mockito.when(ldapContext.getRequestControls()).thenReturn(new Control[0]);
+        Mockito.when(ldapContext.search(Mockito.eq(""), Mockito.eq(ldapUserDao.getFilter()), Mockito.any(SearchControls.class)))
+                .thenReturn(searchResults(0, 1), searchResults(2));
+        // the server returns a cookie with the first page and an empty cookie with the last one.
+        Mockito.when(ldapContext.getResponseControls()).thenReturn(new Control[] { pagedResultsResponse(new byte[] { 1 }) },
+                new Control[] { pagedResultsResponse(new byte[0]) });
+
+        final List<List<User>> pages = Lists.newArrayList();
+        int pageSize = ldapUserDao.getPageSize();
+        ldapUserDao.setPageSize(2);
+        try {
+            ldapUserDao.getUsers(new Consumer<List<User>>() {
+                @Override
+                public void accept(List<User> page) {
+                    pages.add(page);
+                }
+            });
+        } finally {
+            ldapUserDao.setPageSize(pageSize);
+        }
+
+        Assert.assertEquals(2, pages.size());
+        Assert.assertEquals(2, pages.get(0).size());
+        Assert.assertEquals("id_0", pages.get(0).get(0).getUsername());
+        Assert.assertEquals("id_1", pages.get(0).get(1).getUsername());
+        Assert.assertEquals(1, pages.get(1).size());
+        Assert.assertEquals("id_2", pages.get(1).get(0).getUsername());
+        // both pages are read from the same connection.
+        Mockito.verify(ldapContext, Mockito.times(2)).search(Mockito.eq(""), Mockito.eq(ldapUserDao.getFilter()), Mockito.any(SearchControls.class));
+    }
+
     @Test
     public void getUserByUid() throws NamingException {
         int userCount = 10;
@@ -56,4 +104,51 @@ public class LdapUserDaoTest extends AbstractLdapTest {
         boolean auth = ldapUserDao.authenticate(userName, password);
         Assert.assertTrue(auth);
     }
-}
\ No newline at end of file
+
+    private NamingEnumeration<SearchResult> searchResults(int... userIndexes) {
+        List<SearchResult> results = Lists.newArrayList();
+        for (int userIndex : userIndexes) {
+            results.add(new SearchResult("uid=id_" + userIndex, null, createUserAttributes(userIndex)));
+        }
+        final Iterator<SearchResult> iterator = results.iterator();
+        return new NamingEnumeration<SearchResult>() {
+            @Override
+            public boolean hasMore() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public SearchResult next() {
+                return iterator.next();
+            }
+
+            @Override
+            public boolean hasMoreElements() {
+                return hasMore();
+            }
+
+            @Override
+            public SearchResult nextElement() {
+                return next();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private PagedResultsResponseControl pagedResultsResponse(byte[] cookie) throws IOException {
+        // BER encoded sequence of the estimated result size and the cookie.
+        byte[] value = new byte[7 + cookie.length];
+        value[0] = 0x30;
+        value[1] = (byte) (5 + cookie.length);
+        value[2] = 0x02;
+        value[3] = 0x01;
+        value[4] = 0x00;
+        value[5] = 0x04;
+        value[6] = (byte) cookie.length;
+        System.arraycopy(cookie, 0, value, 7, cookie.length);
+        return new PagedResultsResponseControl(PagedResultsResponseControl.OID, false, value);
+    }
+}
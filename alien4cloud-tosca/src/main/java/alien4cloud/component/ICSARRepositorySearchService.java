@@ -1,10 +1,14 @@
 package alien4cloud.component;
 
 import java.util.Collection;
+import java.util.List;
 
 import alien4cloud.model.components.Csar;
 import org.elasticsearch.index.query.QueryBuilder;
 
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Table;
+
 import alien4cloud.exception.NotFoundException;
 import alien4cloud.model.components.CSARDependency;
 import alien4cloud.model.components.IndexedToscaElement;
@@ -42,6 +46,48 @@ public interface ICSARRepositorySearchService {
      */
     <T extends IndexedToscaElement> T getElementInDependencies(Class<T> elementClass, String elementId, Collection<CSARDependency> dependencies);
 
+    /**
+     * Get all the elements with the given id defined in the given dependencies.
+     *
+     * @param elementClass The element class.
+     * @param elementId The TOSCA element id of the element (without archive version).
+     * @param dependencies A list of CSAR in which the element may be defined.
+     * @return The elements found in the dependencies (at most one per dependency) or an empty list if the element is not found.
+     */
+    <T extends IndexedToscaElement> List<T> getElementsInDependencies(Class<T> elementClass, String elementId, Collection<CSARDependency> dependencies);
+
+    /**
+     * Get all the versions of multiple elements defined in the given dependencies using a single multi-search request.
+     *
+     * @param elementIds The TOSCA element ids of the elements to get (without archive version) by element class.
+     * @param dependencies A list of CSAR in which the elements may be defined.
+     * @return A table of element class, element id to the elements found in the dependencies (at most one per dependency), elements that are not found are not
+     *         in the table.
+     */
+    Table<Class<? extends IndexedToscaElement>, String, List<IndexedToscaElement>> getElementsVersionsInDependencies(
+            SetMultimap<Class<? extends IndexedToscaElement>, String> elementIds, Collection<CSARDependency> dependencies);
+
+    /**
+     * Get multiple elements from defined dependencies using a single multi-search request.
+     *
+     * @param elementIds The TOSCA element ids of the elements to get (without archive version) by element class.
+     * @param dependencies A list of CSAR in which the elements may be defined.
+     * @return A table of element class, element id to the latest version of the element, elements that are not found are not in the table.
+     */
+    Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> getElementsInDependencies(
+            SetMultimap<Class<? extends IndexedToscaElement>, String> elementIds, Collection<CSARDependency> dependencies);
+
+    /**
+     * Get multiple elements from defined dependencies using a single multi-search request.
+     *
+     * @param elementIds The TOSCA element ids of the elements to get (without archive version) by element class.
+     * @param dependencies A list of CSAR in which the elements may be defined.
+     * @return A table of element class, element id to the latest version of the element.
+     * @throws NotFoundException in case one of the elements cannot be found.
+     */
+    Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> getRequiredElementsInDependencies(
+            SetMultimap<Class<? extends IndexedToscaElement>, String> elementIds, Collection<CSARDependency> dependencies) throws NotFoundException;
+
     /**
      * Get an element matching specified query from given dependencies
      * 
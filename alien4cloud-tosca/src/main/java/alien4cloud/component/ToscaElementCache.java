@@ -0,0 +1,179 @@
+package alien4cloud.component;
+
+import java.beans.IntrospectionException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Maps;
+
+import alien4cloud.json.deserializer.PropertyConstraintDeserializer;
+import alien4cloud.json.serializer.BoundSerializer;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.IndexedToscaElement;
+import alien4cloud.model.components.PropertyConstraint;
+import alien4cloud.tosca.context.ToscaContext;
+import alien4cloud.utils.jackson.ConditionalAttributes;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Process-wide cache of TOSCA elements shared by all the {@link ToscaContext}s.
+ *
+ * The content of an archive version is immutable (except for SNAPSHOT versions that may be overridden, in which case the indexer invalidates the archive) so
+ * elements are cached per archive and element id. The cache also remembers that an element is not defined in an archive so that a context can resolve an
+ * element from its dependencies without any request to elastic search once all dependencies are known.
+ *
+ * Elements are cached in their serialized form (as indexed in elastic search) and every get returns a new instance: parsing merges parent types into child
+ * types and the editor modifies the elements of its context so cached elements must never be shared.
+ */
+@Slf4j
+@Component
+public class ToscaElementCache {
+    @Value("${tosca.element_cache.max_size:20000}")
+    private long maxSize = 20000;
+
+    private Cache<ElementKey, Optional<CachedElement>> cache;
+    private ObjectMapper mapper;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+        mapper = createMapper();
+    }
+
+    /**
+     * Get an element from the cache.
+     *
+     * @param dependency The archive in which to look for the element.
+     * @param elementClass The class of the element.
+     * @param elementId The id of the element.
+     * @return null if the cache doesn't know if the element exists in the archive, an empty optional if the element is not defined in the archive or an
+     *         optional that contains a copy of the cached element.
+     */
+    public Optional<IndexedToscaElement> get(CSARDependency dependency, Class<? extends IndexedToscaElement> elementClass, String elementId) {
+        ElementKey key = new ElementKey(dependency.getName(), dependency.getVersion(), elementClass.getSimpleName(), elementId);
+        Optional<CachedElement> cached = cache.getIfPresent(key);
+        if (cached == null || !cached.isPresent()) {
+            return cached == null ? null : Optional.empty();
+        }
+        try {
+            return Optional.of(mapper.readValue(cached.get().content, cached.get().elementClass));
+        } catch (IOException e) {
+            log.warn("Failed to read cached element " + key, e);
+            cache.invalidate(key);
+            return null;
+        }
+    }
+
+    /**
+     * Register the result of a search for an element in some dependencies.
+     *
+     * @param dependencies The dependencies in which the element has been searched.
+     * @param elementClass The class of the element.
+     * @param elementId The id of the element.
+     * @param elements The elements that have been found in the dependencies, dependencies that have no matching element are cached as not defining it. The
+     *            elements are copied so they can still be modified by the caller.
+     */
+    public void put(Collection<CSARDependency> dependencies, Class<? extends IndexedToscaElement> elementClass, String elementId,
+            Collection<? extends IndexedToscaElement> elements) {
+        String elementType = elementClass.getSimpleName();
+        Map<ElementKey, Optional<CachedElement>> entries = Maps.newHashMap();
+        for (CSARDependency dependency : dependencies) {
+            entries.put(new ElementKey(dependency.getName(), dependency.getVersion(), elementType, elementId), Optional.empty());
+        }
+        for (IndexedToscaElement element : elements) {
+            ElementKey key = new ElementKey(element.getArchiveName(), element.getArchiveVersion(), elementType, elementId);
+            try {
+                entries.put(key, Optional.of(new CachedElement(element.getClass(), mapper.writeValueAsBytes(element))));
+            } catch (IOException e) {
+                // don't cache anything rather than caching that the dependency doesn't define the element.
+                log.warn("Failed to cache element " + key, e);
+                return;
+            }
+        }
+        cache.putAll(entries);
+    }
+
+    /**
+     * Remove all the cached elements of an archive. This must be called when the elements of an archive are deleted or overridden.
+     *
+     * @param archiveName The name of the archive.
+     * @param archiveVersion The version of the archive.
+     */
+    public void invalidate(String archiveName, String archiveVersion) {
+        log.debug("Invalidate cached elements of archive {}:{}", archiveName, archiveVersion);
+        for (ElementKey key : cache.asMap().keySet()) {
+            if (key.archiveName.equals(archiveName) && key.archiveVersion.equals(archiveVersion)) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Remove all elements from the cache.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return The number of entries currently in the cache.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * @return The statistics of the cache (hits, misses, evictions).
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /** Create a mapper configured as the elastic search one so elements are copied as if read from the index. */
+    private static ObjectMapper createMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setConfig(mapper.getSerializationConfig().withAttribute(BoundSerializer.BOUND_SERIALIZER_AS_NUMBER, "true")
+                .withAttribute(ConditionalAttributes.ES, "true").withAttribute(ConditionalAttributes.ES_1_2, "true"));
+        mapper.setConfig(mapper.getDeserializationConfig().withAttribute(ConditionalAttributes.ES, "true").withAttribute(ConditionalAttributes.ES_1_2, "true"));
+        SimpleModule module = new SimpleModule("PropDeser", new Version(1, 0, 0, null, null, null));
+        try {
+            module.addDeserializer(PropertyConstraint.class, new PropertyConstraintDeserializer());
+        } catch (ClassNotFoundException | IOException | IntrospectionException e) {
+            log.warn("The property constraint deserialialisation failed");
+        }
+        mapper.registerModule(module);
+        return mapper;
+    }
+
+    @AllArgsConstructor
+    private static class CachedElement {
+        private final Class<? extends IndexedToscaElement> elementClass;
+        private final byte[] content;
+    }
+
+    @ToString
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class ElementKey {
+        private final String archiveName;
+        private final String archiveVersion;
+        private final String elementType;
+        private final String elementId;
+    }
+}
@@ -2,12 +2,18 @@ package alien4cloud.tosca.context;
 
 import java.util.*;
 
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Table;
 
 import alien4cloud.component.ICSARRepositorySearchService;
+import alien4cloud.component.ToscaElementCache;
+import alien4cloud.exception.NotFoundException;
 import alien4cloud.model.components.*;
 import alien4cloud.tosca.model.ArchiveRoot;
+import alien4cloud.utils.VersionUtil;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -18,6 +24,8 @@ import lombok.extern.slf4j.Slf4j;
 public class ToscaContext {
     @Setter
     private static ICSARRepositorySearchService csarSearchService;
+    @Setter
+    private static ToscaElementCache elementCache;
     private final static ThreadLocal<Context> contextThreadLocal = new ThreadLocal<>();
 
     /**
@@ -72,6 +80,15 @@ public class ToscaContext {
         return contextThreadLocal.get().getElement(elementClass, elementId, true);
     }
 
+    /**
+     * Load multiple elements in the current context so that following calls to get them are served from the local-cache.
+     *
+     * @param elementIds The ids of the elements to load by element class.
+     */
+    public static void load(SetMultimap<Class<? extends IndexedToscaElement>, String> elementIds) {
+        contextThreadLocal.get().loadElements(elementIds);
+    }
+
     /**
      * Destroy the tosca context.
      */
@@ -257,13 +274,121 @@ public class ToscaContext {
                 }
             }
 
-            T element = required ? csarSearchService.getRequiredElementInDependencies(elementClass, elementId, dependencies)
-                    : csarSearchService.getElementInDependencies(elementClass, elementId, dependencies);
+            T element = findInDependencies(elementClass, elementId);
             if (element != null) {
                 typeElements.put(elementId, element);
+            } else if (required) {
+                throw new NotFoundException(
+                        "Element elementId: <" + elementId + "> of type <" + elementClass.getSimpleName() + "> cannot be found in dependencies " + dependencies);
             }
             log.debug("Retrieve element {} {}", element, dependencies);
             return element;
         }
+
+        /**
+         * Load multiple elements in the local-cache using the shared element cache when possible and a single request to the repository for the others.
+         *
+         * @param elementIds The ids of the elements to load by element class.
+         */
+        public void loadElements(SetMultimap<Class<? extends IndexedToscaElement>, String> elementIds) {
+            if (dependencies == null || dependencies.isEmpty()) {
+                return;
+            }
+            SetMultimap<Class<? extends IndexedToscaElement>, String> missingIds = HashMultimap.create();
+            for (Map.Entry<Class<? extends IndexedToscaElement>, String> entry : elementIds.entries()) {
+                Map<String, IndexedToscaElement> typeElements = getTypeElements(entry.getKey());
+                if (typeElements.containsKey(entry.getValue())) {
+                    continue;
+                }
+                Optional<IndexedToscaElement> cached = getCached(entry.getKey(), entry.getValue());
+                if (cached == null) {
+                    missingIds.put(entry.getKey(), entry.getValue());
+                } else if (cached.isPresent()) {
+                    typeElements.put(entry.getValue(), cached.get());
+                }
+            }
+            if (missingIds.isEmpty()) {
+                return;
+            }
+            Table<Class<? extends IndexedToscaElement>, String, List<IndexedToscaElement>> elements = csarSearchService
+                    .getElementsVersionsInDependencies(missingIds, dependencies);
+            for (Map.Entry<Class<? extends IndexedToscaElement>, String> entry : missingIds.entries()) {
+                List<IndexedToscaElement> versions = elements.get(entry.getKey(), entry.getValue());
+                if (versions == null) {
+                    versions = Lists.newArrayList();
+                }
+                if (elementCache != null) {
+                    elementCache.put(dependencies, entry.getKey(), entry.getValue(), versions);
+                }
+                IndexedToscaElement element = getLatestVersion(versions);
+                if (element != null) {
+                    getTypeElements(entry.getKey()).put(entry.getValue(), element);
+                }
+            }
+            log.debug("Loaded {} elements from the repository for {} requested elements", missingIds.size(), elementIds.size());
+        }
+
+        private Map<String, IndexedToscaElement> getTypeElements(Class<? extends IndexedToscaElement> elementClass) {
+            String elementType = elementClass.getSimpleName();
+            Map<String, IndexedToscaElement> typeElements = toscaTypesCache.get(elementType);
+            if (typeElements == null) {
+                typeElements = new HashMap<>();
+                toscaTypesCache.put(elementType, typeElements);
+            }
+            return typeElements;
+        }
+
+        /**
+         * Find an element in the dependencies using the shared element cache when possible and the repository otherwise.
+         */
+        @SuppressWarnings("unchecked")
+        private <T extends IndexedToscaElement> T findInDependencies(Class<T> elementClass, String elementId) {
+            if (elementCache == null) {
+                return csarSearchService.getElementInDependencies(elementClass, elementId, dependencies);
+            }
+            if (dependencies == null || dependencies.isEmpty()) {
+                return null;
+            }
+            Optional<IndexedToscaElement> cached = getCached(elementClass, elementId);
+            if (cached == null) {
+                // at least one dependency is not known by the cache, fetch the element from all dependencies in a single request.
+                List<T> elements = csarSearchService.getElementsInDependencies(elementClass, elementId, dependencies);
+                elementCache.put(dependencies, elementClass, elementId, elements);
+                return getLatestVersion(elements);
+            }
+            return (T) cached.orElse(null);
+        }
+
+        /**
+         * Get the latest version of an element from the shared element cache.
+         *
+         * @return null if at least one of the dependencies is not known by the cache, the latest version of the element found in the dependencies otherwise.
+         */
+        private Optional<IndexedToscaElement> getCached(Class<? extends IndexedToscaElement> elementClass, String elementId) {
+            if (elementCache == null) {
+                return null;
+            }
+            IndexedToscaElement element = null;
+            for (CSARDependency dependency : dependencies) {
+                Optional<IndexedToscaElement> cached = elementCache.get(dependency, elementClass, elementId);
+                if (cached == null) {
+                    return null;
+                }
+                if (cached.isPresent() && (element == null || VersionUtil.compare(cached.get().getArchiveVersion(), element.getArchiveVersion()) > 0)) {
+                    element = cached.get();
+                }
+            }
+            return Optional.ofNullable(element);
+        }
+
+        private <T extends IndexedToscaElement> T getLatestVersion(List<T> elements) {
+            T latest = null;
+            for (T element : elements) {
+                if (latest == null || VersionUtil.compare(element.getArchiveVersion(), latest.getArchiveVersion()) > 0) {
+                    latest = element;
+                }
+            }
+            return latest;
+        }
     }
 }
\ No newline at end of file
@@ -1,18 +1,31 @@
 package alien4cloud.tosca.context;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import alien4cloud.component.ICSARRepositorySearchService;
+import alien4cloud.component.ToscaElementCache;
 
 /**
  * Manage tosca context
  */
 @Service
 public class ToscaContextInjector {
+    /** The shared element cache is optional, when not defined elements are always resolved through the search service. */
+    @Autowired(required = false)
+    private ToscaElementCache elementCache;
+
     @Resource
     public void setCsarSearchService(ICSARRepositorySearchService csarSearchService) {
         ToscaContext.setCsarSearchService(csarSearchService);
     }
+
+    @PostConstruct
+    public void setElementCache() {
+        // always set the cache (even if null) as the static field may have been set by another application context.
+        ToscaContext.setElementCache(elementCache);
+    }
 }
@@ -40,7 +40,7 @@ public abstract class AbstractTypeNodeParser {
         if (!propertyName.equals("void")) {
             // property named 'void' means : process the parsing but do not set anything
             try {
-                realTarget.setPropertyValue(propertyName, value);
+                BeanPropertyAccessors.setPropertyValue(realTarget, propertyName, value);
             } catch (NotWritablePropertyException e) {
                 log.warn("Error while setting property for yaml parsing.", e);
                 context.getParsingErrors().add(
@@ -53,8 +53,8 @@ public abstract class AbstractTypeNodeParser {
             KeyValueMappingTarget kvmt = (KeyValueMappingTarget) mappingTarget;
             BeanWrapper keyBeanWrapper = realTarget;
             try {
-                if (!(keyBeanWrapper.getPropertyValue(kvmt.getKeyPath()) != null && propertyName.equals(key))) {
-                    keyBeanWrapper.setPropertyValue(kvmt.getKeyPath(), key);
+                if (!(BeanPropertyAccessors.getPropertyValue(keyBeanWrapper, kvmt.getKeyPath()) != null && propertyName.equals(key))) {
+                    BeanPropertyAccessors.setPropertyValue(keyBeanWrapper, kvmt.getKeyPath(), key);
                 }
             } catch (NotWritablePropertyException e) {
                 log.warn("Error while setting key to property for yaml parsing.", e);
@@ -84,7 +84,7 @@ public abstract class AbstractTypeNodeParser {
             nextPath = path.substring(1);
         } else {
             String wrapperCandidateName = path.substring(0, path.indexOf("."));
-            Object wrapperCandidate = current.getPropertyValue(wrapperCandidateName);
+            Object wrapperCandidate = BeanPropertyAccessors.getPropertyValue(current, wrapperCandidateName);
             base = new BeanWrapperImpl(wrapperCandidate);
             nextPath = path.substring(path.indexOf(".") + 1);
         }
@@ -0,0 +1,141 @@
+package alien4cloud.tosca.parser;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.util.ClassUtils;
+
+import com.google.common.base.Optional;
+
+/**
+ * Cache of the property accessors used by the parsers to set parsed values on the model objects.
+ *
+ * Accessors are resolved once per class and property and invoked through method handles so that parsing a node does not resolve property paths through a
+ * {@link BeanWrapper}. Properties that are not simple bean properties (nested or indexed paths) and values that require a type conversion fall back to the
+ * bean wrapper.
+ */
+public final class BeanPropertyAccessors {
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final Map<Class<?>, Map<String, Optional<Accessor>>> ACCESSORS = new ConcurrentHashMap<>();
+
+    private BeanPropertyAccessors() {
+    }
+
+    /**
+     * Set the value of a property of the instance wrapped by the given bean wrapper.
+     *
+     * @param wrapper The bean wrapper of the instance.
+     * @param propertyName The name (or path) of the property.
+     * @param value The value to set.
+     */
+    public static void setPropertyValue(BeanWrapper wrapper, String propertyName, Object value) {
+        Accessor accessor = getAccessor(wrapper.getWrappedClass(), propertyName);
+        if (accessor == null || !accessor.canSet(value)) {
+            wrapper.setPropertyValue(propertyName, value);
+            return;
+        }
+        accessor.set(wrapper.getWrappedInstance(), value);
+    }
+
+    /**
+     * Set the value of a property of the given instance.
+     *
+     * @param instance The instance on which to set the value.
+     * @param propertyName The name (or path) of the property.
+     * @param value The value to set.
+     */
+    public static void setPropertyValue(Object instance, String propertyName, Object value) {
+        Accessor accessor = getAccessor(instance.getClass(), propertyName);
+        if (accessor == null || !accessor.canSet(value)) {
+            new BeanWrapperImpl(instance).setPropertyValue(propertyName, value);
+            return;
+        }
+        accessor.set(instance, value);
+    }
+
+    /**
+     * Get the value of a property of the instance wrapped by the given bean wrapper.
+     *
+     * @param wrapper The bean wrapper of the instance.
+     * @param propertyName The name (or path) of the property.
+     * @return The value of the property.
+     */
+    public static Object getPropertyValue(BeanWrapper wrapper, String propertyName) {
+        Accessor accessor = getAccessor(wrapper.getWrappedClass(), propertyName);
+        if (accessor == null || accessor.getter == null) {
+            return wrapper.getPropertyValue(propertyName);
+        }
+        return accessor.get(wrapper.getWrappedInstance());
+    }
+
+    private static Accessor getAccessor(Class<?> clazz, String propertyName) {
+        Map<String, Optional<Accessor>> classAccessors = ACCESSORS.computeIfAbsent(clazz, key -> new ConcurrentHashMap<>());
+        return classAccessors.computeIfAbsent(propertyName, key -> Optional.fromNullable(resolve(clazz, propertyName))).orNull();
+    }
+
+    private static Accessor resolve(Class<?> clazz, String propertyName) {
+        if (propertyName.indexOf('.') >= 0 || propertyName.indexOf('[') >= 0) {
+            return null;
+        }
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(clazz, propertyName);
+        if (descriptor == null || descriptor.getWriteMethod() == null) {
+            return null;
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            MethodHandle setter = lookup.unreflect(descriptor.getWriteMethod()).asType(SETTER_TYPE);
+            MethodHandle getter = descriptor.getReadMethod() == null ? null : lookup.unreflect(descriptor.getReadMethod()).asType(GETTER_TYPE);
+            return new Accessor(ClassUtils.resolvePrimitiveIfNecessary(descriptor.getPropertyType()), descriptor.getPropertyType().isPrimitive(), setter,
+                    getter);
+        } catch (IllegalAccessException e) {
+            // non public accessors are managed by the bean wrapper.
+            return null;
+        }
+    }
+
+    private static class Accessor {
+        private final Class<?> propertyType;
+        private final boolean primitive;
+        private final MethodHandle setter;
+        private final MethodHandle getter;
+
+        private Accessor(Class<?> propertyType, boolean primitive, MethodHandle setter, MethodHandle getter) {
+            this.propertyType = propertyType;
+            this.primitive = primitive;
+            this.setter = setter;
+            this.getter = getter;
+        }
+
+        private boolean canSet(Object value) {
+            return value == null ? !primitive : propertyType.isInstance(value);
+        }
+
+        private void set(Object instance, Object value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ParsingTechnicalException("Unable to set property of " + instance.getClass().getName(), e);
+            }
+        }
+
+        private Object get(Object instance) {
+            try {
+                return (Object) getter.invokeExact(instance);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ParsingTechnicalException("Unable to get property of " + instance.getClass().getName(), e);
+            }
+        }
+    }
+}
@@ -14,6 +14,8 @@ import org.yaml.snakeyaml.nodes.Node;
 public class ParsingContext {
     private String fileName;
     private List<ParsingError> parsingErrors = Lists.newArrayList();
+    /** Optional duration in milliseconds of the processing (parsing and import) of the file. */
+    private Long durationMs;
 
     public ParsingContext() {
     }
@@ -2,10 +2,9 @@ package alien4cloud.tosca.parser.impl.base;
 
 import java.util.Collection;
 
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
 import org.yaml.snakeyaml.nodes.*;
 
+import alien4cloud.tosca.parser.BeanPropertyAccessors;
 import alien4cloud.tosca.parser.INodeParser;
 import alien4cloud.tosca.parser.ParserUtils;
 import alien4cloud.tosca.parser.ParsingContextExecution;
@@ -65,8 +64,7 @@ public abstract class CollectionParser<T> implements INodeParser<Collection<T>>
                 T value = null;
                 value = valueParser.parse(entry.getValueNode(), context);
                 if (value != null) {
-                    BeanWrapper valueWrapper = new BeanWrapperImpl(value);
-                    valueWrapper.setPropertyValue(keyPath, key);
+                    BeanPropertyAccessors.setPropertyValue(value, keyPath, key);
                     collection.add(value);
                 }
             }
@@ -4,8 +4,6 @@ import java.util.Map;
 
 import javax.annotation.Resource;
 
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
@@ -16,6 +14,7 @@ import org.yaml.snakeyaml.nodes.ScalarNode;
 
 import com.google.common.collect.Maps;
 
+import alien4cloud.tosca.parser.BeanPropertyAccessors;
 import alien4cloud.tosca.parser.INodeParser;
 import alien4cloud.tosca.parser.ParserUtils;
 import alien4cloud.tosca.parser.ParsingContextExecution;
@@ -70,8 +69,7 @@ public class MapParser<T> implements INodeParser<Map<String, T>> {
             value = valueParser.parse(entry.getValueNode(), context);
             if (value != null) {
                 if (keyPath != null) {
-                    BeanWrapper valueWrapper = new BeanWrapperImpl(value);
-                    valueWrapper.setPropertyValue(keyPath, key);
+                    BeanPropertyAccessors.setPropertyValue(value, keyPath, key);
                 }
                 map.put(key, value);
             }
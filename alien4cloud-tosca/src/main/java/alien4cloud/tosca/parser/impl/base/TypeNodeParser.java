@@ -18,6 +18,7 @@ import com.google.common.collect.Maps;
 
 import alien4cloud.tosca.parser.*;
 import alien4cloud.tosca.parser.impl.ErrorCode;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -29,12 +30,24 @@ public class TypeNodeParser<T> extends AbstractTypeNodeParser implements INodePa
     private final Class<T> type;
     private final Map<String, MappingTarget> yamlToObjectMapping;
     private final Map<Integer, MappingTarget> yamlOrderedToObjectMapping;
+    /** Constructor used to create an instance from a scalar value, resolved once as the parser is shared by all parsings of a definition version. */
+    @Getter(AccessLevel.NONE)
+    private final Constructor<T> scalarConstructor;
 
     public TypeNodeParser(Class<T> type, String toscaType) {
         super(toscaType);
         this.type = type;
         yamlToObjectMapping = Maps.newLinkedHashMap();
         yamlOrderedToObjectMapping = Maps.newLinkedHashMap();
+        scalarConstructor = getScalarConstructor(type);
+    }
+
+    private static <T> Constructor<T> getScalarConstructor(Class<T> type) {
+        try {
+            return type.getConstructor(String.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
     }
 
     @Override
@@ -60,16 +73,13 @@ public class TypeNodeParser<T> extends AbstractTypeNodeParser implements INodePa
                 return null;
             } else {
                 // try to use instance default constructor based on string if any
-                Constructor<T> constructor;
-                try {
-                    constructor = type.getConstructor(String.class);
-                } catch (NoSuchMethodException e) {
+                if (scalarConstructor == null) {
                     // scalar value is not allowed to parse the node.
                     ParserUtils.addTypeError(node, context.getParsingErrors(), getToscaType());
                     return null;
                 }
                 try {
-                    return constructor.newInstance(scalarValue);
+                    return scalarConstructor.newInstance(scalarValue);
                 } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
                     log.error("Error while parsing Yaml, scalar value is not valid.", e);
                     context.getParsingErrors().add(new ParsingError(ErrorCode.SYNTAX_ERROR, "Invalid scalar value.", node.getStartMark(),
@@ -3,12 +3,19 @@ package alien4cloud.tosca.repository;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 
 import org.elasticsearch.index.query.QueryBuilder;
 import org.springframework.stereotype.Component;
 
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Lists;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Table;
+
 import alien4cloud.component.ICSARRepositorySearchService;
 import alien4cloud.exception.NotFoundException;
 import alien4cloud.model.components.CSARDependency;
@@ -85,6 +92,46 @@ public class LocalRepositoryImpl implements ICSARRepositorySearchService {
         return element;
     }
 
+    @Override
+    public <T extends IndexedToscaElement> List<T> getElementsInDependencies(Class<T> elementClass, String elementId, Collection<CSARDependency> dependencies) {
+        T element = getElementInDependencies(elementClass, elementId, dependencies);
+        return element == null ? Lists.<T> newArrayList() : Lists.newArrayList(element);
+    }
+
+    @Override
+    public Table<Class<? extends IndexedToscaElement>, String, List<IndexedToscaElement>> getElementsVersionsInDependencies(
+            SetMultimap<Class<? extends IndexedToscaElement>, String> elementIds, Collection<CSARDependency> dependencies) {
+        Table<Class<? extends IndexedToscaElement>, String, List<IndexedToscaElement>> elements = HashBasedTable.create();
+        for (Table.Cell<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> cell : getElementsInDependencies(elementIds, dependencies)
+                .cellSet()) {
+            elements.put(cell.getRowKey(), cell.getColumnKey(), Lists.newArrayList(cell.getValue()));
+        }
+        return elements;
+    }
+
+    @Override
+    public Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> getElementsInDependencies(
+            SetMultimap<Class<? extends IndexedToscaElement>, String> elementIds, Collection<CSARDependency> dependencies) {
+        Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> elements = HashBasedTable.create();
+        for (Map.Entry<Class<? extends IndexedToscaElement>, String> entry : elementIds.entries()) {
+            IndexedToscaElement element = getElementInDependencies(entry.getKey(), entry.getValue(), dependencies);
+            if (element != null) {
+                elements.put(entry.getKey(), entry.getValue(), element);
+            }
+        }
+        return elements;
+    }
+
+    @Override
+    public Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> getRequiredElementsInDependencies(
+            SetMultimap<Class<? extends IndexedToscaElement>, String> elementIds, Collection<CSARDependency> dependencies) throws NotFoundException {
+        Table<Class<? extends IndexedToscaElement>, String, IndexedToscaElement> elements = HashBasedTable.create();
+        for (Map.Entry<Class<? extends IndexedToscaElement>, String> entry : elementIds.entries()) {
+            elements.put(entry.getKey(), entry.getValue(), getRequiredElementInDependencies(entry.getKey(), entry.getValue(), dependencies));
+        }
+        return elements;
+    }
+
     @Override
     public <T extends IndexedToscaElement> T getElementInDependencies(Class<T> elementClass, QueryBuilder query, Collection<CSARDependency> dependencies) {
         return null;
@@ -2,11 +2,21 @@ package alien4cloud.tosca.serializer;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
@@ -17,10 +27,18 @@ import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
 /**
  * A velocity Util class
  */
+@Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class VelocityUtil {
 
     private static final VelocityEngine VELOCITY_ENGINE;
+    /**
+     * Parsed templates by path, templates are immutable once parsed and can be merged concurrently. This duplicates the classpath.resource.loader.cache of the
+     * engine on purpose: a getTemplate call on the engine goes through a synchronized cache and periodically checks the resource for modification.
+     */
+    private static final Map<String, Template> TEMPLATES = new ConcurrentHashMap<>();
+    /** Context holding the serializer helpers (stateless), it is chained to the context of every generation and never modified. */
+    private static final VelocityContext TOOLS_CONTEXT;
 
     static {
         // ThreadSafe so can be shared
@@ -32,22 +50,70 @@ public class VelocityUtil {
         VELOCITY_ENGINE.setProperty("classpath.resource.loader.cache", true);
         VELOCITY_ENGINE.setProperty("runtime.log.logsystem.class", "org.apache.velocity.runtime.log.NullLogSystem");
         VELOCITY_ENGINE.init();
-    }
 
-    public static void generate(String path, Writer outputWriter, Map<String, ?> properties) throws IOException {
-        Template template = VELOCITY_ENGINE.getTemplate(path, "UTF-8");
-        VelocityContext context = new VelocityContext();
+        TOOLS_CONTEXT = new VelocityContext();
+        TOOLS_CONTEXT.put("utils", new ToscaSerializerUtils());
+        TOOLS_CONTEXT.put("propertyUtils", new ToscaPropertySerializerUtils());
+    }
 
-        for (Entry<String, ?> contextEntry : properties.entrySet()) {
-            context.put(contextEntry.getKey(), contextEntry.getValue());
+    /**
+     * Load and parse templates so the first generations do not pay for it.
+     *
+     * @param paths The classpath locations of the templates.
+     */
+    public static void preload(String... paths) {
+        for (String path : paths) {
+            getTemplate(path);
         }
-        context.put("utils", new ToscaSerializerUtils());
-        context.put("propertyUtils", new ToscaPropertySerializerUtils());
+    }
 
+    /**
+     * Merge a template and close the writer.
+     *
+     * @param path The classpath location of the template.
+     * @param outputWriter The writer in which to generate the content, closed once the template has been merged.
+     * @param properties The properties available to the template (in addition to utils and propertyUtils).
+     */
+    public static void generate(String path, Writer outputWriter, Map<String, ?> properties) throws IOException {
+        Template template = getTemplate(path);
+        // properties are copied as the template may set variables in the context.
+        VelocityContext context = new VelocityContext(new HashMap<String, Object>(properties), TOOLS_CONTEXT);
         try {
             template.merge(context, outputWriter);
         } finally {
             outputWriter.close();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Merge a template directly into a file. The content is written to a temporary file that atomically replaces the target once fully generated so the
+     * target is never left half written. The temporary file keeps the permissions of the target (or the default permissions if the target doesn't exist).
+     *
+     * @param path The classpath location of the template.
+     * @param targetPath The file to generate.
+     * @param tempDirPath The directory in which to write the temporary file, it must not be in a git working tree as the temporary file may be left there if
+     *            the process is killed. It should be on the same file store as the target so the file can be moved atomically.
+     * @param properties The properties available to the template (in addition to utils and propertyUtils).
+     */
+    public static void generate(String path, Path targetPath, Path tempDirPath, Map<String, ?> properties) throws IOException {
+        Path tempPath = tempDirPath.resolve(targetPath.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            generate(path, Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), properties);
+            if (Files.exists(targetPath) && Files.getFileAttributeView(targetPath, PosixFileAttributeView.class) != null) {
+                Files.setPosixFilePermissions(tempPath, Files.getPosixFilePermissions(targetPath));
+            }
+            try {
+                Files.move(tempPath, targetPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                log.warn("Unable to move <{}> atomically to <{}>, the temporary directory should be on the same file store.", tempPath, targetPath);
+                Files.move(tempPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    private static Template getTemplate(String path) {
+        return TEMPLATES.computeIfAbsent(path, templatePath -> VELOCITY_ENGINE.getTemplate(templatePath, "UTF-8"));
+    }
+}
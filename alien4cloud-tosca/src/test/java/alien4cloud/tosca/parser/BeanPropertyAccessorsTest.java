@@ -0,0 +1,151 @@
+package alien4cloud.tosca.parser;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Check that the property accessors behave as the {@link BeanWrapper} they replace: same values set and read, same conversions and same errors.
+ */
+public class BeanPropertyAccessorsTest {
+
+    @Test
+    public void simplePropertiesAreSetAndRead() {
+        TestBean bean = new TestBean();
+        BeanPropertyAccessors.setPropertyValue(bean, "name", "value");
+        BeanPropertyAccessors.setPropertyValue(new BeanWrapperImpl(bean), "count", 3);
+        BeanPropertyAccessors.setPropertyValue(bean, "any", 4L);
+
+        Assert.assertEquals("value", bean.getName());
+        Assert.assertEquals(3, bean.getCount());
+        Assert.assertEquals(4L, bean.getAny());
+        Assert.assertEquals("value", BeanPropertyAccessors.getPropertyValue(new BeanWrapperImpl(bean), "name"));
+        Assert.assertEquals(3, BeanPropertyAccessors.getPropertyValue(new BeanWrapperImpl(bean), "count"));
+        assertSameAsBeanWrapper("name", null);
+        assertSameAsBeanWrapper("any", "any value");
+    }
+
+    @Test
+    public void inheritedPropertiesAreSetAndRead() {
+        ChildTestBean bean = new ChildTestBean();
+        BeanPropertyAccessors.setPropertyValue(bean, "name", "parent");
+        BeanPropertyAccessors.setPropertyValue(bean, "childName", "child");
+
+        Assert.assertEquals("parent", bean.getName());
+        Assert.assertEquals("child", BeanPropertyAccessors.getPropertyValue(new BeanWrapperImpl(bean), "childName"));
+    }
+
+    @Test
+    public void nestedAndIndexedPathsAreResolvedAsWithBeanWrapper() {
+        TestBean bean = new TestBean();
+        bean.setChild(new TestBean());
+        BeanPropertyAccessors.setPropertyValue(bean, "child.name", "nested");
+        BeanPropertyAccessors.setPropertyValue(bean, "values[0]", "first");
+        BeanPropertyAccessors.setPropertyValue(bean, "map[key]", "mapped");
+
+        Assert.assertEquals("nested", bean.getChild().getName());
+        Assert.assertEquals("first", bean.getValues().get(0));
+        Assert.assertEquals("mapped", bean.getMap().get("key"));
+        Assert.assertEquals("nested", BeanPropertyAccessors.getPropertyValue(new BeanWrapperImpl(bean), "child.name"));
+        Assert.assertEquals("mapped", BeanPropertyAccessors.getPropertyValue(new BeanWrapperImpl(bean), "map[key]"));
+        // null intermediate properties fail as with the bean wrapper.
+        assertSameAsBeanWrapper("child.name", "nested");
+    }
+
+    @Test
+    public void valuesAreConvertedAsWithBeanWrapper() {
+        TestBean bean = new TestBean();
+        BeanPropertyAccessors.setPropertyValue(bean, "count", "12");
+        BeanPropertyAccessors.setPropertyValue(bean, "enabled", "true");
+        BeanPropertyAccessors.setPropertyValue(bean, "level", "HIGH");
+        BeanPropertyAccessors.setPropertyValue(bean, "name", 5);
+
+        Assert.assertEquals(12, bean.getCount());
+        Assert.assertTrue(bean.isEnabled());
+        Assert.assertEquals(Level.HIGH, bean.getLevel());
+        Assert.assertEquals("5", bean.getName());
+        assertSameAsBeanWrapper("count", "12");
+        assertSameAsBeanWrapper("count", "not a number");
+        assertSameAsBeanWrapper("count", null);
+        assertSameAsBeanWrapper("level", "UNKNOWN");
+    }
+
+    @Test
+    public void missingPropertiesFailAsWithBeanWrapper() {
+        assertSameAsBeanWrapper("missing", "value");
+        assertSameAsBeanWrapper("readOnly", "value");
+
+        TestBean bean = new TestBean();
+        assertSameException(() -> new BeanWrapperImpl(bean).getPropertyValue("missing"),
+                () -> BeanPropertyAccessors.getPropertyValue(new BeanWrapperImpl(bean), "missing"));
+        assertSameException(() -> new BeanWrapperImpl(bean).getPropertyValue("writeOnly"),
+                () -> BeanPropertyAccessors.getPropertyValue(new BeanWrapperImpl(bean), "writeOnly"));
+        // a property that cannot be resolved is not cached as valid for a later call.
+        assertSameAsBeanWrapper("missing", "value");
+    }
+
+    /**
+     * Set a property on two new beans, one with the accessors and one with a bean wrapper, and check that both beans are in the same state or that both
+     * calls failed with the same exception.
+     */
+    private void assertSameAsBeanWrapper(String propertyName, Object value) {
+        TestBean expected = new TestBean();
+        TestBean actual = new TestBean();
+        assertSameException(() -> new BeanWrapperImpl(expected).setPropertyValue(propertyName, value),
+                () -> BeanPropertyAccessors.setPropertyValue(actual, propertyName, value));
+        Assert.assertEquals(expected, actual);
+    }
+
+    private void assertSameException(Runnable expected, Runnable actual) {
+        Assert.assertEquals(exceptionClass(expected), exceptionClass(actual));
+    }
+
+    private Class<?> exceptionClass(Runnable runnable) {
+        try {
+            runnable.run();
+            return null;
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    public enum Level {
+        LOW, HIGH
+    }
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    public static class TestBean {
+        private String name;
+        private int count;
+        private boolean enabled;
+        private Level level;
+        private Object any;
+        private TestBean child;
+        private List<String> values = Lists.newArrayList("");
+        private Map<String, String> map = Maps.newHashMap();
+        @Setter(AccessLevel.NONE)
+        private String readOnly;
+        @Getter(AccessLevel.NONE)
+        private String writeOnly;
+    }
+
+    @Getter
+    @Setter
+    public static class ChildTestBean extends TestBean {
+        private String childName;
+    }
+}